@@ -57,10 +57,22 @@ public class IBaseFragment extends BaseFragment {
     }
 
     public void jumpToVideo(int id,String name,String url){
+        jumpToVideo(id,name,url,null,null);
+    }
+
+    /**
+     * 从列表进入详情页，带上列表里的封面和封面控件的尺寸，详情页先显示列表已经缓存的封面
+     */
+    public void jumpToVideo(int id,String name,String url,String cover,View coverView){
         VideoInComeBean videoInComeBean = new VideoInComeBean();
         videoInComeBean.setId(id);
         videoInComeBean.setVideoName(name);
         videoInComeBean.setVideoUrl(url);
+        if (cover != null && coverView != null) {
+            videoInComeBean.setVideoCover(cover);
+            videoInComeBean.setCoverWidth(coverView.getWidth());
+            videoInComeBean.setCoverHeight(coverView.getHeight());
+        }
         Bundle bundle = new Bundle();
         bundle.putSerializable(VideoActivity.VIDEO_KEY, (Serializable) videoInComeBean);
         openActivity(VideoActivity.class,bundle);
@@ -187,7 +187,7 @@ public class ChannelFragment extends IBaseFragment implements  SwipeRefreshLayou
         new Handler().postDelayed(new Runnable() {
             @Override
             public void run() {
-                mChannelPresenter.fetchData();
+                mChannelPresenter.refreshData();
             }
         },100);
     }
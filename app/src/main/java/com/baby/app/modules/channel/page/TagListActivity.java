@@ -10,6 +10,7 @@ import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
+import com.android.baselibrary.base.Constants;
 import com.android.baselibrary.base.standard.YQApi;
 import com.android.baselibrary.recycleradapter.BaseQuickAdapter;
 import com.android.baselibrary.service.bean.channel.ChannelTagBean;
@@ -152,6 +153,7 @@ public class TagListActivity extends IBaseActivity implements DetailListView, Sw
         mRefreshLayout.setRefreshing(true);
         mTagListAdapter.openLoadAnimation();
         mTagListAdapter.setOnLoadMoreListener(this);
+        mTagListAdapter.setPreLoadNumber(Constants.LIST_PRELOAD_NUMBER);
     }
 
     //加载更多
@@ -173,7 +175,7 @@ public class TagListActivity extends IBaseActivity implements DetailListView, Sw
     @Override
     public void onRefresh() {
         request.setPageNum(1);
-        mDetaiiListPresenter.fetchListByClassId(request);
+        mDetaiiListPresenter.refreshListByClassId(request);
     }
 
     @Override
@@ -27,6 +27,14 @@ public class ChannelPresenter extends BasePresenter {
         return mChannelView;
     }
 
+    /**
+     * 下拉刷新，丢掉缓存重新请求
+     */
+    public void refreshData() {
+        NetService.getInstance().invalidate("channelInfo");
+        fetchData();
+    }
+
     public void fetchData() {
         requestDateNew(NetService.getInstance().channelInfo(), "", new BaseCallBack() {
             @Override
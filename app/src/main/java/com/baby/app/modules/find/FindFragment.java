@@ -12,7 +12,9 @@ import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
+import com.android.baselibrary.base.Constants;
 import com.android.baselibrary.base.standard.YQApi;
+import com.android.baselibrary.picture.RecyclerViewPreloader;
 import com.android.baselibrary.recycleradapter.BaseQuickAdapter;
 import com.android.baselibrary.service.bean.find.FindBean;
 import com.android.baselibrary.usermanger.UserStorage;
@@ -51,6 +53,11 @@ public class FindFragment extends IBaseFragment implements SwipeRefreshLayout.On
 
     public static final String TAG = "FindFragment";
 
+    /**
+     * 滑动时提前加载后面几个封面，一屏大约两个半
+     */
+    private static final int COVER_PRELOAD_COUNT = 4;
+
     private RecyclerView mRecyclerView;
     private RefreshLayout mSwipeRefreshLayout;
 
@@ -100,6 +107,8 @@ public class FindFragment extends IBaseFragment implements SwipeRefreshLayout.On
 
         mFindAdapter = new FindAdapter(R.layout.item_find_layout, findBeanList);
         mRecyclerView.setAdapter(mFindAdapter);
+        mRecyclerView.addOnScrollListener(new RecyclerViewPreloader<>(mFindAdapter,
+                mFindAdapter.getPreloadSizeProvider(), COVER_PRELOAD_COUNT));
         mFindAdapter.setOnItemClickListener(new BaseQuickAdapter.OnItemClickListener() {
             @Override
             public void onItemClick(BaseQuickAdapter adapter, View view, int position) {
@@ -139,6 +148,7 @@ public class FindFragment extends IBaseFragment implements SwipeRefreshLayout.On
         mSwipeRefreshLayout.setRefreshing(true);
         mFindAdapter.openLoadAnimation();
         mFindAdapter.setOnLoadMoreListener(this);
+        mFindAdapter.setPreLoadNumber(Constants.LIST_PRELOAD_NUMBER);
         mFindPresenter.fetchData(1);
 
     }
@@ -170,7 +180,7 @@ public class FindFragment extends IBaseFragment implements SwipeRefreshLayout.On
     @Override
     public void onRefresh() {
         pageNum = 1;
-        mFindPresenter.fetchData(pageNum);
+        mFindPresenter.refreshData();
     }
 
     //加载更多
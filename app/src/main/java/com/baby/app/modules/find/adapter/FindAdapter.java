@@ -14,18 +14,28 @@ import com.android.baselibrary.usermanger.UserType;
 import com.android.baselibrary.util.GlideUtils;
 import com.baby.app.R;
 import com.baby.app.service.DownInfoModel;
+import com.bumptech.glide.GenericRequestBuilder;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Created by yongqianggeng on 2018/9/29.
  */
 
-public class FindAdapter extends BaseQuickAdapter<FindBean.Data,BaseViewHolder> {
+public class FindAdapter extends BaseQuickAdapter<FindBean.Data,BaseViewHolder>
+        implements ListPreloader.PreloadModelProvider<String> {
 
     private DownInfoModel model = new DownInfoModel();
     private FindAdapterLisenter mFindAdapterLisenter;
 
+    /**
+     * 封面的尺寸，取第一个绑定的封面控件，预加载按这个尺寸加载
+     */
+    private final ViewPreloadSizeProvider<String> mPreloadSizeProvider = new ViewPreloadSizeProvider<>();
+
     public void setmFindAdapterLisenter(FindAdapterLisenter mFindAdapterLisenter) {
         this.mFindAdapterLisenter = mFindAdapterLisenter;
     }
@@ -45,6 +55,7 @@ public class FindAdapter extends BaseQuickAdapter<FindBean.Data,BaseViewHolder>
         }
 
         ImageView imageView = helper.getView(R.id.videoCover_img_view);
+        mPreloadSizeProvider.setView(imageView);
         TextView countTextView = helper.getView(R.id.find_count_view);
         GlideUtils
                 .getInstance()
@@ -106,6 +117,25 @@ public class FindAdapter extends BaseQuickAdapter<FindBean.Data,BaseViewHolder>
 
     }
 
+    public ViewPreloadSizeProvider<String> getPreloadSizeProvider() {
+        return mPreloadSizeProvider;
+    }
+
+    @Override
+    public List<String> getPreloadItems(int position) {
+        int index = position - getHeaderLayoutCount();
+        FindBean.Data item = index >= 0 ? getItem(index) : null;
+        if (item == null || item.getVideoCover() == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(item.getVideoCover());
+    }
+
+    @Override
+    public GenericRequestBuilder getPreloadRequestBuilder(String cover) {
+        return GlideUtils.getInstance().newContextBitmapRequest(mContext, cover);
+    }
+
     public interface FindAdapterLisenter {
 
         void onLike(FindBean.Data data);
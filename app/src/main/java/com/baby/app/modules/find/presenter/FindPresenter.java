@@ -28,6 +28,14 @@ public class FindPresenter extends BasePresenter {
         return mFindView;
     }
 
+    /**
+     * 下拉刷新，丢掉缓存的页重新从第一页加载
+     */
+    public void refreshData() {
+        NetService.getInstance().invalidate("getFindVideo");
+        fetchData(1);
+    }
+
     public void fetchData(int pageNum) {
         requestDateNew(NetService.getInstance().getFindVideo(pageNum), "", new BaseCallBack() {
             @Override
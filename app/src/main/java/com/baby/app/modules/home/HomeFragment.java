@@ -6,8 +6,10 @@ import android.os.Handler;
 import android.support.v4.widget.SwipeRefreshLayout;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.OrientationHelper;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.RelativeLayout;
@@ -15,6 +17,7 @@ import android.widget.RelativeLayout;
 import com.android.baselibrary.base.BaseFragment;
 import com.android.baselibrary.base.Constants;
 import com.android.baselibrary.base.standard.YQApi;
+import com.android.baselibrary.log.StartupTrace;
 import com.android.baselibrary.page.CommonWebViewActivity;
 import com.android.baselibrary.service.bean.channel.ChannelTagBean;
 import com.android.baselibrary.service.bean.home.HomeBannerBean;
@@ -23,6 +26,7 @@ import com.android.baselibrary.service.bean.home.HomeDataBean;
 import com.android.baselibrary.service.bean.home.HomeListBean;
 import com.android.baselibrary.service.bean.home.HomeStarBean;
 import com.android.baselibrary.service.bean.video.VideoInComeBean;
+import com.android.baselibrary.service.http.NetWarmer;
 import com.android.baselibrary.usermanger.UserStorage;
 import com.android.baselibrary.util.GlideUtils;
 import com.android.baselibrary.widget.NoScrollRecyclerView;
@@ -79,6 +83,8 @@ public class HomeFragment extends IBaseFragment implements  SwipeRefreshLayout.O
     private NoScrollRecyclerView rv_home_list;
     private RelativeLayout rl_home_list;
     private HomeTypeAdapter multipleItemAdapter;
+    // 各视频区块共用的格子缓存，刷新重建 adapter 后继续复用
+    private final RecyclerView.RecycledViewPool mVideoCellPool = new RecyclerView.RecycledViewPool();
     // 布局的类型
     List<HomeTypeBean> listItems = new ArrayList<>();
     private CardPageTransformer mTransformer;
@@ -170,8 +176,56 @@ public class HomeFragment extends IBaseFragment implements  SwipeRefreshLayout.O
         rv_home_list.setNestedScrollingEnabled(false);
         rv_home_list.setLayoutManager(linearLayoutManager);
 
-        multipleItemAdapter = new HomeTypeAdapter(listItems, mHomeDataBean, mContext);
+        // HomeListAdapter 的格子类型为 0，默认只缓存 5 个，不够几个区块来回复用
+        mVideoCellPool.setMaxRecycledViews(0, 24);
+        multipleItemAdapter = new HomeTypeAdapter(listItems, mHomeDataBean, mContext, mVideoCellPool);
         rv_home_list.setAdapter(multipleItemAdapter);
+        multipleItemAdapter.setmHomeTypeAdapterLisenter(new HomeTypeAdapter.HomeTypeAdapterLisenter() {
+            @Override
+            //分类点击
+            public void onClassClick(HomeClassBean homeClassBean) {
+                Bundle bundle = new Bundle();
+                bundle.putInt(HomeClassActivity.HOME_CLASS_TYPE,1);
+                bundle.putSerializable(HomeClassActivity.HOME_CLASS_KEY, (Serializable) homeClassBean);
+                openActivity(HomeClassActivity.class,bundle);
+            }
+            //最新片源更多
+            @Override
+            public void onNewMoreMovies() {
+                Bundle bundle = new Bundle();
+                bundle.putInt(HomeClassActivity.HOME_CLASS_TYPE,2);
+                bundle.putInt(HomeClassActivity.HOME_MORE_KEY,2);
+                openActivity(HomeClassActivity.class,bundle);
+            }
+
+            @Override
+            public void onStarMoreMovies() {
+                openActivity(HomeStarActivity.class);
+            }
+
+            @Override
+            public void onStarMovies(HomeStarBean homeStarBean) {
+                Bundle bundle = new Bundle();
+                bundle.putSerializable(StarDetailActivity.STAR_DETAIL_TYPE,homeStarBean);
+                openActivity(StarDetailActivity.class,bundle);
+            }
+
+            @Override
+            //
+            public void gotoVideo(HomeListBean listBean, ImageView coverView) {
+                jumpToVideo(listBean.getId(),listBean.getVideoName(),listBean.getVideoUrl(),
+                        listBean.getVideoCover(),coverView);
+            }
+
+            //最多片源更多
+            @Override
+            public void onHotMoreMovies() {
+                Bundle bundle = new Bundle();
+                bundle.putInt(HomeClassActivity.HOME_CLASS_TYPE,2);
+                bundle.putInt(HomeClassActivity.HOME_MORE_KEY,1);
+                openActivity(HomeClassActivity.class,bundle);
+            }
+        });
     }
 
     /**
@@ -238,7 +292,7 @@ public class HomeFragment extends IBaseFragment implements  SwipeRefreshLayout.O
         new Handler().post(new Runnable() {
             @Override
             public void run() {
-                mHomePresenter.fetchHomeData();
+                mHomePresenter.refreshHomeData();
             }
         });
 
@@ -265,70 +319,64 @@ public class HomeFragment extends IBaseFragment implements  SwipeRefreshLayout.O
         mHomeDataBean = dataBean;
         //TODO:先处理banner
         data_banner_string.clear();
-        listItems.clear();
         for (HomeBannerBean bannerBean:dataBean.getData().getBannerList()) {
             data_banner_string.add(bannerBean.getPicUrl());
         }
+        //记下图片域名，下次启动时预解析
+        NetWarmer.rememberUrls(data_banner_string);
         showBanner();
-        //TODO:处理列表
-        if (mHomeDataBean.getData() != null && mHomeDataBean.getData().getClassifyList()!=null &&mHomeDataBean.getData().getClassifyList().size()>0) {
-            listItems.add(new HomeTypeBean(HomeTypeBean.LAYOUT_CLASS));
-        }
-        if (mHomeDataBean.getData() != null && mHomeDataBean.getData().getNewVideoList()!=null &&mHomeDataBean.getData().getNewVideoList().size()>0) {
-            listItems.add(new HomeTypeBean(HomeTypeBean.LAYOUT_NEW_LIST));
-        }
-        if (mHomeDataBean.getData() != null && mHomeDataBean.getData().getMostVideoList()!=null &&mHomeDataBean.getData().getMostVideoList().size()>0) {
-            listItems.add(new HomeTypeBean(HomeTypeBean.LAYOUT_HOT_LIST));
-        }
-        if (mHomeDataBean.getData() != null && mHomeDataBean.getData().getStarList()!=null &&mHomeDataBean.getData().getStarList().size()>0) {
-            listItems.add(new HomeTypeBean(HomeTypeBean.LAYOUT_MAN_LIST));
+        //处理列表：banner 先出，区块逐帧添加，不用等所有区块一起 inflate 完才显示
+        //同一个 adapter 换数据：已经显示过的区块直接整体重新绑定，区块里的列表和格子都留着复用
+        rv_home_list.removeCallbacks(mAppendSection);
+        multipleItemAdapter.setHomeData(dataBean);
+        List<HomeTypeBean> sections = multipleItemAdapter.buildSections();
+        if (listItems.isEmpty()) {
+            mPendingSections = sections;
+            rv_home_list.postOnAnimation(mAppendSection);
+        } else {
+            mPendingSections.clear();
+            listItems.clear();
+            listItems.addAll(sections);
+            multipleItemAdapter.setNewData(listItems);
         }
+    }
 
-        multipleItemAdapter = new HomeTypeAdapter(listItems, dataBean, mContext);
-        rv_home_list.setAdapter(multipleItemAdapter);
-        multipleItemAdapter.setmHomeTypeAdapterLisenter(new HomeTypeAdapter.HomeTypeAdapterLisenter() {
-            @Override
-            //分类点击
-            public void onClassClick(HomeClassBean homeClassBean) {
-                Bundle bundle = new Bundle();
-                bundle.putInt(HomeClassActivity.HOME_CLASS_TYPE,1);
-                bundle.putSerializable(HomeClassActivity.HOME_CLASS_KEY, (Serializable) homeClassBean);
-                openActivity(HomeClassActivity.class,bundle);
-            }
-            //最新片源更多
-            @Override
-            public void onNewMoreMovies() {
-                Bundle bundle = new Bundle();
-                bundle.putInt(HomeClassActivity.HOME_CLASS_TYPE,2);
-                bundle.putInt(HomeClassActivity.HOME_MORE_KEY,2);
-                openActivity(HomeClassActivity.class,bundle);
-            }
+    private List<HomeTypeBean> mPendingSections = new ArrayList<>();
 
-            @Override
-            public void onStarMoreMovies() {
-                openActivity(HomeStarActivity.class);
+    /**
+     * 每次添加一个区块，下一帧再添加下一个
+     */
+    private final Runnable mAppendSection = new Runnable() {
+        @Override
+        public void run() {
+            if (mPendingSections.isEmpty()) {
+                return;
             }
-
-            @Override
-            public void onStarMovies(HomeStarBean homeStarBean) {
-                Bundle bundle = new Bundle();
-                bundle.putSerializable(StarDetailActivity.STAR_DETAIL_TYPE,homeStarBean);
-                openActivity(StarDetailActivity.class,bundle);
+            multipleItemAdapter.addData(mPendingSections.remove(0));
+            if (listItems.size() == 1) {
+                markFirstContentDrawn();
             }
-
-            @Override
-            //
-            public void gotoVideo(HomeListBean listBean) {
-                jumpToVideo(listBean.getId(),listBean.getVideoName(),listBean.getVideoUrl());
+            if (!mPendingSections.isEmpty()) {
+                rv_home_list.postOnAnimation(this);
             }
+        }
+    };
 
-            //最多片源更多
+    /**
+     * 第一个区块真正画出来之后再打点：等下一次绘制前的回调，再 post 到这一帧画完之后
+     */
+    private void markFirstContentDrawn() {
+        rv_home_list.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
             @Override
-            public void onHotMoreMovies() {
-                Bundle bundle = new Bundle();
-                bundle.putInt(HomeClassActivity.HOME_CLASS_TYPE,2);
-                bundle.putInt(HomeClassActivity.HOME_MORE_KEY,1);
-                openActivity(HomeClassActivity.class,bundle);
+            public boolean onPreDraw() {
+                rv_home_list.getViewTreeObserver().removeOnPreDrawListener(this);
+                rv_home_list.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        StartupTrace.mark(StartupTrace.FIRST_CONTENT);
+                    }
+                });
+                return true;
             }
         });
     }
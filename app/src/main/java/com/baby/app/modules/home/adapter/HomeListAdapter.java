@@ -1,6 +1,7 @@
 package com.baby.app.modules.home.adapter;
 
 import android.support.annotation.Nullable;
+import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
 
@@ -14,6 +15,8 @@ import java.util.List;
 
 /**
  * Created by yongqianggeng on 2018/9/24.
+ * 首页区块里的视频格子，格子放在各区块共用的 RecycledViewPool 里，
+ * 可能是别的 HomeListAdapter 创建的：点击事件在绑定时设置，context 取格子自己的
  */
 
 public class HomeListAdapter extends BaseQuickAdapter<HomeListBean,BaseViewHolder> {
@@ -22,13 +25,19 @@ public class HomeListAdapter extends BaseQuickAdapter<HomeListBean,BaseViewHolde
         super(layoutResId, data);
     }
 
+    private HomeListAdapterLisenter mHomeListAdapterLisenter;
+
+    public void setmHomeListAdapterLisenter(HomeListAdapterLisenter homeListAdapterLisenter) {
+        this.mHomeListAdapterLisenter = homeListAdapterLisenter;
+    }
+
     @Override
-    protected void convert(BaseViewHolder helper, HomeListBean item) {
-        ImageView imageView = helper.getView(R.id.iv_home_function);
+    protected void convert(BaseViewHolder helper, final HomeListBean item) {
+        final ImageView imageView = helper.getView(R.id.iv_home_function);
         TextView textView = helper.getView(R.id.tv_home_function);
         GlideUtils
                 .getInstance()
-                .LoadNewContextBitmap(mContext,
+                .LoadNewContextBitmap(helper.convertView.getContext(),
                         item.getVideoCover(),
                         imageView,
                         R.mipmap.video_cover,
@@ -36,5 +45,22 @@ public class HomeListAdapter extends BaseQuickAdapter<HomeListBean,BaseViewHolde
                         GlideUtils.LOAD_BITMAP);
 
         textView.setText(item.getVideoName());
+
+        helper.convertView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (mHomeListAdapterLisenter != null) {
+                    mHomeListAdapterLisenter.onItemClick(item, imageView);
+                }
+            }
+        });
+    }
+
+    public interface HomeListAdapterLisenter {
+
+        /**
+         * @param coverView 封面控件，详情页按它的尺寸复用列表里缓存的封面
+         */
+        void onItemClick(HomeListBean listBean, ImageView coverView);
     }
 }
@@ -4,9 +4,9 @@ import android.content.Context;
 import android.graphics.Rect;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
-import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.android.baselibrary.recycleradapter.BaseMultiItemQuickAdapter;
@@ -38,6 +38,11 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
 
     private HomeTypeAdapterLisenter mHomeTypeAdapterLisenter;
 
+    /**
+     * 所有视频区块共用的格子缓存，由页面持有
+     */
+    private final RecyclerView.RecycledViewPool mVideoCellPool;
+
     public void setmHomeTypeAdapterLisenter(HomeTypeAdapterLisenter homeTypeAdapterLisenter) {
         this.mHomeTypeAdapterLisenter = homeTypeAdapterLisenter;
     }
@@ -49,49 +54,70 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
      * @param data A new list is created out of this one to avoid mutable list
      */
 
-    public HomeTypeAdapter(List data,HomeDataBean dataBean,Context context) {
+    public HomeTypeAdapter(List data, HomeDataBean dataBean, Context context, RecyclerView.RecycledViewPool videoCellPool) {
         super(data);
 
+        this.mVideoCellPool = videoCellPool;
+
         this.homeTypeBeans = data;
+
+        // 固定区块的布局先全部注册，区块本身由 buildSections 给出、可以逐个添加
+        addItemType(HomeTypeBean.LAYOUT_CLASS, R.layout.home_class_layout);
+        addItemType(HomeTypeBean.LAYOUT_NEW_LIST, R.layout.home_list_layout);
+        addItemType(HomeTypeBean.LAYOUT_HOT_LIST, R.layout.home_list_layout);
+        addItemType(HomeTypeBean.LAYOUT_MAN_LIST, R.layout.home_man_list_layout);
+
+        setHomeData(dataBean);
+
+        this.mContext = context;
+    }
+
+    /**
+     * 换成新的首页数据，并注册新出现的分类区块布局；区块列表另外用 setNewData / addData 更新
+     */
+    public void setHomeData(HomeDataBean dataBean) {
         if (dataBean == null) {
             this.homeDataBean = new HomeDataBean();
         } else {
             this.homeDataBean = dataBean;
         }
 
-        int size = homeTypeBeans.size();
-        for (int i = 0; i < size; i++) {
-            switch (homeTypeBeans.get(i).getItemType()) {
-                case HomeTypeBean.LAYOUT_CLASS:
-                    addItemType(HomeTypeBean.LAYOUT_CLASS, R.layout.home_class_layout);
-                    break;
-                case HomeTypeBean.LAYOUT_NEW_LIST:
-                    addItemType(HomeTypeBean.LAYOUT_NEW_LIST, R.layout.home_list_layout);
-                    break;
-                case HomeTypeBean.LAYOUT_HOT_LIST:
-                    addItemType(HomeTypeBean.LAYOUT_HOT_LIST, R.layout.home_list_layout);
-                    break;
-                case HomeTypeBean.LAYOUT_MAN_LIST:
-                    addItemType(HomeTypeBean.LAYOUT_MAN_LIST, R.layout.home_man_list_layout);
-                    break;
-                default:
-                    break;
+        if (homeDataBean.getData()!=null && homeDataBean.getData().getClassifyListCollect() != null) {
+            for (HomeClassCollectBean homeClassCollectBean : homeDataBean.getData().getClassifyListCollect()) {
+                addItemType(homeClassCollectBean.getId(), R.layout.home_list_layout);
             }
         }
+    }
 
-        if (homeDataBean.getData()!=null && homeDataBean.getData().getClassifyListCollect() != null) {
-            List<HomeClassCollectBean>homeClassCollectBeanList = homeDataBean.getData().getClassifyListCollect();
-            for (int i = 0; i < homeClassCollectBeanList.size(); i++) {
-                HomeClassCollectBean homeClassCollectBean = homeClassCollectBeanList.get(i);
+    /**
+     * 按显示顺序返回有数据的区块，不会加到列表里
+     */
+    public List<HomeTypeBean> buildSections() {
+        List<HomeTypeBean> sections = new ArrayList<>();
+        HomeDataBean.Data data = homeDataBean.getData();
+        if (data == null) {
+            return sections;
+        }
+        if (data.getClassifyList() != null && data.getClassifyList().size() > 0) {
+            sections.add(new HomeTypeBean(HomeTypeBean.LAYOUT_CLASS));
+        }
+        if (data.getNewVideoList() != null && data.getNewVideoList().size() > 0) {
+            sections.add(new HomeTypeBean(HomeTypeBean.LAYOUT_NEW_LIST));
+        }
+        if (data.getMostVideoList() != null && data.getMostVideoList().size() > 0) {
+            sections.add(new HomeTypeBean(HomeTypeBean.LAYOUT_HOT_LIST));
+        }
+        if (data.getStarList() != null && data.getStarList().size() > 0) {
+            sections.add(new HomeTypeBean(HomeTypeBean.LAYOUT_MAN_LIST));
+        }
+        if (data.getClassifyListCollect() != null) {
+            for (HomeClassCollectBean homeClassCollectBean : data.getClassifyListCollect()) {
                 HomeTypeBean homeTypeBean = new HomeTypeBean(homeClassCollectBean.getId());
                 homeTypeBean.setHomeClassCollectBean(homeClassCollectBean);
-                homeTypeBeans.add(homeTypeBean);
-                addItemType(homeClassCollectBean.getId(), R.layout.home_list_layout);
+                sections.add(homeTypeBean);
             }
         }
-
-
-        this.mContext = context;
+        return sections;
     }
 
     @Override
@@ -107,32 +133,7 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
             case HomeTypeBean.LAYOUT_CLASS: {
                 // 功能区域
                 if (homeDataBean !=null && homeDataBean.getData()!=null && homeDataBean.getData().getClassifyList() != null) {
-                    final RecyclerView mRecyclerView = helper.getView(R.id.recycler_view);
-                    mRecyclerView.setLayoutManager(new GridLayoutManager(mContext, 4));
-                    mRecyclerView.addItemDecoration(new RecyclerView.ItemDecoration() {
-                        @Override
-                        public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
-                            super.getItemOffsets(outRect, view, parent, state);
-                            int pos = parent.getChildAdapterPosition(view);
-                            if (pos/4 == 0) {
-                                outRect.bottom = ScreenUtil.dip2px(mContext, 14);
-                            } else {
-                                outRect.bottom = ScreenUtil.dip2px(mContext, 10);
-                            }
-
-                        }
-                    });
-                    HomeClassAdpter classAdpter = new HomeClassAdpter(R.layout.item_home_class_layout, homeDataBean.getData().getClassifyList());
-                    //TODO:事件
-                    classAdpter.setmHomeClassAdpterLisenter(new HomeClassAdpter.HomeClassAdpterLisenter() {
-                        @Override
-                        public void onItemClick(HomeClassBean classBean) {
-                            if (mHomeTypeAdapterLisenter != null) {
-                                mHomeTypeAdapterLisenter.onClassClick(classBean);
-                            }
-                        }
-                    });
-                    mRecyclerView.setAdapter(classAdpter);
+                    bindClassList(helper, homeDataBean.getData().getClassifyList());
                 }
 
             }
@@ -141,26 +142,7 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
                 TextView textView = helper.getView(R.id.more_text_view);
                 textView.setText("最新片源");
                 if (homeDataBean !=null && homeDataBean.getData()!=null && homeDataBean.getData().getNewVideoList() != null) {
-
-                    final RecyclerView mRecyclerView = helper.getView(R.id.new_recycler_view);
-                    mRecyclerView.setLayoutManager(new GridLayoutManager(mContext, 2));
-                    mRecyclerView.addItemDecoration(new RecyclerView.ItemDecoration() {
-                        @Override
-                        public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
-                            super.getItemOffsets(outRect, view, parent, state);
-                            int pos = parent.getChildAdapterPosition(view);
-                            if (pos%2 ==0) {
-                                outRect.left = ScreenUtil.dip2px(mContext, 10);
-                                outRect.right = ScreenUtil.dip2px(mContext, 4);
-                            } else {
-                                outRect.left = ScreenUtil.dip2px(mContext, 4);
-                                outRect.right = ScreenUtil.dip2px(mContext, 10);
-                            }
-                            outRect.bottom = ScreenUtil.dip2px(mContext, 10);
-                        }
-                    });
-                    HomeListAdapter homeListAdapter = new HomeListAdapter(R.layout.item_home_list_layout, homeDataBean.getData().getNewVideoList());
-                    mRecyclerView.setAdapter(homeListAdapter);
+                    bindVideoList(helper, 10, homeDataBean.getData().getNewVideoList());
                     //TODO:事件
                     helper.getView(R.id.more_back_view).setOnClickListener(new View.OnClickListener() {
                         @Override
@@ -170,16 +152,6 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
                             }
                         }
                     });
-
-                    homeListAdapter.setOnItemClickListener(new OnItemClickListener() {
-                        @Override
-                        public void onItemClick(BaseQuickAdapter adapter, View view, int position) {
-                            HomeListBean listBean = homeDataBean.getData().getNewVideoList().get(position);
-                            if (mHomeTypeAdapterLisenter != null) {
-                                mHomeTypeAdapterLisenter.gotoVideo(listBean);
-                            }
-                        }
-                    });
                 }
             }
                 break;
@@ -188,25 +160,7 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
                 TextView textView = helper.getView(R.id.more_text_view);
                 textView.setText("重磅热播");
                 if (homeDataBean !=null && homeDataBean.getData()!=null && homeDataBean.getData().getMostVideoList() != null) {
-                    final RecyclerView mRecyclerView = helper.getView(R.id.new_recycler_view);
-                    mRecyclerView.setLayoutManager(new GridLayoutManager(mContext, 2));
-                    mRecyclerView.addItemDecoration(new RecyclerView.ItemDecoration() {
-                        @Override
-                        public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
-                            super.getItemOffsets(outRect, view, parent, state);
-                            int pos = parent.getChildAdapterPosition(view);
-                            if (pos%2 ==0) {
-                                outRect.left = ScreenUtil.dip2px(mContext, 10);
-                                outRect.right = ScreenUtil.dip2px(mContext, 4);
-                            } else {
-                                outRect.left = ScreenUtil.dip2px(mContext, 4);
-                                outRect.right = ScreenUtil.dip2px(mContext, 10);
-                            }
-                            outRect.bottom = ScreenUtil.dip2px(mContext, 10);
-                        }
-                    });
-                    HomeListAdapter homeListAdapter = new HomeListAdapter(R.layout.item_home_list_layout, homeDataBean.getData().getMostVideoList());
-                    mRecyclerView.setAdapter(homeListAdapter);
+                    bindVideoList(helper, 10, homeDataBean.getData().getMostVideoList());
                     //TODO:事件
                     helper.getView(R.id.more_back_view).setOnClickListener(new View.OnClickListener() {
                         @Override
@@ -216,16 +170,6 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
                             }
                         }
                     });
-
-                    homeListAdapter.setOnItemClickListener(new OnItemClickListener() {
-                        @Override
-                        public void onItemClick(BaseQuickAdapter adapter, View view, int position) {
-                            HomeListBean listBean = homeDataBean.getData().getMostVideoList().get(position);
-                            if (mHomeTypeAdapterLisenter != null) {
-                                mHomeTypeAdapterLisenter.gotoVideo(listBean);
-                            }
-                        }
-                    });
                 }
 
             }
@@ -235,25 +179,7 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
                 TextView textView = helper.getView(R.id.more_text_view);
                 textView.setText("人气明星");
                 if (homeDataBean !=null && homeDataBean.getData()!=null && homeDataBean.getData().getStarList() != null) {
-                    final RecyclerView mRecyclerView = helper.getView(R.id.man_recycler_view);
-                    mRecyclerView.setLayoutManager(new LinearLayoutManager(mContext));
-                    mRecyclerView.addItemDecoration(new RecyclerView.ItemDecoration() {
-                        @Override
-                        public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
-                            super.getItemOffsets(outRect, view, parent, state);
-                            outRect.bottom = ScreenUtil.dip2px(mContext, 1);
-                        }
-                    });
-                    HomeManAdapter manAdapter = new HomeManAdapter(R.layout.item_home_star_layout, homeDataBean.getData().getStarList());
-                    mRecyclerView.setAdapter(manAdapter);
-                    manAdapter.setOnItemClickListener(new OnItemClickListener() {
-                        @Override
-                        public void onItemClick(BaseQuickAdapter adapter, View view, int position) {
-                            if (mHomeTypeAdapterLisenter != null) {
-                                mHomeTypeAdapterLisenter.onStarMovies(homeDataBean.getData().getStarList().get(position));
-                            }
-                        }
-                    });
+                    bindStarList(helper, homeDataBean.getData().getStarList());
                     //TODO:事件
                     helper.getView(R.id.more_back_view).setOnClickListener(new View.OnClickListener() {
                         @Override
@@ -271,25 +197,7 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
                 if (item !=null && item.getHomeClassCollectBean()!=null && item.getHomeClassCollectBean().getName() != null) {
                     TextView textView = helper.getView(R.id.more_text_view);
                     textView.setText(item.getHomeClassCollectBean().getName());
-                    final RecyclerView mRecyclerView = helper.getView(R.id.new_recycler_view);
-                    mRecyclerView.setLayoutManager(new GridLayoutManager(mContext, 2));
-                    mRecyclerView.addItemDecoration(new RecyclerView.ItemDecoration() {
-                        @Override
-                        public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
-                            super.getItemOffsets(outRect, view, parent, state);
-                            int pos = parent.getChildAdapterPosition(view);
-                            if (pos%2 ==0) {
-                                outRect.left = ScreenUtil.dip2px(mContext, 20);
-                                outRect.right = ScreenUtil.dip2px(mContext, 4);
-                            } else {
-                                outRect.left = ScreenUtil.dip2px(mContext, 4);
-                                outRect.right = ScreenUtil.dip2px(mContext, 20);
-                            }
-                            outRect.bottom = ScreenUtil.dip2px(mContext, 10);
-                        }
-                    });
-                    HomeListAdapter homeListAdapter = new HomeListAdapter(R.layout.item_home_list_layout, item.getHomeClassCollectBean().getVideoList());
-                    mRecyclerView.setAdapter(homeListAdapter);
+                    bindVideoList(helper, 20, item.getHomeClassCollectBean().getVideoList());
                     //TODO:事件
                     helper.getView(R.id.more_back_view).setOnClickListener(new View.OnClickListener() {
                         @Override
@@ -302,22 +210,123 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
                             }
                         }
                     });
-
-                    homeListAdapter.setOnItemClickListener(new OnItemClickListener() {
-                        @Override
-                        public void onItemClick(BaseQuickAdapter adapter, View view, int position) {
-                            HomeListBean listBean = item.getHomeClassCollectBean().getVideoList().get(position);
-                            if (mHomeTypeAdapterLisenter != null) {
-                                mHomeTypeAdapterLisenter.gotoVideo(listBean);
-                            }
-                        }
-                    });
                 }
             }
                 break;
         }
     }
 
+    /**
+     * 区块里的列表只在第一次绑定时设置 LayoutManager、分割和 adapter，之后只更新数据
+     */
+    private void bindClassList(BaseViewHolder helper, List<HomeClassBean> classList) {
+        RecyclerView mRecyclerView = helper.getView(R.id.recycler_view);
+        HomeClassAdpter classAdpter = (HomeClassAdpter) mRecyclerView.getAdapter();
+        if (classAdpter != null) {
+            classAdpter.setNewData(classList);
+            return;
+        }
+        GridLayoutManager manager = new GridLayoutManager(mContext, 4);
+        manager.setInitialPrefetchItemCount(Math.min(classList.size(), 8));
+        mRecyclerView.setLayoutManager(manager);
+        mRecyclerView.addItemDecoration(new RecyclerView.ItemDecoration() {
+            @Override
+            public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+                super.getItemOffsets(outRect, view, parent, state);
+                int pos = parent.getChildAdapterPosition(view);
+                if (pos/4 == 0) {
+                    outRect.bottom = ScreenUtil.dip2px(mContext, 14);
+                } else {
+                    outRect.bottom = ScreenUtil.dip2px(mContext, 10);
+                }
+
+            }
+        });
+        classAdpter = new HomeClassAdpter(R.layout.item_home_class_layout, classList);
+        //TODO:事件
+        classAdpter.setmHomeClassAdpterLisenter(new HomeClassAdpter.HomeClassAdpterLisenter() {
+            @Override
+            public void onItemClick(HomeClassBean classBean) {
+                if (mHomeTypeAdapterLisenter != null) {
+                    mHomeTypeAdapterLisenter.onClassClick(classBean);
+                }
+            }
+        });
+        mRecyclerView.setAdapter(classAdpter);
+    }
+
+    /**
+     * 两列的视频区块，edge 为左右两边的边距（dp）
+     * 格子放在共用的 mVideoCellPool 里，外层列表回收或刷新时交给别的区块复用，不用重新 inflate
+     */
+    private void bindVideoList(BaseViewHolder helper, final int edge, List<HomeListBean> videoList) {
+        RecyclerView mRecyclerView = helper.getView(R.id.new_recycler_view);
+        HomeListAdapter homeListAdapter = (HomeListAdapter) mRecyclerView.getAdapter();
+        if (homeListAdapter != null) {
+            homeListAdapter.setNewData(videoList);
+            return;
+        }
+        GridLayoutManager manager = new GridLayoutManager(mContext, 2);
+        manager.setRecycleChildrenOnDetach(true);
+        manager.setInitialPrefetchItemCount(videoList == null ? 0 : Math.min(videoList.size(), 4));
+        mRecyclerView.setLayoutManager(manager);
+        mRecyclerView.setRecycledViewPool(mVideoCellPool);
+        mRecyclerView.addItemDecoration(new RecyclerView.ItemDecoration() {
+            @Override
+            public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+                super.getItemOffsets(outRect, view, parent, state);
+                int pos = parent.getChildAdapterPosition(view);
+                if (pos%2 ==0) {
+                    outRect.left = ScreenUtil.dip2px(mContext, edge);
+                    outRect.right = ScreenUtil.dip2px(mContext, 4);
+                } else {
+                    outRect.left = ScreenUtil.dip2px(mContext, 4);
+                    outRect.right = ScreenUtil.dip2px(mContext, edge);
+                }
+                outRect.bottom = ScreenUtil.dip2px(mContext, 10);
+            }
+        });
+        homeListAdapter = new HomeListAdapter(R.layout.item_home_list_layout, videoList);
+        homeListAdapter.setmHomeListAdapterLisenter(new HomeListAdapter.HomeListAdapterLisenter() {
+            @Override
+            public void onItemClick(HomeListBean listBean, ImageView coverView) {
+                if (mHomeTypeAdapterLisenter != null) {
+                    mHomeTypeAdapterLisenter.gotoVideo(listBean, coverView);
+                }
+            }
+        });
+        mRecyclerView.setAdapter(homeListAdapter);
+    }
+
+    private void bindStarList(BaseViewHolder helper, List<HomeStarBean> starList) {
+        RecyclerView mRecyclerView = helper.getView(R.id.man_recycler_view);
+        HomeManAdapter manAdapter = (HomeManAdapter) mRecyclerView.getAdapter();
+        if (manAdapter != null) {
+            manAdapter.setNewData(starList);
+            return;
+        }
+        LinearLayoutManager manager = new LinearLayoutManager(mContext);
+        manager.setInitialPrefetchItemCount(Math.min(starList.size(), 4));
+        mRecyclerView.setLayoutManager(manager);
+        mRecyclerView.addItemDecoration(new RecyclerView.ItemDecoration() {
+            @Override
+            public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+                super.getItemOffsets(outRect, view, parent, state);
+                outRect.bottom = ScreenUtil.dip2px(mContext, 1);
+            }
+        });
+        manAdapter = new HomeManAdapter(R.layout.item_home_star_layout, starList);
+        manAdapter.setOnItemClickListener(new OnItemClickListener() {
+            @Override
+            public void onItemClick(BaseQuickAdapter adapter, View view, int position) {
+                if (mHomeTypeAdapterLisenter != null) {
+                    mHomeTypeAdapterLisenter.onStarMovies((HomeStarBean) adapter.getItem(position));
+                }
+            }
+        });
+        mRecyclerView.setAdapter(manAdapter);
+    }
+
     public interface HomeTypeAdapterLisenter {
         //分类点击事件
         void onClassClick(HomeClassBean homeClassBean);
@@ -328,7 +337,7 @@ public class HomeTypeAdapter extends BaseMultiItemQuickAdapter<HomeTypeBean,Base
         //人气明星
         void onStarMovies(HomeStarBean homeStarBean);
         //观看视频
-        void gotoVideo(HomeListBean listBean);
+        void gotoVideo(HomeListBean listBean, ImageView coverView);
         //重磅热播
         void onHotMoreMovies();
 
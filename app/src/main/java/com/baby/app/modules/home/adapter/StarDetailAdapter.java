@@ -6,6 +6,7 @@ import android.graphics.Rect;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.RecyclerView;
+import android.text.TextUtils;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.RelativeLayout;
@@ -109,6 +110,14 @@ public class StarDetailAdapter extends BaseMultiItemQuickAdapter<StartDetailType
                                     imageView,
                                     R.mipmap.ic_head_l,
                                     R.mipmap.ic_head_l);
+                    if (!TextUtils.isEmpty(mHomeStarBean.getHeadpic())) {
+                        // 头像模糊后作为头部背景，加载出来之前显示原来的背景图
+                        GlideUtils
+                                .getInstance()
+                                .LoadContextBlurBitmap(mContext,
+                                        mHomeStarBean.getHeadpic(),
+                                        (ImageView) helper.getView(R.id.star_bg_view));
+                    }
                     countView.setText(mHomeStarBean.getVideoNum()+"部影片");
                     nameView.setText(mHomeStarBean.getName());
 //                    dataView.setText("身高:"+mHomeStarBean.getHeightNum()+" 三围:"+mHomeStarBean.getBwh()+" 罩杯:"+mHomeStarBean.getCupName());
@@ -11,6 +11,7 @@ import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
 import com.android.baselibrary.base.BaseActivity;
+import com.android.baselibrary.base.Constants;
 import com.android.baselibrary.base.standard.YQApi;
 import com.android.baselibrary.recycleradapter.BaseQuickAdapter;
 import com.android.baselibrary.service.bean.home.DetailListBean;
@@ -289,6 +290,7 @@ public class HomeClassActivity extends IBaseActivity implements DetailListView,S
         listRecycleView.setAdapter(classListAdapter);
         classListAdapter.openLoadAnimation();
         classListAdapter.setOnLoadMoreListener(this);
+        classListAdapter.setPreLoadNumber(Constants.LIST_PRELOAD_NUMBER);
     }
 
     @Override
@@ -347,7 +349,7 @@ public class HomeClassActivity extends IBaseActivity implements DetailListView,S
     @Override
     public void onRefresh() {
         request.setPageNum(1);
-        mDetaiiListPresenter.fetchListByClassId(request);
+        mDetaiiListPresenter.refreshListByClassId(request);
     }
 
     //加载更多
@@ -11,6 +11,7 @@ import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
+import com.android.baselibrary.base.Constants;
 import com.android.baselibrary.base.standard.YQApi;
 import com.android.baselibrary.recycleradapter.BaseQuickAdapter;
 import com.android.baselibrary.service.bean.home.HomeClassBean;
@@ -111,6 +112,7 @@ public class HomeStarActivity extends IBaseActivity implements StarListView, Swi
         initListRecycleView();
         mStarListAdapter.openLoadAnimation();
         mStarListAdapter.setOnLoadMoreListener(this);
+        mStarListAdapter.setPreLoadNumber(Constants.LIST_PRELOAD_NUMBER);
 
         mStarListPresenter.fetchData(mStarListRequest);
     }
@@ -234,7 +236,7 @@ public class HomeStarActivity extends IBaseActivity implements StarListView, Swi
     @Override
     public void onRefresh() {
         mStarListRequest.setPageNum(1);
-        mStarListPresenter.fetchData(mStarListRequest);
+        mStarListPresenter.refreshData(mStarListRequest);
     }
 
     //加载更多
@@ -28,6 +28,14 @@ public class DetaiiListPresenter extends BasePresenter {
     }
 
 
+    /**
+     * 下拉刷新，丢掉缓存的页重新加载
+     */
+    public void refreshListByClassId(DetailListRequest request) {
+        NetService.getInstance().invalidate("getVideoByStarId");
+        fetchListByClassId(request);
+    }
+
     /**
      * 根据明星ID、分类、标签获取影片列表-S
      * mostCare 最多喜欢
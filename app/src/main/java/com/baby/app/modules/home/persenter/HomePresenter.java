@@ -4,10 +4,14 @@ import com.android.baselibrary.base.BaseCallBack;
 import com.android.baselibrary.base.BasePresenter;
 import com.android.baselibrary.base.BaseView;
 import com.android.baselibrary.base.Constants;
+import com.android.baselibrary.log.StartupTrace;
+import com.android.baselibrary.service.HomePreloader;
 import com.android.baselibrary.service.NetService;
 import com.android.baselibrary.service.bean.home.HomeDataBean;
 import com.baby.app.modules.home.view.HomeView;
 
+import rx.Observable;
+
 /**
  * Created by yongqianggeng on 2018/10/8.
  */
@@ -26,9 +30,27 @@ public class HomePresenter extends BasePresenter {
     }
 
     public void fetchHomeData() {
-        requestDateNew(NetService.getInstance().indexInfo(), "", new BaseCallBack() {
+        //启动时已经预取过的直接用
+        Observable<HomeDataBean> observable = HomePreloader.getInstance().takeIndexInfo();
+        if (observable == null) {
+            observable = NetService.getInstance().indexInfo();
+        }
+        requestHomeData(observable);
+    }
+
+    /**
+     * 下拉刷新，丢掉缓存重新请求
+     */
+    public void refreshHomeData() {
+        NetService.getInstance().invalidate("indexInfo");
+        requestHomeData(NetService.getInstance().indexInfo());
+    }
+
+    private void requestHomeData(Observable<HomeDataBean> observable) {
+        requestDateNew(observable, "", new BaseCallBack() {
             @Override
             public void onSuccess(Object obj) {
+                StartupTrace.mark(StartupTrace.HOME_DATA);
                 HomeDataBean bean = (HomeDataBean) obj;
                 mHomeView.refreshHomeData(bean);
             }
@@ -28,6 +28,14 @@ public class StarListPresenter extends BasePresenter {
         return mStarListView;
     }
 
+    /**
+     * 下拉刷新，丢掉缓存的页重新加载
+     */
+    public void refreshData(StarListRequest request) {
+        NetService.getInstance().invalidate("getStarPage");
+        fetchData(request);
+    }
+
     public void fetchData(StarListRequest request) {
 
         HashMap<String,String> paramsMap = new HashMap<>();
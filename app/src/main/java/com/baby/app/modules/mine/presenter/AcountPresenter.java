@@ -9,13 +9,19 @@ import com.android.baselibrary.base.BasePresenter;
 import com.android.baselibrary.base.BaseView;
 import com.android.baselibrary.service.NetService;
 import com.android.baselibrary.service.bean.BaseBean;
-import com.android.baselibrary.service.upload.UploadImageListener;
+import com.android.baselibrary.service.upload.ImageUploader;
 import com.android.baselibrary.usermanger.UserStorage;
 import com.android.baselibrary.widget.toast.ToastUtil;
 import com.baby.app.modules.mine.view.IAoucntView;
 import com.orhanobut.logger.Logger;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
 
 /**
  * Created by yongqianggeng on 2018/10/18.
@@ -63,10 +69,21 @@ public class AcountPresenter extends BasePresenter {
             @Override
             public void run() {
                 mIAoucntView.showDialogLoading("修改头像中...");
-                uploadSingleImage(NetService.getInstance().saveMemberPic(imageString),new UploadImageListener() {
+                //上传时才压缩，网络失败自动重试
+                ImageUploader uploader = new ImageUploader(new ImageUploader.RequestFactory() {
+                    @Override
+                    public Call<ResponseBody> create(RequestBody image, String fileName) {
+                        return NetService.getInstance().saveMemberPic(image, fileName);
+                    }
+                }, 1, ImageUploader.DEFAULT_MAX_RETRIES)
+                        .setCompress(NetService.AVATAR_SIZE, NetService.AVATAR_SIZE, NetService.AVATAR_MAX_BYTES);
+                uploadImages(uploader, Collections.singletonList(imageString), new ImageUploader.Listener() {
+                    @Override
+                    public void onProgress(int index, long written, long total) {
+                    }
 
                     @Override
-                    public void uploadImageSuccess(String imageUrl) {
+                    public void onSuccess(int index, String imageUrl) {
                         mIAoucntView.hideDialogLoading();
                         UserStorage.getInstance().saveUserHead(imageUrl);
                         mIAoucntView.refreshHeadImage(imageUrl);
@@ -75,10 +92,14 @@ public class AcountPresenter extends BasePresenter {
                     }
 
                     @Override
-                    public void uploadImageFailed() {
+                    public void onFailed(int index) {
                         mIAoucntView.hideDialogLoading();
                         mIAoucntView.showToast("头像上传失败");
                     }
+
+                    @Override
+                    public void onFinished(List<String> urls) {
+                    }
                 });
             }
         },100);
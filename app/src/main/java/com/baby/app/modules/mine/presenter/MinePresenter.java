@@ -4,12 +4,15 @@ import com.android.baselibrary.base.BaseCallBack;
 import com.android.baselibrary.base.BasePresenter;
 import com.android.baselibrary.base.BaseView;
 import com.android.baselibrary.base.Constants;
+import com.android.baselibrary.service.HomePreloader;
 import com.android.baselibrary.service.NetService;
 import com.android.baselibrary.service.bean.user.UserBean;
 import com.android.baselibrary.usermanger.UserStorage;
 import com.android.baselibrary.usermanger.UserType;
 import com.baby.app.modules.mine.view.MineView;
 
+import rx.Observable;
+
 /**
  * Created by yongqianggeng on 2018/10/8.
  * 个人中心
@@ -29,7 +32,11 @@ public class MinePresenter extends BasePresenter {
     }
 
     public void fetchUserData() {
-            requestDateNew(NetService.getInstance().getMemberInfo(), "", new BaseCallBack() {
+            Observable<UserBean> observable = HomePreloader.getInstance().takeMemberInfo();
+            if (observable == null) {
+                observable = NetService.getInstance().getMemberInfo();
+            }
+            requestDateNew(observable, "", new BaseCallBack() {
                 @Override
                 public void onSuccess(Object obj) {
                     UserBean bean = (UserBean) obj;
@@ -3,11 +3,14 @@ package com.baby.app.modules.mine.presenter;
 import com.android.baselibrary.base.BaseCallBack;
 import com.android.baselibrary.base.BasePresenter;
 import com.android.baselibrary.base.BaseView;
+import com.android.baselibrary.service.HomePreloader;
 import com.android.baselibrary.service.NetService;
 import com.android.baselibrary.service.bean.mine.NotificationBean;
 import com.android.baselibrary.service.bean.user.ProtocolBean;
 import com.baby.app.modules.mine.view.INoticeView;
 
+import rx.Observable;
+
 public class NoticePresenter extends BasePresenter {
 
     private INoticeView iNoticeView;
@@ -22,7 +25,12 @@ public class NoticePresenter extends BasePresenter {
     }
 
     public void fetchData() {
-        requestDateNew(NetService.getInstance().getNoticeList(1), "", new BaseCallBack() {
+        //启动时已经预取过的直接用
+        Observable<NotificationBean> observable = HomePreloader.getInstance().takeNoticeList();
+        if (observable == null) {
+            observable = NetService.getInstance().getNoticeList(1);
+        }
+        requestDateNew(observable, "", new BaseCallBack() {
             @Override
             public void onSuccess(Object obj) {
                 NotificationBean bean = (NotificationBean) obj;
@@ -52,7 +52,7 @@ public class SearchPresenter extends BasePresenter {
      * 搜索
      * */
     public void selectOPenVideo(String searchName) {
-        requestDateNew(NetService.getInstance().selectOPenVideo(searchName), Constants.DIALOG_LOADING, new BaseCallBack() {
+        requestLatest("search", NetService.getInstance().selectOPenVideo(searchName), Constants.DIALOG_LOADING, new BaseCallBack() {
             @Override
             public void onSuccess(Object obj) {
                 DetailListBean detailListBean = (DetailListBean)obj;
@@ -280,6 +280,12 @@ public class VideoActivity extends IBaseActivity implements IVideoView
         mJzvdStd.setVisibility(View.INVISIBLE);
         mVideoPresenter = new VideoPresenter(this);
         mVideoInComeBean = (VideoInComeBean) (getIntent().getExtras().getSerializable(VIDEO_KEY));
+        if (mVideoInComeBean.getVideoCover() != null) {
+            //先显示列表里已经缓存的封面，不用等详情接口返回
+            GlideUtils.getInstance().LoadContextBitmapWithThumb(this, mVideoInComeBean.getVideoCover(),
+                    mJzvdStd.thumbImageView, mVideoInComeBean.getCoverWidth(), mVideoInComeBean.getCoverHeight(),
+                    R.mipmap.video_cover, R.mipmap.video_cover);
+        }
 
         mJzvdStd.backButton.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -358,6 +364,11 @@ public class VideoActivity extends IBaseActivity implements IVideoView
     public void refreshDetail(VideoDetailBean videoDetailBean) {
         mJzvdStd.setVisibility(View.VISIBLE);
         mVideoDetailBean = videoDetailBean;
+        if (mVideoInComeBean.getVideoCover() == null && mVideoDetailBean != null && mVideoDetailBean.getData() != null
+                && mVideoDetailBean.getData().getVideoCover() != null) {
+            GlideUtils.getInstance().LoadContextBitmapWithThumb(this, mVideoDetailBean.getData().getVideoCover(),
+                    mJzvdStd.thumbImageView, 0, 0, R.mipmap.video_cover, R.mipmap.video_cover);
+        }
         if (mVideoDetailBean!=null && mVideoDetailBean.getData().getVideoName() != null) {
             mTitleBuilder.setMiddleTitleText(mVideoDetailBean.getData().getVideoName());
         }
@@ -30,7 +30,7 @@ public class VideoPresenter extends BasePresenter {
     }
 
     public void fetchDeitalData(String videoId){
-        requestDateNew(NetService.getInstance().getVideoDetail(videoId), Constants.DIALOG_LOADING, new BaseCallBack() {
+        requestLatest("detail", NetService.getInstance().getVideoDetail(videoId), Constants.DIALOG_LOADING, new BaseCallBack() {
             @Override
             public void onSuccess(Object obj) {
                 VideoDetailBean mVideoDetailBean = (VideoDetailBean)obj;
@@ -155,7 +155,7 @@ public class VideoPresenter extends BasePresenter {
     }
 
     public void getVideoCommon(String videoId){
-        requestDateNew(NetService.getInstance().getVideoCommon(videoId), Constants.DIALOG_LOADING, new BaseCallBack() {
+        requestLatest("comment", NetService.getInstance().getVideoCommon(videoId), Constants.DIALOG_LOADING, new BaseCallBack() {
             @Override
             public void onSuccess(Object obj) {
                 VideoCommentBean videoCommentBean = (VideoCommentBean)obj;
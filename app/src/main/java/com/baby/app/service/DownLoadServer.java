@@ -16,6 +16,9 @@ import android.util.Log;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.android.baselibrary.log.AppLog;
+import com.android.baselibrary.service.aes.OfflineVideoCipher;
+import com.android.baselibrary.thread.AppExecutors;
 import com.downloader.Error;
 import com.downloader.OnDownloadListener;
 import com.downloader.OnPauseListener;
@@ -29,7 +32,9 @@ import com.hdl.m3u8.bean.M3U8;
 import com.hdl.m3u8.bean.OnM3U8InfoListener;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 用于在后台下载的service
@@ -38,6 +43,7 @@ import java.util.List;
  */
 
 public class DownLoadServer extends Service {
+    private static final String TAG = "DownLoadServer";
     private String dirPath;
     private DownLoadProgress dProgress;
     private AnalysisComplete aComplete;
@@ -170,7 +176,7 @@ public class DownLoadServer extends Service {
      * @param url
      * @param name
      */
-    private int downMp4(String url, String name) {
+    private int downMp4(String url, final String name) {
         final DownInfoModel model = new DownInfoModel();
         return PRDownloader.download(url, dirPath, name)
                 .build()
@@ -207,13 +213,30 @@ public class DownLoadServer extends Service {
                     }
                 }).start(new OnDownloadListener() {
                     @Override
-                    public void onDownloadComplete(String url) {
+                    public void onDownloadComplete(final String url) {
+                        if (!OfflineVideoCipher.isSupported()) {
+                            onMp4Complete(url);
+                            return;
+                        }
+                        //PRDownloader断点续传需要按位置改写文件，只能下载完成后再加密，加密完再标记完成
+                        final File file = new File(dirPath, name);
                         try {
-                            model.updateStatusByUrl(url, 2);
-                            if (null != dProgress)
-                                dProgress.downStatus(2);
-                        } catch (RemoteException e) {
-                            e.printStackTrace();
+                            AppExecutors.disk().execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        OfflineVideoCipher.encryptInPlace(file);
+                                    } catch (IOException e) {
+                                        //加密失败时保留明文文件，仍然可以播放
+                                        AppLog.w(TAG, "encrypt failed: " + e.getMessage());
+                                    }
+                                    onMp4Complete(url);
+                                }
+                            });
+                        } catch (RejectedExecutionException e) {
+                            //磁盘线程池排满了，这次不加密，明文文件照样标记完成
+                            AppLog.w(TAG, "encrypt skipped: " + e.getMessage());
+                            onMp4Complete(url);
                         }
                     }
 
@@ -230,6 +253,16 @@ public class DownLoadServer extends Service {
                 });
     }
 
+    private void onMp4Complete(String url) {
+        try {
+            new DownInfoModel().updateStatusByUrl(url, 2);
+            if (null != dProgress)
+                dProgress.downStatus(2);
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * 解析m3u8文件
      *
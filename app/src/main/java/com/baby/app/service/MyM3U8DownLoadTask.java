@@ -3,8 +3,12 @@ package com.baby.app.service;
 import android.os.Environment;
 import android.os.Handler;
 import android.os.Message;
-import android.util.Log;
 
+import com.android.baselibrary.log.AppLog;
+import com.android.baselibrary.service.aes.ChunkedCipherFile;
+import com.android.baselibrary.service.aes.ChunkedCipherOutputStream;
+import com.android.baselibrary.service.aes.OfflineVideoCipher;
+import com.android.baselibrary.thread.AppExecutors;
 import com.hdl.m3u8.M3U8InfoManger;
 import com.hdl.m3u8.bean.M3U8;
 import com.hdl.m3u8.bean.M3U8Ts;
@@ -12,6 +16,7 @@ import com.hdl.m3u8.bean.OnM3U8InfoListener;
 import com.hdl.m3u8.utils.MUtils;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -19,10 +24,13 @@ import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * M3U8下载管理器
@@ -30,6 +38,13 @@ import java.util.concurrent.Executors;
  */
 
 public class MyM3U8DownLoadTask {
+    private static final String TAG = "M3U8DownLoadTask";
+
+    static {
+        //每个分片一条日志，只采样输出
+        AppLog.setSampleRate(TAG, 20);
+    }
+
     private MyOnDownloadLisetner onDownloadListener;
     private static final int WHAT_ON_ERROR = 1001;
     private static final int WHAT_ON_PROGRESS = 1002;
@@ -75,7 +90,7 @@ public class MyM3U8DownLoadTask {
      */
     private String taskId = "0";
     /**
-     * 线程池最大线程数，默认为3
+     * 同时下载的分片数，默认为3
      */
     private int threadCount = 3;
     /**
@@ -93,8 +108,11 @@ public class MyM3U8DownLoadTask {
     /**
      * 定时任务
      */
-    private Timer netSpeedTimer;
-    private ExecutorService executor;//线程池
+    private ScheduledFuture<?> netSpeedTimer;
+    /**
+     * 已提交到下载线程池的分片，停止时取消
+     */
+    private final List<FutureTask<Void>> segments = new ArrayList<>();
     private Handler mHandler = new Handler() {
         @Override
         public void handleMessage(Message msg) {
@@ -107,7 +125,7 @@ public class MyM3U8DownLoadTask {
                     break;
                 case WHAT_ON_SUCCESS:
                     if (netSpeedTimer != null) {
-                        netSpeedTimer.cancel();
+                        netSpeedTimer.cancel(false);
                     }
                     onDownloadListener.onSuccess();
                     break;
@@ -185,50 +203,17 @@ public class MyM3U8DownLoadTask {
         M3U8InfoManger.getInstance().getM3U8Info(url, new OnM3U8InfoListener() {
             @Override
             public void onSuccess(final M3U8 m3U8) {
-                new Thread() {
-                    @Override
-                    public void run() {
-                        try {
+                //分片在下载线程池里并行下载，不占用、不阻塞磁盘线程
+                try {
+                    AppExecutors.download().execute(new Runnable() {
+                        @Override
+                        public void run() {
                             startDownload(m3U8);
-                            if (executor != null) {
-                                executor.shutdown();//下载完成之后要关闭线程池
-                            }
-                            while (executor != null && !executor.isTerminated()) {
-                                //等待中
-                                Thread.sleep(100);
-                            }
-                            if (isRunning) {
-                                String saveFileName = saveFilePath.substring(saveFilePath.lastIndexOf("/") + 1);
-                                String tempSaveFile = tempDir + File.separator + saveFileName;//生成临时文件
-                                MUtils.merge(m3U8, tempSaveFile, tempDir);//合并ts
-                                //移动到指定的目录
-                                MUtils.moveFile(tempSaveFile, saveFilePath);//移动到指定文件夹
-                                if (isClearTempDir) {
-                                    mHandler.postDelayed(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            MUtils.clearDir(new File(tempDir));//清空一下临时文件
-                                        }
-                                    }, 20 * 1000);//20s之后再删除
-                                }
-                                mHandler.sendEmptyMessage(WHAT_ON_SUCCESS);
-                                isRunning = false;
-                            }
-                        } catch (InterruptedIOException e) {
-//                    e.printStackTrace();
-                            //被中断了，使用stop时会抛出这个，不需要处理
-//                            handlerError(e);
-                            return;
-                        } catch (IOException e) {
-//                    e.printStackTrace();
-                            handlerError(e);
-                            return;
-                        } catch (InterruptedException e) {
-//                            e.printStackTrace();
-                            handlerError(e);
                         }
-                    }
-                }.start();
+                    });
+                } catch (RejectedExecutionException e) {
+                    handlerError(e);
+                }
             }
 
             @Override
@@ -245,7 +230,52 @@ public class MyM3U8DownLoadTask {
     }
 
     /**
-     * 开始下载
+     * 全部分片结束后在磁盘线程合并
+     *
+     * @param m3U8
+     */
+    private void finishDownload(final M3U8 m3U8) {
+        try {
+            AppExecutors.disk().execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!isRunning) {
+                        return;
+                    }
+                    try {
+                        String saveFileName = saveFilePath.substring(saveFilePath.lastIndexOf("/") + 1);
+                        String tempSaveFile = tempDir + File.separator + saveFileName;//生成临时文件
+                        if (OfflineVideoCipher.isSupported()) {
+                            mergeEncrypted(m3U8, tempSaveFile);//合并ts的同时加密
+                        } else {
+                            MUtils.merge(m3U8, tempSaveFile, tempDir);//合并ts
+                        }
+                        //移动到指定的目录
+                        MUtils.moveFile(tempSaveFile, saveFilePath);//移动到指定文件夹
+                        if (isClearTempDir) {
+                            mHandler.postDelayed(new Runnable() {
+                                @Override
+                                public void run() {
+                                    MUtils.clearDir(new File(tempDir));//清空一下临时文件
+                                }
+                            }, 20 * 1000);//20s之后再删除
+                        }
+                        mHandler.sendEmptyMessage(WHAT_ON_SUCCESS);
+                        isRunning = false;
+                    } catch (InterruptedIOException e) {
+                        //被中断了，使用stop时会抛出这个，不需要处理
+                    } catch (IOException e) {
+                        handlerError(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            handlerError(e);
+        }
+    }
+
+    /**
+     * 开始下载：先提交 threadCount 个分片，每个分片结束时再提交下一个，不阻塞任何线程等待名额
      *
      * @param m3U8
      */
@@ -266,86 +296,165 @@ public class MyM3U8DownLoadTask {
             totalTs = m3U8.getTsList().size();
         }
 
-        if (executor != null && executor.isTerminated()) {
-            executor.shutdownNow();
-            executor = null;
+        synchronized (segments) {
+            segments.clear();
         }
-        executor = Executors.newFixedThreadPool(threadCount);
-        final String basePath = m3U8.getBasepath();
-        netSpeedTimer = new Timer();
-        netSpeedTimer.schedule(new TimerTask() {
+        final List<M3U8Ts> tsList = m3U8.getTsList();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger pending = new AtomicInteger(tsList.size());
+        final Runnable progressTask = new Runnable() {
             @Override
             public void run() {
                 onDownloadListener.onProgress(curLenght);
             }
-        }, 0, 1000);
-        for (final M3U8Ts m3U8Ts : m3U8.getTsList()) {//循环下载
-            executor.execute(new Runnable() {
-                @Override
-                public void run() {
-                    File file = new File(dir + File.separator + m3U8Ts.getFileName());
-                    if (!file.exists()) {//下载过的就不管了
-                        FileOutputStream fos = null;
-                        InputStream inputStream = null;
-                        try {
-                            Log.e("hdltag", "run(M3U8DownloadTask.java:278):" + m3U8Ts.getFile());
-                            String urlPath;
-                            if ("http".equals(m3U8Ts.getFile().substring(0, 4))) {
-                                urlPath = m3U8Ts.getFile();
-                            } else {
-                                urlPath = basePath + m3U8Ts.getFile();
+        };
+        netSpeedTimer = AppExecutors.timer().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                //进度回调里会写数据库，不占用定时线程
+                try {
+                    AppExecutors.disk().execute(progressTask);
+                } catch (RejectedExecutionException ignored) {
+                }
+            }
+        }, 0, 1000, TimeUnit.MILLISECONDS);
+        if (tsList.isEmpty()) {
+            finishDownload(m3U8);
+            return;
+        }
+        //最多 threadCount 个分片同时在下载线程池里
+        for (int i = 0; i < Math.min(threadCount, tsList.size()); i++) {
+            downloadNext(m3U8, dir, next, pending);
+        }
+    }
+
+    /**
+     * 提交下一个还没下载的分片，所有分片都结束后合并
+     */
+    private void downloadNext(final M3U8 m3U8, final File dir, final AtomicInteger next, final AtomicInteger pending) {
+        final List<M3U8Ts> tsList = m3U8.getTsList();
+        final int index = next.getAndIncrement();
+        if (index >= tsList.size() || !isRunning) {
+            return;
+        }
+        final M3U8Ts m3U8Ts = tsList.get(index);
+        final String basePath = m3U8.getBasepath();
+        FutureTask<Void> segment = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                File file = new File(dir + File.separator + m3U8Ts.getFileName());
+                if (!file.exists()) {//下载过的就不管了
+                    FileOutputStream fos = null;
+                    InputStream inputStream = null;
+                    try {
+                        if (AppLog.isDebugEnabled()) {
+                            AppLog.d(TAG, "download ts " + m3U8Ts.getFile());
+                        }
+                        String urlPath;
+                        if ("http".equals(m3U8Ts.getFile().substring(0, 4))) {
+                            urlPath = m3U8Ts.getFile();
+                        } else {
+                            urlPath = basePath + m3U8Ts.getFile();
+                        }
+                        URL url = new URL(urlPath);
+
+                        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+                        conn.setConnectTimeout(connTimeout);
+                        conn.setReadTimeout(readTimeout);
+                        if (conn.getResponseCode() == 200) {
+                            inputStream = conn.getInputStream();
+                            fos = new FileOutputStream(file);//会自动创建文件
+                            int len = 0;
+                            byte[] buf = new byte[8 * 1024 * 1024];
+                            while ((len = inputStream.read(buf)) != -1) {
+                                curLenght += len;
+                                fos.write(buf, 0, len);//写入流中
                             }
-                            URL url = new URL(urlPath);
-
-                            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                            conn.setConnectTimeout(connTimeout);
-                            conn.setReadTimeout(readTimeout);
-                            if (conn.getResponseCode() == 200) {
-                                inputStream = conn.getInputStream();
-                                fos = new FileOutputStream(file);//会自动创建文件
-                                int len = 0;
-                                byte[] buf = new byte[8 * 1024 * 1024];
-                                while ((len = inputStream.read(buf)) != -1) {
-                                    curLenght += len;
-                                    fos.write(buf, 0, len);//写入流中
-                                }
 //                                Log.e("hdltag", "run(M3U8DownloadTask.java:188):进度\t" + totalTs + "-----" + curTs);
-                            } else {
-                                handlerError(new Throwable(String.valueOf(conn.getResponseCode())));
-                            }
-                        } catch (MalformedURLException e) {
+                        } else {
+                            handlerError(new Throwable(String.valueOf(conn.getResponseCode())));
+                        }
+                    } catch (MalformedURLException e) {
 //                            e.printStackTrace();
-                            handlerError(e);
-                        } catch (IOException e) {
+                        handlerError(e);
+                    } catch (IOException e) {
 //                            e.printStackTrace();
-                            handlerError(e);
-                        } finally {//关流
-                            if (inputStream != null) {
-                                try {
-                                    inputStream.close();
-                                } catch (IOException e) {
+                        handlerError(e);
+                    } finally {//关流
+                        if (inputStream != null) {
+                            try {
+                                inputStream.close();
+                            } catch (IOException e) {
 //                                    e.printStackTrace();
-                                }
                             }
-                            if (fos != null) {
-                                try {
-                                    fos.close();
-                                } catch (IOException e) {
+                        }
+                        if (fos != null) {
+                            try {
+                                fos.close();
+                            } catch (IOException e) {
 //                                    e.printStackTrace();
-                                }
                             }
                         }
-                        if (curTs <=3) {
-                            curTs++;
-                            if (curTs == 3) {
-                                itemFileSize = file.length();
-                            }
+                    }
+                    if (curTs <=3) {
+                        curTs++;
+                        if (curTs == 3) {
+                            itemFileSize = file.length();
                         }
+                    }
 
-                        mHandler.sendEmptyMessage(WHAT_ON_PROGRESS);
+                    mHandler.sendEmptyMessage(WHAT_ON_PROGRESS);
+                }
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                //完成或被取消都会回调，接着下载下一个分片
+                synchronized (segments) {
+                    segments.remove(this);
+                }
+                if (pending.decrementAndGet() == 0) {
+                    finishDownload(m3U8);
+                } else {
+                    downloadNext(m3U8, dir, next, pending);
+                }
+            }
+        };
+        synchronized (segments) {
+            segments.add(segment);
+        }
+        try {
+            AppExecutors.download().execute(segment);
+        } catch (RejectedExecutionException e) {
+            //先停止任务，取消时 done() 不会再提交下一个分片
+            handlerError(e);
+            segment.cancel(false);
+        }
+    }
+
+    /**
+     * 按顺序把ts写进分块加密文件，不生成明文的合并文件
+     *
+     * @param m3U8
+     * @param toFile
+     */
+    private void mergeEncrypted(M3U8 m3U8, String toFile) throws IOException {
+        ChunkedCipherOutputStream out = OfflineVideoCipher.newOutputStream(new File(toFile));
+        try {
+            byte[] buf = new byte[ChunkedCipherFile.DEFAULT_BLOCK_SIZE];
+            for (M3U8Ts ts : m3U8.getTsList()) {
+                InputStream in = new FileInputStream(new File(tempDir, ts.getFileName()));
+                try {
+                    int len;
+                    while ((len = in.read(buf)) != -1) {
+                        out.write(buf, 0, len);
                     }
+                } finally {
+                    in.close();
                 }
-            });
+            }
+        } finally {
+            out.close();
         }
     }
 
@@ -381,12 +490,18 @@ public class MyM3U8DownLoadTask {
      */
     public void stop() {
         if (netSpeedTimer != null) {
-            netSpeedTimer.cancel();
+            netSpeedTimer.cancel(false);
             netSpeedTimer = null;
         }
         isRunning = false;
-        if (executor != null) {
-            executor.shutdownNow();
+        List<FutureTask<Void>> running;
+        synchronized (segments) {
+            running = new ArrayList<>(segments);
+            segments.clear();
+        }
+        //cancel 会同步回调 done()，不能在遍历 segments 时调用
+        for (FutureTask<Void> segment : running) {
+            segment.cancel(true);
         }
     }
 
@@ -4,6 +4,8 @@ import com.android.baselibrary.base.BaseCallBack;
 import com.android.baselibrary.base.BasePresenter;
 import com.android.baselibrary.base.BaseView;
 import com.android.baselibrary.base.Constants;
+import com.android.baselibrary.log.StartupTrace;
+import com.android.baselibrary.service.HomePreloader;
 import com.android.baselibrary.service.NetService;
 import com.android.baselibrary.service.bean.user.LoginBean;
 import com.android.baselibrary.usermanger.UserStorage;
@@ -30,11 +32,15 @@ public class SplashPresener extends BasePresenter {
 
     public void fetchDeviceInfo(){
         if (UserStorage.getInstance().isLogin() && UserStorage.getInstance().getUserType() == UserType.MARK_USER) {
+            //已登录用户 token 已知，首页数据和设备信息并行请求
+            HomePreloader.getInstance().start();
             requestDateNew(NetService.getInstance().deviceInfo2(UserStorage.getInstance().getToken()), Constants.DIALOG_LOADING, new BaseCallBack() {
                 @Override
                 public void onSuccess(Object obj) {
                     LoginBean bean = (LoginBean) obj;
                     UserStorage.getInstance().touristLogin(bean);
+                    StartupTrace.mark(StartupTrace.DEVICE_INFO);
+                    HomePreloader.getInstance().start();
                     mSplashView.fetchDeviceInfo(bean);
                 }
                 @Override
@@ -55,6 +61,8 @@ public class SplashPresener extends BasePresenter {
                 public void onSuccess(Object obj) {
                     LoginBean bean = (LoginBean) obj;
                     UserStorage.getInstance().touristLogin(bean);
+                    StartupTrace.mark(StartupTrace.DEVICE_INFO);
+                    HomePreloader.getInstance().start();
                     mSplashView.fetchDeviceInfo(bean);
                 }
                 @Override
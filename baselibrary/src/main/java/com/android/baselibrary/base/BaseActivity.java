@@ -46,6 +46,9 @@ import com.umeng.analytics.MobclickAgent;
 import org.simple.eventbus.EventBus;
 
 import butterknife.ButterKnife;
+import java.util.ArrayList;
+import java.util.List;
+
 import me.imid.swipebacklayout.lib.SwipeBackLayout;
 import me.imid.swipebacklayout.lib.app.SwipeBackActivity;
 
@@ -55,11 +58,12 @@ import me.imid.swipebacklayout.lib.app.SwipeBackActivity;
  *
  */
 public abstract class BaseActivity<T extends BasePresenter> extends SwipeBackActivity implements BaseView,
-        SwichLayoutInterFace, TitleBuilder.TitleBuilderListener {
+        SwichLayoutInterFace, TitleBuilder.TitleBuilderListener, PresenterHost {
 
     public TitleBuilder mTitleBuilder;  //标题
     protected VaryViewHelperController mVaryViewHelperController; //网络加载控制器
     protected T mPresenter; //泛型 presenter
+    private final List<BasePresenter> mBoundPresenters = new ArrayList<>(); //发过请求的 presenter，销毁时取消请求
 
     private FrameLayout mTitle_container;
     /**
@@ -305,6 +309,10 @@ public abstract class BaseActivity<T extends BasePresenter> extends SwipeBackAct
         if (mPresenter != null) {
             mPresenter.cancelRequest();
         }
+        for (BasePresenter presenter : mBoundPresenters) {
+            presenter.cancelRequest();
+        }
+        mBoundPresenters.clear();
         ActivityManager.getAppManager().finishActivity(this);
         ToastUtil.dismissToast();
         if (annotation != null) {
@@ -315,6 +323,11 @@ public abstract class BaseActivity<T extends BasePresenter> extends SwipeBackAct
         }
     }
 
+    @Override
+    public void bindPresenter(BasePresenter presenter) {
+        mBoundPresenters.add(presenter);
+    }
+
 
     @Override
     public void showToast(String msg) {
@@ -7,6 +7,11 @@ import android.content.pm.PackageManager;
 import android.support.multidex.MultiDex;
 import android.support.multidex.MultiDexApplication;
 import android.util.DisplayMetrics;
+import com.android.baselibrary.log.AppLog;
+import com.android.baselibrary.log.StartupTrace;
+import com.android.baselibrary.service.http.NetWarmer;
+import com.android.baselibrary.thread.AppExecutors;
+import com.android.baselibrary.thread.DownloaderExecutorSupplier;
 import com.android.baselibrary.usermanger.UserStorage;
 
 import com.android.baselibrary.util.DisplayUtil;
@@ -14,6 +19,7 @@ import com.downloader.PRDownloader;
 import com.downloader.PRDownloaderConfig;
 import com.fm.openinstall.OpenInstall;
 import com.orhanobut.logger.Logger;
+import com.pizidea.imagepicker.PickerExecutors;
 import com.tencent.mm.sdk.openapi.IWXAPI;
 import com.umeng.analytics.MobclickAgent;
 
@@ -56,10 +62,17 @@ public class BaseApplication extends MultiDexApplication {
         super.onCreate();
         mContext = this;
         instance = this;
+        StartupTrace.begin();
+        AppLog.init(this);
+        AppExecutors.install();
         PRDownloaderConfig config = PRDownloaderConfig.newBuilder()
                 .setDatabaseEnabled(true)
+                .setExecutorSupplier(new DownloaderExecutorSupplier())
                 .build();
         PRDownloader.initialize(this, config);
+        //图片选择器不自己建线程，用全局的线程池
+        PickerExecutors.setDiskExecutor(AppExecutors.disk());
+        PickerExecutors.setDecodeExecutor(AppExecutors.decode());
         x.Ext.init(this);
         DbManager.DaoConfig daoConfig = new DbManager.DaoConfig()
                 .setDbName(DB_NAME)
@@ -75,6 +88,8 @@ public class BaseApplication extends MultiDexApplication {
         db = x.getDb(daoConfig);
 
         if(isMainProcess()){
+            //后台预解析域名、预建接口连接
+            NetWarmer.start();
             OpenInstall.init(this);
         }
 
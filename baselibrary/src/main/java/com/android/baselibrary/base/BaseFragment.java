@@ -27,11 +27,13 @@ import com.bumptech.glide.Glide;
 import com.kaopiz.kprogresshud.KProgressHUD;
 import org.simple.eventbus.EventBus;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Timer;
 
 
 public abstract class BaseFragment<T extends BasePresenter> extends Fragment implements
-        BaseView, TitleBuilder.TitleBuilderListener {
+        BaseView, TitleBuilder.TitleBuilderListener, PresenterHost {
 
     protected Activity mContext;                                                                    //宿主activity
 
@@ -41,6 +43,8 @@ public abstract class BaseFragment<T extends BasePresenter> extends Fragment imp
 
     protected T mPresenter;
 
+    private final List<BasePresenter> mBoundPresenters = new ArrayList<>();                      //发过请求的 presenter，销毁时取消请求
+
     public FrameLayout mTitle_container;
 
     public TitleBuilder mTitleBuilder;  //标题
@@ -415,12 +419,21 @@ public abstract class BaseFragment<T extends BasePresenter> extends Fragment imp
         // endTimer();
         //ButterKnife.unbind(this);
         Log.e("fragment1", this.getClass().getSimpleName() + "onDestroy");
+        for (BasePresenter presenter : mBoundPresenters) {
+            presenter.cancelRequest();
+        }
+        mBoundPresenters.clear();
         if (useEventBus()) {
             EventBus.getDefault().unregister(this);
         }
         Glide.with(this).pauseRequests();
     }
 
+    @Override
+    public void bindPresenter(BasePresenter presenter) {
+        mBoundPresenters.add(presenter);
+    }
+
     public String getActivityTag() {
         return "";
     }
@@ -2,8 +2,10 @@ package com.android.baselibrary.base;
 
 import android.util.Log;
 
+import com.android.baselibrary.service.ResponseCache;
 import com.android.baselibrary.service.UrlConstants;
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.baselibrary.service.upload.ImageUploader;
 import com.android.baselibrary.service.upload.UploadImageBean;
 import com.android.baselibrary.service.upload.UploadImageListener;
 import com.android.baselibrary.util.LogUtils;
@@ -12,6 +14,12 @@ import com.android.baselibrary.util.StringUtils;
 import com.android.baselibrary.widget.toast.ToastUtil;
 import com.google.gson.Gson;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -20,15 +28,54 @@ import rx.Observable;
 import rx.Subscriber;
 import rx.Subscription;
 import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action0;
+import rx.subscriptions.CompositeSubscription;
+import rx.subscriptions.Subscriptions;
 
 
 public abstract class BasePresenter {
 
+    /**
+     * 进行中被取消的请求数（页面销毁、cancelRequest、被同组的新请求替换）
+     */
+    private static final AtomicLong sCancelledCount = new AtomicLong();
+    /**
+     * 其中因为同组新请求被替换的数
+     */
+    private static final AtomicLong sSupersededCount = new AtomicLong();
 
+    /**
+     * 最近一次发起的请求
+     */
     public Subscription mSubscription;
 
+    /**
+     * 进行中的请求，结束后自动移除，{@link #cancelRequest()} 时全部取消
+     */
+    private final CompositeSubscription mSubscriptions = new CompositeSubscription();
+
+    /**
+     * {@link #requestLatest} 每组最近一次还没结束的请求
+     */
+    private final Map<String, Subscription> mLatestRequests = new HashMap<>();
+
+    private boolean mBoundToHost;
+
+    /**
+     * 进行中的多图上传，和其他请求一起在 {@link #cancelRequest()} 时取消
+     */
+    private final List<ImageUploader> mUploaders = new ArrayList<>();
+
     BaseView baseView;
 
+    public static long cancelledCount() {
+        return sCancelledCount.get();
+    }
+
+    public static long supersededCount() {
+        return sSupersededCount.get();
+    }
+
 
     /*
     * 上传单张图片
@@ -69,6 +116,41 @@ public abstract class BasePresenter {
         });
     }
 
+    /**
+     * 用 {@link ImageUploader} 上传，页面销毁时和其他请求一样取消，取消后不再回调
+     */
+    public void uploadImages(final ImageUploader uploader, List<String> paths, final ImageUploader.Listener listener) {
+        baseView = (BaseView) getView();
+        bindHost();
+        synchronized (this) {
+            mUploaders.add(uploader);
+        }
+        uploader.upload(paths, new ImageUploader.Listener() {
+            @Override
+            public void onProgress(int index, long written, long total) {
+                listener.onProgress(index, written, total);
+            }
+
+            @Override
+            public void onSuccess(int index, String url) {
+                listener.onSuccess(index, url);
+            }
+
+            @Override
+            public void onFailed(int index) {
+                listener.onFailed(index);
+            }
+
+            @Override
+            public void onFinished(List<String> urls) {
+                synchronized (BasePresenter.this) {
+                    mUploaders.remove(uploader);
+                }
+                listener.onFinished(urls);
+            }
+        });
+    }
+
     /*
     * 上传单张图片无进度条
     * */
@@ -107,12 +189,14 @@ public abstract class BasePresenter {
 
     public synchronized void requestDateNoLog(Observable observable, final String isDialog, final BaseCallBack callBack) {
         baseView = (BaseView) getView();
-        if (!NetWorkUtils.isNetworkConnected(BaseApplication.getInstance().getContext())) {
+        bindHost();
+        if (!NetWorkUtils.isNetworkConnected(BaseApplication.getInstance().getContext())
+                && !ResponseCache.isOfflineFirst(observable)) {
             callBack.onNetWorkError("无网络");
             return;
         }
 
-        mSubscription = observable.observeOn(AndroidSchedulers.mainThread())
+        mSubscription = track(scoped(observable)
                 .subscribe(new Subscriber() {
                     @Override
                     public void onStart() {
@@ -178,13 +262,15 @@ public abstract class BasePresenter {
                             }
                         }
                     }
-                });
+                }));
     }
 
 
     public synchronized void requestDateNew(Observable observable, final String isDialog, final BaseCallBack callBack) {
         baseView = (BaseView) getView();
-        if (!NetWorkUtils.isNetworkConnected(BaseApplication.getInstance().getContext())) {
+        bindHost();
+        if (!NetWorkUtils.isNetworkConnected(BaseApplication.getInstance().getContext())
+                && !ResponseCache.isOfflineFirst(observable)) {
             if(isDialog != null && baseView != null){
 
                 baseView.hideDialogLoading();
@@ -194,7 +280,7 @@ public abstract class BasePresenter {
             return;
         }
 
-        mSubscription = observable.observeOn(AndroidSchedulers.mainThread())
+        mSubscription = track(scoped(observable)
                 .subscribe(new Subscriber() {
                     @Override
                     public void onStart() {
@@ -261,21 +347,23 @@ public abstract class BasePresenter {
                             }
                         }
                     }
-                });
+                }));
     }
 
 
 
     public Subscription requestSubscript(Observable observable, final String isDialog, final BaseCallBack callBack) {
         baseView = (BaseView) getView();
-        if (!NetWorkUtils.isNetworkConnected(BaseApplication.getInstance().getContext())) {
+        bindHost();
+        if (!NetWorkUtils.isNetworkConnected(BaseApplication.getInstance().getContext())
+                && !ResponseCache.isOfflineFirst(observable)) {
             if(isDialog != null && baseView != null){
                 baseView.showToast("网络连接失败");
             }
             callBack.onNetWorkError("无网络");
             return null;
         }
-        Subscription subscription = observable.observeOn(AndroidSchedulers.mainThread())
+        Subscription subscription = track(scoped(observable)
                 .subscribe(new Subscriber() {
                     @Override
                     public void onStart() {
@@ -340,7 +428,7 @@ public abstract class BasePresenter {
                             }
                         }
                     }
-                });
+                }));
 
         return subscription;
     }
@@ -349,7 +437,9 @@ public abstract class BasePresenter {
 
     public Subscription requestNoLogSubscript(Observable observable, final String isDialog, final BaseCallBack callBack) {
         baseView = (BaseView) getView();
-        if (!NetWorkUtils.isNetworkConnected(BaseApplication.getInstance().getContext())) {
+        bindHost();
+        if (!NetWorkUtils.isNetworkConnected(BaseApplication.getInstance().getContext())
+                && !ResponseCache.isOfflineFirst(observable)) {
             if(isDialog != null && baseView != null){
 
                 baseView.hideDialogLoading();
@@ -358,7 +448,7 @@ public abstract class BasePresenter {
             callBack.onNetWorkError("");
             return null;
         }
-        Subscription subscription = observable.observeOn(AndroidSchedulers.mainThread())
+        Subscription subscription = track(scoped(observable)
                 .subscribe(new Subscriber() {
                     @Override
                     public void onStart() {
@@ -420,11 +510,96 @@ public abstract class BasePresenter {
                             }
                         }
                     }
-                });
+                }));
 
         return subscription;
     }
 
+    /**
+     * "最后一次为准"：同一组里新的请求发出时取消上一次还没返回的请求，用于搜索、详情这类只关心最新结果的请求
+     *
+     * @param group 分组名，同一个 presenter 内唯一即可
+     */
+    public synchronized void requestLatest(String group, Observable observable, final String isDialog, final BaseCallBack callBack) {
+        Subscription previous = mLatestRequests.remove(group);
+        if (previous != null && !previous.isUnsubscribed()) {
+            sSupersededCount.incrementAndGet();
+            previous.unsubscribe();
+        }
+        mSubscription = null;
+        requestDateNew(observable, isDialog, callBack);
+        final Subscription subscription = mSubscription;
+        if (subscription != null && !subscription.isUnsubscribed()) {
+            mLatestRequests.put(group, subscription);
+            final String key = group;
+            onTerminate(subscription, new Action0() {
+                @Override
+                public void call() {
+                    synchronized (BasePresenter.this) {
+                        if (mLatestRequests.get(key) == subscription) {
+                            mLatestRequests.remove(key);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 回到主线程，并统计结束前被取消的请求数 {@link #cancelledCount()}
+     */
+    private Observable scoped(Observable observable) {
+        final AtomicBoolean terminated = new AtomicBoolean();
+        return observable.doOnTerminate(new Action0() {
+            @Override
+            public void call() {
+                terminated.set(true);
+            }
+        }).doOnUnsubscribe(new Action0() {
+            @Override
+            public void call() {
+                if (!terminated.get()) {
+                    sCancelledCount.incrementAndGet();
+                }
+            }
+        }).observeOn(AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * 登记到 {@link #mSubscriptions}，结束或取消后自动移除
+     */
+    private Subscription track(final Subscription subscription) {
+        mSubscriptions.add(subscription);
+        onTerminate(subscription, new Action0() {
+            @Override
+            public void call() {
+                mSubscriptions.remove(subscription);
+            }
+        });
+        return subscription;
+    }
+
+    /**
+     * 请求结束或被取消时执行；已经结束时立即执行
+     */
+    private static void onTerminate(Subscription subscription, Action0 action) {
+        if (subscription instanceof Subscriber) {
+            ((Subscriber) subscription).add(Subscriptions.create(action));
+        } else if (subscription.isUnsubscribed()) {
+            action.call();
+        }
+    }
+
+    /**
+     * view 是 Activity / Fragment 时绑定到它的生命周期，销毁时自动取消请求
+     */
+    private void bindHost() {
+        if (!mBoundToHost && baseView instanceof PresenterHost) {
+            ((PresenterHost) baseView).bindPresenter(this);
+            mBoundToHost = true;
+        }
+    }
+
     private void onFinish() {
 
     }
@@ -435,13 +610,16 @@ public abstract class BasePresenter {
     }
 
     /**
-     * 取消请求
-     *
-     * @return
+     * 取消这个 presenter 所有进行中的请求，取消后仍可以继续发起新请求
      */
-    public void cancelRequest() {
-        if (mSubscription != null)
-            mSubscription.unsubscribe();
+    public synchronized void cancelRequest() {
+        mSubscriptions.clear();
+        mLatestRequests.clear();
+        mSubscription = null;
+        for (ImageUploader uploader : mUploaders) {
+            uploader.cancel();
+        }
+        mUploaders.clear();
     }
 
     /**
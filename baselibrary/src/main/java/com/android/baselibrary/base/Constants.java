@@ -78,6 +78,11 @@ public class Constants {
     public static final String DIALOG_LOADING = "DIALOG_LOADING";
     public static final String PAGE_LOADING = "PAGE_LOADING";
 
+    /*************
+     * 分页列表距离底部还有几条时提前加载下一页
+     ****************/
+    public static final int LIST_PRELOAD_NUMBER = 6;
+
 
     /*************
      * 登录的个人信息 标记
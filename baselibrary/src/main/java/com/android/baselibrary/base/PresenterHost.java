@@ -0,0 +1,9 @@
+package com.android.baselibrary.base;
+
+/**
+ * 持有 presenter 的页面（Activity / Fragment），页面销毁时取消绑定的 presenter 的所有请求
+ */
+public interface PresenterHost {
+
+    void bindPresenter(BasePresenter presenter);
+}
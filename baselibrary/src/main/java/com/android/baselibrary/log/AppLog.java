@@ -0,0 +1,373 @@
+package com.android.baselibrary.log;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 统一的日志入口
+ * <p>
+ * 调用线程只做级别判断并把一条记录放进无锁环形队列，写 logcat 和写文件都由后台线程完成，
+ * 文件写在 files/log/app.log，超过 {@link #MAX_FILE_SIZE} 后轮转为 app.1.log、app.2.log。
+ * <p>
+ * 最低级别在 {@link #init(Context)} 时按 app 是否 debuggable 决定：debug 包输出全部级别，release 包低于 WARN 的在方法入口就返回。
+ * library 的 BuildConfig.DEBUG 不代表 app 的构建类型，也不是编译期常量，这里不用它；
+ * 热点路径上拼接字符串前先判断 {@link #isDebugEnabled()}，release 包里就不会拼接。
+ * 需要在 release 包里也留存到文件的日志用 {@link #file(String, String)}。
+ * <p>
+ * 运行时还可以按 tag 调高级别 {@link #setLevel(String, int)}、按 tag 采样 {@link #setSampleRate(String, int)}。
+ */
+public final class AppLog {
+
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+    /**
+     * 关闭某个 tag
+     */
+    public static final int OFF = Integer.MAX_VALUE;
+
+    /**
+     * body 类日志（接口返回等）默认最多输出的字符数
+     */
+    public static final int MAX_BODY_LENGTH = 4 * 1024;
+
+    private static final int BUFFER_CAPACITY = 1024;
+    private static final long MAX_FILE_SIZE = 1024 * 1024;
+    private static final int MAX_FILE_COUNT = 3;
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final String FILE_NAME = "app";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final LogRingBuffer<Record> buffer = new LogRingBuffer<>(BUFFER_CAPACITY);
+    private static final ConcurrentHashMap<String, Integer> tagLevels = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Sampler> samplers = new ConcurrentHashMap<>();
+
+    /**
+     * 总开关：debug 包输出全部级别，release 包只保留 WARN 及以上；init 之前按 release 处理
+     */
+    private static volatile int minLevel = WARN;
+    private static volatile int defaultLevel = WARN;
+    private static volatile boolean logcatEnabled;
+    private static volatile File logDir;
+    private static volatile Thread flusher;
+
+    private AppLog() {
+    }
+
+    /**
+     * 在 Application.onCreate 中调用，按 app 是否 debuggable 设置级别并开启写文件
+     */
+    public static synchronized void init(Context context) {
+        if (flusher != null) {
+            return;
+        }
+        boolean debuggable = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        minLevel = debuggable ? VERBOSE : WARN;
+        defaultLevel = minLevel;
+        logcatEnabled = debuggable;
+        logDir = new File(context.getFilesDir(), "log");
+        Thread thread = new Thread(new Flusher(), "AppLog-flusher");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        flusher = thread;
+        thread.start();
+    }
+
+    public static void setDefaultLevel(int level) {
+        defaultLevel = Math.max(level, minLevel);
+    }
+
+    /**
+     * 单独设置某个 tag 的级别，release 包里低于 WARN 的设置不会生效
+     */
+    public static void setLevel(String tag, int level) {
+        tagLevels.put(tag, Math.max(level, minLevel));
+    }
+
+    /**
+     * debug 包为 true，拼接 DEBUG 日志前先判断
+     */
+    public static boolean isDebugEnabled() {
+        return minLevel <= DEBUG;
+    }
+
+    /**
+     * 每 rate 条只输出 1 条（ERROR 不采样），rate <= 1 时取消采样
+     */
+    public static void setSampleRate(String tag, int rate) {
+        if (rate <= 1) {
+            samplers.remove(tag);
+        } else {
+            samplers.put(tag, new Sampler(rate));
+        }
+    }
+
+    public static void setLogcatEnabled(boolean enabled) {
+        logcatEnabled = enabled;
+    }
+
+    public static boolean isLoggable(String tag, int level) {
+        if (level < minLevel) {
+            return false;
+        }
+        Integer tagLevel = tagLevels.get(tag);
+        return level >= (tagLevel != null ? tagLevel : defaultLevel);
+    }
+
+    /**
+     * 因队列满被丢弃的日志条数
+     */
+    public static long droppedCount() {
+        return buffer.dropped();
+    }
+
+    public static void v(String tag, String msg) {
+        log(VERBOSE, tag, msg, null);
+    }
+
+    public static void d(String tag, String msg) {
+        log(DEBUG, tag, msg, null);
+    }
+
+    public static void i(String tag, String msg) {
+        log(INFO, tag, msg, null);
+    }
+
+    public static void w(String tag, String msg) {
+        log(WARN, tag, msg, null);
+    }
+
+    public static void w(String tag, String msg, Throwable tr) {
+        log(WARN, tag, msg, tr);
+    }
+
+    public static void e(String tag, String msg) {
+        log(ERROR, tag, msg, null);
+    }
+
+    public static void e(String tag, String msg, Throwable tr) {
+        log(ERROR, tag, msg, tr);
+    }
+
+    /**
+     * 不受级别、采样限制，总是写入日志文件，不输出到 logcat（DLLog 这类需要在 release 包里留存的日志）
+     */
+    public static void file(String tag, String msg) {
+        enqueue(INFO, tag, msg, null, false);
+    }
+
+    /**
+     * 输出较长的内容（例如接口返回），超过 {@link #MAX_BODY_LENGTH} 的部分截掉
+     */
+    public static void body(int level, String tag, String prefix, String body) {
+        if (!isLoggable(tag, level) || body == null) {
+            return;
+        }
+        if (body.length() > MAX_BODY_LENGTH) {
+            body = body.substring(0, MAX_BODY_LENGTH) + "...(" + body.length() + " chars)";
+        }
+        enqueue(level, tag, prefix == null ? body : prefix + body, null, true);
+    }
+
+    public static void log(int level, String tag, String msg, Throwable tr) {
+        if (!isLoggable(tag, level)) {
+            return;
+        }
+        if (level < ERROR) {
+            Sampler sampler = samplers.get(tag);
+            if (sampler != null && !sampler.sample()) {
+                return;
+            }
+        }
+        enqueue(level, tag, msg, tr, true);
+    }
+
+    private static void enqueue(int level, String tag, String msg, Throwable tr, boolean logcat) {
+        Record record = new Record(level, tag, msg, tr, System.currentTimeMillis(), Thread.currentThread().getId(), logcat);
+        if (buffer.offer(record) && buffer.size() > buffer.capacity() / 2) {
+            Thread thread = flusher;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    private static final class Record {
+        final int level;
+        final String tag;
+        final String msg;
+        final Throwable tr;
+        final long time;
+        final long threadId;
+        final boolean logcat;
+
+        Record(int level, String tag, String msg, Throwable tr, long time, long threadId, boolean logcat) {
+            this.level = level;
+            this.tag = tag;
+            this.msg = msg;
+            this.tr = tr;
+            this.time = time;
+            this.threadId = threadId;
+            this.logcat = logcat;
+        }
+    }
+
+    private static final class Sampler {
+        final int rate;
+        final AtomicInteger counter = new AtomicInteger();
+
+        Sampler(int rate) {
+            this.rate = rate;
+        }
+
+        boolean sample() {
+            return counter.getAndIncrement() % rate == 0;
+        }
+    }
+
+    /**
+     * 后台线程：取出记录，写 logcat 与文件
+     */
+    private static final class Flusher implements Runnable {
+
+        private final SimpleDateFormat format = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+        private final Date date = new Date();
+        private final StringBuilder line = new StringBuilder(256);
+        private Writer writer;
+        private File file;
+        private long fileSize;
+
+        @Override
+        public void run() {
+            for (; ; ) {
+                boolean wrote = false;
+                Record record;
+                while ((record = buffer.poll()) != null) {
+                    write(record);
+                    wrote = true;
+                }
+                if (wrote) {
+                    flush();
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS));
+            }
+        }
+
+        private void write(Record record) {
+            String msg = record.msg == null ? "" : record.msg;
+            if (record.tr != null) {
+                msg = msg + '\n' + stackTrace(record.tr);
+            }
+            if (logcatEnabled && record.logcat) {
+                Log.println(record.level, record.tag, msg);
+            }
+            date.setTime(record.time);
+            line.setLength(0);
+            line.append(format.format(date)).append(' ')
+                    .append(levelChar(record.level)).append('/')
+                    .append(record.tag).append('(').append(record.threadId).append("): ")
+                    .append(msg).append('\n');
+            try {
+                Writer out = writer();
+                if (out != null) {
+                    out.write(line.toString());
+                    fileSize += line.length();
+                }
+            } catch (IOException e) {
+                closeWriter();
+            }
+        }
+
+        private void flush() {
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                closeWriter();
+            }
+        }
+
+        private Writer writer() throws IOException {
+            File dir = logDir;
+            if (dir == null) {
+                return null;
+            }
+            if (writer != null && fileSize >= MAX_FILE_SIZE) {
+                closeWriter();
+                rotate(dir);
+            }
+            if (writer == null) {
+                if (!dir.exists() && !dir.mkdirs()) {
+                    return null;
+                }
+                file = new File(dir, FILE_NAME + ".log");
+                fileSize = file.length();
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8), 8192);
+            }
+            return writer;
+        }
+
+        private void rotate(File dir) {
+            new File(dir, FILE_NAME + "." + (MAX_FILE_COUNT - 1) + ".log").delete();
+            for (int i = MAX_FILE_COUNT - 2; i >= 1; i--) {
+                new File(dir, FILE_NAME + "." + i + ".log").renameTo(new File(dir, FILE_NAME + "." + (i + 1) + ".log"));
+            }
+            file.renameTo(new File(dir, FILE_NAME + ".1.log"));
+        }
+
+        private void closeWriter() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                }
+                writer = null;
+            }
+        }
+
+        private static String stackTrace(Throwable tr) {
+            StringWriter sw = new StringWriter();
+            PrintWriter pw = new PrintWriter(sw);
+            tr.printStackTrace(pw);
+            pw.flush();
+            return sw.toString();
+        }
+
+        private static char levelChar(int level) {
+            switch (level) {
+                case VERBOSE:
+                    return 'V';
+                case DEBUG:
+                    return 'D';
+                case INFO:
+                    return 'I';
+                case WARN:
+                    return 'W';
+                default:
+                    return 'E';
+            }
+        }
+    }
+}
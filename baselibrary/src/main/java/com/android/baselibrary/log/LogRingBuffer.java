@@ -0,0 +1,94 @@
+package com.android.baselibrary.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 多生产者、单消费者的定长环形队列（无锁）
+ * <p>
+ * 每个槽带一个序号：序号 == 写位置 时可写，== 写位置 + 1 时可读。
+ * 生产者只在 tail 上 CAS，队列满时直接丢弃并计数，绝不阻塞调用线程。
+ */
+final class LogRingBuffer<E> {
+
+    private final int mask;
+    private final int capacity;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    /**
+     * 只有消费线程读写
+     */
+    private long head;
+
+    /**
+     * @param capacity 会向上取整到 2 的幂
+     */
+    LogRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return 队列已满时返回 false
+     */
+    boolean offer(E e) {
+        long pos;
+        int index;
+        for (; ; ) {
+            pos = tail.get();
+            index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+        slots.lazySet(index, e);
+        sequences.lazySet(index, pos + 1);
+        return true;
+    }
+
+    /**
+     * 只能在消费线程调用
+     */
+    E poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E e = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.lazySet(index, head + capacity);
+        head++;
+        return e;
+    }
+
+    int size() {
+        long size = tail.get() - head;
+        return size < 0 ? 0 : (int) Math.min(size, capacity);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,67 @@
+package com.android.baselibrary.log;
+
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 冷启动耗时打点
+ * <p>
+ * 以 Application.onCreate 为起点，每个阶段只记录第一次，输出到 {@link AppLog}（tag 为 {@link #TAG}），
+ * 例如 "firstContent +850ms"，用来对比首屏出内容的时间。release 包不输出 INFO，这时只写日志文件，
+ * 线上包也能从 files/log 里取到数据；{@link #elapsed(String)} 可以直接取某个阶段的耗时。
+ */
+public final class StartupTrace {
+
+    public static final String TAG = "startup";
+
+    /**
+     * 启动页拿到设备信息 / token
+     */
+    public static final String DEVICE_INFO = "deviceInfo";
+    /**
+     * 首页数据返回
+     */
+    public static final String HOME_DATA = "homeData";
+    /**
+     * 首页 banner 和第一个区块画到屏幕上
+     */
+    public static final String FIRST_CONTENT = "firstContent";
+
+    private static long startTime;
+    private static final Map<String, Long> marked = new HashMap<>();
+
+    private StartupTrace() {
+    }
+
+    /**
+     * 在 Application.onCreate 中调用
+     */
+    public static synchronized void begin() {
+        startTime = SystemClock.elapsedRealtime();
+        marked.clear();
+    }
+
+    public static synchronized void mark(String stage) {
+        if (startTime == 0 || marked.containsKey(stage)) {
+            return;
+        }
+        long elapsed = SystemClock.elapsedRealtime() - startTime;
+        marked.put(stage, elapsed);
+        String msg = stage + " +" + elapsed + "ms";
+        if (AppLog.isDebugEnabled()) {
+            AppLog.i(TAG, msg);
+        } else {
+            AppLog.file(TAG, msg);
+        }
+    }
+
+    /**
+     * 阶段距启动的毫秒数，还没到达时返回 -1
+     */
+    public static synchronized long elapsed(String stage) {
+        Long elapsed = marked.get(stage);
+        return elapsed == null ? -1 : elapsed;
+    }
+}
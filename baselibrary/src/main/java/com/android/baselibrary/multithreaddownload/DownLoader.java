@@ -3,7 +3,6 @@ package com.android.baselibrary.multithreaddownload;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Message;
-import android.util.Log;
 
 import com.android.baselibrary.multithreaddownload.dbcontrol.DataKeeper;
 import com.android.baselibrary.multithreaddownload.dbcontrol.FileHelper;
@@ -258,7 +257,6 @@ public class DownLoader {
                     handler.sendEmptyMessage(TASK_ERROR);
                     e.printStackTrace();
                 }finally{
-                    Log.e("test","******finally**********");
                     try {
                         if(urlConn != null){
                             urlConn.disconnect();
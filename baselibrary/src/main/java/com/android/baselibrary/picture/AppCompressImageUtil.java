@@ -10,13 +10,9 @@ import android.util.Log;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 import java.util.Random;
 
 /**
@@ -28,6 +24,7 @@ public class AppCompressImageUtil {
 
     private static final String TAG = "compressimage";// 压缩图片为最高100k
     private static final int COMPRESS_SIZE = 200;
+    private static final int MIN_QUALITY = 10;
 
     // SDCard路径
     public static final String SD_PATH = Environment
@@ -43,30 +40,8 @@ public class AppCompressImageUtil {
      * @return 压缩后图片流
      */
     public static byte[] compressImage(Bitmap image, int fileSize) {
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        // 质量压缩方法，这里100表示不压缩，把压缩后的数据存放到baos中
-        image.compress(Bitmap.CompressFormat.JPEG, 100, baos);
-        int options = 100; // 此处可尝试用90%开始压缩，跳过100%压缩
-        // 循环判断如果压缩后图片是否大于100kb,大于继续压缩
-        int length = baos.toByteArray().length;
-        Log.i(TAG, options + "--" + length);
-        while ((length = baos.toByteArray().length) / 1024 > fileSize) {
-            // 每次都减少10
-            options -= 10;
-            // 重置baos即清空baos
-            baos.reset();
-            // 这里压缩options%，把压缩后的数据存放到baos中
-            image.compress(Bitmap.CompressFormat.JPEG, options, baos);
-            Log.i(TAG, options + "--" + length);
-        }
-        return baos.toByteArray();
-        // 把压缩后的数据baos存放到ByteArrayInputStream中
-        // ByteArrayInputStream isBm = new
-        // ByteArrayInputStream(baos.toByteArray());
-        // 把ByteArrayInputStream数据生成图片
-        // Bitmap bitmap = BitmapFactory.decodeStream(isBm, null, null);
-        // return bitmap;
+        // 二分查找不超过 fileSize kb 的最高质量
+        return JpegCompressor.compress(image, (fileSize + 1) * 1024 - 1, MIN_QUALITY);
     }
 
     /**
@@ -149,97 +124,6 @@ public class AppCompressImageUtil {
     }
 
 
-    /**
-     * 批量压缩并生成图片，返回压缩生成的图片路径
-     *
-     * @param imgPath 图片路径
-     * @return CImgPath 压缩后生成的图片路径集合
-     */
-    public static List<File> batchCompressAndcreateFile(final List<String> imgPath, final float height, final float width) {
-        final List<File> fileList = new ArrayList() {
-        };
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-
-                if (imgPath != null && imgPath.size() > 0) {
-                    for (int i = 0; i < imgPath.size(); i++) {
-
-				/*
-                 * BitmapFactory.Options options = new BitmapFactory.Options();
-				 * options.inJustDecodeBounds = true; // 获取这个图片的宽和高 Bitmap
-				 * bitmap = BitmapFactory.decodeFile(path, options); // 此时返回bm为空
-				 * options.inJustDecodeBounds = false; // 计算缩放比 int be = (int)
-				 * (options.outHeight / (float) 200); if (be <= 0) be = 1; //
-				 * inSampleSize为1 保持原图 2 1/4大小 options.inSampleSize = be;
-				 */
-
-                        BitmapFactory.Options newOpts = new BitmapFactory.Options();
-                        // 开始读入图片，此时把options.inJustDecodeBounds 设回true了
-                        newOpts.inJustDecodeBounds = true;
-                        Bitmap bitmap = BitmapFactory.decodeFile(imgPath.get(i), newOpts);// 此时返回bm为空
-
-                        newOpts.inJustDecodeBounds = false;
-                        int w = newOpts.outWidth;
-                        int h = newOpts.outHeight;
-                        // 现在主流手机比较多是800*480分辨率，所以高和宽我们设置为
-                        float hh = height;// 这里设置高度为800f
-                        float ww = width;// 这里设置宽度为480f
-                        // 缩放比。由于是固定比例缩放，只用高或者宽其中一个数据进行计算即可
-                        int be = 1;// be=1表示不缩放
-                        if (w > h && w > ww) {// 如果宽度大的话根据宽度固定大小缩放
-                            be = (int) (newOpts.outWidth / ww);
-                        } else if (w < h && h > hh) {// 如果高度高的话根据宽度固定大小缩放
-                            be = (int) (newOpts.outHeight / hh);
-                        }
-                        if (be <= 0)
-                            be = 1;
-                        newOpts.inSampleSize = be;// 设置缩放比例
-
-                        // 重新读入图片，注意这次要把options.inJustDecodeBounds 设为 false
-                        newOpts.inPreferredConfig = Bitmap.Config.RGB_565;
-                        bitmap = BitmapFactory.decodeFile(imgPath.get(i), newOpts);
-
-                        // 控制图片大小为100k
-                        Bitmap tempBitmap = compressImage(bitmap);
-
-                        try {
-                            File dir = new File(ALBUM_PATH);
-                            if (!dir.exists()) {
-                                if (!dir.mkdir()) {
-
-                                }
-                            }
-                            String fileName = ALBUM_PATH + getRandomFileName() + ".jpg";
-                            File file = new File(fileName);
-                            if (!file.exists()) {
-                                file.createNewFile();
-                            } else {
-                                file.delete();
-                                file.createNewFile();
-                            }
-                            FileOutputStream out = new FileOutputStream(file);
-                            // 保持100%
-                            tempBitmap.compress(Bitmap.CompressFormat.JPEG, 100, out);
-                            out.flush();
-                            out.close();
-                            // 保存
-                            fileList.add(file);
-                        } catch (FileNotFoundException e) {
-                            // TODO Auto-generated catch block
-                            e.printStackTrace();
-                        } catch (IOException e) {
-                            // TODO Auto-generated catch block
-                            e.printStackTrace();
-                        }
-                    }
-                }
-
-            }
-        });
-        return fileList;
-    }
-
     /**
      * 批量压缩并生成图片，返回压缩生成的图片路径
      *
@@ -247,72 +131,7 @@ public class AppCompressImageUtil {
      * @return CImgPath 压缩后生成的图片路径集合
      */
     public static String batchCompressAndcreateFile(final String imgPath, final float height, final float width) {
-
-        if (imgPath != null) {
-
-            BitmapFactory.Options newOpts = new BitmapFactory.Options();
-            // 开始读入图片，此时把options.inJustDecodeBounds 设回true了
-            newOpts.inJustDecodeBounds = true;
-            Bitmap bitmap = BitmapFactory.decodeFile(imgPath, newOpts);// 此时返回bm为空
-
-            newOpts.inJustDecodeBounds = false;
-            int w = newOpts.outWidth;
-            int h = newOpts.outHeight;
-            // 现在主流手机比较多是800*480分辨率，所以高和宽我们设置为
-            float hh = height;// 这里设置高度为800f
-            float ww = width;// 这里设置宽度为480f
-            // 缩放比。由于是固定比例缩放，只用高或者宽其中一个数据进行计算即可
-            int be = 1;// be=1表示不缩放
-            if (w > h && w > ww) {// 如果宽度大的话根据宽度固定大小缩放
-                be = (int) (newOpts.outWidth / ww);
-            } else if (w < h && h > hh) {// 如果高度高的话根据宽度固定大小缩放
-                be = (int) (newOpts.outHeight / hh);
-            }
-            if (be <= 0)
-                be = 1;
-            newOpts.inSampleSize = be;// 设置缩放比例
-
-            // 重新读入图片，注意这次要把options.inJustDecodeBounds 设为 false
-            newOpts.inPreferredConfig = Bitmap.Config.RGB_565;
-            bitmap = BitmapFactory.decodeFile(imgPath, newOpts);
-
-            // 控制图片大小为100k
-            Bitmap tempBitmap = compressImage(bitmap);
-
-            try {
-                File dir = new File(ALBUM_PATH);
-                if (!dir.exists()) {
-                    if (!dir.mkdir()) {
-
-                    }
-                }
-                String fileName = ALBUM_PATH + getRandomFileName() + ".jpg";
-                File file = new File(fileName);
-                if (!file.exists()) {
-                    file.createNewFile();
-                } else {
-                    file.delete();
-                    file.createNewFile();
-                }
-                FileOutputStream out = new FileOutputStream(file);
-                // 保持100%
-                tempBitmap.compress(Bitmap.CompressFormat.JPEG, 100, out);
-                out.flush();
-                out.close();
-                // 保存
-                Log.e("test", "*************add success************");
-                return fileName;
-            } catch (FileNotFoundException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
-        }
-
-
-        return null;
+        return compressAndCreateFile(imgPath, (int) width, (int) height);
     }
 
     /**
@@ -322,123 +141,22 @@ public class AppCompressImageUtil {
      * @return CImgPath 压缩后生成的图片路径集合
      */
     public static String batchCompressAndcreateFile(final String imgPath) {
-
-        if (imgPath != null) {
-
-            BitmapFactory.Options newOpts = new BitmapFactory.Options();
-            // 开始读入图片，此时把options.inJustDecodeBounds 设回true了
-            newOpts.inJustDecodeBounds = true;
-            Bitmap bitmap = BitmapFactory.decodeFile(imgPath, newOpts);// 此时返回bm为空
-
-            newOpts.inJustDecodeBounds = false;
-            int imageWidth = newOpts.outWidth;
-            int imageHeight = newOpts.outHeight;
-            // 现在主流手机比较多是1280*720分辨率，所以高和宽我们设置为
-            int windowHeight = 1280;// 这里设置高度为1280f
-            int windowWidth = 720;// 这里设置宽度为720f
-            /*// 缩放比。由于是固定比例缩放，只用高或者宽其中一个数据进行计算即可
-           int be = 1;// be=1表示不缩放
-            if (imageWidth > imageHeight && imageWidth > windowWidth) {// 如果宽度大的话根据宽度固定大小缩放
-                be = (int) (newOpts.outWidth / windowWidth);
-            } else if (imageWidth < imageHeight && imageHeight > windowHeight) {// 如果高度高的话根据宽度固定大小缩放
-                be = (int) (newOpts.outHeight / windowHeight);
-            }
-            if (be <= 0)
-                be = 1;*/
-            newOpts.inSampleSize = computeSampleSize(newOpts,windowWidth,windowWidth*windowHeight);
-            Log.e("test","**************inSampleSize="+newOpts.inSampleSize);
-
-            // 重新读入图片，注意这次要把options.inJustDecodeBounds 设为 false
-            newOpts.inPreferredConfig = Bitmap.Config.RGB_565;
-            bitmap = BitmapFactory.decodeFile(imgPath, newOpts);
-
-            //纠正图片角度
-            bitmap = rotateBitmap(bitmap,readPictureDegree(imgPath));
-
-            // 控制图片大小为100k
-            Bitmap tempBitmap = compressImage(bitmap);
-
-            try {
-                File dir = new File(ALBUM_PATH);
-                if (!dir.exists()) {
-                    if (!dir.mkdir()) {
-
-                    }
-                }
-                String fileName = ALBUM_PATH + getRandomFileName() + ".jpg";
-                File file = new File(fileName);
-                if (!file.exists()) {
-                    file.createNewFile();
-                } else {
-                    file.delete();
-                    file.createNewFile();
-                }
-                FileOutputStream out = new FileOutputStream(file);
-                // 保持100%
-                if(tempBitmap != null)
-                    tempBitmap.compress(Bitmap.CompressFormat.JPEG, 100, out);
-                out.flush();
-                out.close();
-                // 保存
-                if(tempBitmap != null){
-                    if(!tempBitmap.isRecycled()){
-                        tempBitmap.recycle();
-                        System.gc();
-                    }
-                }
-                return fileName;
-            } catch (FileNotFoundException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }catch (OutOfMemoryError error){
-                error.printStackTrace();
-            }
-        }
-
-
-        return null;
+        // 现在主流手机比较多是1280*720分辨率
+        return compressAndCreateFile(imgPath, 720, 1280);
     }
 
     /**
-     * 质量压缩
-     * @return
+     * 按宽高解码、纠正角度，压缩到 COMPRESS_SIZE kb 以内后直接写入文件（不再解码成 Bitmap 后按 100% 重新编码）
      */
-
-    private static Bitmap compressImage(Bitmap image) {
-        if(image != null){
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            image.compress(Bitmap.CompressFormat.JPEG, 100, baos);// 质量压缩方法，这里100表示不压缩，把压缩后的数据存放到baos中
-            int options = 100;
-            while (baos.toByteArray().length / 1024 > COMPRESS_SIZE) { // 循环判断如果压缩后图片是否大于200kb,大于继续压缩
-                baos.reset();// 重置baos即清空baos
-                image.compress(Bitmap.CompressFormat.JPEG, options, baos);// 这里压缩options%，把压缩后的数据存放到baos中
-                options -= 10;// 每次都减少10
-                if(options <= 50){
-                    //options = 50;
-                    break;
-                }
-            }
-            ByteArrayInputStream isBm = new ByteArrayInputStream(baos.toByteArray());// 把压缩后的数据baos存放到ByteArrayInputStream中
-            BitmapFactory.Options opts=new BitmapFactory.Options();
-            opts.inTempStorage = new byte[100 * 1024];
-            opts.inPreferredConfig = Bitmap.Config.RGB_565;
-            opts.inPurgeable = true;
-            opts.inInputShareable = true;
-            opts.inSampleSize = 1;
-            Bitmap bitmap = null;
-            try{
-                bitmap = BitmapFactory.decodeStream(isBm, null, opts);// 把ByteArrayInputStream数据生成图片
-            }catch (OutOfMemoryError error){
-                error.printStackTrace();
-            }
-
-            return bitmap;
+    private static String compressAndCreateFile(String imgPath, int width, int height) {
+        if (imgPath == null) {
+            return null;
         }
-
-        return null;
+        File file = new File(ALBUM_PATH + getRandomFileName() + ".jpg");
+        JpegCompressor.Result result = JpegCompressor.compressFile(imgPath, file, width, height,
+                COMPRESS_SIZE * 1024);
+        Log.i(TAG, result.toString());
+        return result.isSuccess() ? file.getPath() : null;
     }
 
     /**
@@ -9,17 +9,21 @@ import android.graphics.BitmapRegionDecoder;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.graphics.RectF;
-import android.os.Handler;
-import android.os.HandlerThread;
 import android.util.Log;
 import android.view.View;
 import android.view.animation.AccelerateDecelerateInterpolator;
 
+import com.android.baselibrary.thread.AppExecutors;
+import com.android.baselibrary.thread.SerialExecutor;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.UUID;
 
 /**
@@ -32,11 +36,32 @@ public class BitmapManager
 
 
     /**
-     * 异步处理图片的解码
+     * 异步处理图片的解码，在共享的解码线程池上按顺序执行
+     */
+    private SerialExecutor mLoadingExecutor = null;
+
+    /**
+     * 等待解码的单元格（n * mM + m），后加入的先解码；移出可见区域时直接从这里删掉
+     */
+    private final ArrayList<Integer> mPendingUnits = new ArrayList<>();
+    private boolean mDrainScheduled = false;
+
+    /**
+     * 预测的下一个视口里需要提前解码的单元格，按优先级排列，在可见单元格之后解码；
+     * 和 mPendingUnits 共用一把锁，新的预测直接替换掉旧的
      */
-    private Handler mLoadingHandler = null;
-    private HandlerThread mLoadingThread = null;
-    private final static String THREAD_NAME = "SuperImageLoad";
+    private final ArrayList<Integer> mPrefetchUnits = new ArrayList<>();
+    private int mPrefetchSampleSize = 0;
+
+    /**
+     * 一次预测最多提前解码的字节数，为 TileCache 容量的 1/4，避免把正在显示的 tile 挤出缓存
+     */
+    private static final long PREFETCH_BUDGET = Runtime.getRuntime().maxMemory() / 32;
+
+    /**
+     * 在 {@link TileCache} 中标识这张图片
+     */
+    private String mSourceKey;
 
     /**
      * Decoder
@@ -155,7 +180,7 @@ public class BitmapManager
     }
 
     /**
-     * 开启HandlerThread
+     * 创建解码队列
      */
     private void initialize(View view, IManagerCallback callback)
     {
@@ -164,21 +189,24 @@ public class BitmapManager
 
         mCacheFile = new File(view.getContext().getCacheDir(), UUID.randomUUID().toString());
         mCacheFile.deleteOnExit();
+        mSourceKey = mCacheFile.getName();
 
         mManagerCallback = callback;
 
-        mLoadingThread = new HandlerThread(THREAD_NAME + this.hashCode());
-        mLoadingThread.start();
-
-        mLoadingHandler = new Handler(mLoadingThread.getLooper());
+        mLoadingExecutor = new SerialExecutor(AppExecutors.decode());
     }
 
     /**
-     * 当这个BitmapManager 被丢弃时，必须要执行这个onDestroy(), 确保线程已经退出
+     * 当这个BitmapManager 被丢弃时，必须要执行这个onDestroy(), 丢弃还没执行的解码任务
      */
     public void onDestroy()
     {
-        mLoadingThread.quit();
+        mLoadingExecutor.quit();
+        synchronized (mPendingUnits) {
+            mPendingUnits.clear();
+            mPrefetchUnits.clear();
+        }
+        TileCache.getInstance().removeSource(mSourceKey);
         mCacheFile.delete(); // 删除临时文件
         recycleAll();
         postInvalidate();
@@ -235,7 +263,7 @@ public class BitmapManager
         }
 
         if (cache) {
-            mLoadingHandler.post(new Runnable()
+            mLoadingExecutor.execute(new Runnable()
             {
                 @Override
                 public void run()
@@ -275,7 +303,7 @@ public class BitmapManager
         }
 
         mBitmapConfig = config == null ? Bitmap.Config.RGB_565 : config;
-        mLoadingHandler.post(new Runnable()
+        mLoadingExecutor.execute(new Runnable()
         {
             @Override
             public void run()
@@ -742,6 +770,7 @@ public class BitmapManager
 
                 }
             });
+            prefetchForScale(cx, cy, dest);
             mValueAnimator.start();
         }
         else {
@@ -930,11 +959,17 @@ public class BitmapManager
      * 获取当前的SampleSize 值
      */
     private int getCurSampleSize()
+    {
+        return getSampleSize(mShowBitmapRect.width(), mShowBitmapRect.height());
+    }
+
+    /**
+     * 显示的 bitmap 为 bw x bh 时的 SampleSize 值
+     */
+    private int getSampleSize(int bw, int bh)
     {
         int iw = mImageRect.width();
         int ih = mImageRect.height();
-        int bw = mShowBitmapRect.width();
-        int bh = mShowBitmapRect.height();
 
         /**
          * 以 bitmap 的宽高为标准
@@ -972,6 +1007,110 @@ public class BitmapManager
 //        Log.e(TAG, "Current Sample Size: " + mSampleSize);
     }
 
+    /**
+     * 惯性滑动开始时调用，dx, dy 为预计滑动的总距离（和 {@link #offsetShowBitmap} 的方向相同），
+     * 提前解码停下来时视口里的 tile
+     */
+    public void prefetchForOffset(int dx, int dy)
+    {
+        if (checkImageNotAvailable()) {
+            return;
+        }
+
+        int sw = mShowBitmapRect.width();
+        int sh = mShowBitmapRect.height();
+
+        Rect rect = new Rect(mViewBitmapRect);
+        rect.offset(-dx, -dy);
+
+        /**
+         * 和 offsetShowBitmap 一样，不能滑出图片的边界
+         */
+        if (sw > mViewRect.width()) {
+            rect.offsetTo(Math.max(0, Math.min(rect.left, sw - mViewRect.width())), rect.top);
+        }
+        else {
+            rect.offsetTo(mViewBitmapRect.left, rect.top);
+        }
+        if (sh > mViewRect.height()) {
+            rect.offsetTo(rect.left, Math.max(0, Math.min(rect.top, sh - mViewRect.height())));
+        }
+        else {
+            rect.offsetTo(rect.left, mViewBitmapRect.top);
+        }
+
+        prefetchViewport(rect, sw, sh);
+    }
+
+    /**
+     * 缩放动画开始时调用，按 {@link #scaleShowBitmap} 的规则算出缩放结束后的视口和 SampleSize，
+     * 提前解码那里的 tile
+     */
+    private void prefetchForScale(int cx, int cy, float sc)
+    {
+        RectF oRect = toViewCoordinate(mShowBitmapRectF);
+        if (oRect.left > 0 && oRect.right < mViewRect.right) {
+            cx = mViewRect.centerX();
+        }
+        if (oRect.top > 0 && oRect.bottom < mViewRect.bottom) {
+            cy = mViewRect.centerY();
+        }
+
+        float left = (cx - Math.abs(cx - oRect.left) * sc);
+        float right = (cx + Math.abs(oRect.right - cx) * sc);
+        float top = (cy - Math.abs(cy - oRect.top) * sc);
+        float bottom = ((right - left) * getImageRatio() + top);
+        RectF nRect = new RectF(left, top, right, bottom);
+
+        float scaleValue = nRect.width() / mImageRect.width();
+        if (nRect.width() < mThumbShowBitmapRect.width() || nRect.height() < mThumbShowBitmapRect.height()
+                || scaleValue > mMaxScaleValue || scaleValue < mMinScaleValue) {
+            /**
+             * 回到缩略图或者缩放不生效，不需要提前解码
+             */
+            cancelPrefetch();
+            return;
+        }
+
+        int sw = (int) nRect.width();
+        int sh = (int) nRect.height();
+        int vw = mViewRect.width();
+        int vh = mViewRect.height();
+
+        /**
+         * 缩放后的视口，小于视图时居中，否则不能超出图片的边界
+         */
+        int vl = (sw < vw) ? (sw - vw) / 2 : Math.max(0, Math.min((int) -nRect.left, sw - vw));
+        int vt = (sh < vh) ? (sh - vh) / 2 : Math.max(0, Math.min((int) -nRect.top, sh - vh));
+
+        prefetchViewport(new Rect(vl, vt, vl + vw, vt + vh), sw, sh);
+    }
+
+    /**
+     * 预测的视口 viewport（显示的 bitmap 坐标系，显示尺寸为 sw x sh），换算到原图后交给 BitmapGrid
+     */
+    private void prefetchViewport(Rect viewport, int sw, int sh)
+    {
+        int sampleSize = getSampleSize(sw, sh);
+        if (mSrcBitmap != null || mDecoder == null || sampleSize == mThumbSampleSize
+                || !viewport.intersect(0, 0, sw, sh)) {
+            cancelPrefetch();
+            return;
+        }
+
+        mBitmapGrid.prefetchUnits(rectMulti(viewport, mImageRect.width() * 1f / sw), sampleSize);
+    }
+
+    /**
+     * 丢弃还没开始的预解码，比如惯性滑动被手指打断
+     */
+    public void cancelPrefetch()
+    {
+        synchronized (mPendingUnits) {
+            mPrefetchUnits.clear();
+        }
+    }
+
     /**
      * 检测是否这个点在图片上
      */
@@ -1096,6 +1235,46 @@ public class BitmapManager
         return null;
     }
 
+    /**
+     * 解码一个可见单元格的 tile，优先解码到 {@link TileCache} 复用池里同样尺寸的 bitmap 中
+     */
+    private Bitmap decodeTileBitmap(Rect rect, int sampleSize)
+    {
+        if (rect == null || !mImageRect.contains(rect)) {
+            return null;
+        }
+
+        synchronized (mBitmapLock) {
+            if (mDecoder == null) {
+                return null;
+            }
+
+            BitmapFactory.Options tmpOptions = new BitmapFactory.Options();
+            tmpOptions.inPreferredConfig = mBitmapConfig;
+            tmpOptions.inSampleSize = sampleSize;
+            tmpOptions.inMutable = true;
+
+            /**
+             * RegionDecoder 输出的宽高为 区域宽高 / sampleSize（向下取整），inBitmap 的尺寸必须一致，否则会被裁剪
+             */
+            int width = Math.max(1, rect.width() / sampleSize);
+            int height = Math.max(1, rect.height() / sampleSize);
+            Bitmap reuse = TileCache.getInstance().obtain(width, height, mBitmapConfig);
+            if (reuse != null) {
+                tmpOptions.inBitmap = reuse;
+                try {
+                    return mDecoder.decodeRegion(rect, tmpOptions);
+                }
+                catch (IllegalArgumentException e) {
+                    reuse.recycle();
+                    tmpOptions.inBitmap = null;
+                }
+            }
+
+            return mDecoder.decodeRegion(rect, tmpOptions);
+        }
+    }
+
     /*****************************************************************/
 
     /**
@@ -1119,9 +1298,14 @@ public class BitmapManager
         public int mCurSampleSize = 0;
 
         /**
-         * 目前的 mBitmap
+         * 当前 sampleSize 下的 tile 在 {@link TileCache} 中的 key
          */
-        public Bitmap mBitmap = null;
+        public String mTileKey = null;
+
+        /**
+         * 正在显示的 tile，在 TileCache 中 pin 住，单元格回收时 unpin，期间不会被回收或复用
+         */
+        private Bitmap mTile = null;
 
         /**
          * 缩略图的bitmap
@@ -1131,9 +1315,9 @@ public class BitmapManager
         /**
          * 这里回收所有的bitmap
          */
-        private void recycleAll()
+        private synchronized void recycleAll()
         {
-            mBitmap = null;
+            releaseTile();
             mThumbBitmap = null;
 
             mCurSampleSize = 0;
@@ -1142,11 +1326,52 @@ public class BitmapManager
         /**
          * 这里只回收正常的bitmap, 不回收缩略图的bitmap
          */
-        private void recycle()
+        private synchronized void recycle()
         {
-            mBitmap = null;
+            releaseTile();
             mCurSampleSize = mThumbSampleSize;
         }
+
+        /**
+         * 从 TileCache 中取出并 pin 住 key 对应的 tile，已经被淘汰时返回 false
+         */
+        private synchronized boolean setTile(String key, int sampleSize)
+        {
+            Bitmap bitmap = TileCache.getInstance().pin(key);
+            if (bitmap == null) {
+                return false;
+            }
+            releaseTile();
+            mTile = bitmap;
+            mTileKey = key;
+            mCurSampleSize = sampleSize;
+            return true;
+        }
+
+        /**
+         * 设置刚解码并已经由 {@link TileCache#putAndPin} pin 住的 tile
+         */
+        private synchronized void setPinnedTile(String key, Bitmap bitmap, int sampleSize)
+        {
+            releaseTile();
+            mTile = bitmap;
+            mTileKey = key;
+            mCurSampleSize = sampleSize;
+        }
+
+        private synchronized Bitmap getTileBitmap()
+        {
+            return mTile;
+        }
+
+        private void releaseTile()
+        {
+            if (mTile != null) {
+                TileCache.getInstance().unpin(mTile);
+                mTile = null;
+            }
+            mTileKey = null;
+        }
     }
 
 
@@ -1176,6 +1401,10 @@ public class BitmapManager
             if (mGrids != null) {
                 recycleAllGrids();
             }
+            synchronized (mPendingUnits) {
+                mPendingUnits.clear();
+                mPrefetchUnits.clear();
+            }
 
             int vw = mViewRect.width();
             int vh = mViewRect.height();
@@ -1197,8 +1426,8 @@ public class BitmapManager
             /**
              * 异步加载缩略图
              */
-            if (mLoadingThread.isAlive()) {
-                mLoadingHandler.post(new Runnable()
+            if (!mLoadingExecutor.isQuit()) {
+                mLoadingExecutor.execute(new Runnable()
                 {
                     @Override
                     public void run()
@@ -1229,11 +1458,21 @@ public class BitmapManager
                 }
 
                 if (unit.mCurSampleSize != mSampleSize) {
-                    loadUnitBitmap(n, m);
+                    /**
+                     * 之前解码过的直接从缓存取
+                     */
+                    Rect rect = getUnitRect(n, m);
+                    String key = rect == null ? null : TileCache.key(mSourceKey, mSampleSize, rect);
+                    if (key == null || !unit.setTile(key, mSampleSize)) {
+                        loadUnitBitmap(n, m);
+                    }
                 }
 
-                return (unit.mBitmap != null &&
-                        !unit.mBitmap.isRecycled()) ? unit.mBitmap : unit.mThumbBitmap;
+                /**
+                 * pin 住的 tile 即使已经被缓存淘汰也可以继续显示，直到单元格被回收
+                 */
+                Bitmap tile = unit.getTileBitmap();
+                return tile != null ? tile : unit.mThumbBitmap;
             }
 
             return null;
@@ -1251,18 +1490,183 @@ public class BitmapManager
                 }
                 unit.mIsLoading = true;
 
-                mLoadingHandler.post(new Runnable()
+                synchronized (mPendingUnits) {
+                    mPendingUnits.add(n * mM + m);
+                }
+                scheduleDrain();
+            }
+        }
+
+        /**
+         * 在解码线程上启动 drainPendingUnits，已经在跑的话不重复提交
+         */
+        private void scheduleDrain()
+        {
+            synchronized (mPendingUnits) {
+                if (mDrainScheduled || mLoadingExecutor.isQuit()) {
+                    return;
+                }
+                mDrainScheduled = true;
+            }
+            mLoadingExecutor.execute(new Runnable()
+            {
+                @Override
+                public void run()
                 {
-                    @Override
-                    public void run()
-                    {
-                        if (isValidGrid(n, m)) {
-                            decodeVisibleUnitBitmap(n, m);
-                            mGrids[n][m].mIsLoading = false;
-                            postInvalidate();
-                        }
+                    drainPendingUnits();
+                }
+            });
+        }
+
+        /**
+         * 依次解码等待中的单元格，最近请求的先解码；可见的都解码完了再按优先级解码预测的单元格，
+         * 每解码一块都重新检查，新变为可见的单元格最多等一块 tile 的时间
+         */
+        private void drainPendingUnits()
+        {
+            while (true) {
+                int index;
+                int prefetchSampleSize = 0;
+                synchronized (mPendingUnits) {
+                    if (!mPendingUnits.isEmpty()) {
+                        index = mPendingUnits.remove(mPendingUnits.size() - 1);
                     }
-                });
+                    else if (!mPrefetchUnits.isEmpty()) {
+                        index = mPrefetchUnits.remove(0);
+                        prefetchSampleSize = mPrefetchSampleSize;
+                    }
+                    else {
+                        mDrainScheduled = false;
+                        return;
+                    }
+                }
+                BitmapUnit[][] grids = mGrids;
+                int cols = mM;
+                if (grids == null || cols == 0) {
+                    continue;
+                }
+                int n = index / cols;
+                int m = index % cols;
+                if (!isValidGrid(n, m)) {
+                    continue;
+                }
+                if (prefetchSampleSize > 0) {
+                    prefetchUnitBitmap(n, m, prefetchSampleSize);
+                }
+                else {
+                    decodeVisibleUnitBitmap(n, m);
+                    grids[n][m].mIsLoading = false;
+                    postInvalidate();
+                }
+            }
+        }
+
+        /**
+         * 把预测视口 imageRect（原图坐标）里的单元格换成新的预解码队列：
+         * 离视口中心近的在前，已经在缓存里的跳过，累计超出 PREFETCH_BUDGET 的不再加入
+         */
+        private void prefetchUnits(Rect imageRect, int sampleSize)
+        {
+            if (mGrids == null) {
+                return;
+            }
+
+            int vw = mViewRect.width();
+            int vh = mViewRect.height();
+
+            int sm = Math.max(0, imageRect.left / vw);
+            int sn = Math.max(0, imageRect.top / vh);
+            int em = Math.min(mM - 1, imageRect.right / vw);
+            int en = Math.min(mN - 1, imageRect.bottom / vh);
+
+            final int cx = imageRect.centerX();
+            final int cy = imageRect.centerY();
+            ArrayList<Rect> rects = new ArrayList<>();
+            for (int n = sn; n <= en; ++n) {
+                for (int m = sm; m <= em; ++m) {
+                    Rect rect = getUnitRect(n, m);
+                    if (rect != null) {
+                        rects.add(rect);
+                    }
+                }
+            }
+            Collections.sort(rects, new Comparator<Rect>()
+            {
+                @Override
+                public int compare(Rect a, Rect b)
+                {
+                    long da = distance(a, cx, cy);
+                    long db = distance(b, cx, cy);
+                    return da < db ? -1 : (da == db ? 0 : 1);
+                }
+            });
+
+            int bytesPerPixel = mBitmapConfig == Bitmap.Config.ARGB_8888 ? 4 : 2;
+            long bytes = 0;
+            ArrayList<Integer> units = new ArrayList<>();
+            TileCache cache = TileCache.getInstance();
+            for (Rect rect : rects) {
+                if (cache.contains(TileCache.key(mSourceKey, sampleSize, rect))) {
+                    continue;
+                }
+                bytes += (long) (rect.width() / sampleSize) * (rect.height() / sampleSize) * bytesPerPixel;
+                if (bytes > PREFETCH_BUDGET) {
+                    break;
+                }
+                units.add(rect.top / vh * mM + rect.left / vw);
+            }
+
+            synchronized (mPendingUnits) {
+                mPrefetchUnits.clear();
+                mPrefetchUnits.addAll(units);
+                mPrefetchSampleSize = sampleSize;
+            }
+            if (!units.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private long distance(Rect rect, int x, int y)
+        {
+            long dx = rect.centerX() - x;
+            long dy = rect.centerY() - y;
+            return dx * dx + dy * dy;
+        }
+
+        /**
+         * 预解码一个单元格，结果只放进 TileCache，等它变为可见时由 getGridBitmap 直接取用
+         */
+        private synchronized void prefetchUnitBitmap(int n, int m, int sampleSize)
+        {
+            Rect rect = getUnitRect(n, m);
+            if (rect == null) {
+                return;
+            }
+
+            String key = TileCache.key(mSourceKey, sampleSize, rect);
+            TileCache cache = TileCache.getInstance();
+            if (cache.contains(key)) {
+                return;
+            }
+
+            Bitmap bitmap = decodeTileBitmap(rect, sampleSize);
+            if (bitmap != null) {
+                cache.put(key, bitmap);
+                if (sampleSize == mSampleSize) {
+                    postInvalidate();
+                }
+            }
+        }
+
+        /**
+         * 取消不可见单元格的解码请求
+         */
+        private void cancelPendingUnit(int n, int m)
+        {
+            synchronized (mPendingUnits) {
+                if (mPendingUnits.remove(Integer.valueOf(n * mM + m))) {
+                    mGrids[n][m].mIsLoading = false;
+                }
             }
         }
 
@@ -1379,6 +1783,9 @@ public class BitmapManager
                             || sm - j >= mn || j - em >= mn) {
                         mGrids[i][j].recycle();
                     }
+                    if (i < sn || i > en || j < sm || j > em) {
+                        cancelPendingUnit(i, j);
+                    }
                 }
             }
         }
@@ -1438,8 +1845,23 @@ public class BitmapManager
                 unit.recycle();
 
                 Rect rect = getUnitRect(n, m);
-                unit.mCurSampleSize = mSampleSize;
-                unit.mBitmap = decodeRectBitmap(rect, unit.mCurSampleSize);
+                if (rect == null) {
+                    return;
+                }
+                int sampleSize = mSampleSize;
+                String key = TileCache.key(mSourceKey, sampleSize, rect);
+                TileCache cache = TileCache.getInstance();
+                if (unit.setTile(key, sampleSize)) {
+                    return;
+                }
+                Bitmap bitmap = decodeTileBitmap(rect, sampleSize);
+                if (bitmap == null) {
+                    // 解码失败时不再重试，显示缩略图
+                    unit.mCurSampleSize = sampleSize;
+                    return;
+                }
+                cache.putAndPin(key, bitmap);
+                unit.setPinnedTile(key, bitmap, sampleSize);
             }
         }
 
@@ -0,0 +1,405 @@
+package com.android.baselibrary.picture;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.android.baselibrary.thread.AppExecutors;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按目标大小压缩 JPEG
+ * <ul>
+ * <li>解码时按目标像素数算好 inSampleSize，不先解出原图再缩放，解码后再等比缩小到像素数上限以内</li>
+ * <li>在 [最低质量, 100] 之间二分查找不超过字节上限的最高质量，输出缓冲区按线程复用，判断大小不复制数据</li>
+ * <li>批量压缩在 {@link AppExecutors#decode()} 上并行执行，可以取消，每张图回调耗时和节省的字节数</li>
+ * </ul>
+ */
+public class JpegCompressor {
+
+    public static final int DEFAULT_MIN_QUALITY = 50;
+    private static final int MAX_QUALITY = 100;
+
+    /**
+     * 超过这个大小的缓冲区用完不保留
+     */
+    private static final int MAX_RETAINED_BUFFER = 4 * 1024 * 1024;
+
+    private static final ThreadLocal<OutputBuffer> BUFFER = new ThreadLocal<OutputBuffer>() {
+        @Override
+        protected OutputBuffer initialValue() {
+            return new OutputBuffer();
+        }
+    };
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    /**
+     * 可以直接读写内部数组的 ByteArrayOutputStream
+     */
+    private static class OutputBuffer extends ByteArrayOutputStream {
+        OutputBuffer() {
+            super(256 * 1024);
+        }
+
+        void trim() {
+            if (buf.length > MAX_RETAINED_BUFFER) {
+                buf = new byte[256 * 1024];
+            }
+            reset();
+        }
+    }
+
+    /**
+     * 单张图片的压缩结果
+     */
+    public static class Result {
+        public final String source;
+        /**
+         * 压缩后的文件，失败或取消时为 null
+         */
+        public final File file;
+        public final long costMillis;
+        public final long originalBytes;
+        public final long compressedBytes;
+        public final int quality;
+
+        Result(String source, File file, long costMillis, long originalBytes, long compressedBytes, int quality) {
+            this.source = source;
+            this.file = file;
+            this.costMillis = costMillis;
+            this.originalBytes = originalBytes;
+            this.compressedBytes = compressedBytes;
+            this.quality = quality;
+        }
+
+        public boolean isSuccess() {
+            return file != null;
+        }
+
+        public long getSavedBytes() {
+            return isSuccess() ? originalBytes - compressedBytes : 0;
+        }
+
+        @Override
+        public String toString() {
+            return source + " -> " + file + " q=" + quality + " " + originalBytes + "B -> " + compressedBytes
+                    + "B (" + costMillis + "ms)";
+        }
+    }
+
+    /**
+     * 批量压缩回调，都在主线程
+     */
+    public interface Callback {
+        void onCompressed(Result result);
+
+        /**
+         * 全部结束后回调一次，结果按输入顺序排列；取消后不再回调
+         */
+        void onFinished(List<Result> results);
+    }
+
+    /**
+     * 批量压缩任务
+     */
+    public static class Batch {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        /**
+         * 取消还没开始的图片，正在压缩的图片压完后不再写文件
+         */
+        public void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                synchronized (futures) {
+                    for (Future<?> future : futures) {
+                        future.cancel(false);
+                    }
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+    }
+
+    /**
+     * 压缩到不超过 maxBytes，最低压到 minQuality；最低质量仍然超出时返回最低质量的结果
+     *
+     * @return 压缩后的数据
+     */
+    public static byte[] compress(Bitmap bitmap, int maxBytes, int minQuality) {
+        OutputBuffer buffer = BUFFER.get();
+        try {
+            encode(bitmap, maxBytes, minQuality, buffer);
+            return buffer.toByteArray();
+        } finally {
+            buffer.trim();
+        }
+    }
+
+    /**
+     * 同 {@link #compress(Bitmap, int, int)}，结果直接写入 out，不复制数据
+     *
+     * @return 选中的质量
+     */
+    public static int compressTo(Bitmap bitmap, int maxBytes, int minQuality, OutputStream out) throws IOException {
+        OutputBuffer buffer = BUFFER.get();
+        try {
+            int quality = encode(bitmap, maxBytes, minQuality, buffer);
+            buffer.writeTo(out);
+            return quality;
+        } finally {
+            buffer.trim();
+        }
+    }
+
+    /**
+     * 二分查找质量，结束时 buffer 里是选中质量的编码结果
+     */
+    private static int encode(Bitmap bitmap, int maxBytes, int minQuality, OutputBuffer buffer) {
+        int hi = MAX_QUALITY;
+        int lo = Math.max(0, Math.min(minQuality, MAX_QUALITY));
+        if (encode(bitmap, hi, buffer) <= maxBytes || lo == hi) {
+            return hi;
+        }
+        if (encode(bitmap, lo, buffer) > maxBytes) {
+            return lo;
+        }
+        //lo 满足、hi 超出
+        int last = lo;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            last = mid;
+            if (encode(bitmap, mid, buffer) <= maxBytes) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        if (last != lo) {
+            encode(bitmap, lo, buffer);
+        }
+        return lo;
+    }
+
+    private static int encode(Bitmap bitmap, int quality, OutputBuffer buffer) {
+        buffer.reset();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, buffer);
+        return buffer.size();
+    }
+
+    /**
+     * 解码后的像素数不超过 reqWidth * reqHeight：先按 2 的幂 inSampleSize 解码到不少于这个像素数，
+     * 再等比缩小到上限以内（和以前 computeSampleSize(720, 720 * 1280) 一样按像素数限制，长图不会被压得太窄），
+     * 并按 EXIF 纠正方向
+     *
+     * @return 解码失败返回 null
+     */
+    public static Bitmap decodeSampled(String path, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        long maxPixels = (long) reqWidth * reqHeight;
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize(options.outWidth, options.outHeight, maxPixels);
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeFile(path, options);
+        } catch (OutOfMemoryError error) {
+            options.inSampleSize *= 2;
+            bitmap = BitmapFactory.decodeFile(path, options);
+        }
+        if (bitmap == null) {
+            return null;
+        }
+        bitmap = scaleDown(bitmap, maxPixels);
+        return AppCompressImageUtil.rotateBitmap(bitmap, AppCompressImageUtil.readPictureDegree(path));
+    }
+
+    /**
+     * 解码后像素数仍不少于 maxPixels 的最大 2 的幂缩放比，maxPixels <= 0 时不缩放
+     */
+    static int sampleSize(int width, int height, long maxPixels) {
+        int sample = 1;
+        if (maxPixels <= 0) {
+            return sample;
+        }
+        while ((long) (width / (sample * 2)) * (height / (sample * 2)) >= maxPixels) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    /**
+     * 像素数超过 maxPixels 时等比缩小，原来的 bitmap 会被回收
+     */
+    private static Bitmap scaleDown(Bitmap bitmap, long maxPixels) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        long pixels = (long) width * height;
+        if (maxPixels <= 0 || pixels <= maxPixels) {
+            return bitmap;
+        }
+        double scale = Math.sqrt((double) maxPixels / pixels);
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, (int) (width * scale)),
+                Math.max(1, (int) (height * scale)), true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    /**
+     * 解码、压缩，结果只保存在内存里（例如直接作为上传的请求体），在后台线程调用
+     *
+     * @return 解码失败返回 null
+     */
+    public static byte[] compressToBytes(String path, int reqWidth, int reqHeight, int maxBytes) {
+        Bitmap bitmap = decodeSampled(path, reqWidth, reqHeight);
+        if (bitmap == null) {
+            return null;
+        }
+        try {
+            return compress(bitmap, maxBytes, DEFAULT_MIN_QUALITY);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * 解码、压缩并写入 output，在后台线程调用
+     *
+     * @return 失败时 {@link Result#isSuccess()} 为 false
+     */
+    public static Result compressFile(String path, File output, int reqWidth, int reqHeight, int maxBytes) {
+        return compressFile(path, output, reqWidth, reqHeight, maxBytes, null);
+    }
+
+    private static Result compressFile(String path, File output, int reqWidth, int reqHeight, int maxBytes,
+                                       AtomicBoolean cancelled) {
+        long start = SystemClock.elapsedRealtime();
+        long originalBytes = new File(path).length();
+        Bitmap bitmap = null;
+        try {
+            bitmap = decodeSampled(path, reqWidth, reqHeight);
+            if (bitmap == null || (cancelled != null && cancelled.get())) {
+                return new Result(path, null, SystemClock.elapsedRealtime() - start, originalBytes, 0, 0);
+            }
+            File dir = output.getParentFile();
+            if (dir != null && !dir.exists()) {
+                dir.mkdirs();
+            }
+            OutputBuffer buffer = BUFFER.get();
+            try {
+                int quality = encode(bitmap, maxBytes, DEFAULT_MIN_QUALITY, buffer);
+                if (cancelled != null && cancelled.get()) {
+                    return new Result(path, null, SystemClock.elapsedRealtime() - start, originalBytes, 0, 0);
+                }
+                FileOutputStream out = new FileOutputStream(output);
+                try {
+                    buffer.writeTo(out);
+                } finally {
+                    out.close();
+                }
+                return new Result(path, output, SystemClock.elapsedRealtime() - start, originalBytes,
+                        buffer.size(), quality);
+            } finally {
+                buffer.trim();
+            }
+        } catch (IOException | OutOfMemoryError e) {
+            e.printStackTrace();
+            output.delete();
+            return new Result(path, null, SystemClock.elapsedRealtime() - start, originalBytes, 0, 0);
+        } finally {
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+        }
+    }
+
+    /**
+     * 并行压缩多张图片，输出到 dir 下随机命名的 jpg
+     */
+    public static Batch compressAll(final List<String> paths, final File dir, final int reqWidth,
+                                    final int reqHeight, final int maxBytes, final Callback callback) {
+        final Batch batch = new Batch();
+        final Result[] results = new Result[paths.size()];
+        final AtomicInteger remaining = new AtomicInteger(paths.size());
+        if (paths.isEmpty()) {
+            postFinished(batch, callback, results);
+            return batch;
+        }
+        for (int i = 0; i < paths.size(); i++) {
+            final int index = i;
+            final String path = paths.get(i);
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    if (batch.isCancelled()) {
+                        return;
+                    }
+                    File output = new File(dir, AppCompressImageUtil.getRandomFileName() + "_" + index + ".jpg");
+                    final Result result = compressFile(path, output, reqWidth, reqHeight, maxBytes, batch.cancelled);
+                    results[index] = result;
+                    MAIN_HANDLER.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!batch.isCancelled()) {
+                                callback.onCompressed(result);
+                            }
+                        }
+                    });
+                    if (remaining.decrementAndGet() == 0) {
+                        postFinished(batch, callback, results);
+                    }
+                }
+            };
+            try {
+                Future<?> future = AppExecutors.decode().submit(task);
+                synchronized (batch.futures) {
+                    batch.futures.add(future);
+                }
+            } catch (RejectedExecutionException e) {
+                results[index] = new Result(path, null, 0, new File(path).length(), 0, 0);
+                if (remaining.decrementAndGet() == 0) {
+                    postFinished(batch, callback, results);
+                }
+            }
+        }
+        return batch;
+    }
+
+    private static void postFinished(final Batch batch, final Callback callback, final Result[] results) {
+        MAIN_HANDLER.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!batch.isCancelled()) {
+                    List<Result> list = new ArrayList<>(results.length);
+                    Collections.addAll(list, results);
+                    callback.onFinished(list);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.android.baselibrary.picture;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import com.bumptech.glide.ListPreloader;
+
+/**
+ * RecyclerView 的图片预加载，滑动时按方向提前加载后面 maxPreload 个位置的图片到 Glide 的内存缓存
+ * <p>
+ * 用的是 Glide 的 {@link ListPreloader}：尺寸由 PreloadSizeProvider 给出，和实际显示的控件一致时绑定时直接命中内存缓存；
+ * 滑动方向改变时取消还没完成的预加载。
+ * 只支持 LinearLayoutManager 和 GridLayoutManager，位置是 adapter 的位置（包括 header）。
+ *
+ * <pre>
+ * recyclerView.addOnScrollListener(new RecyclerViewPreloader&lt;&gt;(adapter, sizeProvider, 6));
+ * </pre>
+ */
+public class RecyclerViewPreloader<T> extends RecyclerView.OnScrollListener {
+
+    private final ListPreloader<T> preloader;
+
+    private int lastFirstVisible = -1;
+    private int lastVisibleCount = -1;
+    private int lastItemCount = -1;
+
+    public RecyclerViewPreloader(ListPreloader.PreloadModelProvider<T> modelProvider,
+                                 ListPreloader.PreloadSizeProvider<T> sizeProvider, int maxPreload) {
+        preloader = new ListPreloader<>(modelProvider, sizeProvider, maxPreload);
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager manager = (LinearLayoutManager) layoutManager;
+        int first = manager.findFirstVisibleItemPosition();
+        int last = manager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        /**
+         * 每一帧都会回调，只在可见范围变化时通知 ListPreloader
+         */
+        int visibleCount = last - first + 1;
+        int itemCount = manager.getItemCount();
+        if (first == lastFirstVisible && visibleCount == lastVisibleCount && itemCount == lastItemCount) {
+            return;
+        }
+        lastFirstVisible = first;
+        lastVisibleCount = visibleCount;
+        lastItemCount = itemCount;
+
+        preloader.onScroll(null, first, visibleCount, itemCount);
+    }
+}
@@ -0,0 +1,224 @@
+package com.android.baselibrary.picture;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.util.LruCache;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 大图分块解码出来的 tile 缓存，所有 {@link BitmapManager} 共用
+ * <p>
+ * 按 (图片, sampleSize, 原图上的区域) 缓存，按字节数 LRU 淘汰；淘汰的 bitmap 不 recycle，放进复用池，
+ * 下次解码同样尺寸的 tile 时通过 inBitmap 直接解码到里面，拖动时不再反复分配内存。
+ * <p>
+ * 要显示的 tile 用 {@link #pin(String)} 取出，不再显示时 {@link #unpin(Bitmap)}：被 pin 住的 bitmap 即使被淘汰，
+ * 也要等全部 unpin 之后才会放进复用池或 recycle，不会在绘制时被回收或被别的 tile 覆盖。
+ * {@link #get(String)} 取到的 bitmap 没有这个保证，不能用来绘制。
+ */
+public final class TileCache {
+
+    public static TileCache instance;
+
+    public static synchronized TileCache getInstance() {
+        if (instance == null) {
+            instance = new TileCache();
+        }
+        return instance;
+    }
+
+    private final LruCache<String, Bitmap> mTiles;
+
+    /**
+     * 复用池，key 为 宽x高/config，RegionDecoder 的 inBitmap 必须和输出尺寸完全一致
+     */
+    private final Map<String, ArrayDeque<Bitmap>> mPool = new HashMap<>();
+    private final int mMaxPoolBytes;
+    private int mPoolBytes;
+
+    /**
+     * 正在显示的 bitmap 的引用计数，以及其中已经被淘汰、等待 unpin 后再释放的 bitmap
+     */
+    private final Map<Bitmap, Integer> mPins = new IdentityHashMap<>();
+    private final Map<Bitmap, Boolean> mEvictedPinned = new IdentityHashMap<>();
+
+    private int mHits;
+    private int mMisses;
+    private int mReused;
+
+    private TileCache() {
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        mMaxPoolBytes = (int) (maxMemory / 32);
+        mTiles = new LruCache<String, Bitmap>((int) (maxMemory / 8)) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if (oldValue != newValue) {
+                    onEvicted(oldValue);
+                }
+            }
+        };
+    }
+
+    public static String key(String source, int sampleSize, Rect rect) {
+        return source + '@' + sampleSize + ':' + rect.left + ',' + rect.top + ',' + rect.right + ',' + rect.bottom;
+    }
+
+    public Bitmap get(String key) {
+        Bitmap bitmap = mTiles.get(key);
+        synchronized (this) {
+            if (bitmap != null) {
+                mHits++;
+            } else {
+                mMisses++;
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * 取出并 pin 住一个 tile，没有时返回 null；显示完后必须调用 {@link #unpin(Bitmap)}
+     * <p>
+     * 取和 pin 在同一个锁里完成：能取到说明它还没有被淘汰，之后的 onEvicted 一定能看到这次 pin
+     */
+    public synchronized Bitmap pin(String key) {
+        Bitmap bitmap = mTiles.get(key);
+        if (bitmap != null) {
+            mHits++;
+            Integer count = mPins.get(bitmap);
+            mPins.put(bitmap, count == null ? 1 : count + 1);
+        } else {
+            mMisses++;
+        }
+        return bitmap;
+    }
+
+    /**
+     * 不再显示，最后一个 unpin 时如果它已经被淘汰，放进复用池
+     */
+    public synchronized void unpin(Bitmap bitmap) {
+        Integer count = mPins.get(bitmap);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            mPins.put(bitmap, count - 1);
+            return;
+        }
+        mPins.remove(bitmap);
+        if (mEvictedPinned.remove(bitmap) != null) {
+            release(bitmap);
+        }
+    }
+
+    /**
+     * 是否已缓存，不计入命中统计
+     */
+    public boolean contains(String key) {
+        return mTiles.get(key) != null;
+    }
+
+    public void put(String key, Bitmap bitmap) {
+        mTiles.put(key, bitmap);
+    }
+
+    /**
+     * 放入并 pin 住，用于解码出来马上要显示的 tile，避免放入后、pin 之前被别的线程挤出去
+     */
+    public synchronized void putAndPin(String key, Bitmap bitmap) {
+        Integer count = mPins.get(bitmap);
+        mPins.put(bitmap, count == null ? 1 : count + 1);
+        //先 pin 再放入：超过容量被立即淘汰时也只是等 unpin
+        mTiles.put(key, bitmap);
+    }
+
+    /**
+     * 移除一张图片的所有 tile（放进复用池），图片不再显示时调用
+     */
+    public void removeSource(String source) {
+        String prefix = source + '@';
+        for (String key : mTiles.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                mTiles.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 取一个可以作为 inBitmap 的 bitmap，没有时返回 null
+     */
+    public synchronized Bitmap obtain(int width, int height, Bitmap.Config config) {
+        ArrayDeque<Bitmap> bitmaps = mPool.get(poolKey(width, height, config));
+        Bitmap bitmap = bitmaps == null ? null : bitmaps.poll();
+        if (bitmap != null) {
+            mPoolBytes -= bitmap.getByteCount();
+            mReused++;
+        }
+        return bitmap;
+    }
+
+    /**
+     * 从 LRU 中移除的 bitmap，还在显示的等 unpin 后再释放
+     */
+    private synchronized void onEvicted(Bitmap bitmap) {
+        if (mPins.containsKey(bitmap)) {
+            mEvictedPinned.put(bitmap, Boolean.TRUE);
+        } else {
+            release(bitmap);
+        }
+    }
+
+    /**
+     * 放回复用池，池满或不能复用时直接 recycle；不能用于还在显示的 bitmap
+     */
+    public synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        int bytes = bitmap.getByteCount();
+        if (!bitmap.isMutable() || mPoolBytes + bytes > mMaxPoolBytes) {
+            bitmap.recycle();
+            return;
+        }
+        String key = poolKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+        ArrayDeque<Bitmap> bitmaps = mPool.get(key);
+        if (bitmaps == null) {
+            bitmaps = new ArrayDeque<>();
+            mPool.put(key, bitmaps);
+        }
+        bitmaps.offer(bitmap);
+        mPoolBytes += bytes;
+    }
+
+    public void clear() {
+        mTiles.evictAll();
+        synchronized (this) {
+            for (ArrayDeque<Bitmap> bitmaps : mPool.values()) {
+                for (Bitmap bitmap : bitmaps) {
+                    bitmap.recycle();
+                }
+            }
+            mPool.clear();
+            mPoolBytes = 0;
+        }
+    }
+
+    /**
+     * 命中数 / 未命中数 / inBitmap 复用数，调试用
+     */
+    public synchronized String stats() {
+        return "hits=" + mHits + " misses=" + mMisses + " reused=" + mReused
+                + " size=" + mTiles.size() + " pool=" + mPoolBytes + " pinned=" + mPins.size();
+    }
+
+    private static String poolKey(int width, int height, Bitmap.Config config) {
+        return width + "x" + height + "/" + config;
+    }
+}
@@ -499,8 +499,14 @@ public class XImageView extends ImageView
 
     private void stopFling()
     {
-        if (mValueAnimator != null) {
+        if (mValueAnimator != null && mValueAnimator.isRunning()) {
             mValueAnimator.cancel();
+            /**
+             * 被打断后不会停在预测的位置，预解码作废
+             */
+            if (mBitmapManager != null) {
+                mBitmapManager.cancelPrefetch();
+            }
         }
     }
 
@@ -514,6 +520,15 @@ public class XImageView extends ImageView
         final float velocity = (float) Math.hypot(velocityX, velocityY);
         final long duration = getSplineFlingDuration(velocity);
 
+        /**
+         * 滑动的总距离，提前解码停下来的位置上的 tile
+         */
+        if (mBitmapManager != null) {
+            int totalX = (int) -(getSplineFlingDistance(velocityX) * fx);
+            int totalY = (int) -(getSplineFlingDistance(velocityY) * fy);
+            mBitmapManager.prefetchForOffset(totalX, totalY);
+        }
+
         mValueAnimator = ValueAnimator.ofFloat(1f, 0);
         mValueAnimator.setInterpolator(new LinearInterpolator());
         mValueAnimator.setDuration(duration);
@@ -1430,6 +1430,12 @@ public abstract class BaseQuickAdapter<T, K extends BaseViewHolder> extends Recy
         setPreLoadNumber(preLoadNumber);
     }
 
+    /**
+     * Prefetch distance: request the next page as soon as an item within the last
+     * {@code preLoadNumber} items is bound, instead of waiting for the load more view.
+     *
+     * @param preLoadNumber values less than or equal to 1 keep the default (1)
+     */
     public void setPreLoadNumber(int preLoadNumber) {
         if (preLoadNumber > 1) {
             mPreLoadNumber = preLoadNumber;
@@ -12,7 +12,6 @@ import java.io.ObjectOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.Security;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,9 +20,8 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-
 
+import com.android.baselibrary.service.aes.CipherPool;
 import com.android.baselibrary.service.jncryptor.AES256JNCryptor;
 import com.android.baselibrary.service.jncryptor.CryptorException;
 import com.android.baselibrary.service.jncryptor.JNCryptor;
@@ -61,13 +59,11 @@ public class AES256 {
             byte[] enCodeFormat = secretKey.getEncoded();
             //根据给定的字节数组构造一个密钥。enCodeFormat：密钥内容；"AES"：与给定的密钥内容相关联的密钥算法的名称
             SecretKeySpec key = new SecretKeySpec(enCodeFormat, "AES");
-            //将提供程序添加到下一个可用位置
-            Security.addProvider(new BouncyCastleProvider());
-            //创建一个实现指定转换的 Cipher对象，该转换由指定的提供程序提供。
+            //将提供程序添加到下一个可用位置（只注册一次）
+            CipherPool.installBouncyCastle();
+            //取当前线程缓存的 Cipher 对象，该转换由指定的提供程序提供。
             //"AES/ECB/PKCS7Padding"：转换的名称；"BC"：提供程序的名称
-//            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS7Padding", "BC");
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS7Padding", "BC");
-            cipher.init(Cipher.ENCRYPT_MODE, key);
+            Cipher cipher = CipherPool.cipher("AES/ECB/PKCS7Padding", CipherPool.PROVIDER_BC, Cipher.ENCRYPT_MODE, key, null);
             byte[] byteContent = content.getBytes("utf-8");
             byte[] cryptograph = cipher.doFinal(byteContent);
             return Base64.encodeToByte(cryptograph);
@@ -92,11 +88,10 @@ public class AES256 {
             byte[] enCodeFormat = secretKey.getEncoded();
             //根据给定的字节数组构造一个密钥。enCodeFormat：密钥内容；"AES"：与给定的密钥内容相关联的密钥算法的名称
             SecretKeySpec key = new SecretKeySpec(enCodeFormat, "AES");
-            //将提供程序添加到下一个可用位置
-            Security.addProvider(new BouncyCastleProvider());
+            //将提供程序添加到下一个可用位置（只注册一次）
+            CipherPool.installBouncyCastle();
 
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding", "BC");
-            cipher.init(Cipher.DECRYPT_MODE, key);
+            Cipher cipher = CipherPool.cipher("AES/ECB/PKCS5Padding", CipherPool.PROVIDER_BC, Cipher.DECRYPT_MODE, key, null);
             byte[] cryptograph64 = Base64.decode(cryptograph);
             byte[] content = cipher.doFinal(cryptograph64);
 
@@ -1,22 +1,18 @@
 package com.android.baselibrary.service;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import com.android.baselibrary.service.aes.CipherPool;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
-import java.security.InvalidKeyException;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.SecureRandom;
-import java.security.Security;
 import java.util.UUID;
 
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.KeyGenerator;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -55,16 +51,10 @@ public class AESHelper {
         try {
             byte[] rawKey = encodeRules.getBytes();
             SecretKeySpec skeySpec = new SecretKeySpec(rawKey, "AES");
-            Cipher cipher = Cipher.getInstance("AES");
-            cipher.init(Cipher.ENCRYPT_MODE, skeySpec);
+            Cipher cipher = CipherPool.cipher("AES", Cipher.ENCRYPT_MODE, skeySpec, null);
             byte[] encrypted = cipher.doFinal(content.getBytes());
             return android.util.Base64.encodeToString(encrypted, android.util.Base64.DEFAULT);
-        } catch (NoSuchAlgorithmException
-                | NoSuchPaddingException
-                | InvalidKeyException
-                | IllegalBlockSizeException
-                | BadPaddingException
-                e) {
+        } catch (GeneralSecurityException e) {
             e.printStackTrace();
         }
         return null;
@@ -86,16 +76,11 @@ public class AESHelper {
         try {
             byte[] rawKey = encodeRules.getBytes();
             SecretKeySpec skeySpec = new SecretKeySpec(rawKey, "AES");
-            Cipher cipher = Cipher.getInstance("AES");
-            cipher.init(Cipher.DECRYPT_MODE, skeySpec);
+            Cipher cipher = CipherPool.cipher("AES", Cipher.DECRYPT_MODE, skeySpec, null);
             byte[] decrypted = cipher.doFinal(Base64.decode(content));
             return new String(decrypted, "UTF-8");
-        } catch (NoSuchAlgorithmException
-                | NoSuchPaddingException
-                | InvalidKeyException
+        } catch (GeneralSecurityException
                 | IOException
-                | IllegalBlockSizeException
-                | BadPaddingException
                 e) {
             e.printStackTrace();
         }
@@ -111,10 +96,9 @@ public class AESHelper {
             SecretKey secretKey = kgen.generateKey();
             byte[] enCodeFormat = secretKey.getEncoded();
             SecretKeySpec key = new SecretKeySpec(enCodeFormat, "AES");
-            Security.addProvider(new BouncyCastleProvider());
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS7Padding", "BC");
+            CipherPool.installBouncyCastle();
+            Cipher cipher = CipherPool.cipher("AES/ECB/PKCS7Padding", CipherPool.PROVIDER_BC, Cipher.DECRYPT_MODE, key, null);
 
-            cipher.init(Cipher.DECRYPT_MODE, key);
             byte[] content = cipher.doFinal(Base64.decode(cryptograph));
             return new String(content);
         } catch (Exception e) {
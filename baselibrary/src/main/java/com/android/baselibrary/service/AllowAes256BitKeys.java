@@ -6,8 +6,13 @@ import java.lang.reflect.Modifier;
 import java.util.Map; 
 public class AllowAes256BitKeys {
 
+	// 检查一次就够了，加解密时每次都会调用
+	private static volatile boolean fixed;
+
 	public static void fixKeyLength() 
     { 
+     if (fixed) 
+      return; 
      String errorString = 
       "Unable to manually override key-length permissions."; 
      int newMaxKeyLength; 
@@ -53,6 +58,7 @@ public class AllowAes256BitKeys {
      } 
     if (newMaxKeyLength < 256) 
      throw new RuntimeException(errorString); // hack failed 
+    fixed = true; 
     } 
 
 }
@@ -0,0 +1,98 @@
+package com.android.baselibrary.service;
+
+import com.android.baselibrary.service.bean.home.HomeDataBean;
+import com.android.baselibrary.service.bean.mine.NotificationBean;
+import com.android.baselibrary.service.bean.user.UserBean;
+import com.android.baselibrary.usermanger.UserStorage;
+
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * 启动时预取首页数据
+ * <p>
+ * 拿到 token 后立即并行发出首页、个人信息、公告第一页请求，不再等启动页跳转、Fragment 创建后依次请求。
+ * 结果用 cache() 保存，首页 / 我的 / 公告页面第一次取数据时通过 take 方法直接订阅，
+ * 每个结果只取一次（下拉刷新等仍然走正常请求）；token 已经变化或预取超过 {@link #MAX_AGE_MS} 时 take 返回 null。
+ */
+public class HomePreloader {
+
+    private static final long MAX_AGE_MS = TimeUnit.MINUTES.toMillis(5);
+
+    public static HomePreloader instance;
+
+    public static HomePreloader getInstance() {
+        synchronized (HomePreloader.class) {
+            if (instance == null) {
+                instance = new HomePreloader();
+            }
+        }
+        return instance;
+    }
+
+    private String token;
+    private long startedAt;
+    private Observable<HomeDataBean> indexInfo;
+    private Observable<UserBean> memberInfo;
+    private Observable<NotificationBean> noticeList;
+
+    /**
+     * token 已知时调用，同一个 token 只会预取一次
+     */
+    public synchronized void start() {
+        String current = UserStorage.getInstance().getToken();
+        if (current == null || current.equals(token)) {
+            return;
+        }
+        token = current;
+        startedAt = System.currentTimeMillis();
+        indexInfo = prefetch(NetService.getInstance().indexInfo());
+        memberInfo = prefetch(NetService.getInstance().getMemberInfo());
+        noticeList = prefetch(NetService.getInstance().getNoticeList(1));
+    }
+
+    public synchronized Observable<HomeDataBean> takeIndexInfo() {
+        Observable<HomeDataBean> observable = isCurrent() ? indexInfo : null;
+        indexInfo = null;
+        return observable;
+    }
+
+    public synchronized Observable<UserBean> takeMemberInfo() {
+        Observable<UserBean> observable = isCurrent() ? memberInfo : null;
+        memberInfo = null;
+        return observable;
+    }
+
+    public synchronized Observable<NotificationBean> takeNoticeList() {
+        Observable<NotificationBean> observable = isCurrent() ? noticeList : null;
+        noticeList = null;
+        return observable;
+    }
+
+    private boolean isCurrent() {
+        return token != null && token.equals(UserStorage.getInstance().getToken())
+                && System.currentTimeMillis() - startedAt <= MAX_AGE_MS;
+    }
+
+    private static <T> Observable<T> prefetch(Observable<T> source) {
+        Observable<T> cached = source.cache();
+        // 失败时由订阅方的回调处理，这里只负责把请求发出去
+        cached.subscribe(new Subscriber<T>() {
+            @Override
+            public void onCompleted() {
+            }
+
+            @Override
+            public void onError(Throwable e) {
+            }
+
+            @Override
+            public void onNext(T t) {
+            }
+        });
+        // 保留“无网络时可以走缓存”的标记
+        return ResponseCache.isOfflineFirst(source) ? ResponseCache.offlineFirst(cached) : cached;
+    }
+}
@@ -1,6 +1,4 @@
 package com.android.baselibrary.service;
-import com.android.baselibrary.base.BaseApplication;
-import com.android.baselibrary.base.Constants;
 import com.android.baselibrary.service.bean.BaseBean;
 import com.android.baselibrary.service.bean.UpdateBean;
 import com.android.baselibrary.service.bean.channel.ChannelDataBean;
@@ -24,17 +22,16 @@ import com.android.baselibrary.service.bean.user.ProtocolBean;
 import com.android.baselibrary.service.bean.user.UserBean;
 import com.android.baselibrary.service.bean.video.VideoCommentBean;
 import com.android.baselibrary.service.bean.video.VideoDetailBean;
+import com.android.baselibrary.service.http.RequestEnvelope;
 import com.android.baselibrary.service.http.RequestHelper;
 import com.android.baselibrary.service.http.RetrofitManager;
 import com.android.baselibrary.service.request.DeviceRequest;
+import com.android.baselibrary.service.upload.CompressedImageBody;
 import com.android.baselibrary.usermanger.UserStorage;
-import com.android.baselibrary.util.GetDevicedIDUtil;
 
-import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
-import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
@@ -57,6 +54,9 @@ public class NetService {
 
     private NetApi netApi;
     private RequestHelper requestHelper;
+    private ResponseCache responseCache;
+    private RequestCoalescer requestCoalescer;
+    private PageCache pageCache;
     public static NetService instance;
 
 
@@ -72,19 +72,27 @@ public class NetService {
     public NetService() {
 
         this.requestHelper = new RequestHelper(UserStorage.getInstance());
+        this.responseCache = ResponseCache.getInstance();
+        this.requestCoalescer = RequestCoalescer.getInstance();
+        this.pageCache = PageCache.getInstance();
         this.netApi = RetrofitManager.getInstance().getRetrofit().create(NetApi.class);
     }
 
+    /**
+     * 下拉刷新前调用：清掉接口在 {@link PageCache} 和 {@link ResponseCache} 里的缓存，刷新一定请求网络
+     *
+     * @param endpoint 接口名，和 NetApi 的方法名一致
+     */
+    public void invalidate(String endpoint) {
+        pageCache.invalidate(endpoint);
+        responseCache.invalidate(endpoint);
+    }
+
     /**
      * 1.设备信息接口-S-0930-第一个接口
      */
     public Observable<LoginBean> deviceInfo() {
-        HashMap<String,String> paramsMap = new HashMap<>();
-        paramsMap.put("deviceCode", GetDevicedIDUtil.getUniquePsuedoID());
-        paramsMap.put("fromCode", Constants.FROM_CODE);
-        paramsMap.put("versionType", "2");
-        paramsMap.put("version", BaseApplication.getInstance().getAppVersionName());
-        RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
+        RequestBody body = this.requestHelper.getDeviceRequestMap(null);
         return netApi.deviceInfo(body).subscribeOn(Schedulers.io());
     }
 
@@ -94,11 +102,7 @@ public class NetService {
     public Observable<LoginBean> deviceInfo2(String token) {
         HashMap<String,String> paramsMap = new HashMap<>();
         paramsMap.put("token", token);
-        paramsMap.put("versionType", "2");
-        paramsMap.put("version", BaseApplication.getInstance().getAppVersionName());
-        paramsMap.put("deviceCode", GetDevicedIDUtil.getUniquePsuedoID());
-        paramsMap.put("fromCode", Constants.FROM_CODE);
-        RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
+        RequestBody body = this.requestHelper.getDeviceRequestMap(paramsMap);
         return netApi.deviceInfo(body).subscribeOn(Schedulers.io());
     }
 
@@ -108,7 +112,8 @@ public class NetService {
     public Observable<UserBean> getMemberInfo() {
         HashMap<String,String> paramsMap = new HashMap<>();
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.getMemberInfo(body).subscribeOn(Schedulers.io());
+        return requestCoalescer.coalesce("getMemberInfo", paramsMap, netApi.getMemberInfo(body))
+                .subscribeOn(Schedulers.io());
     }
 
     /**
@@ -133,7 +138,7 @@ public class NetService {
         paramsMap.put("pwd",pwd);
         paramsMap.put("smsCode",smsCode);
         paramsMap.put("tel",tel);
-        paramsMap.put("deviceCode", GetDevicedIDUtil.getUniquePsuedoID());
+        paramsMap.put("deviceCode", RequestEnvelope.get().getDeviceCode());
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
         return netApi.regedit(body).subscribeOn(Schedulers.io());
     }
@@ -155,7 +160,9 @@ public class NetService {
     public Observable<HomeDataBean> indexInfo() {
         HashMap<String,String> paramsMap = new HashMap<>();
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.indexInfo(body).subscribeOn(Schedulers.io());
+        return ResponseCache.offlineFirst(responseCache.wrap("indexInfo", paramsMap, HomeDataBean.class,
+                requestCoalescer.coalesce("indexInfo", paramsMap, netApi.indexInfo(body)))
+                .subscribeOn(Schedulers.io()));
     }
 
     /**
@@ -165,7 +172,9 @@ public class NetService {
         HashMap<String,String> paramsMap = new HashMap<>();
         paramsMap.put("pageNum",String.valueOf(pageNum));
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.getFindVideo(body).subscribeOn(Schedulers.io());
+        return ResponseCache.offlineFirst(pageCache.wrap("getFindVideo", paramsMap,
+                responseCache.wrap("getFindVideo", paramsMap, FindBean.class, netApi.getFindVideo(body)))
+                .subscribeOn(Schedulers.io()));
     }
 
     /**
@@ -195,7 +204,9 @@ public class NetService {
     public Observable<ChannelDataBean> channelInfo() {
         HashMap<String,String> paramsMap = new HashMap<>();
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.channelInfo(body).subscribeOn(Schedulers.io());
+        return ResponseCache.offlineFirst(responseCache.wrap("channelInfo", paramsMap, ChannelDataBean.class,
+                requestCoalescer.coalesce("channelInfo", paramsMap, netApi.channelInfo(body)))
+                .subscribeOn(Schedulers.io()));
     }
 
     /**
@@ -212,7 +223,9 @@ public class NetService {
      */
     public Observable<DetailListBean> getVideoByStarId(HashMap<String,String> paramsMap) {
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.getVideoByStarId(body).subscribeOn(Schedulers.io());
+        return ResponseCache.offlineFirst(pageCache.wrap("getVideoByStarId", paramsMap,
+                responseCache.wrap("getVideoByStarId", paramsMap, DetailListBean.class, netApi.getVideoByStarId(body)))
+                .subscribeOn(Schedulers.io()));
     }
 
     /**
@@ -220,7 +233,7 @@ public class NetService {
      */
     public Observable<StarDataBean> getStarPage(HashMap<String,String> paramsMap) {
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.getStarPage(body).subscribeOn(Schedulers.io());
+        return pageCache.wrap("getStarPage", paramsMap, netApi.getStarPage(body)).subscribeOn(Schedulers.io());
     }
 
     /**
@@ -248,7 +261,8 @@ public class NetService {
     public Observable<TagClassBean> selectTagType() {
         HashMap<String,String> paramsMap = new HashMap<>();
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.selectTagType(body).subscribeOn(Schedulers.io());
+        return ResponseCache.offlineFirst(responseCache.wrap("selectTagType", paramsMap, TagClassBean.class, netApi.selectTagType(body))
+                .subscribeOn(Schedulers.io()));
     }
 
     /**
@@ -258,7 +272,8 @@ public class NetService {
         HashMap<String,String> paramsMap = new HashMap<>();
         paramsMap.put("id",String.valueOf(id));
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.selectTagsByType(body).subscribeOn(Schedulers.io());
+        return ResponseCache.offlineFirst(responseCache.wrap("selectTagsByType", paramsMap, ChannelTagDataBean.class, netApi.selectTagsByType(body))
+                .subscribeOn(Schedulers.io()));
     }
 
     /**
@@ -268,7 +283,8 @@ public class NetService {
         HashMap<String,String> paramsMap = new HashMap<>();
         paramsMap.put("videoId",videoId);
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.getVideoDetail(body).subscribeOn(Schedulers.io());
+        return requestCoalescer.coalesce("getVideoDetail", paramsMap, netApi.getVideoDetail(body))
+                .subscribeOn(Schedulers.io());
     }
 
     /**
@@ -310,25 +326,47 @@ public class NetService {
         paramsMap.put("videoId",videoId);
         paramsMap.put("lastNew","1");
         RequestBody body = this.requestHelper.getHttpRequestMap(paramsMap);
-        return netApi.getVideoCommon(body).subscribeOn(Schedulers.io());
+        return requestCoalescer.coalesce("getVideoCommon", paramsMap, netApi.getVideoCommon(body))
+                .subscribeOn(Schedulers.io());
     }
 
+    /**
+     * 头像压缩到 720 * 720 像素、200KB 以内
+     */
+    public static final int AVATAR_SIZE = 720;
+    public static final int AVATAR_MAX_BYTES = 200 * 1024;
+
     /**
      * 22.修改头像接口-S
      */
     public Call<ResponseBody> saveMemberPic(String path) {
-        File file = new File(path);
+        //上传时才压缩，不生成临时文件
+        return saveMemberPic(new CompressedImageBody(path, AVATAR_SIZE, AVATAR_SIZE, AVATAR_MAX_BYTES),
+                CompressedImageBody.fileName(path));
+    }
+
+    /**
+     * 22.修改头像接口，图片请求体由调用方提供（见 {@link com.android.baselibrary.service.upload.ImageUploader}）
+     */
+    public Call<ResponseBody> saveMemberPic(RequestBody picBody, String fileName) {
+        return netApi.saveMemberPic(memberPicForm(picBody, fileName));
+    }
+
+    /**
+     * 修改头像接口的表单
+     */
+    public static MultipartBody memberPicForm(RequestBody picBody, String fileName) {
         //多个文件上传(已此为标准)  文件的时候item.isFormField()=false
         MultipartBody.Builder form = new MultipartBody.Builder();
         form.setType(MultipartBody.FORM);
         //文件
-        form.addFormDataPart("picFile", file.getName(), RequestBody.create(MediaType.parse("multipart/form-data"), file));
+        form.addFormDataPart("picFile", fileName, picBody);
         //参数
         Map<String, String> params = new HashMap<>();
         for (String key : params.keySet()) {
             form.addFormDataPart(key, params.get(key));
         }
-        return netApi.saveMemberPic(form.build());
+        return form.build();
     }
 
     /**
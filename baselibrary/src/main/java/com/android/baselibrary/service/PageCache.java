@@ -0,0 +1,126 @@
+package com.android.baselibrary.service;
+
+import com.android.baselibrary.service.bean.BaseBean;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func0;
+
+/**
+ * 分页列表的内存缓存
+ * <p>
+ * 以 (接口, 参数, 页码, token) 为 key 保存已经拿到的每一页，重新进入列表页时看过的页直接返回，
+ * 不再走网络、读磁盘和解析。下拉刷新前调用 {@link NetService#invalidate(String)}，同时清掉该接口在这里和 {@link ResponseCache} 里的缓存。
+ * 只保存成功的结果，最多 {@link #MAX_ENTRIES} 页，超过 {@link #TTL} 的页视为失效。
+ */
+public class PageCache {
+
+    private static final int MAX_ENTRIES = 64;
+    private static final long TTL = TimeUnit.MINUTES.toMillis(5);
+
+    public static PageCache instance;
+
+    public static PageCache getInstance() {
+        synchronized (PageCache.class) {
+            if (instance == null) {
+                instance = new PageCache();
+            }
+        }
+        return instance;
+    }
+
+    private static class Entry {
+        final String endpoint;
+        final Object value;
+        final long savedAt;
+
+        Entry(String endpoint, Object value, long savedAt) {
+            this.endpoint = endpoint;
+            this.value = value;
+            this.savedAt = savedAt;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> pages = new LinkedHashMap<String, Entry>(0, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private int hitCount;
+    private int missCount;
+
+    /**
+     * @param endpoint 接口名，和 NetApi 的方法名一致
+     * @param params   请求参数，需要包含页码
+     * @param source   实际的请求
+     */
+    public <T> Observable<T> wrap(final String endpoint, Map<String, String> params, final Observable<T> source) {
+        final String key = ResponseCache.key(endpoint, params);
+        return Observable.defer(new Func0<Observable<T>>() {
+            @Override
+            public Observable<T> call() {
+                T cached = get(key);
+                if (cached != null) {
+                    return Observable.just(cached);
+                }
+                return source.doOnNext(new Action1<T>() {
+                    @Override
+                    public void call(T t) {
+                        if (t instanceof BaseBean && ResponseCache.isSuccess(t)) {
+                            put(endpoint, key, t);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 清掉某个接口缓存的所有页
+     */
+    public synchronized void invalidate(String endpoint) {
+        Iterator<Entry> iterator = pages.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().endpoint.equals(endpoint)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        pages.clear();
+    }
+
+    public synchronized int hitCount() {
+        return hitCount;
+    }
+
+    public synchronized int missCount() {
+        return missCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> T get(String key) {
+        Entry entry = pages.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.savedAt > TTL) {
+            pages.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return (T) entry.value;
+    }
+
+    private synchronized void put(String endpoint, String key, Object value) {
+        pages.put(key, new Entry(endpoint, value, System.currentTimeMillis()));
+    }
+}
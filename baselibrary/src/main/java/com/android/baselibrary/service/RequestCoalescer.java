@@ -0,0 +1,107 @@
+package com.android.baselibrary.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Func0;
+
+/**
+ * 合并正在进行中的相同请求
+ * <p>
+ * 同一个 (接口, 参数, token) 的请求还没返回时，再次发起的请求不会重新走网络，
+ * 而是订阅到同一个请求上，结果分发给所有订阅者；请求结束（或所有订阅者都取消）后移除。
+ * 共享的请求会重放最后一个结果，在结果发出之后、移除之前加入的订阅者也能拿到数据。
+ * 只对通过 {@link #setEnabled(String, boolean)} 打开的接口生效，有副作用的接口不要打开。
+ */
+public class RequestCoalescer {
+
+    public static RequestCoalescer instance;
+
+    public static RequestCoalescer getInstance() {
+        synchronized (RequestCoalescer.class) {
+            if (instance == null) {
+                instance = new RequestCoalescer();
+                instance.setEnabled("getMemberInfo", true);
+                instance.setEnabled("indexInfo", true);
+                instance.setEnabled("channelInfo", true);
+                instance.setEnabled("getVideoDetail", true);
+                instance.setEnabled("getVideoCommon", true);
+            }
+        }
+        return instance;
+    }
+
+    private final Set<String> endpoints = new HashSet<>();
+    private final Map<String, Observable<?>> inFlight = new HashMap<>();
+    private int sharedCount;
+
+    public synchronized void setEnabled(String endpoint, boolean enabled) {
+        if (enabled) {
+            endpoints.add(endpoint);
+        } else {
+            endpoints.remove(endpoint);
+        }
+    }
+
+    public synchronized boolean isEnabled(String endpoint) {
+        return endpoints.contains(endpoint);
+    }
+
+    /**
+     * @param endpoint 接口名，和 NetApi 的方法名一致
+     * @param params   请求参数
+     * @param source   实际的网络请求
+     */
+    public <T> Observable<T> coalesce(String endpoint, Map<String, String> params, Observable<T> source) {
+        if (!isEnabled(endpoint)) {
+            return source;
+        }
+        return coalesce(ResponseCache.key(endpoint, params), source);
+    }
+
+    <T> Observable<T> coalesce(final String key, final Observable<T> source) {
+        return Observable.defer(new Func0<Observable<T>>() {
+            @Override
+            public Observable<T> call() {
+                return obtain(key, source);
+            }
+        });
+    }
+
+    /**
+     * 被合并掉（没有真正发出）的请求数
+     */
+    public synchronized int sharedCount() {
+        return sharedCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> Observable<T> obtain(final String key, Observable<T> source) {
+        Observable<T> shared = (Observable<T>) inFlight.get(key);
+        if (shared != null) {
+            sharedCount++;
+            return shared;
+        }
+        final Observable<?>[] holder = new Observable<?>[1];
+        Action0 release = new Action0() {
+            @Override
+            public void call() {
+                release(key, holder[0]);
+            }
+        };
+        shared = source.doOnTerminate(release).doOnUnsubscribe(release).replay(1).refCount();
+        holder[0] = shared;
+        inFlight.put(key, shared);
+        return shared;
+    }
+
+    private synchronized void release(String key, Observable<?> shared) {
+        if (inFlight.get(key) == shared) {
+            inFlight.remove(key);
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.android.baselibrary.service;
+
+import android.content.Context;
+
+import com.android.baselibrary.base.BaseApplication;
+import com.android.baselibrary.log.AppLog;
+import com.android.baselibrary.service.bean.BaseBean;
+import com.android.baselibrary.service.http.JsonConverterFactory;
+import com.android.baselibrary.service.http.RequestEnvelope;
+import com.android.baselibrary.thread.AppExecutors;
+import com.android.baselibrary.util.MD5Util;
+import com.google.gson.Gson;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+/**
+ * 接口返回数据的磁盘缓存
+ * <p>
+ * NetApi 全部是 POST 请求，OkHttp 的 HTTP 缓存不生效，这里按 (接口, 排序后的参数, token) 做 key，
+ * 把请求成功的 bean 以 json 形式存到 cacheDir/response 下，按访问顺序 LRU 淘汰，总大小受 maxSize 限制。
+ * <p>
+ * 每个接口单独配置 {@link Policy}：
+ * 1. 缓存未过期：直接返回缓存，不再请求网络；
+ * 2. 缓存过期但在 maxStale 内：revalidate 为 true 时先返回缓存，网络数据和缓存不同时再返回一次（onNext 两次），
+ *    为 false 时（分页接口，避免页码错乱）只请求网络，网络失败时再用过期缓存兜底；
+ * 3. 没有缓存：直接请求网络。
+ * 下拉刷新前调用 {@link #invalidate(String)} 删掉该接口的缓存，保证刷新一定请求网络。
+ * <p>
+ * 套了缓存的请求用 {@link #offlineFirst(Observable)} 标记，BasePresenter 在无网络时仍然订阅它们，由缓存返回数据。
+ */
+public class ResponseCache {
+
+    private static final String TAG = "ResponseCache";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String DIR_NAME = "response";
+
+    private static final char KEY_SEPARATOR = '.';
+
+    /**
+     * 类加载的时间，早于它的临时文件是上次进程没写完留下的；
+     * 减去的余量是文件系统修改时间的精度（部分文件系统只精确到 2 秒）
+     */
+    private static final long PROCESS_START = System.currentTimeMillis() - 2000;
+
+    /**
+     * 默认最多占用 4M
+     */
+    private static final long DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+    public static ResponseCache instance;
+
+    public static ResponseCache getInstance() {
+        synchronized (ResponseCache.class) {
+            if (instance == null) {
+                Context context = BaseApplication.getInstance().getContext();
+                instance = new ResponseCache(new File(context.getCacheDir(), DIR_NAME), DEFAULT_MAX_SIZE);
+                instance.setPolicy("indexInfo", new Policy(TimeUnit.MINUTES.toMillis(5), TimeUnit.DAYS.toMillis(1), true));
+                instance.setPolicy("channelInfo", new Policy(TimeUnit.MINUTES.toMillis(10), TimeUnit.DAYS.toMillis(1), true));
+                instance.setPolicy("selectTagType", new Policy(TimeUnit.MINUTES.toMillis(30), TimeUnit.DAYS.toMillis(3), true));
+                instance.setPolicy("selectTagsByType", new Policy(TimeUnit.MINUTES.toMillis(30), TimeUnit.DAYS.toMillis(3), true));
+                instance.setPolicy("getFindVideo", new Policy(TimeUnit.MINUTES.toMillis(5), TimeUnit.DAYS.toMillis(1), false));
+                instance.setPolicy("getVideoByStarId", new Policy(TimeUnit.MINUTES.toMillis(5), TimeUnit.DAYS.toMillis(1), false));
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 单个接口的缓存策略
+     */
+    public static class Policy {
+        /**
+         * 缓存有效期，期间内不请求网络
+         */
+        final long ttl;
+        /**
+         * 过期后还可以展示的时长
+         */
+        final long maxStale;
+        /**
+         * 过期缓存是否先返回再刷新
+         */
+        final boolean revalidate;
+
+        public Policy(long ttl, long maxStale, boolean revalidate) {
+            this.ttl = ttl;
+            this.maxStale = maxStale;
+            this.revalidate = revalidate;
+        }
+    }
+
+    /**
+     * 无网络时也可以订阅的请求
+     */
+    private static final class OfflineFirstObservable<T> extends Observable<T> {
+        OfflineFirstObservable(final Observable<T> source) {
+            super(new OnSubscribe<T>() {
+                @Override
+                public void call(Subscriber<? super T> subscriber) {
+                    source.unsafeSubscribe(subscriber);
+                }
+            });
+        }
+    }
+
+    /**
+     * 标记一个套了缓存的请求（{@link #wrap} 之后、subscribeOn 等操作符之后的最外层），无网络时也可以订阅
+     */
+    public static <T> Observable<T> offlineFirst(Observable<T> observable) {
+        return observable instanceof OfflineFirstObservable ? observable : new OfflineFirstObservable<>(observable);
+    }
+
+    public static boolean isOfflineFirst(Observable<?> observable) {
+        return observable instanceof OfflineFirstObservable;
+    }
+
+    private static class Entry {
+        final String key;
+        final long length;
+        final long savedAt;
+
+        Entry(String key, long length, long savedAt) {
+            this.key = key;
+            this.length = length;
+            this.savedAt = savedAt;
+        }
+    }
+
+    private final File directory;
+    private final long maxSize;
+    private final Gson gson = JsonConverterFactory.GSON;
+    private final Map<String, Policy> policies = new HashMap<>();
+    private final LinkedHashMap<String, Entry> lruEntries = new LinkedHashMap<>(0, 0.75f, true);
+    private boolean initialized;
+    private long size;
+
+    private int hitCount;
+    private int staleHitCount;
+    private int missCount;
+    private int putCount;
+    private int evictionCount;
+
+    public ResponseCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public synchronized void setPolicy(String endpoint, Policy policy) {
+        if (policy == null) {
+            policies.remove(endpoint);
+        } else {
+            policies.put(endpoint, policy);
+        }
+    }
+
+    /**
+     * 给网络请求套上缓存，没有配置策略的接口原样返回
+     *
+     * @param endpoint 接口名，和 NetApi 的方法名一致
+     * @param params   请求参数
+     * @param type     返回的 bean 类型
+     * @param network  实际的网络请求
+     */
+    public <T> Observable<T> wrap(String endpoint, Map<String, String> params, Class<T> type,
+                                  Observable<T> network) {
+        Policy policy;
+        synchronized (this) {
+            policy = policies.get(endpoint);
+        }
+        if (policy == null) {
+            return network;
+        }
+        return wrap(policy, key(endpoint, params), type, network);
+    }
+
+    <T> Observable<T> wrap(final Policy policy, final String key, final Class<T> type, final Observable<T> network) {
+        return Observable.defer(new Func0<Observable<T>>() {
+            @Override
+            public Observable<T> call() {
+                Entry entry = getEntry(key);
+                long age = entry == null ? Long.MAX_VALUE : System.currentTimeMillis() - entry.savedAt;
+                final String cachedJson = entry == null || age > policy.ttl + policy.maxStale ? null : readJson(entry);
+                final T cached = cachedJson == null ? null : parse(entry, cachedJson, type);
+                if (cached == null) {
+                    recordMiss();
+                    return saved(key, network, null);
+                }
+                if (age <= policy.ttl) {
+                    recordHit(false);
+                    return Observable.just(cached);
+                }
+                recordHit(true);
+                if (policy.revalidate) {
+                    // 刷新失败时已经展示了缓存，不再把错误抛给页面；数据没变时不再回调第二次
+                    return Observable.concat(Observable.just(cached), saved(key, network, cachedJson)
+                            .onErrorResumeNext(Observable.<T>empty()));
+                }
+                return saved(key, network, null).onErrorResumeNext(new Func1<Throwable, Observable<T>>() {
+                    @Override
+                    public Observable<T> call(Throwable throwable) {
+                        return Observable.just(cached);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 请求成功的数据写入缓存；unchangedJson 不为 null 时，和它序列化结果相同的数据不再发给订阅者
+     */
+    private <T> Observable<T> saved(final String key, Observable<T> network, final String unchangedJson) {
+        return network.concatMap(new Func1<T, Observable<T>>() {
+            @Override
+            public Observable<T> call(T t) {
+                if (!isSuccess(t)) {
+                    return Observable.just(t);
+                }
+                String json = gson.toJson(t);
+                put(key, json);
+                return json.equals(unchangedJson) ? Observable.<T>empty() : Observable.just(t);
+            }
+        });
+    }
+
+    /**
+     * 删掉某个接口的所有缓存（内存索引和磁盘文件），下拉刷新前调用，之后的请求一定走网络
+     */
+    public synchronized void invalidate(String endpoint) {
+        initialize();
+        String prefix = endpoint + KEY_SEPARATOR;
+        Iterator<Entry> iterator = lruEntries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.key.startsWith(prefix)) {
+                iterator.remove();
+                fileFor(entry.key).delete();
+                size -= entry.length;
+            }
+        }
+    }
+
+    /**
+     * 在 disk 线程池清空缓存，切换账号、退出登录时调用
+     */
+    public void clearAsync() {
+        AppExecutors.disk().execute(new Runnable() {
+            @Override
+            public void run() {
+                clear();
+            }
+        });
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        initialize();
+        for (Entry entry : lruEntries.values()) {
+            fileFor(entry.key).delete();
+        }
+        lruEntries.clear();
+        size = 0;
+    }
+
+    public synchronized long size() {
+        initialize();
+        return size;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    public synchronized int hitCount() {
+        return hitCount;
+    }
+
+    public synchronized int staleHitCount() {
+        return staleHitCount;
+    }
+
+    public synchronized int missCount() {
+        return missCount;
+    }
+
+    public synchronized int putCount() {
+        return putCount;
+    }
+
+    public synchronized int evictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResponseCache[size=" + size + ",maxSize=" + maxSize + ",hits=" + hitCount
+                + ",staleHits=" + staleHitCount + ",misses=" + missCount + ",puts=" + putCount
+                + ",evictions=" + evictionCount + "]";
+    }
+
+    /**
+     * 按当前登录用户的 token 区分，切换账号后不会读到上一个账号的数据；
+     * 以接口名开头，{@link #invalidate(String)} 按接口删除
+     */
+    static String key(String endpoint, Map<String, String> params) {
+        return key(endpoint, params, RequestEnvelope.get().getToken());
+    }
+
+    static String key(String endpoint, Map<String, String> params, String token) {
+        StringBuilder builder = new StringBuilder(endpoint).append('?');
+        if (params != null) {
+            for (Map.Entry<String, String> param : new TreeMap<>(params).entrySet()) {
+                builder.append(param.getKey()).append('=').append(param.getValue()).append('&');
+            }
+        }
+        builder.append('#').append(token);
+        return endpoint + KEY_SEPARATOR + MD5Util.MD5(builder.toString());
+    }
+
+    static boolean isSuccess(Object o) {
+        if (o instanceof BaseBean) {
+            BaseBean bean = (BaseBean) o;
+            return bean.getHttpCode() == UrlConstants.SUCCESS_CODE && UrlConstants.REG_CODE.equals(bean.getRetCode());
+        }
+        return o != null;
+    }
+
+    private synchronized void recordHit(boolean stale) {
+        if (stale) {
+            staleHitCount++;
+        } else {
+            hitCount++;
+        }
+    }
+
+    private synchronized void recordMiss() {
+        missCount++;
+    }
+
+    private synchronized Entry getEntry(String key) {
+        initialize();
+        return lruEntries.get(key);
+    }
+
+    private String readJson(Entry entry) {
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(new FileInputStream(fileFor(entry.key)), UTF_8);
+            StringWriter writer = new StringWriter((int) entry.length);
+            char[] buffer = new char[4096];
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                writer.write(buffer, 0, count);
+            }
+            return writer.toString();
+        } catch (IOException e) {
+            AppLog.w(TAG, "read cache failed " + e.getMessage());
+            remove(entry.key);
+            return null;
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private <T> T parse(Entry entry, String json, Class<T> type) {
+        try {
+            return gson.fromJson(json, type);
+        } catch (RuntimeException e) {
+            AppLog.w(TAG, "parse cache failed " + e.getMessage());
+            remove(entry.key);
+            return null;
+        }
+    }
+
+    private void put(String key, String json) {
+        File tmp = null;
+        Writer writer = null;
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                return;
+            }
+            // 同一个 key 可能同时有多个请求在写，各自写自己的临时文件，最后 rename 覆盖
+            tmp = File.createTempFile(key, ".tmp", directory);
+            writer = new OutputStreamWriter(new FileOutputStream(tmp), UTF_8);
+            writer.write(json);
+            writer.close();
+            writer = null;
+            synchronized (this) {
+                initialize();
+                File file = fileFor(key);
+                if (!tmp.renameTo(file)) {
+                    tmp.delete();
+                    return;
+                }
+                Entry old = lruEntries.put(key, new Entry(key, file.length(), System.currentTimeMillis()));
+                if (old != null) {
+                    size -= old.length;
+                }
+                size += file.length();
+                putCount++;
+                trimToSize();
+            }
+        } catch (IOException e) {
+            AppLog.w(TAG, "write cache failed " + e.getMessage());
+            if (tmp != null) {
+                tmp.delete();
+            }
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Entry entry = lruEntries.remove(key);
+        if (entry != null) {
+            size -= entry.length;
+            fileFor(key).delete();
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> iterator = lruEntries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            fileFor(eldest.key).delete();
+            size -= eldest.length;
+            evictionCount++;
+        }
+    }
+
+    /**
+     * 第一次使用时扫描目录重建索引，按修改时间恢复 LRU 顺序
+     */
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long l = lhs.lastModified();
+                long r = rhs.lastModified();
+                return l < r ? -1 : (l == r ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(".tmp")) {
+                // put() 在锁外写临时文件，只删上次进程留下的，正在写的不能动
+                if (file.lastModified() < PROCESS_START) {
+                    file.delete();
+                }
+                continue;
+            }
+            lruEntries.put(name, new Entry(name, file.length(), file.lastModified()));
+            size += file.length();
+        }
+        trimToSize();
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -28,4 +28,10 @@ public class UrlConstants {
     public static final String NEW_BASE_URL = BASE_URL + "/";
     public static final String DIAMOND_URL = "http://www.baidu.com";
     public static final String FEED_BAKK_URL = "http://www.baidu.com";
+
+    /**
+     * 支持 @{宽}w_{高}h_{质量}Q 缩放参数的图片 CDN 域名（含子域名），只有这些域名下的图片按控件尺寸请求缩放图，
+     * 其他域名（广告图、第三方头像等）原样加载。为空时不改写任何地址
+     */
+    public static final String[] IMAGE_CDN_HOSTS = {};
 }
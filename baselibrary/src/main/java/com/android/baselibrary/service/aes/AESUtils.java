@@ -15,8 +15,18 @@ public class AESUtils {
     private String ivParameter = "1234567890123456";
     private static AESUtils instance = null;
 
+    private static final String TRANSFORMATION = "AES/CBC/PKCS7Padding";
+
+    /**
+     * key 和 iv 固定，只创建一次
+     */
+    private final SecretKeySpec keySpec;
+    private final IvParameterSpec ivSpec;
+
     private AESUtils(String sKey) {
         this.sKey = sKey;
+        this.keySpec = new SecretKeySpec(sKey.getBytes(), "AES");
+        this.ivSpec = new IvParameterSpec(ivParameter.getBytes());
     }
 
     public static AESUtils getInstance(String sKey) {
@@ -34,11 +44,10 @@ public class AESUtils {
         if (secretKey.length() != 16) {
             return null;
         }
-        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS7Padding");
         byte[] raw = secretKey.getBytes();
         SecretKeySpec skeySpec = new SecretKeySpec(raw, "AES");
         IvParameterSpec iv = new IvParameterSpec(vector.getBytes());// 使用CBC模式，需要一个向量iv，可增加加密算法的强度
-        cipher.init(Cipher.ENCRYPT_MODE, skeySpec, iv);
+        Cipher cipher = CipherPool.cipher(TRANSFORMATION, Cipher.ENCRYPT_MODE, skeySpec, iv);
         byte[] encrypted = cipher.doFinal(encData.getBytes("utf-8"));
         return Base64.encodeToString(encrypted);// 此处使用BASE64做转码。（处于android.util包）
     }
@@ -46,11 +55,7 @@ public class AESUtils {
 
     // 加密
     public String encrypt(String sSrc) throws Exception {
-        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS7Padding");
-        byte[] raw = sKey.getBytes();
-        SecretKeySpec skeySpec = new SecretKeySpec(raw, "AES");
-        IvParameterSpec iv = new IvParameterSpec(ivParameter.getBytes());// 使用CBC模式，需要一个向量iv，可增加加密算法的强度
-        cipher.init(Cipher.ENCRYPT_MODE, skeySpec, iv);
+        Cipher cipher = CipherPool.cipher(TRANSFORMATION, Cipher.ENCRYPT_MODE, keySpec, ivSpec);
         byte[] encrypted = cipher.doFinal(sSrc.getBytes("utf-8"));
         return Base64.encodeToString(encrypted);// 此处使用BASE64做转码。
     }
@@ -58,11 +63,7 @@ public class AESUtils {
     // 解密
     public String decrypt(String sSrc) throws Exception {
         try {
-            byte[] raw = sKey.getBytes("ASCII");
-            SecretKeySpec skeySpec = new SecretKeySpec(raw, "AES");
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS7Padding");
-            IvParameterSpec iv = new IvParameterSpec(ivParameter.getBytes());
-            cipher.init(Cipher.DECRYPT_MODE, skeySpec, iv);
+            Cipher cipher = CipherPool.cipher(TRANSFORMATION, Cipher.DECRYPT_MODE, keySpec, ivSpec);
             byte[] encrypted1 = Base64.decode(sSrc);// 先用base64解密
             byte[] original = cipher.doFinal(encrypted1);
             String originalString = new String(original, "utf-8");
@@ -77,9 +78,7 @@ public class AESUtils {
         try {
             byte[] raw = key.getBytes("ASCII");
             SecretKeySpec skeySpec = new SecretKeySpec(raw, "AES");
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS7Padding");
-            IvParameterSpec iv = new IvParameterSpec(ivParameter.getBytes());
-            cipher.init(Cipher.DECRYPT_MODE, skeySpec, iv);
+            Cipher cipher = CipherPool.cipher(TRANSFORMATION, Cipher.DECRYPT_MODE, skeySpec, ivSpec);
             byte[] encrypted1 = Base64.decode(sSrc);// 先用base64解密
             byte[] original = cipher.doFinal(encrypted1);
             String originalString = new String(original, "utf-8");
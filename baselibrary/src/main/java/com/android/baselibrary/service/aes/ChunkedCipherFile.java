@@ -0,0 +1,218 @@
+package com.android.baselibrary.service.aes;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 分块加密文件，可以随机读取
+ * <p>
+ * 文件格式：
+ * <pre>
+ * header: magic(4) | version(1) | reserved(3) | blockSize(4) | salt(16)
+ * block:  AES-256-GCM(明文 blockSize 字节) | tag(16)，最后一块明文为 0 ~ blockSize 字节
+ * </pre>
+ * 每个文件的 key 由主密钥和 salt 通过 HMAC-SHA256 得到；第 i 块的 IV 为块序号 i，AAD 为 header 加上"是否最后一块"，
+ * 调换、删除或截断块都会校验失败。除最后一块外每块长度固定，第 i 块在文件中的位置直接算出，不需要单独的索引表；
+ * 读取任意位置只解密它所在的块。
+ * <p>
+ * 写入见 {@link ChunkedCipherOutputStream}。
+ */
+public final class ChunkedCipherFile implements Closeable {
+
+    static final byte[] MAGIC = {'C', 'K', 'V', 'F'};
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 28;
+    static final int SALT_LENGTH = 16;
+    static final int TAG_LENGTH = 16;
+    static final int IV_LENGTH = 12;
+
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String KEY_ALGORITHM = "HmacSHA256";
+    private static final byte[] KEY_INFO = {'c', 'h', 'u', 'n', 'k', 'e', 'd', '-', 'v', '1'};
+
+    private final RandomAccessFile file;
+    private final byte[] header = new byte[HEADER_LENGTH];
+    private final SecretKeySpec key;
+    private final int blockSize;
+    private final long blockCount;
+    private final long length;
+
+    private final byte[] cipherBuffer;
+    private final byte[] plainBuffer;
+    private long cachedBlock = -1;
+    private int cachedLength;
+
+    public ChunkedCipherFile(File source, byte[] masterKey) throws IOException {
+        file = new RandomAccessFile(source, "r");
+        try {
+            file.readFully(header);
+            if (!isHeader(header)) {
+                throw new IOException("Not a chunked cipher file: " + source);
+            }
+            blockSize = readInt(header, 8);
+            if (blockSize <= 0 || blockSize > 16 * 1024 * 1024) {
+                throw new IOException("Bad block size: " + blockSize);
+            }
+            long payload = file.length() - HEADER_LENGTH;
+            long stride = blockSize + TAG_LENGTH;
+            blockCount = (payload + stride - 1) / stride;
+            if (blockCount == 0 || payload - (blockCount - 1) * stride < TAG_LENGTH) {
+                throw new IOException("Truncated chunked cipher file: " + source);
+            }
+            length = payload - blockCount * TAG_LENGTH;
+            key = fileKey(masterKey, Arrays.copyOfRange(header, 12, 12 + SALT_LENGTH));
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+        cipherBuffer = new byte[blockSize + TAG_LENGTH];
+        plainBuffer = new byte[blockSize + TAG_LENGTH];
+    }
+
+    /**
+     * 按文件头判断是否是分块加密文件，文件不存在或太短返回 false
+     */
+    public static boolean isEncrypted(File source) {
+        if (source == null || source.length() < HEADER_LENGTH) {
+            return false;
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(source, "r");
+            byte[] head = new byte[HEADER_LENGTH];
+            raf.readFully(head);
+            return isHeader(head);
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 明文长度
+     */
+    public long length() {
+        return length;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * 从明文的 position 处读取最多 len 个字节
+     *
+     * @return 实际读取的字节数，position 已到末尾时返回 -1
+     * @throws IOException 读文件失败或数据校验失败
+     */
+    public synchronized int read(long position, byte[] buffer, int offset, int len) throws IOException {
+        if (position < 0 || offset < 0 || len < 0 || offset + len > buffer.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (position >= length) {
+            return -1;
+        }
+        int total = 0;
+        while (total < len && position < length) {
+            long block = position / blockSize;
+            int inBlock = (int) (position - block * blockSize);
+            loadBlock(block);
+            int n = Math.min(len - total, cachedLength - inBlock);
+            System.arraycopy(plainBuffer, inBlock, buffer, offset + total, n);
+            total += n;
+            position += n;
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cachedBlock = -1;
+        Arrays.fill(plainBuffer, (byte) 0);
+        file.close();
+    }
+
+    /**
+     * 解密第 block 块到 plainBuffer，顺序读取时同一块只解密一次
+     */
+    private void loadBlock(long block) throws IOException {
+        if (block == cachedBlock) {
+            return;
+        }
+        cachedBlock = -1;
+        boolean last = block == blockCount - 1;
+        long start = HEADER_LENGTH + block * (blockSize + TAG_LENGTH);
+        int stored = (int) (last ? file.length() - start : blockSize + TAG_LENGTH);
+        file.seek(start);
+        try {
+            file.readFully(cipherBuffer, 0, stored);
+        } catch (EOFException e) {
+            throw new IOException("Truncated block " + block, e);
+        }
+        try {
+            Cipher cipher = blockCipher(Cipher.DECRYPT_MODE, key, header, block, last);
+            cachedLength = cipher.doFinal(cipherBuffer, 0, stored, plainBuffer, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Block " + block + " failed authentication", e);
+        }
+        cachedBlock = block;
+    }
+
+    static boolean isHeader(byte[] head) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return head[4] == VERSION;
+    }
+
+    static SecretKeySpec fileKey(byte[] masterKey, byte[] salt) throws IOException {
+        try {
+            Mac mac = CipherPool.mac(KEY_ALGORITHM, new SecretKeySpec(masterKey, KEY_ALGORITHM));
+            mac.update(KEY_INFO);
+            mac.update(salt);
+            byte[] bytes = mac.doFinal();
+            SecretKeySpec spec = new SecretKeySpec(bytes, "AES");
+            Arrays.fill(bytes, (byte) 0);
+            return spec;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to derive file key", e);
+        }
+    }
+
+    static Cipher blockCipher(int mode, SecretKeySpec key, byte[] header, long block, boolean last)
+            throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        for (int i = 0; i < 8; i++) {
+            iv[IV_LENGTH - 1 - i] = (byte) (block >>> (8 * i));
+        }
+        Cipher cipher = CipherPool.cipher(TRANSFORMATION, mode, key, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+        cipher.updateAAD(header);
+        cipher.updateAAD(new byte[]{(byte) (last ? 1 : 0)});
+        return cipher;
+    }
+
+    static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16
+                | (bytes[offset + 2] & 0xff) << 8 | (bytes[offset + 3] & 0xff);
+    }
+}
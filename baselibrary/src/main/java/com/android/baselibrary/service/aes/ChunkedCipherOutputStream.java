@@ -0,0 +1,113 @@
+package com.android.baselibrary.service.aes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 按 {@link ChunkedCipherFile} 的格式边写边加密
+ * <p>
+ * 攒满一块才写出；因为要知道哪一块是最后一块，满的一块会等到后面还有数据时才加密，剩下的在 {@link #close()} 时作为最后一块写出。
+ * 必须调用 close，否则文件不完整，读取时校验失败。
+ */
+public class ChunkedCipherOutputStream extends OutputStream {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final OutputStream out;
+    private final byte[] header = new byte[ChunkedCipherFile.HEADER_LENGTH];
+    private final SecretKeySpec key;
+    private final byte[] plainBuffer;
+    private final byte[] cipherBuffer;
+    private int buffered;
+    private long block;
+    private boolean closed;
+
+    public ChunkedCipherOutputStream(OutputStream out, byte[] masterKey) throws IOException {
+        this(out, masterKey, ChunkedCipherFile.DEFAULT_BLOCK_SIZE);
+    }
+
+    public ChunkedCipherOutputStream(OutputStream out, byte[] masterKey, int blockSize) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.out = out;
+        System.arraycopy(ChunkedCipherFile.MAGIC, 0, header, 0, ChunkedCipherFile.MAGIC.length);
+        header[4] = ChunkedCipherFile.VERSION;
+        header[8] = (byte) (blockSize >>> 24);
+        header[9] = (byte) (blockSize >>> 16);
+        header[10] = (byte) (blockSize >>> 8);
+        header[11] = (byte) blockSize;
+        byte[] salt = new byte[ChunkedCipherFile.SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        System.arraycopy(salt, 0, header, 12, salt.length);
+        key = ChunkedCipherFile.fileKey(masterKey, salt);
+        plainBuffer = new byte[blockSize];
+        cipherBuffer = new byte[blockSize + ChunkedCipherFile.TAG_LENGTH];
+        out.write(header);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (buffered == plainBuffer.length) {
+                writeBlock(false);
+            }
+            int n = Math.min(len, plainBuffer.length - buffered);
+            System.arraycopy(b, off, plainBuffer, buffered, n);
+            buffered += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * 只刷新底层流，没攒满的块要等 close 时才写出
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBlock(true);
+        } finally {
+            Arrays.fill(plainBuffer, (byte) 0);
+            out.close();
+        }
+    }
+
+    private void writeBlock(boolean last) throws IOException {
+        try {
+            Cipher cipher = ChunkedCipherFile.blockCipher(Cipher.ENCRYPT_MODE, key, header, block, last);
+            int n = cipher.doFinal(plainBuffer, 0, buffered, cipherBuffer, 0);
+            out.write(cipherBuffer, 0, n);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to encrypt block " + block, e);
+        }
+        block++;
+        buffered = 0;
+    }
+}
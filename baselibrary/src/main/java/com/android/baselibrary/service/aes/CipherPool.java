@@ -0,0 +1,116 @@
+package com.android.baselibrary.service.aes;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.Security;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+
+/**
+ * 按线程复用 Cipher / Mac 实例
+ * <p>
+ * Cipher.getInstance / Mac.getInstance 每次都要遍历 Provider 查找实现，小数据加解密时这部分比加解密本身还慢。
+ * 这里每个线程按 (算法, Provider) 缓存一个实例：Cipher 每次重新 init（init 会清掉上次的状态，出异常后也能继续用）；
+ * Mac 同样每次用传入的 key 重新 init，这里不缓存 key，每个线程每种算法的 Mac 只持有最近一次使用的 key。
+ * 拿到的实例只能在当前线程、本次调用里使用，不要保存。
+ */
+public final class CipherPool {
+
+    public static final String PROVIDER_BC = "BC";
+
+    private static final ThreadLocal<Map<String, Cipher>> CIPHERS = new ThreadLocal<Map<String, Cipher>>() {
+        @Override
+        protected Map<String, Cipher> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    private static final ThreadLocal<Map<String, Mac>> MACS = new ThreadLocal<Map<String, Mac>>() {
+        @Override
+        protected Map<String, Mac> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    private static volatile boolean bouncyCastleInstalled;
+
+    private CipherPool() {
+    }
+
+    /**
+     * 注册 BouncyCastle，只在第一次调用时创建 Provider
+     */
+    public static void installBouncyCastle() {
+        if (!bouncyCastleInstalled) {
+            synchronized (CipherPool.class) {
+                if (!bouncyCastleInstalled) {
+                    Security.addProvider(new BouncyCastleProvider());
+                    bouncyCastleInstalled = true;
+                }
+            }
+        }
+    }
+
+    public static Cipher cipher(String transformation, int mode, Key key, AlgorithmParameterSpec params)
+            throws GeneralSecurityException {
+        return cipher(transformation, null, mode, key, params);
+    }
+
+    /**
+     * @param provider 为 null 时使用默认 Provider
+     * @param params   不需要 IV 的模式（如 ECB）传 null
+     * @return 已经 init 好的 Cipher
+     */
+    public static Cipher cipher(String transformation, String provider, int mode, Key key,
+                                AlgorithmParameterSpec params) throws GeneralSecurityException {
+        String name = provider == null ? transformation : transformation + "@" + provider;
+        Map<String, Cipher> ciphers = CIPHERS.get();
+        Cipher cipher = ciphers.get(name);
+        if (cipher == null) {
+            cipher = provider == null ? Cipher.getInstance(transformation) : Cipher.getInstance(transformation, provider);
+            ciphers.put(name, cipher);
+        }
+        if (params == null) {
+            cipher.init(mode, key);
+        } else {
+            cipher.init(mode, key, params);
+        }
+        return cipher;
+    }
+
+    /**
+     * @return 已经用 key init 好的 Mac
+     */
+    public static Mac mac(String algorithm, Key key) throws GeneralSecurityException {
+        Map<String, Mac> macs = MACS.get();
+        Mac mac = macs.get(algorithm);
+        if (mac == null) {
+            mac = Mac.getInstance(algorithm);
+            macs.put(algorithm, mac);
+        }
+        mac.init(key);
+        return mac;
+    }
+
+    /**
+     * 对 buffer 中 position 到 limit 的数据做 doFinal，堆内存的 buffer 直接按偏移读取底层数组，不复制输入
+     */
+    public static byte[] doFinal(Cipher cipher, ByteBuffer input) throws GeneralSecurityException {
+        if (input.hasArray()) {
+            return cipher.doFinal(input.array(), input.arrayOffset() + input.position(), input.remaining());
+        }
+        ByteBuffer output = ByteBuffer.allocate(cipher.getOutputSize(input.remaining()));
+        cipher.doFinal(input, output);
+        output.flip();
+        byte[] result = new byte[output.remaining()];
+        output.get(result);
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+package com.android.baselibrary.service.aes;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.text.TextUtils;
+import android.util.Base64;
+
+import com.android.baselibrary.base.BaseApplication;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 离线缓存视频的加密
+ * <p>
+ * 主密钥随机生成后保存在应用私有的 SharedPreferences 里，缓存文件拷到别的设备上无法播放。
+ * 播放加密文件需要 MediaDataSource（API 23），低版本系统不加密，仍然保存明文，播放时按文件头区分。
+ */
+public final class OfflineVideoCipher {
+
+    private static final String SP_NAME = "offline_video";
+    private static final String KEY_MASTER = "master_key";
+    private static final int MASTER_KEY_LENGTH = 32;
+    private static final String TEMP_SUFFIX = ".enc";
+
+    private static byte[] masterKey;
+
+    /**
+     * 正在写的临时文件，清理残留时跳过
+     */
+    private static final Set<String> encrypting = new HashSet<>();
+
+    private OfflineVideoCipher() {
+    }
+
+    /**
+     * 当前系统能否播放加密文件，不能时下载的视频不加密
+     */
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+    }
+
+    public static boolean isEncrypted(String path) {
+        return !TextUtils.isEmpty(path) && ChunkedCipherFile.isEncrypted(new File(stripScheme(path)));
+    }
+
+    /**
+     * 打开加密文件用于随机读取，用完需要 close
+     */
+    public static ChunkedCipherFile open(String path) throws IOException {
+        return new ChunkedCipherFile(new File(stripScheme(path)), masterKey());
+    }
+
+    public static ChunkedCipherOutputStream newOutputStream(File target) throws IOException {
+        return new ChunkedCipherOutputStream(new FileOutputStream(target), masterKey());
+    }
+
+    /**
+     * 把明文文件加密后替换原文件，在后台线程调用；已经加密过的文件不处理
+     */
+    public static void encryptInPlace(File file) throws IOException {
+        if (!file.exists() || ChunkedCipherFile.isEncrypted(file)) {
+            return;
+        }
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        synchronized (encrypting) {
+            //进程在加密中途被杀会留下临时文件，开始新的加密前先删掉
+            deleteStaleTemps(file.getParentFile());
+            encrypting.add(temp.getPath());
+        }
+        try {
+            encrypt(file, temp);
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                throw new IOException("Failed to replace " + file);
+            }
+        } finally {
+            synchronized (encrypting) {
+                encrypting.remove(temp.getPath());
+            }
+        }
+    }
+
+    private static void encrypt(File file, File temp) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ChunkedCipherOutputStream out = newOutputStream(temp);
+            try {
+                byte[] buffer = new byte[ChunkedCipherFile.DEFAULT_BLOCK_SIZE];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void deleteStaleTemps(File dir) {
+        File[] temps = dir == null ? null : dir.listFiles();
+        if (temps == null) {
+            return;
+        }
+        for (File temp : temps) {
+            if (temp.getName().endsWith(TEMP_SUFFIX) && !encrypting.contains(temp.getPath())) {
+                temp.delete();
+            }
+        }
+    }
+
+    private static synchronized byte[] masterKey() {
+        if (masterKey == null) {
+            SharedPreferences sp = BaseApplication.getInstance().getContext()
+                    .getSharedPreferences(SP_NAME, Context.MODE_PRIVATE);
+            String saved = sp.getString(KEY_MASTER, null);
+            if (saved != null) {
+                masterKey = Base64.decode(saved, Base64.NO_WRAP);
+            } else {
+                masterKey = new byte[MASTER_KEY_LENGTH];
+                new SecureRandom().nextBytes(masterKey);
+                //同步写入，保证之后加密的文件都能用同一个密钥解开
+                sp.edit().putString(KEY_MASTER, Base64.encodeToString(masterKey, Base64.NO_WRAP)).commit();
+            }
+        }
+        return masterKey;
+    }
+
+    private static String stripScheme(String path) {
+        return path.startsWith("file://") ? path.substring("file://".length()) : path;
+    }
+}
@@ -1,7 +1,10 @@
 package com.android.baselibrary.service.bean;
 
+import com.android.gsonadapter.GsonAdapter;
+
 import java.io.Serializable;
 
+@GsonAdapter
 public class BaseBean implements Serializable {
 
     private String retCode;
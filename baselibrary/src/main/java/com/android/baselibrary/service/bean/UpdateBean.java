@@ -1,9 +1,12 @@
 package com.android.baselibrary.service.bean;
 
+import com.android.gsonadapter.GsonAdapter;
+
 /**
  * Created by yongqianggeng on 2018/10/21.
  */
 
+@GsonAdapter
 public class UpdateBean extends BaseBean {
 
     private VersionInfo versionInfo;
@@ -2,6 +2,7 @@ package com.android.baselibrary.service.bean.channel;
 
 import com.android.baselibrary.service.bean.BaseBean;
 import com.android.baselibrary.service.bean.home.HomeBannerBean;
+import com.android.gsonadapter.GsonAdapter;
 
 import java.util.List;
 
@@ -10,6 +11,7 @@ import java.util.List;
  * 频道首页
  */
 
+@GsonAdapter
 public class ChannelDataBean extends BaseBean {
 
     private Data data;
@@ -1,11 +1,13 @@
 package com.android.baselibrary.service.bean.channel;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 /**
  * Created by yongqianggeng on 2018/9/28.
  */
 
+@GsonAdapter
 public class ChannelTagBean extends BaseBean {
 
     private String name;
@@ -1,11 +1,14 @@
 package com.android.baselibrary.service.bean.channel;
 
+import com.android.gsonadapter.GsonAdapter;
+
 import java.util.List;
 
 /**
  * Created by yongqianggeng on 2018/10/17.
  */
 
+@GsonAdapter
 public class ChannelTagDataBean {
 
     private List<ChannelTagBean>data;
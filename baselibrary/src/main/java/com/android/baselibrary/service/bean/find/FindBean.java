@@ -2,6 +2,7 @@ package com.android.baselibrary.service.bean.find;
 
 import com.android.baselibrary.service.bean.BaseBean;
 import com.android.baselibrary.service.bean.video.VideoDetailBean;
+import com.android.gsonadapter.GsonAdapter;
 
 import java.util.List;
 
@@ -9,6 +10,7 @@ import java.util.List;
  * Created by yongqianggeng on 2018/9/29.
  */
 
+@GsonAdapter
 public class FindBean extends BaseBean {
 
     private int pages;
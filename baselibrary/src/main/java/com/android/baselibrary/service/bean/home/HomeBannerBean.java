@@ -1,11 +1,13 @@
 package com.android.baselibrary.service.bean.home;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 /**
  * Created by yongqianggeng on 2018/10/9.
  */
 
+@GsonAdapter
 public class HomeBannerBean extends BaseBean {
 
     private String linkTypeName;
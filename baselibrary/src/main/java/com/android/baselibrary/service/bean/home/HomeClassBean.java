@@ -1,6 +1,7 @@
 package com.android.baselibrary.service.bean.home;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 import java.io.Serializable;
 import java.util.List;
@@ -9,6 +10,7 @@ import java.util.List;
  * Created by yongqianggeng on 2018/9/22.
  */
 
+@GsonAdapter
 public class HomeClassBean extends BaseBean implements Serializable {
 
     //TODO:test
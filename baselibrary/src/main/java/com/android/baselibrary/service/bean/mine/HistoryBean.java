@@ -1,11 +1,13 @@
 package com.android.baselibrary.service.bean.mine;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 /**
  * Created by yongqianggeng on 2018/10/18.
  */
 
+@GsonAdapter
 public class HistoryBean extends BaseBean {
 
     private int id;
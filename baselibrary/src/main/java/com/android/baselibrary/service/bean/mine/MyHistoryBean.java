@@ -1,6 +1,7 @@
 package com.android.baselibrary.service.bean.mine;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 import java.util.List;
 
@@ -8,6 +9,7 @@ import java.util.List;
  * Created by yongqianggeng on 2018/10/22.
  */
 
+@GsonAdapter
 public class MyHistoryBean extends BaseBean {
    private List<HistoryBean>data;
 
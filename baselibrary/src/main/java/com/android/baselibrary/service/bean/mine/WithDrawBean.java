@@ -1,11 +1,13 @@
 package com.android.baselibrary.service.bean.mine;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 /**
  * Created by yongqianggeng on 2018/12/4.
  */
 
+@GsonAdapter
 public class WithDrawBean extends BaseBean {
 
     private int currentCronNum;
@@ -1,6 +1,7 @@
 package com.android.baselibrary.service.bean.search;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 import java.util.List;
 
@@ -9,6 +10,7 @@ import java.util.List;
  * 搜索bean
  */
 
+@GsonAdapter
 public class SearchBean extends BaseBean {
 
     private List<Data> data;
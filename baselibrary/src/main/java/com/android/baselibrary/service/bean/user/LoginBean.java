@@ -2,6 +2,7 @@ package com.android.baselibrary.service.bean.user;
 
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 import java.util.List;
 
@@ -9,6 +10,7 @@ import java.util.List;
  * Created by gyq on 2016/7/7.
  *
  */
+@GsonAdapter
 public class LoginBean extends BaseBean {
 
 //    private int viewNum;
@@ -1,11 +1,13 @@
 package com.android.baselibrary.service.bean.user;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 /**
  * Created by yongqianggeng on 2018/10/13.
  */
 
+@GsonAdapter
 public class ProtocolBean extends BaseBean {
 
     private String protocolText;
@@ -2,6 +2,7 @@ package com.android.baselibrary.service.bean.user;
 
 import com.android.baselibrary.service.bean.BaseBean;
 import com.android.baselibrary.service.bean.mine.HistoryBean;
+import com.android.gsonadapter.GsonAdapter;
 
 import java.io.Serializable;
 import java.util.List;
@@ -11,6 +12,7 @@ import java.util.List;
  * 用户信息
  */
 
+@GsonAdapter
 public class UserBean extends BaseBean implements Serializable {
 
     private Data data;
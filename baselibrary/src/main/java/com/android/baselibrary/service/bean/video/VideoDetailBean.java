@@ -3,6 +3,7 @@ package com.android.baselibrary.service.bean.video;
 import com.android.baselibrary.service.bean.BaseBean;
 import com.android.baselibrary.service.bean.home.HomeBannerBean;
 import com.android.baselibrary.service.bean.home.HomeListBean;
+import com.android.gsonadapter.GsonAdapter;
 
 import java.util.List;
 
@@ -10,6 +11,7 @@ import java.util.List;
  * Created by yongqianggeng on 2018/10/17.
  */
 
+@GsonAdapter
 public class VideoDetailBean extends BaseBean {
 
     private String useView;
@@ -1,6 +1,7 @@
 package com.android.baselibrary.service.bean.video;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 import java.io.Serializable;
 
@@ -8,12 +9,19 @@ import java.io.Serializable;
  * Created by yongqianggeng on 2018/10/13.
  */
 
+@GsonAdapter
 public class VideoInComeBean extends BaseBean implements Serializable {
 
     private int isCache = 0;
     private int id;
     private String videoName;
     private String videoUrl;
+    /**
+     * 列表里的封面和封面控件的尺寸（像素），详情页先用列表缓存的封面占位
+     */
+    private String videoCover;
+    private int coverWidth;
+    private int coverHeight;
 
     public int getIsCache() {
         return isCache;
@@ -46,4 +54,28 @@ public class VideoInComeBean extends BaseBean implements Serializable {
     public void setId(int id) {
         this.id = id;
     }
+
+    public String getVideoCover() {
+        return videoCover;
+    }
+
+    public void setVideoCover(String videoCover) {
+        this.videoCover = videoCover;
+    }
+
+    public int getCoverWidth() {
+        return coverWidth;
+    }
+
+    public void setCoverWidth(int coverWidth) {
+        this.coverWidth = coverWidth;
+    }
+
+    public int getCoverHeight() {
+        return coverHeight;
+    }
+
+    public void setCoverHeight(int coverHeight) {
+        this.coverHeight = coverHeight;
+    }
 }
@@ -1,12 +1,14 @@
 package com.android.baselibrary.service.bean.video;
 
 import com.android.baselibrary.service.bean.BaseBean;
+import com.android.gsonadapter.GsonAdapter;
 
 /**
  * Created by yongqianggeng on 2018/10/3.
  * 猜你喜欢
  */
 
+@GsonAdapter
 public class VideoLikeBean extends BaseBean {
 
     private int id;
@@ -0,0 +1,106 @@
+package com.android.baselibrary.service.http;
+
+import com.android.baselibrary.thread.AppExecutors;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Dns;
+
+/**
+ * 带缓存的 DNS，设置在 OkHttpClient 上
+ * <p>
+ * 系统解析拿不到记录的 TTL，这里用固定的 {@link #TTL}：未过期直接返回；过期但不超过 {@link #MAX_STALE} 时
+ * 先返回旧结果、后台重新解析；再旧的同步解析。解析失败时如果有旧结果就继续用旧的。
+ */
+public class DnsCache implements Dns {
+
+    static final long TTL = TimeUnit.MINUTES.toMillis(5);
+    static final long MAX_STALE = TimeUnit.HOURS.toMillis(1);
+
+    private static final DnsCache instance = new DnsCache(Dns.SYSTEM);
+
+    public static DnsCache getInstance() {
+        return instance;
+    }
+
+    private static class Entry {
+        final List<InetAddress> addresses;
+        final long resolvedAt;
+
+        Entry(List<InetAddress> addresses, long resolvedAt) {
+            this.addresses = addresses;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+
+    private final Dns delegate;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> refreshing = new ConcurrentHashMap<>();
+
+    DnsCache(Dns delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        Entry entry = entries.get(hostname);
+        if (entry != null) {
+            long age = System.currentTimeMillis() - entry.resolvedAt;
+            if (age < TTL) {
+                return entry.addresses;
+            }
+            if (age < MAX_STALE) {
+                refreshAsync(hostname);
+                return entry.addresses;
+            }
+        }
+        return resolve(hostname);
+    }
+
+    /**
+     * 同步解析并写入缓存，在后台线程调用
+     */
+    public List<InetAddress> resolve(String hostname) throws UnknownHostException {
+        try {
+            List<InetAddress> addresses = delegate.lookup(hostname);
+            entries.put(hostname, new Entry(addresses, System.currentTimeMillis()));
+            return addresses;
+        } catch (UnknownHostException e) {
+            Entry entry = entries.get(hostname);
+            if (entry != null) {
+                return entry.addresses;
+            }
+            throw e;
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void refreshAsync(final String hostname) {
+        if (refreshing.putIfAbsent(hostname, Boolean.TRUE) != null) {
+            return;
+        }
+        try {
+            AppExecutors.network().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        resolve(hostname);
+                    } catch (UnknownHostException ignored) {
+                    } finally {
+                        refreshing.remove(hostname);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(hostname);
+        }
+    }
+}
@@ -15,7 +15,9 @@
  */
 package com.android.baselibrary.service.http;
 
+import com.android.baselibrary.service.bean.BeanTypeAdapterFactory;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
 import java.lang.annotation.Annotation;
@@ -35,11 +37,19 @@ import retrofit2.Retrofit;
  */
 public final class JsonConverterFactory extends Converter.Factory {
     /**
-     * Create an instance using a default {@link Gson} instance for conversion. Encoding to JSON and
+     * 注册了编译期生成的 bean TypeAdapter（见 {@link BeanTypeAdapterFactory}），解析接口返回时不走反射，
+     * 需要解析同样 bean 的地方（例如接口缓存）应共用这个实例
+     */
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new BeanTypeAdapterFactory())
+            .create();
+
+    /**
+     * Create an instance using {@link #GSON} for conversion. Encoding to JSON and
      * decoding from JSON (when no charset is specified by a header) will use UTF-8.
      */
     public static JsonConverterFactory create() {
-        return create(new Gson());
+        return create(GSON);
     }
 
     /**
@@ -1,87 +1,103 @@
 package com.android.baselibrary.service.http;
 
-import android.os.Build;
-import android.util.Log;
-
+import com.android.baselibrary.log.AppLog;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.nio.charset.UnsupportedCharsetException;
+import java.util.concurrent.TimeUnit;
 
 import okhttp3.Headers;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.Request;
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import okio.Buffer;
-import okio.BufferedSource;
 
 /**
  * Created by gyq
  * <p>
  * on 2016/7/12.
+ * <p>
+ * 接口日志，输出走 {@link AppLog}（tag 为 {@link #TAG}）
+ * <p>
+ * 只有 tag 开启 DEBUG 时才读 body；请求 body 只读文本类型的，multipart、图片等不读，
+ * 否则会提前触发一次写出（上传进度回调、上传时才压缩的请求体都会多执行一遍）；响应 body 用 peekBody 最多取 {@link AppLog#MAX_BODY_LENGTH} 字节，
+ * 不会把整个响应缓存在内存里，也不影响后面 Gson 的流式解析。
  */
 public class LogInterceptor implements Interceptor {
 
-    private String mVersion;
+    public static final String TAG = "http";
 
-    public  LogInterceptor(String version){
-        this.mVersion = version;
-    }
+    private static final Charset UTF8 = Charset.forName("UTF-8");
 
     @Override
     public okhttp3.Response intercept(Chain chain) throws IOException {
-        try {
-            Request original = chain.request();
-            Request request = original.newBuilder()
-                    .header("version", mVersion)
-                    .method(original.method(), original.body())
-                    .build();
-
-            if (Build.VERSION.SDK != null && Build.VERSION.SDK_INT > 13) {
-                request.newBuilder().addHeader("Connection", "close");
-            }
-            okhttp3.Response response = chain.proceed(request);
-
-
-            ResponseBody responseBody = response.body();
-            long contentLength = responseBody.contentLength();
-            if (!bodyEncoded(response.headers())) {
-                BufferedSource source = responseBody.source();
-                source.request(Long.MAX_VALUE); // Buffer the entire body.
-                Buffer buffer = source.buffer();
-
-                Charset charset = UTF8;
-                MediaType contentType = responseBody.contentType();
-                if (contentType != null) {
-                    try {
-                        charset = contentType.charset(UTF8);
-                    } catch (UnsupportedCharsetException e) {
-                        return response;
-                    }
-                }
-
-                if (!isPlaintext(buffer)) {
-                    return response;
+        Request request = chain.request();
+        if (!AppLog.isLoggable(TAG, AppLog.INFO)) {
+            return chain.proceed(request);
+        }
+        boolean logBody = AppLog.isLoggable(TAG, AppLog.DEBUG);
+
+        AppLog.i(TAG, "--> " + request.method() + " " + request.url());
+        RequestBody requestBody = request.body();
+        if (logBody && requestBody != null && !bodyEncoded(request.headers())) {
+            if (isText(requestBody.contentType())) {
+                Buffer buffer = new Buffer();
+                requestBody.writeTo(buffer);
+                if (isPlaintext(buffer)) {
+                    AppLog.body(AppLog.DEBUG, TAG, "request -> ", buffer.readString(charsetOf(requestBody.contentType())));
                 }
+            } else {
+                AppLog.d(TAG, "request -> (" + requestBody.contentType() + " body omitted)");
+            }
+        }
 
-                if (contentLength != 0) {
-                    String result = buffer.clone().readString(charset);
-                    Log.e("mv","request -> " + request.url());
-                    Log.e("mv","request -> " + request.url() + "\nresponse -> " + result);
-                    //得到所需的string，开始判断是否异常
-                    //***********************do something*****************************
-                }
+        long start = System.nanoTime();
+        okhttp3.Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            AppLog.w(TAG, "<-- HTTP FAILED " + request.url(), e);
+            throw e;
+        }
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        AppLog.i(TAG, "<-- " + response.code() + " " + request.url() + " (" + tookMs + "ms)");
+
+        if (logBody && !bodyEncoded(response.headers())) {
+            ResponseBody peek = response.peekBody(AppLog.MAX_BODY_LENGTH);
+            Buffer buffer = new Buffer();
+            buffer.writeAll(peek.source());
+            if (isPlaintext(buffer)) {
+                AppLog.body(AppLog.DEBUG, TAG, "response -> ", buffer.readString(charsetOf(peek.contentType())));
             }
-            return response;
+        }
+        return response;
+    }
+
+    private static Charset charsetOf(MediaType contentType) {
+        if (contentType == null) {
+            return UTF8;
+        }
+        try {
+            return contentType.charset(UTF8);
         } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+            return UTF8;
         }
     }
 
-    private static final Charset UTF8 = Charset.forName("UTF-8");
+    /**
+     * 文本、json、表单类型的请求体才读出来打印
+     */
+    static boolean isText(MediaType contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String subtype = contentType.subtype();
+        return "text".equals(contentType.type()) || subtype.contains("json") || subtype.contains("xml")
+                || "x-www-form-urlencoded".equals(subtype);
+    }
 
     private boolean bodyEncoded(Headers headers) {
         String contentEncoding = headers.get("Content-Encoding");
@@ -109,4 +125,3 @@ public class LogInterceptor implements Interceptor {
     }
 
 }
-
@@ -0,0 +1,192 @@
+package com.android.baselibrary.service.http;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+
+/**
+ * 把 OkHttp 每个阶段的耗时写进 {@link NetMetrics}
+ * <p>
+ * 每个进行中的 Call 占用一个实例，只保存几个 long 型的开始时间，阶段结束时直接写入直方图；
+ * callEnd / callFailed 之后实例回到一个小的对象池，下一个 Call 复用，不再每个请求 new 一个。
+ * tag 为 {@link #UNTRACKED} 的请求（启动预热等）不统计。
+ */
+public class MetricsEventListener extends EventListener {
+
+    /**
+     * 不计入统计的请求用它作 tag
+     */
+    public static final Object UNTRACKED = new Object();
+
+    private static final int POOL_SIZE = 16;
+
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public EventListener create(Call call) {
+            if (!NetMetrics.getInstance().isEnabled() || call.request().tag() == UNTRACKED) {
+                return EventListener.NONE;
+            }
+            return obtain(call);
+        }
+    };
+
+    private static final MetricsEventListener[] pool = new MetricsEventListener[POOL_SIZE];
+    private static int pooled;
+
+    private final NetMetrics metrics = NetMetrics.getInstance();
+    /**
+     * 当前绑定的 Call，回收后为 null，不是这个 Call 的事件直接忽略
+     */
+    private Call call;
+    private String endpoint;
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestStart;
+    private long bodyStart;
+
+    MetricsEventListener() {
+    }
+
+    static MetricsEventListener obtain(Call call) {
+        MetricsEventListener listener = null;
+        synchronized (pool) {
+            if (pooled > 0) {
+                listener = pool[--pooled];
+                pool[pooled] = null;
+            }
+        }
+        if (listener == null) {
+            listener = new MetricsEventListener();
+        }
+        listener.bind(call);
+        return listener;
+    }
+
+    static int pooledCount() {
+        synchronized (pool) {
+            return pooled;
+        }
+    }
+
+    private synchronized void bind(Call call) {
+        this.call = call;
+        this.endpoint = NetMetrics.endpointOf(call.request().url().encodedPath());
+        callStart = 0;
+        dnsStart = 0;
+        connectStart = 0;
+        secureConnectStart = 0;
+        requestStart = 0;
+        bodyStart = 0;
+    }
+
+    private void recycle(Call call) {
+        synchronized (this) {
+            if (this.call != call) {
+                return;
+            }
+            this.call = null;
+            this.endpoint = null;
+        }
+        synchronized (pool) {
+            if (pooled < POOL_SIZE) {
+                pool[pooled++] = this;
+            }
+        }
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        record(call, NetMetrics.PHASE_DNS, dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        record(call, NetMetrics.PHASE_TLS, secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        record(call, NetMetrics.PHASE_CONNECT, connectStart);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+                              IOException ioe) {
+        record(call, NetMetrics.PHASE_CONNECT, connectStart);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        record(call, NetMetrics.PHASE_TTFB, requestStart);
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        bodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        // 响应体边读边解析，这里已经包含了 Gson 解析的时间
+        record(call, NetMetrics.PHASE_BODY, bodyStart);
+        synchronized (this) {
+            if (this.call == call) {
+                metrics.record(endpoint, NetMetrics.PHASE_SIZE, byteCount);
+            }
+        }
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        record(call, NetMetrics.PHASE_TOTAL, callStart);
+        recycle(call);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        record(call, NetMetrics.PHASE_TOTAL, callStart);
+        recycle(call);
+    }
+
+    private synchronized void record(Call call, int phase, long start) {
+        if (start != 0 && this.call == call) {
+            metrics.record(endpoint, phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.android.baselibrary.service.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按接口统计网络耗时
+ * <p>
+ * 每个接口一组固定桶的直方图，记录 DNS、建连、TLS、首包、body、总耗时（毫秒）以及响应大小（字节）。
+ * 响应体是边读边交给 Gson 解析的（{@link JsonResponseBodyConverter}），body 阶段包含了解析，不再单独统计。
+ * 计数全部是 AtomicLongArray 上的 CAS 自增，记录时不加锁、不分配对象，release 包也可以常开。
+ * 接口以不带前导 "/" 的路径作 key，例如 "openapi/deviceInfo"。
+ */
+public class NetMetrics {
+
+    public static final int PHASE_DNS = 0;
+    public static final int PHASE_CONNECT = 1;
+    public static final int PHASE_TLS = 2;
+    public static final int PHASE_TTFB = 3;
+    /**
+     * 读 body + Gson 解析
+     */
+    public static final int PHASE_BODY = 4;
+    public static final int PHASE_TOTAL = 5;
+    /**
+     * 响应大小，单位字节
+     */
+    public static final int PHASE_SIZE = 6;
+
+    static final int PHASE_COUNT = 7;
+
+    private static final String[] PHASE_NAMES = {"dns", "connect", "tls", "ttfb", "body", "total", "size"};
+
+    /**
+     * 耗时桶上界（毫秒），最后一个桶收纳所有更大的值
+     */
+    private static final long[] TIME_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    /**
+     * 大小桶上界（字节）
+     */
+    private static final long[] SIZE_BOUNDS = {256, 1024, 4096, 16384, 65536, 262144, 1048576, 4194304};
+
+    private static final int BUCKET_COUNT = TIME_BOUNDS.length + 1;
+
+    /**
+     * 每个阶段占用的槽：BUCKET_COUNT 个桶 + count + sum + max
+     */
+    private static final int SLOTS = BUCKET_COUNT + 3;
+
+    private static final NetMetrics instance = new NetMetrics();
+
+    public static NetMetrics getInstance() {
+        return instance;
+    }
+
+    private final ConcurrentHashMap<String, AtomicLongArray> endpoints = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+
+    NetMetrics() {
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param value 耗时为毫秒，{@link #PHASE_SIZE} 为字节
+     */
+    public void record(String endpoint, int phase, long value) {
+        if (!enabled || endpoint == null || value < 0) {
+            return;
+        }
+        AtomicLongArray histogram = histogram(endpoint);
+        int base = phase * SLOTS;
+        histogram.incrementAndGet(base + bucketOf(phase, value));
+        histogram.incrementAndGet(base + BUCKET_COUNT);
+        histogram.addAndGet(base + BUCKET_COUNT + 1, value);
+        int maxSlot = base + BUCKET_COUNT + 2;
+        long max;
+        do {
+            max = histogram.get(maxSlot);
+        } while (value > max && !histogram.compareAndSet(maxSlot, max, value));
+    }
+
+    public List<String> endpoints() {
+        List<String> list = new ArrayList<>(endpoints.keySet());
+        Collections.sort(list);
+        return list;
+    }
+
+    public long count(String endpoint, int phase) {
+        AtomicLongArray histogram = endpoints.get(endpoint);
+        return histogram == null ? 0 : histogram.get(phase * SLOTS + BUCKET_COUNT);
+    }
+
+    public long mean(String endpoint, int phase) {
+        AtomicLongArray histogram = endpoints.get(endpoint);
+        if (histogram == null) {
+            return 0;
+        }
+        long count = histogram.get(phase * SLOTS + BUCKET_COUNT);
+        return count == 0 ? 0 : histogram.get(phase * SLOTS + BUCKET_COUNT + 1) / count;
+    }
+
+    public long max(String endpoint, int phase) {
+        AtomicLongArray histogram = endpoints.get(endpoint);
+        return histogram == null ? 0 : histogram.get(phase * SLOTS + BUCKET_COUNT + 2);
+    }
+
+    /**
+     * 百分位数，返回所在桶的上界（不超过记录到的最大值）
+     *
+     * @param percentile 0-100
+     */
+    public long percentile(String endpoint, int phase, double percentile) {
+        AtomicLongArray histogram = endpoints.get(endpoint);
+        if (histogram == null) {
+            return 0;
+        }
+        int base = phase * SLOTS;
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += histogram.get(base + i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100d);
+        long seen = 0;
+        long max = histogram.get(base + BUCKET_COUNT + 2);
+        long[] bounds = boundsOf(phase);
+        for (int i = 0; i < bounds.length; i++) {
+            seen += histogram.get(base + i);
+            if (seen >= rank) {
+                return Math.min(bounds[i], max);
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * 调试用，输出所有接口的 count / 平均值 / p50 / p90 / p99 / max
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (String endpoint : endpoints()) {
+            builder.append(endpoint).append('\n');
+            for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                long count = count(endpoint, phase);
+                if (count == 0) {
+                    continue;
+                }
+                builder.append("  ").append(PHASE_NAMES[phase])
+                        .append(" n=").append(count)
+                        .append(" avg=").append(mean(endpoint, phase))
+                        .append(" p50=").append(percentile(endpoint, phase, 50))
+                        .append(" p90=").append(percentile(endpoint, phase, 90))
+                        .append(" p99=").append(percentile(endpoint, phase, 99))
+                        .append(" max=").append(max(endpoint, phase))
+                        .append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    static String endpointOf(String encodedPath) {
+        return encodedPath.startsWith("/") ? encodedPath.substring(1) : encodedPath;
+    }
+
+    private AtomicLongArray histogram(String endpoint) {
+        AtomicLongArray histogram = endpoints.get(endpoint);
+        if (histogram == null) {
+            // 每个接口只会走一次
+            AtomicLongArray created = new AtomicLongArray(PHASE_COUNT * SLOTS);
+            histogram = endpoints.putIfAbsent(endpoint, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    private static long[] boundsOf(int phase) {
+        return phase == PHASE_SIZE ? SIZE_BOUNDS : TIME_BOUNDS;
+    }
+
+    private static int bucketOf(int phase, long value) {
+        long[] bounds = boundsOf(phase);
+        for (int i = 0; i < bounds.length; i++) {
+            if (value <= bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length;
+    }
+}
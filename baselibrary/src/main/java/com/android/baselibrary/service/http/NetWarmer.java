@@ -0,0 +1,188 @@
+package com.android.baselibrary.service.http;
+
+import android.os.SystemClock;
+
+import com.android.baselibrary.log.AppLog;
+import com.android.baselibrary.service.UrlConstants;
+import com.android.baselibrary.thread.AppExecutors;
+import com.android.baselibrary.util.SPUtils;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 启动预热：在后台线程解析已知域名写入 {@link DnsCache}，并向接口域名发一个 HEAD 请求，
+ * 让建好的连接留在 OkHttp 连接池里，第一个接口请求直接复用。
+ * <p>
+ * 已知域名 = 接口域名 + 上次运行记下的图片 / 视频域名（{@link #rememberUrls(Collection)}，最近出现的在前，
+ * 最多 {@link #MAX_HOSTS} 个，超出时丢掉最久没出现的）。
+ * 图片走 Glide 自己的连接，这些域名只做 DNS 预解析。
+ * 预热前后第一个请求的 dns / connect 耗时可以在 {@link NetMetrics#dump()} 中对比，{@link #setEnabled(boolean)} 可以关掉预热。
+ */
+public class NetWarmer {
+
+    public static final String TAG = "NetWarmer";
+
+    private static final String SP_HOSTS = "net_warm_hosts";
+    static final int MAX_HOSTS = 8;
+
+    private static volatile boolean enabled = true;
+    private static final LinkedHashMap<String, Boolean> rememberedHosts = newHostLru();
+
+    private NetWarmer() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        NetWarmer.enabled = enabled;
+    }
+
+    /**
+     * 在 Application.onCreate 中调用，不阻塞主线程
+     */
+    public static void start() {
+        if (!enabled) {
+            return;
+        }
+        AppExecutors.network().execute(new Runnable() {
+            @Override
+            public void run() {
+                warm();
+            }
+        });
+    }
+
+    /**
+     * 记下图片 / 视频地址的域名，下次启动时预解析；读写 SharedPreferences 放到 disk 线程池，主线程可以直接调用
+     */
+    public static void rememberUrls(Collection<String> urls) {
+        if (urls == null || urls.isEmpty()) {
+            return;
+        }
+        // 调用方可能会复用这个集合，先拷贝一份
+        final List<String> copy = new ArrayList<>(urls);
+        try {
+            AppExecutors.disk().execute(new Runnable() {
+                @Override
+                public void run() {
+                    saveHosts(copy);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            AppLog.w(TAG, "remember hosts rejected");
+        }
+    }
+
+    private static void saveHosts(List<String> urls) {
+        synchronized (rememberedHosts) {
+            if (rememberedHosts.isEmpty()) {
+                restoreHosts(rememberedHosts, savedHosts());
+            }
+            List<String> before = recentHosts(rememberedHosts);
+            touchHosts(rememberedHosts, urls);
+            List<String> after = recentHosts(rememberedHosts);
+            if (!after.equals(before)) {
+                StringBuilder builder = new StringBuilder();
+                for (String host : after) {
+                    builder.append(host).append(',');
+                }
+                SPUtils.put(SP_HOSTS, builder.toString());
+            }
+        }
+    }
+
+    /**
+     * 按访问顺序排列的域名表，超过 {@link #MAX_HOSTS} 个时去掉最久没出现的
+     */
+    static LinkedHashMap<String, Boolean> newHostLru() {
+        return new LinkedHashMap<String, Boolean>(MAX_HOSTS * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_HOSTS;
+            }
+        };
+    }
+
+    /**
+     * 按 urls 的顺序记下域名，后出现的算更近
+     */
+    static void touchHosts(LinkedHashMap<String, Boolean> lru, List<String> urls) {
+        for (String url : urls) {
+            HttpUrl httpUrl = url == null ? null : HttpUrl.parse(url);
+            if (httpUrl != null) {
+                lru.put(httpUrl.host(), Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * 恢复保存的域名，hosts 为最近出现的在前
+     */
+    static void restoreHosts(LinkedHashMap<String, Boolean> lru, List<String> hosts) {
+        for (int i = hosts.size() - 1; i >= 0; i--) {
+            lru.put(hosts.get(i), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 最近出现的在前
+     */
+    static List<String> recentHosts(LinkedHashMap<String, Boolean> lru) {
+        List<String> hosts = new ArrayList<>(lru.keySet());
+        Collections.reverse(hosts);
+        return hosts;
+    }
+
+    private static List<String> savedHosts() {
+        List<String> hosts = new ArrayList<>();
+        for (String host : ((String) SPUtils.get(SP_HOSTS, "")).split(",")) {
+            if (host.length() > 0) {
+                hosts.add(host);
+            }
+        }
+        return hosts;
+    }
+
+    private static void warm() {
+        long start = SystemClock.elapsedRealtime();
+        HttpUrl baseUrl = HttpUrl.parse(UrlConstants.NEW_BASE_URL);
+        Set<String> hosts = new LinkedHashSet<>();
+        hosts.add(baseUrl.host());
+        hosts.addAll(savedHosts());
+        for (String host : hosts) {
+            try {
+                DnsCache.getInstance().resolve(host);
+            } catch (UnknownHostException e) {
+                AppLog.w(TAG, "resolve " + host + " failed");
+            }
+        }
+        long dnsEnd = SystemClock.elapsedRealtime();
+
+        // 响应码不重要，连接建好后会回到连接池；这个请求不是接口，不计入 NetMetrics
+        Request request = new Request.Builder().url(baseUrl).head().tag(MetricsEventListener.UNTRACKED).build();
+        Response response = null;
+        try {
+            response = RetrofitManager.getInstance().getOkHttpClient().newCall(request).execute();
+        } catch (IOException e) {
+            AppLog.w(TAG, "warm connection failed", e);
+        } finally {
+            if (response != null) {
+                response.close();
+            }
+        }
+        AppLog.i(TAG, "warm " + hosts.size() + " hosts, dns " + (dnsEnd - start) + "ms, connect "
+                + (SystemClock.elapsedRealtime() - dnsEnd) + "ms");
+    }
+}
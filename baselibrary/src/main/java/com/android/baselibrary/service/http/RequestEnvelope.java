@@ -0,0 +1,101 @@
+package com.android.baselibrary.service.http;
+
+import com.android.baselibrary.base.BaseApplication;
+import com.android.baselibrary.base.Constants;
+import com.android.baselibrary.usermanger.UserStorage;
+import com.android.baselibrary.util.GetDevicedIDUtil;
+
+/**
+ * 每个请求都要带的公共信息（版本号、设备号、渠道、token）
+ * <p>
+ * 版本号要走 PackageManager，设备号要拼 Build 信息，都只在进程内算一次；
+ * token 只在登录、游客登录、退出时变化，由 UserStorage 调用 {@link #invalidate()} 重建，
+ * 拦截器和 NetService 每次请求直接取现成的值。
+ */
+public final class RequestEnvelope {
+
+    private static final String VERSION_TYPE = "2";
+
+    private static volatile RequestEnvelope current;
+
+    private static String sVersion;
+    private static String sDeviceCode;
+
+    private final String version;
+    private final String deviceCode;
+    private final String fromCode;
+    private final String token;
+    private final String deviceParams;
+
+    private RequestEnvelope(String version, String deviceCode, String fromCode, String token) {
+        this.version = version;
+        this.deviceCode = deviceCode;
+        this.fromCode = fromCode;
+        this.token = token;
+        StringBuilder builder = new StringBuilder(128);
+        RequestHelper.appendField(builder, "deviceCode", deviceCode).append(',');
+        RequestHelper.appendField(builder, "fromCode", fromCode).append(',');
+        RequestHelper.appendField(builder, "versionType", VERSION_TYPE).append(',');
+        RequestHelper.appendField(builder, "version", version);
+        this.deviceParams = builder.toString();
+    }
+
+    public static RequestEnvelope get() {
+        RequestEnvelope envelope = current;
+        if (envelope == null) {
+            synchronized (RequestEnvelope.class) {
+                envelope = current;
+                if (envelope == null) {
+                    if (sVersion == null) {
+                        sVersion = BaseApplication.getInstance().getAppVersionName();
+                    }
+                    if (sDeviceCode == null) {
+                        sDeviceCode = GetDevicedIDUtil.getUniquePsuedoID();
+                    }
+                    String token = UserStorage.getInstance().getToken();
+                    envelope = new RequestEnvelope(sVersion, sDeviceCode, Constants.FROM_CODE, token == null ? "" : token);
+                    current = envelope;
+                }
+            }
+        }
+        return envelope;
+    }
+
+    /**
+     * token 变化后调用，下次请求时重建
+     * <p>
+     * 和 {@link #get()} 的重建用同一把锁：正在用旧 token 重建的线程发布之后才会被清掉，
+     * 不会出现 invalidate 之后又被旧 token 的 envelope 覆盖的情况
+     */
+    public static void invalidate() {
+        synchronized (RequestEnvelope.class) {
+            current = null;
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getDeviceCode() {
+        return deviceCode;
+    }
+
+    public String getFromCode() {
+        return fromCode;
+    }
+
+    /**
+     * 未登录时为 ""
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * 已序列化好的设备参数：deviceCode、fromCode、versionType、version，不含外层大括号
+     */
+    String getDeviceParams() {
+        return deviceParams;
+    }
+}
@@ -1,14 +1,10 @@
 package com.android.baselibrary.service.http;
 
-import com.android.baselibrary.service.UrlConstants;
 import com.android.baselibrary.usermanger.UserStorage;
-import com.android.baselibrary.usermanger.UserType;
-import com.android.baselibrary.util.GetDevicedIDUtil;
-import com.google.gson.Gson;
 
-import java.util.HashMap;
 import java.util.Map;
 
+import okhttp3.MediaType;
 import okhttp3.RequestBody;
 
 
@@ -16,20 +12,94 @@ import okhttp3.RequestBody;
  * Created by gyq on 2017/3/8 0023.
  * <p/>
  * 定义统一传参
+ * <p/>
+ * 参数都是 String -> String，直接拼 json，不再走 Gson 反射；没有参数的请求共用同一个 body
  */
 public class RequestHelper {
 
-    private Gson gson = new Gson();
+    private static final MediaType MEDIA_TYPE = MediaType.parse("application/json;charset=UTF-8");
+
+    private static final RequestBody EMPTY_BODY = RequestBody.create(MEDIA_TYPE, "{}");
+
     private UserStorage mUserStorage;
 
     public RequestHelper(UserStorage mUserStorage) {
         this.mUserStorage = mUserStorage;
     }
 
-    public RequestBody getHttpRequestMap(HashMap<String,String> paramsMap) {
-        String strEntity = gson.toJson(paramsMap);
-        RequestBody body = RequestBody.create(okhttp3.MediaType.parse("application/json;charset=UTF-8"),strEntity);
-        return body;
+    public RequestBody getHttpRequestMap(Map<String,String> paramsMap) {
+        if (paramsMap == null || paramsMap.isEmpty()) {
+            return EMPTY_BODY;
+        }
+        StringBuilder builder = new StringBuilder(16 + paramsMap.size() * 32).append('{');
+        appendFields(builder, paramsMap, false);
+        return RequestBody.create(MEDIA_TYPE, builder.append('}').toString());
+    }
+
+    /**
+     * 带设备参数（deviceCode、fromCode、versionType、version）的请求，设备参数使用 {@link RequestEnvelope} 中预先序列化好的部分
+     */
+    public RequestBody getDeviceRequestMap(Map<String,String> paramsMap) {
+        String deviceParams = RequestEnvelope.get().getDeviceParams();
+        StringBuilder builder = new StringBuilder(deviceParams.length() + 64).append('{').append(deviceParams);
+        if (paramsMap != null) {
+            appendFields(builder, paramsMap, true);
+        }
+        return RequestBody.create(MEDIA_TYPE, builder.append('}').toString());
+    }
+
+    private static void appendFields(StringBuilder builder, Map<String,String> paramsMap, boolean leadingComma) {
+        boolean comma = leadingComma;
+        for (Map.Entry<String,String> entry : paramsMap.entrySet()) {
+            if (entry.getValue() == null) {
+                // 与 Gson 默认行为一致，null 值不输出
+                continue;
+            }
+            if (comma) {
+                builder.append(',');
+            }
+            appendField(builder, entry.getKey(), entry.getValue());
+            comma = true;
+        }
+    }
+
+    static StringBuilder appendField(StringBuilder builder, String name, String value) {
+        appendString(builder, name);
+        builder.append(':');
+        appendString(builder, value);
+        return builder;
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                    break;
+            }
+        }
+        builder.append('"');
     }
 
 }
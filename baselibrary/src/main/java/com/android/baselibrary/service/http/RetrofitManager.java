@@ -1,10 +1,6 @@
 package com.android.baselibrary.service.http;
 
-import android.util.Log;
-
-import com.android.baselibrary.base.BaseApplication;
 import com.android.baselibrary.service.UrlConstants;
-import com.android.baselibrary.usermanger.UserStorage;
 
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
@@ -13,7 +9,6 @@ import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -28,6 +23,8 @@ public class RetrofitManager {
 
     private Retrofit mRetrofit;
 
+    private OkHttpClient mOkHttpClient;
+
     private String versionName;
 
     public static RetrofitManager getInstance() {
@@ -41,7 +38,7 @@ public class RetrofitManager {
 
     public String getVersionName() {
         if (versionName == null) {
-            versionName = BaseApplication.getInstance().getAppVersionName();
+            versionName = RequestEnvelope.get().getVersion();
         }
         return versionName;
     }
@@ -51,57 +48,25 @@ public class RetrofitManager {
     }
 
     private RetrofitManager(){
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(new HttpLoggingInterceptor.Logger() {
-            @Override
-            public void log(String message) {
-                if (message != null) {
-//                    if (message.length() > 200) {
-//                        return;
-//                    }
-                    if (message.contains("-->")) {
-                        Log.e("mv", "Request:" + message);
-                    } else if (message.contains("<--")) {
-                        Log.e("mv", "Request:" + message);
-                    } else {
-                        Log.e("mv", "Response:" + message);
-                    }
-                }
-            }
-        });
-
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
         OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .dns(DnsCache.getInstance())
                 .connectTimeout(UrlConstants.CONNECT_TIMEOUT, TimeUnit.SECONDS)
                 .readTimeout(UrlConstants.CONNECT_TIMEOUT, TimeUnit.SECONDS)
                 .writeTimeout(UrlConstants.CONNECT_TIMEOUT, TimeUnit.SECONDS)
-                .addInterceptor(loggingInterceptor).addInterceptor(new Interceptor() {
+                .eventListenerFactory(MetricsEventListener.FACTORY)
+                .addInterceptor(new LogInterceptor()).addInterceptor(new Interceptor() {
                     @Override
                     public Response intercept(Interceptor.Chain chain) throws IOException {
-                        Request original = chain.request();
-                         if (UserStorage.getInstance().getToken() != null) {
-                            Request request = original.newBuilder()
-                                    .header("version", BaseApplication.getInstance().getAppVersionName())
-                                    .addHeader("token", UserStorage.getInstance().getToken())
-                                    .method(original.method(), original.body())
-                                    .build();
-
-
-                            Log.e("token",UserStorage.getInstance().getToken());
-                            return chain.proceed(request);
-                        } else {
-                            Request request = original.newBuilder()
-                                    .header("version", BaseApplication.getInstance().getAppVersionName())
-                                    .addHeader("token", "")
-                                    .method(original.method(), original.body())
-                                    .build();
-
-                            return chain.proceed(request);
-                        }
-
+                        RequestEnvelope envelope = RequestEnvelope.get();
+                        Request request = chain.request().newBuilder()
+                                .header("version", envelope.getVersion())
+                                .header("token", envelope.getToken())
+                                .build();
+                        return chain.proceed(request);
                     }
                 }).build();
 
+        mOkHttpClient = okHttpClient;
         mRetrofit = new Retrofit.Builder()
                 .baseUrl(UrlConstants.NEW_BASE_URL)
                 .client(okHttpClient)
@@ -115,18 +80,12 @@ public class RetrofitManager {
         return mRetrofit;
     }
 
-//    private OkHttpClient getOkHttpClient() {
-//
-//        LogInterceptor loggingInterceptor = new LogInterceptor(getVersionName());
-//            OkHttpClient okHttpClient = new OkHttpClient.Builder()
-//                    .connectTimeout(UrlConstants.CONNECT_TIMEOUT, TimeUnit.SECONDS)
-//                    .readTimeout(UrlConstants.CONNECT_TIMEOUT, TimeUnit.SECONDS)
-//                    .writeTimeout(UrlConstants.CONNECT_TIMEOUT, TimeUnit.SECONDS)
-//                    .addInterceptor(loggingInterceptor).build();
-//
-//            return okHttpClient;
-//
-//    }
+    /**
+     * 接口共用的 client，连接池、DNS 缓存与 Retrofit 一致
+     */
+    public OkHttpClient getOkHttpClient() {
+        return mOkHttpClient;
+    }
 
 //    private OkHttpClient getOkHttpClient() {
 //        //日志显示级别
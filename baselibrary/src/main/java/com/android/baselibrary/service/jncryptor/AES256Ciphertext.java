@@ -15,8 +15,11 @@
 
 package com.android.baselibrary.service.jncryptor;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+import javax.crypto.Mac;
+
 /**
  * Base class for parsing and producing formatted ciphertext.
  */
@@ -42,7 +45,12 @@ abstract class AES256Ciphertext {
   private final byte[] encryptionSalt;
   private final byte[] hmacSalt;
   private final byte[] iv;
-  private final byte[] ciphertext;
+  // Parsed instances keep the ciphertext inside the original data and only
+  // copy it out when getCiphertext() is called
+  private byte[] ciphertext;
+  private final byte[] rawData;
+  private final int ciphertextOffset;
+  private final int ciphertextLength;
   private byte[] hmac;
 
   private final boolean isPasswordBased;
@@ -111,8 +119,9 @@ abstract class AES256Ciphertext {
     System.arraycopy(data, index, iv, 0, iv.length);
     index += iv.length;
 
-    ciphertext = new byte[ciphertextLength];
-    System.arraycopy(data, index, ciphertext, 0, ciphertextLength);
+    rawData = data;
+    ciphertextOffset = index;
+    this.ciphertextLength = ciphertextLength;
     index += ciphertextLength;
 
     hmac = new byte[HMAC_SIZE];
@@ -148,6 +157,9 @@ abstract class AES256Ciphertext {
     this.hmacSalt = hmacSalt;
     this.iv = iv;
     this.ciphertext = ciphertext;
+    this.rawData = null;
+    this.ciphertextOffset = 0;
+    this.ciphertextLength = ciphertext.length;
     this.isPasswordBased = true;
 
     // HMAC will be set later
@@ -174,6 +186,9 @@ abstract class AES256Ciphertext {
     this.options = 0;
     this.iv = iv;
     this.ciphertext = ciphertext;
+    this.rawData = null;
+    this.ciphertextOffset = 0;
+    this.ciphertextLength = ciphertext.length;
 
     this.encryptionSalt = null;
     this.hmacSalt = null;
@@ -210,6 +225,7 @@ abstract class AES256Ciphertext {
    * @return the byte array
    */
   byte[] getRawData() {
+    byte[] ciphertext = getCiphertext();
 
     // Header: [Version | Options]
     byte[] header = new byte[] { (byte) getVersionNumber(), 0 };
@@ -255,6 +271,24 @@ abstract class AES256Ciphertext {
     return result;
   }
 
+  /**
+   * Feeds the same bytes as {@link #getDataToHMAC()} into the MAC, without
+   * assembling them into a new array.
+   * 
+   * @param mac
+   *          an initialised MAC
+   */
+  void updateHMAC(Mac mac) {
+    mac.update((byte) getVersionNumber());
+    mac.update(isPasswordBased ? (byte) FLAG_PASSWORD : 0);
+    if (isPasswordBased) {
+      mac.update(encryptionSalt);
+      mac.update(hmacSalt);
+    }
+    mac.update(iv);
+    mac.update(getCiphertextBuffer());
+  }
+
   /**
    * @return the data to compute the HMAC over
    */
@@ -304,9 +338,26 @@ abstract class AES256Ciphertext {
    * @return the ciphertext
    */
   byte[] getCiphertext() {
+    if (ciphertext == null) {
+      ciphertext = new byte[ciphertextLength];
+      System.arraycopy(rawData, ciphertextOffset, ciphertext, 0, ciphertextLength);
+    }
     return ciphertext;
   }
 
+  /**
+   * Returns the ciphertext without copying it. The buffer shares its backing
+   * array with the parsed data and must not be modified.
+   * 
+   * @return a view of the ciphertext
+   */
+  ByteBuffer getCiphertextBuffer() {
+    if (ciphertext == null) {
+      return ByteBuffer.wrap(rawData, ciphertextOffset, ciphertextLength).slice();
+    }
+    return ByteBuffer.wrap(ciphertext);
+  }
+
   /**
    * @return the hmac
    */
@@ -342,7 +393,7 @@ abstract class AES256Ciphertext {
   public int hashCode() {
     final int prime = 31;
     int result = 1;
-    result = prime * result + Arrays.hashCode(ciphertext);
+    result = prime * result + Arrays.hashCode(getCiphertext());
     result = prime * result + Arrays.hashCode(encryptionSalt);
     result = prime * result + Arrays.hashCode(hmac);
     result = prime * result + Arrays.hashCode(hmacSalt);
@@ -365,7 +416,7 @@ abstract class AES256Ciphertext {
       return false;
     }
     AES256Ciphertext other = (AES256Ciphertext) obj;
-    if (!Arrays.equals(ciphertext, other.ciphertext)) {
+    if (!Arrays.equals(getCiphertext(), other.getCiphertext())) {
       return false;
     }
     if (!Arrays.equals(encryptionSalt, other.encryptionSalt)) {
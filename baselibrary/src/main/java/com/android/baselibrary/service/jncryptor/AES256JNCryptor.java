@@ -18,6 +18,7 @@ package com.android.baselibrary.service.jncryptor;
 import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 
 import javax.crypto.Cipher;
 import javax.crypto.Mac;
@@ -27,6 +28,8 @@ import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 
+import com.android.baselibrary.service.aes.CipherPool;
+
 /**
  * This {@link JNCryptor} instance produces data in version 3 format. It can
  * read data in any format since version 2.
@@ -128,6 +131,11 @@ public class AES256JNCryptor implements JNCryptor {
   // Access to this variable must be synchronized
   private int iterations = PBKDF_DEFAULT_ITERATIONS;
 
+  // Shared by all instances, including the ones created by the streams
+  private static final DerivedKeyCache KEY_CACHE = new DerivedKeyCache();
+
+  private static volatile boolean keyCacheEnabled;
+
   /**
    * Creates a new {@code AES256JNCryptor} instance. Uses the default number of
    * PBKDF iterations.
@@ -159,11 +167,29 @@ public class AES256JNCryptor implements JNCryptor {
     Validate.isTrue(password.length > 0, "Password cannot be empty.");
 
     try {
+      int iterations = getPBKDFIterations();
+      DerivedKeyCache.LookupKey lookupKey = null;
+      if (keyCacheEnabled) {
+        lookupKey = DerivedKeyCache.lookupKey(password, salt, iterations);
+        byte[] cached = KEY_CACHE.get(lookupKey);
+        if (cached != null) {
+          SecretKey key = new SecretKeySpec(cached, AES_NAME);
+          Arrays.fill(cached, (byte) 0);
+          return key;
+        }
+      }
+
       SecretKeyFactory factory = SecretKeyFactory
           .getInstance(KEY_DERIVATION_ALGORITHM);
       SecretKey tmp = factory.generateSecret(new PBEKeySpec(password, salt,
-          getPBKDFIterations(), AES_256_KEY_SIZE * 8));
-      return new SecretKeySpec(tmp.getEncoded(), AES_NAME);
+          iterations, AES_256_KEY_SIZE * 8));
+      byte[] encoded = tmp.getEncoded();
+      if (lookupKey != null) {
+        KEY_CACHE.put(lookupKey, encoded);
+      }
+      SecretKey key = new SecretKeySpec(encoded, AES_NAME);
+      Arrays.fill(encoded, (byte) 0);
+      return key;
     } catch (GeneralSecurityException e) {
       throw new CryptorException(String.format(
           "Failed to generate key from password using %s.",
@@ -171,6 +197,42 @@ public class AES256JNCryptor implements JNCryptor {
     }
   }
 
+  /**
+   * Enables or disables the process-wide cache of password-derived keys (at
+   * most {@value DerivedKeyCache#MAX_ENTRIES} entries). Repeated operations
+   * with the same password and salt then skip the PBKDF2 computation, at the
+   * cost of keeping the derived keys in memory. Disabled by default;
+   * disabling clears the cache.
+   * 
+   * @param enabled
+   *          whether derived keys should be cached
+   */
+  public static void setKeyCacheEnabled(boolean enabled) {
+    keyCacheEnabled = enabled;
+    if (!enabled) {
+      KEY_CACHE.clear();
+    }
+  }
+
+  public static boolean isKeyCacheEnabled() {
+    return keyCacheEnabled;
+  }
+
+  /**
+   * Removes every cached key.
+   */
+  public static void clearKeyCache() {
+    KEY_CACHE.clear();
+  }
+
+  static int keyCacheHitCount() {
+    return KEY_CACHE.hitCount();
+  }
+
+  static int keyCacheMissCount() {
+    return KEY_CACHE.missCount();
+  }
+
   @Override
   public synchronized int getPBKDFIterations() {
     return iterations;
@@ -201,19 +263,18 @@ public class AES256JNCryptor implements JNCryptor {
       SecretKey decryptionKey, SecretKey hmacKey) throws CryptorException {
 
     try {
-      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-      mac.init(hmacKey);
-      byte[] hmacValue = mac.doFinal(aesCiphertext.getDataToHMAC());
+      Mac mac = CipherPool.mac(HMAC_ALGORITHM, hmacKey);
+      aesCiphertext.updateHMAC(mac);
+      byte[] hmacValue = mac.doFinal();
 
       if (!arraysEqual(hmacValue, aesCiphertext.getHmac())) {
         throw new InvalidHMACException("Incorrect HMAC value.");
       }
 
-      Cipher cipher = Cipher.getInstance(AES_CIPHER_ALGORITHM);
-      cipher.init(Cipher.DECRYPT_MODE, decryptionKey, new IvParameterSpec(
-          aesCiphertext.getIv()));
+      Cipher cipher = CipherPool.cipher(AES_CIPHER_ALGORITHM, Cipher.DECRYPT_MODE,
+          decryptionKey, new IvParameterSpec(aesCiphertext.getIv()));
 
-      return cipher.doFinal(aesCiphertext.getCiphertext());
+      return CipherPool.doFinal(cipher, aesCiphertext.getCiphertextBuffer());
     } catch (InvalidKeyException e) {
       throw new CryptorException(
           "Caught InvalidKeyException. Do you have unlimited strength jurisdiction files installed?",
@@ -240,19 +301,18 @@ public class AES256JNCryptor implements JNCryptor {
       SecretKey decryptionKey, SecretKey hmacKey) throws CryptorException {
 
     try {
-      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-      mac.init(hmacKey);
-      byte[] hmacValue = mac.doFinal(aesCiphertext.getDataToHMAC());
+      Mac mac = CipherPool.mac(HMAC_ALGORITHM, hmacKey);
+      aesCiphertext.updateHMAC(mac);
+      byte[] hmacValue = mac.doFinal();
 
       if (!arraysEqual(hmacValue, aesCiphertext.getHmac())) {
         throw new InvalidHMACException("Incorrect HMAC value.");
       }
 
-      Cipher cipher = Cipher.getInstance(AES_CIPHER_ALGORITHM);
-      cipher.init(Cipher.DECRYPT_MODE, decryptionKey, new IvParameterSpec(
-          aesCiphertext.getIv()));
+      Cipher cipher = CipherPool.cipher(AES_CIPHER_ALGORITHM, Cipher.DECRYPT_MODE,
+          decryptionKey, new IvParameterSpec(aesCiphertext.getIv()));
 
-      return cipher.doFinal(aesCiphertext.getCiphertext());
+      return CipherPool.doFinal(cipher, aesCiphertext.getCiphertextBuffer());
     } catch (InvalidKeyException e) {
       throw new CryptorException(
           "Caught InvalidKeyException. Do you have unlimited strength jurisdiction files installed?",
@@ -418,15 +478,15 @@ public class AES256JNCryptor implements JNCryptor {
     byte[] iv = getSecureRandomData(AES_BLOCK_SIZE);
 
     try {
-      Cipher cipher = Cipher.getInstance(AES_CIPHER_ALGORITHM);
-      cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+      Cipher cipher = CipherPool.cipher(AES_CIPHER_ALGORITHM, Cipher.ENCRYPT_MODE,
+          encryptionKey, new IvParameterSpec(iv));
       byte[] ciphertext = cipher.doFinal(plaintext);
 
       AES256v3Ciphertext output = new AES256v3Ciphertext(iv, ciphertext);
 
-      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-      mac.init(hmacKey);
-      byte[] hmac = mac.doFinal(output.getDataToHMAC());
+      Mac mac = CipherPool.mac(HMAC_ALGORITHM, hmacKey);
+      output.updateHMAC(mac);
+      byte[] hmac = mac.doFinal();
       output.setHmac(hmac);
       return output.getRawData();
 
@@ -477,16 +537,16 @@ public class AES256JNCryptor implements JNCryptor {
   
   byte[] encryptData(byte[] plaintext, PasswordKey encryptionKey, PasswordKey hmacKey, byte[] iv) throws CryptorException {
     try {
-      Cipher cipher = Cipher.getInstance(AES_CIPHER_ALGORITHM);
-      cipher.init(Cipher.ENCRYPT_MODE, encryptionKey.getKey(), new IvParameterSpec(iv));
+      Cipher cipher = CipherPool.cipher(AES_CIPHER_ALGORITHM, Cipher.ENCRYPT_MODE,
+          encryptionKey.getKey(), new IvParameterSpec(iv));
       byte[] ciphertext = cipher.doFinal(plaintext);
 
       AES256v3Ciphertext output = new AES256v3Ciphertext(encryptionKey.getSalt(),
           hmacKey.getSalt(), iv, ciphertext);
 
-      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-      mac.init(hmacKey.getKey());
-      byte[] hmac = mac.doFinal(output.getDataToHMAC());
+      Mac mac = CipherPool.mac(HMAC_ALGORITHM, hmacKey.getKey());
+      output.updateHMAC(mac);
+      byte[] hmac = mac.doFinal();
       output.setHmac(hmac);
       return output.getRawData();
 
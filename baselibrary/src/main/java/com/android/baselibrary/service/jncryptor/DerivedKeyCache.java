@@ -0,0 +1,120 @@
+package com.android.baselibrary.service.jncryptor;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.android.baselibrary.service.aes.CipherPool;
+
+/**
+ * A bounded LRU cache of PBKDF2-derived key bytes, shared by every
+ * {@link AES256JNCryptor} instance (and therefore by the streams).
+ * <p>
+ * Entries are looked up by an HMAC of (iterations, salt, password) under a
+ * random per-process secret, so neither the password nor a plain hash of it
+ * is kept in memory. Callers only ever get copies of the key bytes, so
+ * evicting or clearing an entry just drops it from the cache; it does not
+ * erase keys that are already in use.
+ */
+final class DerivedKeyCache {
+
+  static final int MAX_ENTRIES = 32;
+
+  private static final String LOOKUP_ALGORITHM = "HmacSHA256";
+
+  private static final SecretKeySpec LOOKUP_SECRET;
+
+  static {
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    LOOKUP_SECRET = new SecretKeySpec(secret, LOOKUP_ALGORITHM);
+    Arrays.fill(secret, (byte) 0);
+  }
+
+  static final class LookupKey {
+    private final byte[] digest;
+    private final int hashCode;
+
+    LookupKey(byte[] digest) {
+      this.digest = digest;
+      this.hashCode = Arrays.hashCode(digest);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof LookupKey
+          && AES256JNCryptor.arraysEqual(digest, ((LookupKey) obj).digest);
+    }
+  }
+
+  private final LinkedHashMap<LookupKey, byte[]> entries = new LinkedHashMap<LookupKey, byte[]>(
+      MAX_ENTRIES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<LookupKey, byte[]> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  private int hits;
+  private int misses;
+
+  /**
+   * @return a copy of the cached key bytes, or <code>null</code>
+   */
+  synchronized byte[] get(LookupKey lookupKey) {
+    byte[] key = entries.get(lookupKey);
+    if (key == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return key.clone();
+  }
+
+  synchronized void put(LookupKey lookupKey, byte[] key) {
+    entries.put(lookupKey, key.clone());
+  }
+
+  synchronized void clear() {
+    entries.clear();
+  }
+
+  synchronized int hitCount() {
+    return hits;
+  }
+
+  synchronized int missCount() {
+    return misses;
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  static LookupKey lookupKey(char[] password, byte[] salt, int iterations)
+      throws GeneralSecurityException {
+    Mac mac = CipherPool.mac(LOOKUP_ALGORITHM, LOOKUP_SECRET);
+    mac.update(new byte[] { (byte) (iterations >>> 24),
+        (byte) (iterations >>> 16), (byte) (iterations >>> 8),
+        (byte) iterations });
+    mac.update(salt);
+    byte[] chars = new byte[password.length * 2];
+    for (int i = 0; i < password.length; i++) {
+      chars[i * 2] = (byte) (password[i] >>> 8);
+      chars[i * 2 + 1] = (byte) password[i];
+    }
+    mac.update(chars);
+    Arrays.fill(chars, (byte) 0);
+    return new LookupKey(mac.doFinal());
+  }
+}
@@ -0,0 +1,102 @@
+package com.android.baselibrary.service.upload;
+
+import com.android.baselibrary.picture.JpegCompressor;
+
+import java.io.File;
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * 上传时才压缩的图片请求体，压缩结果只在内存里，不生成临时文件
+ * <p>
+ * 第一次计算长度或写出时在 OkHttp 的线程上解码、压缩，之后重试（Call.clone）直接复用压缩结果。
+ */
+public class CompressedImageBody extends RequestBody {
+
+    private static final MediaType JPEG = MediaType.parse("image/jpeg");
+    private static final int SEGMENT_SIZE = 8 * 1024;
+
+    /**
+     * 上传进度，在 OkHttp 的线程回调
+     */
+    public interface ProgressListener {
+        void onProgress(long written, long total);
+    }
+
+    private final String path;
+    private final int reqWidth;
+    private final int reqHeight;
+    private final int maxBytes;
+    private volatile ProgressListener progressListener;
+    private byte[] data;
+
+    public CompressedImageBody(String path, int reqWidth, int reqHeight, int maxBytes) {
+        this.path = path;
+        this.reqWidth = reqWidth;
+        this.reqHeight = reqHeight;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 已经压缩好的数据，测试用
+     */
+    CompressedImageBody(String path, byte[] data) {
+        this(path, 0, 0, 0);
+        this.data = data;
+    }
+
+    /**
+     * 上传用的文件名：内容总是重新编码的 JPEG，扩展名统一改成 .jpg
+     */
+    public static String fileName(String path) {
+        String name = new File(path).getName();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".jpg";
+    }
+
+    public void setProgressListener(ProgressListener listener) {
+        this.progressListener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JPEG;
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return data().length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        byte[] bytes = data();
+        ProgressListener listener = progressListener;
+        for (int offset = 0; offset < bytes.length; offset += SEGMENT_SIZE) {
+            int count = Math.min(SEGMENT_SIZE, bytes.length - offset);
+            sink.write(bytes, offset, count);
+            if (listener != null) {
+                listener.onProgress(offset + count, bytes.length);
+            }
+        }
+    }
+
+    private synchronized byte[] data() throws IOException {
+        if (data == null) {
+            byte[] bytes;
+            try {
+                bytes = JpegCompressor.compressToBytes(path, reqWidth, reqHeight, maxBytes);
+            } catch (OutOfMemoryError e) {
+                throw new IOException("Out of memory compressing " + path, e);
+            }
+            if (bytes == null) {
+                throw new IOException("Cannot decode " + path);
+            }
+            data = bytes;
+        }
+        return data;
+    }
+}
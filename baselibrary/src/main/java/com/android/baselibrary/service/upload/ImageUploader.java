@@ -0,0 +1,264 @@
+package com.android.baselibrary.service.upload;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.android.baselibrary.log.AppLog;
+import com.android.baselibrary.service.UrlConstants;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 多图上传：每张图在上传时才压缩（{@link CompressedImageBody}），不生成临时文件；
+ * 同时上传的数量有上限，网络失败按次数重试，每张图单独回调进度和结果。
+ * <p>
+ * 在主线程创建和调用，回调也都在主线程。
+ */
+public class ImageUploader {
+
+    private static final String TAG = "ImageUploader";
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 3;
+    public static final int DEFAULT_MAX_RETRIES = 2;
+    private static final long RETRY_DELAY_MS = 1000;
+
+    /**
+     * 用图片请求体创建上传请求，例如 {@code NetService.getInstance().saveMemberPic(body, fileName)}
+     */
+    public interface RequestFactory {
+        Call<ResponseBody> create(RequestBody image, String fileName);
+    }
+
+    public interface Listener {
+        void onProgress(int index, long written, long total);
+
+        void onSuccess(int index, String url);
+
+        void onFailed(int index);
+
+        /**
+         * 全部结束后回调，urls 按输入顺序，失败的为 null；取消后不再回调
+         */
+        void onFinished(List<String> urls);
+    }
+
+    /**
+     * 回调所在的线程，默认是主线程；测试里换成单线程的 executor
+     */
+    interface CallbackThread {
+        void post(Runnable runnable, long delayMillis);
+
+        void removeAll();
+    }
+
+    private final RequestFactory requestFactory;
+    private final int maxInFlight;
+    private final int maxRetries;
+    private final CallbackThread callbackThread;
+
+    private int reqWidth = 1080;
+    private int reqHeight = 1920;
+    private int maxBytes = 300 * 1024;
+
+    private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+    private final List<Call<ResponseBody>> running = new ArrayList<>();
+    private final List<String> urls = new ArrayList<>();
+    private List<String> paths;
+    private Listener listener;
+    private int remaining;
+    private boolean cancelled;
+
+    public ImageUploader(RequestFactory requestFactory) {
+        this(requestFactory, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_RETRIES);
+    }
+
+    public ImageUploader(RequestFactory requestFactory, int maxInFlight, int maxRetries) {
+        this(requestFactory, maxInFlight, maxRetries, mainThread());
+    }
+
+    ImageUploader(RequestFactory requestFactory, int maxInFlight, int maxRetries, CallbackThread callbackThread) {
+        this.requestFactory = requestFactory;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.callbackThread = callbackThread;
+    }
+
+    private static CallbackThread mainThread() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return new CallbackThread() {
+            @Override
+            public void post(Runnable runnable, long delayMillis) {
+                handler.postDelayed(runnable, delayMillis);
+            }
+
+            @Override
+            public void removeAll() {
+                handler.removeCallbacksAndMessages(null);
+            }
+        };
+    }
+
+    /**
+     * 压缩参数，见 {@link com.android.baselibrary.picture.JpegCompressor#decodeSampled}
+     */
+    public ImageUploader setCompress(int reqWidth, int reqHeight, int maxBytes) {
+        this.reqWidth = reqWidth;
+        this.reqHeight = reqHeight;
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public void upload(List<String> imagePaths, Listener listener) {
+        if (this.paths != null) {
+            throw new IllegalStateException("ImageUploader can only be used once");
+        }
+        this.paths = new ArrayList<>(imagePaths);
+        this.listener = listener;
+        remaining = paths.size();
+        for (int i = 0; i < paths.size(); i++) {
+            urls.add(null);
+            pending.add(i);
+        }
+        if (remaining == 0) {
+            listener.onFinished(urls);
+            return;
+        }
+        startNext();
+    }
+
+    /**
+     * 取消排队和上传中的图片，之后不再有任何回调
+     */
+    public void cancel() {
+        cancelled = true;
+        pending.clear();
+        for (Call<ResponseBody> call : new ArrayList<>(running)) {
+            call.cancel();
+        }
+        running.clear();
+        callbackThread.removeAll();
+    }
+
+    private void startNext() {
+        while (!cancelled && running.size() < maxInFlight && !pending.isEmpty()) {
+            final int index = pending.poll();
+            String path = paths.get(index);
+            CompressedImageBody body = createBody(path);
+            body.setProgressListener(new CompressedImageBody.ProgressListener() {
+                @Override
+                public void onProgress(final long written, final long total) {
+                    callbackThread.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!cancelled) {
+                                listener.onProgress(index, written, total);
+                            }
+                        }
+                    }, 0);
+                }
+            });
+            enqueue(index, requestFactory.create(body, CompressedImageBody.fileName(path)), 0);
+        }
+    }
+
+    CompressedImageBody createBody(String path) {
+        return new CompressedImageBody(path, reqWidth, reqHeight, maxBytes);
+    }
+
+    private void enqueue(final int index, final Call<ResponseBody> call, final int attempt) {
+        running.add(call);
+        call.enqueue(new Callback<ResponseBody>() {
+            @Override
+            public void onResponse(Call<ResponseBody> c, Response<ResponseBody> response) {
+                running.remove(call);
+                if (cancelled) {
+                    return;
+                }
+                if (response.code() >= 500 && attempt < maxRetries) {
+                    retry(index, call, attempt);
+                    return;
+                }
+                String url = parseUrl(response);
+                if (url != null) {
+                    urls.set(index, url);
+                    listener.onSuccess(index, url);
+                } else {
+                    listener.onFailed(index);
+                }
+                onDone();
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> c, Throwable t) {
+                running.remove(call);
+                if (cancelled || call.isCanceled()) {
+                    return;
+                }
+                AppLog.w(TAG, "upload " + index + " failed, attempt " + attempt + ": " + t.getMessage());
+                if (attempt < maxRetries) {
+                    retry(index, call, attempt);
+                } else {
+                    listener.onFailed(index);
+                    onDone();
+                }
+            }
+        });
+    }
+
+    /**
+     * clone 出的请求复用同一个请求体，已压缩的数据不会再压缩一遍
+     */
+    private void retry(final int index, final Call<ResponseBody> call, final int attempt) {
+        final Call<ResponseBody> next = call.clone();
+        //等待重试期间也占着名额
+        running.add(next);
+        callbackThread.post(new Runnable() {
+            @Override
+            public void run() {
+                running.remove(next);
+                if (!cancelled) {
+                    enqueue(index, next, attempt + 1);
+                }
+            }
+        }, RETRY_DELAY_MS * (attempt + 1));
+    }
+
+    private void onDone() {
+        remaining--;
+        if (remaining == 0) {
+            listener.onFinished(urls);
+        } else {
+            startNext();
+        }
+    }
+
+    /**
+     * 和 BasePresenter.uploadSingleImage 相同的返回格式
+     */
+    private static String parseUrl(Response<ResponseBody> response) {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return null;
+        }
+        try {
+            UploadImageBean bean = new Gson().fromJson(body.string(), UploadImageBean.class);
+            if (bean != null && bean.getHttpCode() == UrlConstants.SUCCESS_CODE
+                    && UrlConstants.REG_CODE.equals(bean.getRetCode())) {
+                return bean.getUrl();
+            }
+        } catch (IOException | RuntimeException e) {
+            AppLog.w(TAG, "bad upload response: " + e.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.android.baselibrary.thread;
+
+import android.os.Process;
+
+import com.android.baselibrary.log.AppLog;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import rx.Scheduler;
+import rx.functions.Func1;
+import rx.plugins.RxJavaHooks;
+
+/**
+ * 全局线程池，代替各处自己 new Thread / Timer / HandlerThread / 线程池
+ * <ul>
+ * <li>{@link #network()} 接口请求，RxJava 的 Schedulers.io() 也跑在这里（见 {@link #install()}）</li>
+ * <li>{@link #download()} 视频分片等大文件下载，和接口请求分开，避免下载占满线程后接口排队</li>
+ * <li>{@link #disk()} 文件、数据库读写</li>
+ * <li>{@link #decode()} 图片解码</li>
+ * <li>{@link #cpu()} 计算任务，RxJava 的 Schedulers.computation() 跑在这里</li>
+ * <li>{@link #timer()} 定时 / 延时任务，任务本身要很短，耗时的工作再转到其它线程池</li>
+ * </ul>
+ * 每个线程池的线程数都有上限，并按用途设置线程优先级；除了 network / cpu 以外队列长度也有上限，满了拒绝任务。
+ * network / cpu 背后是全局的 RxJava Scheduler，任务被拒绝时 RxJava 只能把异常抛给全局的错误处理，
+ * 订阅方收不到回调，所以这两个线程池的队列不设上限，只限制线程数。
+ * 排队数、执行中的任务数、被拒绝的任务数可以通过 {@link #dump()} 查看。
+ */
+public final class AppExecutors {
+
+    public static final String TAG = "AppExecutors";
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+
+    private static final BoundedExecutor NETWORK = new BoundedExecutor("network", 16, BoundedExecutor.UNBOUNDED,
+            Process.THREAD_PRIORITY_BACKGROUND);
+    private static final BoundedExecutor DOWNLOAD = new BoundedExecutor("download", 2 * CPU_COUNT + 1, 1024,
+            Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_LESS_FAVORABLE);
+    private static final BoundedExecutor DISK = new BoundedExecutor("disk", 4, 256,
+            Process.THREAD_PRIORITY_BACKGROUND);
+    private static final BoundedExecutor DECODE = new BoundedExecutor("decode", Math.max(2, CPU_COUNT - 1), 256,
+            Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+    private static final BoundedExecutor CPU = new BoundedExecutor("cpu", CPU_COUNT, BoundedExecutor.UNBOUNDED,
+            Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(2,
+            new PriorityThreadFactory("timer", Process.THREAD_PRIORITY_DEFAULT));
+
+    private static final Map<String, ThreadPoolExecutor> pools = new LinkedHashMap<>();
+
+    static {
+        for (BoundedExecutor executor : new BoundedExecutor[]{NETWORK, DOWNLOAD, DISK, DECODE, CPU}) {
+            pools.put(executor.getName(), executor);
+        }
+        pools.put("timer", TIMER);
+    }
+
+    private static boolean installed;
+
+    private AppExecutors() {
+    }
+
+    /**
+     * 在 Application.onCreate 中尽早调用：让 RxJava 的 io / computation Scheduler 使用上面线程数有上限的线程池
+     */
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        installed = true;
+        RxJavaHooks.setOnIOScheduler(new Func1<Scheduler, Scheduler>() {
+            @Override
+            public Scheduler call(Scheduler scheduler) {
+                return NETWORK.scheduler();
+            }
+        });
+        RxJavaHooks.setOnComputationScheduler(new Func1<Scheduler, Scheduler>() {
+            @Override
+            public Scheduler call(Scheduler scheduler) {
+                return CPU.scheduler();
+            }
+        });
+    }
+
+    public static BoundedExecutor network() {
+        return NETWORK;
+    }
+
+    public static BoundedExecutor download() {
+        return DOWNLOAD;
+    }
+
+    public static BoundedExecutor disk() {
+        return DISK;
+    }
+
+    public static BoundedExecutor decode() {
+        return DECODE;
+    }
+
+    public static BoundedExecutor cpu() {
+        return CPU;
+    }
+
+    public static ScheduledThreadPoolExecutor timer() {
+        return TIMER;
+    }
+
+    /**
+     * 登记其它模块自己创建的线程池（例如 PRDownloader），只用于 {@link #dump()}
+     */
+    public static void register(String name, ThreadPoolExecutor executor) {
+        synchronized (pools) {
+            pools.put(name, executor);
+        }
+    }
+
+    /**
+     * 每个线程池一行：执行中 / 线程数上限、排队数、被拒绝数、已完成数
+     */
+    public static String dump() {
+        StringBuilder builder = new StringBuilder();
+        synchronized (pools) {
+            for (Map.Entry<String, ThreadPoolExecutor> entry : pools.entrySet()) {
+                ThreadPoolExecutor executor = entry.getValue();
+                builder.append(entry.getKey())
+                        .append(" active=").append(executor.getActiveCount())
+                        .append('/').append(executor.getMaximumPoolSize())
+                        .append(" queue=").append(executor.getQueue().size())
+                        .append(" rejected=").append(executor instanceof BoundedExecutor
+                                ? ((BoundedExecutor) executor).getRejectedCount() : 0)
+                        .append(" completed=").append(executor.getCompletedTaskCount())
+                        .append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    public static void log() {
+        AppLog.i(TAG, dump());
+    }
+}
@@ -0,0 +1,63 @@
+package com.android.baselibrary.thread;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * 有名字、线程数和队列长度都有上限的线程池，由 {@link AppExecutors} 创建
+ * <p>
+ * 线程空闲 {@link #KEEP_ALIVE_SECONDS} 秒后退出；队列满时拒绝任务（抛出 RejectedExecutionException）并计数，
+ * 不会无限制地堆积任务或新建线程。队列长度为 {@link #UNBOUNDED} 时只限制线程数，不会拒绝任务。
+ */
+public class BoundedExecutor extends ThreadPoolExecutor {
+
+    /**
+     * 队列不设上限
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final String name;
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private Scheduler scheduler;
+
+    BoundedExecutor(final String name, int threads, int queueCapacity, int threadPriority) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueCapacity), new PriorityThreadFactory(name, threadPriority));
+        this.name = name;
+        allowCoreThreadTimeOut(true);
+        setRejectedExecutionHandler(new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                rejectedCount.incrementAndGet();
+                throw new RejectedExecutionException(name + " pool is full, queue=" + executor.getQueue().size());
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 跑在这个线程池上的 RxJava Scheduler
+     */
+    public synchronized Scheduler scheduler() {
+        if (scheduler == null) {
+            scheduler = Schedulers.from(this);
+        }
+        return scheduler;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
@@ -0,0 +1,41 @@
+package com.android.baselibrary.thread;
+
+import android.os.Process;
+
+import com.downloader.core.DownloadExecutor;
+import com.downloader.core.ExecutorSupplier;
+import com.downloader.core.MainThreadExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * PRDownloader 使用的线程池：下载任务仍用 PRDownloader 按优先级排队的 {@link DownloadExecutor}
+ * （线程数和 {@link AppExecutors#download()} 一致，并登记到 {@link AppExecutors#dump()}），其它后台任务走 {@link AppExecutors#disk()}
+ */
+public class DownloaderExecutorSupplier implements ExecutorSupplier {
+
+    private final DownloadExecutor downloadExecutor;
+    private final Executor mainThreadExecutor = new MainThreadExecutor();
+
+    public DownloaderExecutorSupplier() {
+        downloadExecutor = new DownloadExecutor(AppExecutors.download().getMaximumPoolSize(),
+                new PriorityThreadFactory("prdownloader",
+                        Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_LESS_FAVORABLE));
+        AppExecutors.register("prdownloader", downloadExecutor);
+    }
+
+    @Override
+    public DownloadExecutor forDownloadTasks() {
+        return downloadExecutor;
+    }
+
+    @Override
+    public Executor forBackgroundTasks() {
+        return AppExecutors.disk();
+    }
+
+    @Override
+    public Executor forMainThreadTasks() {
+        return mainThreadExecutor;
+    }
+}
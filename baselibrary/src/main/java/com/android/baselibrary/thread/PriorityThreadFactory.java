@@ -0,0 +1,38 @@
+package com.android.baselibrary.thread;
+
+import android.os.Process;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按线程池名字给线程命名（如 network-3），并设置 Android 线程优先级
+ */
+public class PriorityThreadFactory implements ThreadFactory {
+
+    private final String name;
+    private final int threadPriority;
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * @param threadPriority {@link Process} 中的 THREAD_PRIORITY_* 常量
+     */
+    public PriorityThreadFactory(String name, int threadPriority) {
+        this.name = name;
+        this.threadPriority = threadPriority;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        return new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Process.setThreadPriority(threadPriority);
+                } catch (Throwable ignored) {
+                }
+                runnable.run();
+            }
+        }, name + "-" + count.incrementAndGet());
+    }
+}
@@ -0,0 +1,67 @@
+package com.android.baselibrary.thread;
+
+import com.android.baselibrary.log.AppLog;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 在共享线程池上按提交顺序逐个执行任务，用来代替每个对象自己开一个 HandlerThread
+ * <p>
+ * 同一时刻最多占用线程池的一个线程；{@link #quit()} 后丢弃还没执行的任务，之后提交的任务也直接丢弃。
+ */
+public class SerialExecutor implements Executor {
+
+    private final Executor executor;
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private Runnable active;
+    private boolean quit;
+
+    public SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public synchronized void execute(final Runnable runnable) {
+        if (quit) {
+            return;
+        }
+        tasks.offer(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } finally {
+                    scheduleNext();
+                }
+            }
+        });
+        if (active == null) {
+            scheduleNext();
+        }
+    }
+
+    public synchronized void quit() {
+        quit = true;
+        tasks.clear();
+    }
+
+    public synchronized boolean isQuit() {
+        return quit;
+    }
+
+    private synchronized void scheduleNext() {
+        active = tasks.poll();
+        if (active != null) {
+            try {
+                executor.execute(active);
+            } catch (RejectedExecutionException e) {
+                // 线程池满时丢掉排队的任务，避免之后的任务一直等不到执行
+                AppLog.w(AppExecutors.TAG, "serial tasks dropped: " + e.getMessage());
+                active = null;
+                tasks.clear();
+            }
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.android.baselibrary.usermanger;
 
 import com.android.baselibrary.base.Constants;
+import com.android.baselibrary.service.ResponseCache;
 import com.android.baselibrary.service.bean.mine.HistoryBean;
 import com.android.baselibrary.service.bean.user.LoginBean;
 import com.android.baselibrary.service.bean.user.UserBean;
+import com.android.baselibrary.service.http.RequestEnvelope;
 import com.android.baselibrary.util.SPUtils;
 import com.orhanobut.logger.Logger;
 
@@ -256,24 +258,41 @@ public class UserStorage {
 
     //TODO:用户登录
     public void doLogin(LoginBean user) {
+        String oldToken = getToken();
         this.user.setToken(user.getToken());
         this.user.setLoginType(user.getLoginType());
         SPUtils.putObject(Constants.SP_LOGIN_OBJECT, user);
+        onTokenChanged(oldToken);
     }
 
     public void noMemerylogin(LoginBean user) {
+        String oldToken = getToken();
         this.user.setToken(user.getToken());
         this.user.setLoginType(user.getLoginType());
         SPUtils.remove(Constants.SP_LOGIN_OBJECT);
         SPUtils.remove(Constants.SP_USER_OBJECT);
+        onTokenChanged(oldToken);
     }
 
     //TODO:游客登录
     public void touristLogin(LoginBean user) {
+        String oldToken = getToken();
         this.user = user;
         this.info = null;
         SPUtils.remove(Constants.SP_USER_OBJECT);
         SPUtils.putObject(Constants.SP_LOGIN_OBJECT, user);
+        onTokenChanged(oldToken);
+    }
+
+    /**
+     * token 变化后重建请求公共参数；换了账号时清掉上一个账号的接口缓存
+     * （启动时的游客登录拿到的通常还是同一个 token，这时保留缓存，无网络时还能用）
+     */
+    private void onTokenChanged(String oldToken) {
+        RequestEnvelope.invalidate();
+        if (oldToken != null && !oldToken.equals(getToken())) {
+            ResponseCache.getInstance().clearAsync();
+        }
     }
 
 
@@ -286,6 +305,7 @@ public class UserStorage {
     public void saveLoginInfo(LoginBean loginBean) {
         this.user = loginBean;
         SPUtils.putObject(Constants.SP_LOGIN_OBJECT, loginBean);
+        RequestEnvelope.invalidate();
     }
 
 
@@ -294,6 +314,8 @@ public class UserStorage {
 //        SPUtils.clear();
 //        SPUtils.remove(Constants.SP_LOGIN_OBJECT);
 //        SPUtils.remove(Constants.SP_USER_OBJECT);
+        RequestEnvelope.invalidate();
+        ResponseCache.getInstance().clearAsync();
         EventBus.getDefault().post(new LogoutEvent(isQuit), LogoutEvent.TAG);
 //        user = null;
     }
@@ -0,0 +1,118 @@
+package com.android.baselibrary.util;
+
+import android.content.Context;
+
+import com.android.baselibrary.service.UrlConstants;
+import com.bumptech.glide.load.model.stream.BaseGlideUrlLoader;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import okhttp3.HttpUrl;
+
+/**
+ * 按控件尺寸请求图片 CDN 的缩放图：在原图地址后加 @{宽}w_{高}h_{质量}Q
+ * <ul>
+ * <li>宽高向上取到固定的几档，同一张图在尺寸相近的控件里是同一个地址，列表和详情页可以共用缓存</li>
+ * <li>质量只由宽高所在的档决定（小图 75，中图 80，大图 85），和网络类型无关，
+ * 同一个控件无论在 wifi、4G 还是离线时都是同一个地址，离线时也能命中之前的缓存</li>
+ * </ul>
+ * Glide 用最终的地址作为缓存 key，配合 DiskCacheStrategy.ALL，同一档的图只下载一次。
+ * 只处理图片 CDN（{@link UrlConstants#IMAGE_CDN_HOSTS}）上的静态图片，用 {@link #accepts(String)} 判断，
+ * 其他域名、本地文件和 GIF 仍然走 Glide 默认的加载。
+ */
+public class CdnUrlLoader extends BaseGlideUrlLoader<String> {
+
+    static final int[] SIZE_BUCKETS = {120, 240, 360, 480, 720, 1080, 1500};
+
+    /**
+     * 每一档对应的质量，和 SIZE_BUCKETS 一一对应
+     */
+    private static final int[] BUCKET_QUALITY = {75, 75, 75, 80, 80, 85, 85};
+
+    private static volatile String[] hosts = UrlConstants.IMAGE_CDN_HOSTS;
+
+    private static CdnUrlLoader instance;
+
+    public static synchronized CdnUrlLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new CdnUrlLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private CdnUrlLoader(Context context) {
+        super(context);
+    }
+
+    /**
+     * 替换图片 CDN 的域名，默认是 {@link UrlConstants#IMAGE_CDN_HOSTS}
+     */
+    public static void setHosts(String... cdnHosts) {
+        hosts = Arrays.copyOf(cdnHosts, cdnHosts.length);
+    }
+
+    /**
+     * 是否是可以按尺寸请求的 CDN 图片地址
+     */
+    public static boolean accepts(String url) {
+        if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            return false;
+        }
+        String name = url.substring(url.lastIndexOf('/') + 1);
+        if (name.indexOf('@') >= 0 || name.indexOf('?') >= 0 || name.toLowerCase(Locale.US).endsWith(".gif")) {
+            return false;
+        }
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        return httpUrl != null && isCdnHost(httpUrl.host());
+    }
+
+    private static boolean isCdnHost(String host) {
+        for (String cdnHost : hosts) {
+            if (host.equalsIgnoreCase(cdnHost) || host.toLowerCase(Locale.US).endsWith("." + cdnHost.toLowerCase(Locale.US))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 控件 width x height 像素对应的缩放图地址，尺寸未知（<= 0）或地址不支持时返回原地址
+     */
+    public static String variant(String url, int width, int height) {
+        if (!accepts(url) || width <= 0 || height <= 0) {
+            return url;
+        }
+        int w = bucket(width);
+        int h = bucket(height);
+        return url + "@" + w + "w_" + h + "h_" + quality(Math.max(w, h)) + "Q";
+    }
+
+    /**
+     * 向上取到最近的一档，超过最大一档时取最大一档
+     */
+    static int bucket(int size) {
+        return SIZE_BUCKETS[bucketIndex(size)];
+    }
+
+    /**
+     * 某一档尺寸对应的质量
+     */
+    static int quality(int bucket) {
+        return BUCKET_QUALITY[bucketIndex(bucket)];
+    }
+
+    private static int bucketIndex(int size) {
+        for (int i = 0; i < SIZE_BUCKETS.length; i++) {
+            if (size <= SIZE_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return SIZE_BUCKETS.length - 1;
+    }
+
+    @Override
+    protected String getUrl(String model, int width, int height) {
+        return variant(model, width, height);
+    }
+}
@@ -2,10 +2,9 @@ package com.android.baselibrary.util;
 
 import android.annotation.SuppressLint;
 
-import java.io.BufferedWriter;
+import com.android.baselibrary.log.AppLog;
+
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
@@ -107,31 +106,10 @@ public class DLLog {
     }
 
     /**
-     * 打开日志文件并写入日志
-     *
-     * @return
+     * 交给 AppLog 的后台线程写入文件，和原来一样所有级别都写，release 包也写
      * **/
     private static void writeLogtoFile(String mylogtype, String tag, String text) {
-        Date nowtime = new Date();
-        String needWriteFiel = logfile.format(nowtime);
-        String needWriteMessage = LogSdf.format(nowtime) + " " + mylogtype
-                + " " + tag + " " + text;
-
-        File logdir = new File(LOG_PATH_SDCARD_DIR);// 如果没有log文件夹则新建该文件夹
-        if (!logdir.exists()) {
-            logdir.mkdirs();
-        }
-        File file = new File(LOG_PATH_SDCARD_DIR, needWriteFiel + LOGFILENAME);
-        try {
-            FileWriter filerWriter = new FileWriter(file, true);// 后面这个参数代表是不是要接上文件中原来的数据，不进行覆盖
-            BufferedWriter bufWriter = new BufferedWriter(filerWriter);
-            bufWriter.write(needWriteMessage);
-            bufWriter.newLine();
-            bufWriter.close();
-            filerWriter.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        AppLog.file(tag, mylogtype + " " + text);
     }
 
     /**
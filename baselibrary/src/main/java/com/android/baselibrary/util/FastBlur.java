@@ -2,11 +2,93 @@ package com.android.baselibrary.util;
 
 import android.graphics.Bitmap;
 
+import com.android.baselibrary.thread.AppExecutors;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Created by gyq on 2016/8/10.
+ * <p>
+ * Stack Blur。横向、纵向两遍分别按行 / 按列切成几段，在 {@link AppExecutors#cpu()} 上并行计算；
+ * 中间结果用线程内复用的缓冲区，不再每次分配 w*h 的数组。耗时操作，不要在主线程调用。
  */
 public class FastBlur {
 
+    /**
+     * 先缩小再模糊、模糊后放大回原尺寸，缩得越小越快、细节越少。视频封面背景一般用 {@link #MEDIUM}
+     */
+    public enum Quality {
+        LOW(8), MEDIUM(4), HIGH(2), FULL(1);
+
+        final int scale;
+
+        Quality(int scale) {
+            this.scale = scale;
+        }
+    }
+
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    /**
+     * 每段至少这么多行 / 列，太小的图拆分反而更慢
+     */
+    private static final int MIN_LINES_PER_BAND = 64;
+    /**
+     * 超过这个像素数的缓冲区用完不保留，避免线程长期占着大数组
+     */
+    private static final int MAX_RETAINED_PIXELS = 1024 * 1024;
+
+    private static final ThreadLocal<int[][]> SCRATCH = new ThreadLocal<int[][]>() {
+        @Override
+        protected int[][] initialValue() {
+            return new int[2][];
+        }
+    };
+
+    /**
+     * 查找表大小为 256 * (radius + 1)^2，只缓存小半径的，全部缓存时一共约 1.8MB；
+     * 缩小后再模糊时半径一般都在这个范围内
+     */
+    static final int MAX_CACHED_RADIUS = 16;
+
+    private static final int[][] DV_TABLES = new int[MAX_CACHED_RADIUS + 1][];
+
+    /**
+     * 模糊结果的缓存交给 Glide，见 {@link GlideUtils.BlurTransformation}
+     *
+     * @param radius 按原图尺寸计算的模糊半径，缩小后按比例换算
+     * @return 和 source 同样大小的新 Bitmap，source 不会被修改；radius < 1 时返回 null
+     */
+    public static Bitmap blur(Bitmap source, int radius, Quality quality) {
+        if (radius < 1) {
+            return null;
+        }
+        int w = source.getWidth();
+        int h = source.getHeight();
+        int scale = quality.scale;
+        int sw = Math.max(1, w / scale);
+        int sh = Math.max(1, h / scale);
+        Bitmap small = scale == 1 ? source.copy(Bitmap.Config.ARGB_8888, true)
+                : Bitmap.createScaledBitmap(source, sw, sh, true);
+        if (!small.isMutable() || small == source) {
+            Bitmap copy = small.copy(Bitmap.Config.ARGB_8888, true);
+            if (small != source) {
+                small.recycle();
+            }
+            small = copy;
+        }
+        blurBitmap(small, Math.max(1, radius / scale));
+        if (scale == 1) {
+            return small;
+        }
+        Bitmap result = Bitmap.createScaledBitmap(small, w, h, true);
+        if (result != small) {
+            small.recycle();
+        }
+        return result;
+    }
+
     public static Bitmap doBlur(Bitmap sentBitmap, int radius,
                                 boolean canReuseInBitmap) {
 
@@ -21,150 +103,210 @@ public class FastBlur {
             return (null);
         }
 
+        blurBitmap(bitmap, radius);
+        return (bitmap);
+    }
+
+    private static void blurBitmap(Bitmap bitmap, int radius) {
         int w = bitmap.getWidth();
         int h = bitmap.getHeight();
-
-        int[] pix = new int[w * h];
+        int[] pix = scratch(0, w * h);
         bitmap.getPixels(pix, 0, w, 0, 0, w, h);
+        blur(pix, w, h, radius);
+        bitmap.setPixels(pix, 0, w, 0, 0, w, h);
+    }
 
-        int wm = w - 1;
-        int hm = h - 1;
-        int wh = w * h;
-        int div = radius + radius + 1;
+    /**
+     * 在 pix 上原地模糊，保留 alpha。pix 的前 w*h 个元素按行存放像素
+     */
+    public static void blur(final int[] pix, final int w, final int h, final int radius) {
+        if (radius < 1 || w < 1 || h < 1) {
+            return;
+        }
+        if (pix.length < w * h) {
+            throw new IllegalArgumentException("pix.length < w * h");
+        }
+        final int[] rgb = scratch(1, w * h);
+        final int[] dv = dvTable(radius);
+        parallel(h, new Pass() {
+            @Override
+            void run(int from, int to) {
+                blurRows(pix, rgb, w, radius, dv, from, to);
+            }
+        });
+        parallel(w, new Pass() {
+            @Override
+            void run(int from, int to) {
+                blurColumns(rgb, pix, w, h, radius, dv, from, to);
+            }
+        });
+    }
 
-        int r[] = new int[wh];
-        int g[] = new int[wh];
-        int b[] = new int[wh];
-        int rsum, gsum, bsum, x, y, i, p, yp, yi, yw;
-        int vmin[] = new int[Math.max(w, h)];
+    private abstract static class Pass {
+        abstract void run(int from, int to);
+    }
 
-        int divsum = (div + 1) >> 1;
-        divsum *= divsum;
-        int dv[] = new int[256 * divsum];
-        for (i = 0; i < 256 * divsum; i++) {
-            dv[i] = (i / divsum);
+    /**
+     * 把 [0, count) 切成几段并行执行。调用线程自己也领任务，没被线程池领走的段由调用线程做完，
+     * 所以只会等正在执行的段，在 cpu 线程池里调用也不会互相等死
+     */
+    private static void parallel(final int count, final Pass pass) {
+        final int bands = Math.max(1, Math.min(PARALLELISM, count / MIN_LINES_PER_BAND));
+        if (bands == 1) {
+            pass.run(0, count);
+            return;
         }
+        final int perBand = (count + bands - 1) / bands;
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(bands);
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int band;
+                while ((band = next.getAndIncrement()) < bands) {
+                    try {
+                        pass.run(band * perBand, Math.min(count, (band + 1) * perBand));
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+        for (int i = 1; i < bands; i++) {
+            try {
+                AppExecutors.cpu().execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        yw = yi = 0;
-
-        int[][] stack = new int[div][3];
-        int stackpointer;
-        int stackstart;
-        int[] sir;
-        int rbs;
+    /**
+     * 横向一遍：读 pix 的 [y0, y1) 行，结果按 0xRRGGBB 写入 rgb
+     */
+    private static void blurRows(int[] pix, int[] rgb, int w, int radius, int[] dv, int y0, int y1) {
+        int wm = w - 1;
+        int div = radius + radius + 1;
         int r1 = radius + 1;
-        int routsum, goutsum, boutsum;
-        int rinsum, ginsum, binsum;
+        int[] stack = new int[div * 3];
+        int rsum, gsum, bsum, routsum, goutsum, boutsum, rinsum, ginsum, binsum;
+        int p, s, rbs, stackpointer;
 
-        for (y = 0; y < h; y++) {
+        for (int y = y0; y < y1; y++) {
+            int yi = y * w;
             rinsum = ginsum = binsum = routsum = goutsum = boutsum = rsum = gsum = bsum = 0;
-            for (i = -radius; i <= radius; i++) {
+            for (int i = -radius; i <= radius; i++) {
                 p = pix[yi + Math.min(wm, Math.max(i, 0))];
-                sir = stack[i + radius];
-                sir[0] = (p & 0xff0000) >> 16;
-                sir[1] = (p & 0x00ff00) >> 8;
-                sir[2] = (p & 0x0000ff);
+                s = (i + radius) * 3;
+                stack[s] = (p & 0xff0000) >> 16;
+                stack[s + 1] = (p & 0x00ff00) >> 8;
+                stack[s + 2] = (p & 0x0000ff);
                 rbs = r1 - Math.abs(i);
-                rsum += sir[0] * rbs;
-                gsum += sir[1] * rbs;
-                bsum += sir[2] * rbs;
+                rsum += stack[s] * rbs;
+                gsum += stack[s + 1] * rbs;
+                bsum += stack[s + 2] * rbs;
                 if (i > 0) {
-                    rinsum += sir[0];
-                    ginsum += sir[1];
-                    binsum += sir[2];
+                    rinsum += stack[s];
+                    ginsum += stack[s + 1];
+                    binsum += stack[s + 2];
                 } else {
-                    routsum += sir[0];
-                    goutsum += sir[1];
-                    boutsum += sir[2];
+                    routsum += stack[s];
+                    goutsum += stack[s + 1];
+                    boutsum += stack[s + 2];
                 }
             }
             stackpointer = radius;
 
-            for (x = 0; x < w; x++) {
-
-                r[yi] = dv[rsum];
-                g[yi] = dv[gsum];
-                b[yi] = dv[bsum];
+            for (int x = 0; x < w; x++) {
+                rgb[yi + x] = (dv[rsum] << 16) | (dv[gsum] << 8) | dv[bsum];
 
                 rsum -= routsum;
                 gsum -= goutsum;
                 bsum -= boutsum;
 
-                stackstart = stackpointer - radius + div;
-                sir = stack[stackstart % div];
+                s = ((stackpointer + r1) % div) * 3;
 
-                routsum -= sir[0];
-                goutsum -= sir[1];
-                boutsum -= sir[2];
+                routsum -= stack[s];
+                goutsum -= stack[s + 1];
+                boutsum -= stack[s + 2];
 
-                if (y == 0) {
-                    vmin[x] = Math.min(x + radius + 1, wm);
-                }
-                p = pix[yw + vmin[x]];
+                p = pix[yi + Math.min(x + r1, wm)];
 
-                sir[0] = (p & 0xff0000) >> 16;
-                sir[1] = (p & 0x00ff00) >> 8;
-                sir[2] = (p & 0x0000ff);
+                stack[s] = (p & 0xff0000) >> 16;
+                stack[s + 1] = (p & 0x00ff00) >> 8;
+                stack[s + 2] = (p & 0x0000ff);
 
-                rinsum += sir[0];
-                ginsum += sir[1];
-                binsum += sir[2];
+                rinsum += stack[s];
+                ginsum += stack[s + 1];
+                binsum += stack[s + 2];
 
                 rsum += rinsum;
                 gsum += ginsum;
                 bsum += binsum;
 
                 stackpointer = (stackpointer + 1) % div;
-                sir = stack[(stackpointer) % div];
+                s = stackpointer * 3;
 
-                routsum += sir[0];
-                goutsum += sir[1];
-                boutsum += sir[2];
+                routsum += stack[s];
+                goutsum += stack[s + 1];
+                boutsum += stack[s + 2];
 
-                rinsum -= sir[0];
-                ginsum -= sir[1];
-                binsum -= sir[2];
-
-                yi++;
+                rinsum -= stack[s];
+                ginsum -= stack[s + 1];
+                binsum -= stack[s + 2];
             }
-            yw += w;
         }
-        for (x = 0; x < w; x++) {
-            rinsum = ginsum = binsum = routsum = goutsum = boutsum = rsum = gsum = bsum = 0;
-            yp = -radius * w;
-            for (i = -radius; i <= radius; i++) {
-                yi = Math.max(0, yp) + x;
-
-                sir = stack[i + radius];
+    }
 
-                sir[0] = r[yi];
-                sir[1] = g[yi];
-                sir[2] = b[yi];
+    /**
+     * 纵向一遍：读 rgb 的 [x0, x1) 列，结果写回 pix，保留原来的 alpha
+     */
+    private static void blurColumns(int[] rgb, int[] pix, int w, int h, int radius, int[] dv, int x0, int x1) {
+        int hm = h - 1;
+        int div = radius + radius + 1;
+        int r1 = radius + 1;
+        int[] stack = new int[div * 3];
+        int rsum, gsum, bsum, routsum, goutsum, boutsum, rinsum, ginsum, binsum;
+        int p, s, rbs, stackpointer, yi;
 
+        for (int x = x0; x < x1; x++) {
+            rinsum = ginsum = binsum = routsum = goutsum = boutsum = rsum = gsum = bsum = 0;
+            for (int i = -radius; i <= radius; i++) {
+                p = rgb[Math.min(hm, Math.max(i, 0)) * w + x];
+                s = (i + radius) * 3;
+                stack[s] = (p >> 16) & 0xff;
+                stack[s + 1] = (p >> 8) & 0xff;
+                stack[s + 2] = p & 0xff;
                 rbs = r1 - Math.abs(i);
-
-                rsum += r[yi] * rbs;
-                gsum += g[yi] * rbs;
-                bsum += b[yi] * rbs;
-
+                rsum += stack[s] * rbs;
+                gsum += stack[s + 1] * rbs;
+                bsum += stack[s + 2] * rbs;
                 if (i > 0) {
-                    rinsum += sir[0];
-                    ginsum += sir[1];
-                    binsum += sir[2];
+                    rinsum += stack[s];
+                    ginsum += stack[s + 1];
+                    binsum += stack[s + 2];
                 } else {
-                    routsum += sir[0];
-                    goutsum += sir[1];
-                    boutsum += sir[2];
-                }
-
-                if (i < hm) {
-                    yp += w;
+                    routsum += stack[s];
+                    goutsum += stack[s + 1];
+                    boutsum += stack[s + 2];
                 }
             }
             yi = x;
             stackpointer = radius;
-            for (y = 0; y < h; y++) {
-                // Preserve alpha channel: ( 0xff000000 & pix[yi] )
+            for (int y = 0; y < h; y++) {
                 pix[yi] = (0xff000000 & pix[yi]) | (dv[rsum] << 16)
                         | (dv[gsum] << 8) | dv[bsum];
 
@@ -172,47 +314,79 @@ public class FastBlur {
                 gsum -= goutsum;
                 bsum -= boutsum;
 
-                stackstart = stackpointer - radius + div;
-                sir = stack[stackstart % div];
+                s = ((stackpointer + r1) % div) * 3;
 
-                routsum -= sir[0];
-                goutsum -= sir[1];
-                boutsum -= sir[2];
+                routsum -= stack[s];
+                goutsum -= stack[s + 1];
+                boutsum -= stack[s + 2];
 
-                if (x == 0) {
-                    vmin[y] = Math.min(y + r1, hm) * w;
-                }
-                p = x + vmin[y];
+                p = rgb[Math.min(y + r1, hm) * w + x];
 
-                sir[0] = r[p];
-                sir[1] = g[p];
-                sir[2] = b[p];
+                stack[s] = (p >> 16) & 0xff;
+                stack[s + 1] = (p >> 8) & 0xff;
+                stack[s + 2] = p & 0xff;
 
-                rinsum += sir[0];
-                ginsum += sir[1];
-                binsum += sir[2];
+                rinsum += stack[s];
+                ginsum += stack[s + 1];
+                binsum += stack[s + 2];
 
                 rsum += rinsum;
                 gsum += ginsum;
                 bsum += binsum;
 
                 stackpointer = (stackpointer + 1) % div;
-                sir = stack[stackpointer];
+                s = stackpointer * 3;
 
-                routsum += sir[0];
-                goutsum += sir[1];
-                boutsum += sir[2];
+                routsum += stack[s];
+                goutsum += stack[s + 1];
+                boutsum += stack[s + 2];
 
-                rinsum -= sir[0];
-                ginsum -= sir[1];
-                binsum -= sir[2];
+                rinsum -= stack[s];
+                ginsum -= stack[s + 1];
+                binsum -= stack[s + 2];
 
                 yi += w;
             }
         }
+    }
 
-        bitmap.setPixels(pix, 0, w, 0, 0, w, h);
+    /**
+     * 当前线程的第 slot 个缓冲区，长度至少为 size；太大的不保留
+     */
+    private static int[] scratch(int slot, int size) {
+        int[][] buffers = SCRATCH.get();
+        int[] buffer = buffers[slot];
+        if (buffer != null && buffer.length >= size) {
+            return buffer;
+        }
+        buffer = new int[size];
+        buffers[slot] = size <= MAX_RETAINED_PIXELS ? buffer : null;
+        return buffer;
+    }
 
-        return (bitmap);
+    /**
+     * sum / divsum 的查找表，半径不超过 {@link #MAX_CACHED_RADIUS} 时缓存
+     */
+    static int[] dvTable(int radius) {
+        if (radius <= MAX_CACHED_RADIUS) {
+            synchronized (DV_TABLES) {
+                if (DV_TABLES[radius] == null) {
+                    DV_TABLES[radius] = newDvTable(radius);
+                }
+                return DV_TABLES[radius];
+            }
+        }
+        return newDvTable(radius);
+    }
+
+    private static int[] newDvTable(int radius) {
+        int div = radius + radius + 1;
+        int divsum = (div + 1) >> 1;
+        divsum *= divsum;
+        int[] dv = new int[256 * divsum];
+        for (int i = 0; i < dv.length; i++) {
+            dv[i] = i / divsum;
+        }
+        return dv;
     }
 }
@@ -15,7 +15,11 @@ import android.graphics.RectF;
 import android.support.v4.graphics.drawable.RoundedBitmapDrawable;
 import android.support.v4.graphics.drawable.RoundedBitmapDrawableFactory;
 import android.widget.ImageView;
+import com.bumptech.glide.DrawableRequestBuilder;
+import com.bumptech.glide.DrawableTypeRequest;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.resource.bitmap.BitmapTransformation;
 import com.bumptech.glide.load.resource.bitmap.CenterCrop;
@@ -65,10 +69,10 @@ public class GlideUtils {
         WeakReference<Context> w_context = new WeakReference<Context>(context);
         Context weakContext = w_context.get();
         if (roundradius <= 0) {
-            Glide.with(weakContext).load(path)
+            loadBySize(Glide.with(weakContext), context, path).diskCacheStrategy(DiskCacheStrategy.ALL)
                     .bitmapTransform(new GlideRoundTransform(context)).placeholder(placeid).error(errorid).crossFade().into(imageView);
         } else {
-            Glide.with(weakContext).load(path)
+            loadBySize(Glide.with(weakContext), context, path).diskCacheStrategy(DiskCacheStrategy.ALL)
                     .bitmapTransform(new CenterCrop(context), new GlideRoundTransform(context, roundradius)).placeholder(placeid).error(errorid).crossFade().into(imageView);
         }
     }
@@ -150,6 +154,10 @@ public class GlideUtils {
      * 加载gif动画
      */
     public static String LOAD_GIF = "GLIDEUTILS_GLIDE_LOAD_GIF";
+    /**
+     * 模糊背景的半径（按原图尺寸）
+     */
+    private static final int BLUR_RADIUS = 25;
 
     /**
      * 使用Application上下文，Glide请求将不受Activity/Fragment生命周期控制
@@ -170,11 +178,10 @@ public class GlideUtils {
 //                .skipMemoryCache(true)
 //                .crossFade().into(imageView);
         if (context != null && Util.isOnMainThread()) {
-            Glide.with(context.getApplicationContext())
-                    .load(path).asBitmap()
+            loadBySize(Glide.with(context.getApplicationContext()), context, path).asBitmap()
                     .placeholder(placeid).error(errorid)
                     .crossFade()
-                    .skipMemoryCache(true)
+                    .diskCacheStrategy(DiskCacheStrategy.ALL)
                     .into(new BitmapImageViewTarget(imageView){
                         @Override
                         protected void setResource(Bitmap resource) {
@@ -199,7 +206,6 @@ public class GlideUtils {
                     .transform(new FitCenter(context),new GlideRoundTransform(context, 6))
                     .crossFade()
                     .override((ScreenUtils.getScreenWidth(context)- ScreenUtil.dip2px(context,20)), Integer.MAX_VALUE)//给个最大值
-                    .skipMemoryCache(true)
                     .into(new BitmapImageViewTarget(imageView){
                         @Override
                         protected void setResource(Bitmap resource) {
@@ -220,17 +226,54 @@ public class GlideUtils {
 //                .skipMemoryCache(true)
 //                .crossFade().into(imageView);
         if (context != null && Util.isOnMainThread()) {
-            Glide.with(context.getApplicationContext())
-                    .load(path)
-                    .dontAnimate().centerCrop()
+            newContextBitmapRequest(context, path)
                     .placeholder(placeid).error(errorid)
                     .crossFade()
-                    .skipMemoryCache(true)
                     .into(imageView);
         }
 
     }
 
+    /**
+     * LoadNewContextBitmap 的请求，列表预加载（{@link com.android.baselibrary.picture.RecyclerViewPreloader}）
+     * 用同一个请求，尺寸相同时绑定时直接命中内存缓存
+     */
+    public DrawableRequestBuilder<String> newContextBitmapRequest(Context context, String path) {
+        return loadBySize(Glide.with(context.getApplicationContext()), context, path)
+                .dontAnimate().centerCrop()
+                .diskCacheStrategy(DiskCacheStrategy.ALL);
+    }
+
+    /**
+     * 详情页等大图：先显示列表里已经缓存的同一张图，大图加载完后替换
+     * <BR/>缩略图和列表用同一个请求（{@link #newContextBitmapRequest}），尺寸相同时直接命中列表的缓存
+     *
+     * @param thumbWidth  列表里图片控件的宽（像素），<= 0 时不加载缩略图
+     * @param thumbHeight 列表里图片控件的高（像素），<= 0 时不加载缩略图
+     */
+    public void LoadContextBitmapWithThumb(Context context, String path, ImageView imageView, int thumbWidth, int thumbHeight, int placeid, int errorid) {
+        if (context != null && Util.isOnMainThread()) {
+            DrawableRequestBuilder<String> request = loadBySize(Glide.with(context.getApplicationContext()), context, path)
+                    .dontAnimate().centerCrop()
+                    .placeholder(placeid).error(errorid)
+                    .diskCacheStrategy(DiskCacheStrategy.ALL);
+            if (thumbWidth > 0 && thumbHeight > 0) {
+                request.thumbnail(newContextBitmapRequest(context, path).override(thumbWidth, thumbHeight));
+            }
+            request.into(imageView);
+        }
+    }
+
+    /**
+     * CDN 上的图片按控件尺寸请求缩放图（见 {@link CdnUrlLoader}），其他地址和原来一样加载
+     */
+    private static DrawableTypeRequest<String> loadBySize(RequestManager manager, Context context, String path) {
+        if (CdnUrlLoader.accepts(path)) {
+            return manager.using(CdnUrlLoader.getInstance(context)).load(path);
+        }
+        return manager.load(path);
+    }
+
     public void LoadContextBitmapGif(Context context, String path, ImageView imageView, int placeid, int errorid) {
         Glide.with(context)
                 .load(path)
@@ -312,7 +355,8 @@ public class GlideUtils {
     public void LoadContextCircleBitmap(Context context, String path, ImageView imageView, int placeid, int errorid, String bitmapOrgif) {
         //Glide.with(context).load(path).bitmapTransform(new GlideCircleTransform(context)).into(imageView);
         if (bitmapOrgif == null || bitmapOrgif.equals(LOAD_BITMAP)) {
-            Glide.with(context).load(path).placeholder(placeid).error(errorid).crossFade()
+            loadBySize(Glide.with(context), context, path).placeholder(placeid).error(errorid).crossFade()
+                    .diskCacheStrategy(DiskCacheStrategy.ALL)
                     .bitmapTransform(new GlideCircleTransform(context)).into(imageView);
         } else if (bitmapOrgif.equals(LOAD_GIF)) {
             Glide.with(context).load(path).asGif().crossFade().into(imageView);
@@ -338,7 +382,8 @@ public class GlideUtils {
 //                .error(errorid)
 //                .placeholder(placeid)
 //                .into(imageView);
-        Glide.with(context).load(path).asBitmap().centerCrop().placeholder(placeid).error(errorid).into(new BitmapImageViewTarget(imageView) {
+        loadBySize(Glide.with(context), context, path).asBitmap().centerCrop().placeholder(placeid).error(errorid)
+                .diskCacheStrategy(DiskCacheStrategy.ALL).into(new BitmapImageViewTarget(imageView) {
             @Override
             protected void setResource(Bitmap resource) {
                 RoundedBitmapDrawable circularBitmapDrawable =
@@ -474,7 +519,10 @@ public class GlideUtils {
      */
     @SuppressWarnings("unchecked")
     public void LoadContextBlurBitmap(Context context, String path, ImageView imageView) {
-        //Glide.with(context).load(path + MNetStatusHandle.QUALITY).bitmapTransform(new BlurTransformation(context)).into(imageView);
+        loadBySize(Glide.with(context), context, path)
+                .bitmapTransform(new BlurTransformation(context, BLUR_RADIUS, FastBlur.Quality.MEDIUM))
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .into(imageView);
     }
 
     /**
@@ -486,7 +534,10 @@ public class GlideUtils {
      */
     @SuppressWarnings("unchecked")
     public void LoadFragmentBlurBitmap(android.app.Fragment fragment, String path, ImageView imageView) {
-        //Glide.with(fragment).load(path + MNetStatusHandle.QUALITY).bitmapTransform(new BlurTransformation(fragment.getActivity())).into(imageView);
+        loadBySize(Glide.with(fragment), fragment.getActivity(), path)
+                .bitmapTransform(new BlurTransformation(fragment.getActivity(), BLUR_RADIUS, FastBlur.Quality.MEDIUM))
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .into(imageView);
     }
 
     /**
@@ -498,7 +549,10 @@ public class GlideUtils {
      */
     @SuppressWarnings("unchecked")
     public void LoadSupportv4FragmentBlurBitmap(android.support.v4.app.Fragment fragment, String path, ImageView imageView) {
-        //Glide.with(fragment).load(path + MNetStatusHandle.QUALITY).bitmapTransform(new BlurTransformation(fragment.getActivity())).into(imageView);
+        loadBySize(Glide.with(fragment), fragment.getActivity(), path)
+                .bitmapTransform(new BlurTransformation(fragment.getActivity(), BLUR_RADIUS, FastBlur.Quality.MEDIUM))
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .into(imageView);
     }
     //---------------------------------------------------------
 
@@ -617,54 +671,31 @@ public class GlideUtils {
     }
     //-----------------------------图片模糊----------------------------------
     /**
-     *图片模糊,需要4.2.2
+     * 用 {@link FastBlur} 模糊。Glide 按 图片地址 + {@link #getId()} 缓存变换后的结果，
+     * 同一张图、同样的半径和缩放比例不会重复模糊
      */
-    /*public class BlurTransformation extends BitmapTransformation {
-
-        private RenderScript rs;
+    public static class BlurTransformation extends BitmapTransformation {
 
-        public BlurTransformation(Context context) {
-            super( context );
+        private final int radius;
+        private final FastBlur.Quality quality;
 
-            rs = RenderScript.create( context );
+        public BlurTransformation(Context context, int radius, FastBlur.Quality quality) {
+            super(context);
+            this.radius = radius;
+            this.quality = quality;
         }
 
         @Override
         protected Bitmap transform(BitmapPool pool, Bitmap toTransform, int outWidth, int outHeight) {
-            Bitmap blurredBitmap = toTransform.copy( Bitmap.Config.ARGB_8888, true );
-
-            // Allocate memory for Renderscript to work with
-            Allocation input = Allocation.createFromBitmap(
-                    rs,
-                    blurredBitmap,
-                    Allocation.MipmapControl.MIPMAP_FULL,
-                    Allocation.USAGE_SHARED
-            );
-            Allocation output = Allocation.createTyped(rs, input.getType());
-
-            // Load up an instance of the specific script that we want to use.
-            ScriptIntrinsicBlur script = ScriptIntrinsicBlur.create(rs, Element.U8_4(rs));
-            script.setInput(input);
-
-            // Set the blur radius
-            script.setRadius(10);
-
-            // Start the ScriptIntrinisicBlur
-            script.forEach(output);
-
-            // Copy the output to the blurred bitmap
-            output.copyTo(blurredBitmap);
-
-            toTransform.recycle();
-
-            return blurredBitmap;
+            Bitmap blurred = FastBlur.blur(toTransform, radius, quality);
+            return blurred == null ? toTransform : blurred;
         }
 
         @Override
         public String getId() {
-            return "blur";
+            return "blur" + radius + "/" + quality.scale;
         }
-    }*/
+    }
     //-------------------图片转换圆角图片------------------------------
 
     /**
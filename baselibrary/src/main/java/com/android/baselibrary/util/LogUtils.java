@@ -4,11 +4,7 @@ package com.android.baselibrary.util;
  * Created by gyq on 2017/2/16.
  */
 
-import android.text.TextUtils;
-import android.text.format.DateFormat;
-import android.util.Log;
-
-import com.android.baselibrary.BuildConfigUtil;
+import com.android.baselibrary.log.AppLog;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -18,34 +14,14 @@ import java.io.Writer;
 
 /**
  * Title: LogUtils.java Description: 日志工具类：开发过程中，日志输出
+ * <p>
+ * 输出与写文件统一交给 {@link AppLog} 的后台线程，这里只保留原有接口
  *
  * @author song
  * @date 2014-9-9 下午1:22:55
  * @version V1.0
  */
 public class LogUtils {
-    /**
-     * isWrite:用于开关是否吧日志写入txt文件中</p>
-     */
-    private static final boolean isWrite = true;
-    /**
-     * isDebug :是用来控制，是否打印日志
-     */
-    private static final boolean isDeBug = BuildConfigUtil.DEBUG;
-    /**
-     * 存放日志文件的所在路径
-     */
-    //private static final String DIRPATH = AppConfig.LOG_DIRPATH;
-    private static final String DIRPATH = "/mvlog";
-    /**
-     * 存放日志的文本名
-     */
-    //private static final String LOGNAME = AppConfig.LOG_FILENAME;
-    private static final String LOGNAME = "mvApp_log.txt";
-    /**
-     * 设置时间的格式
-     */
-    private static final String INFORMAT = "yyyy-MM-dd HH:mm:ss";
     /**
      * VERBOSE日志形式的标识符
      */
@@ -122,14 +98,7 @@ public class LogUtils {
      * @throws
      */
     public static void v(String tag, String msg) {
-        // 是否开启日志输出
-        if (isDeBug) {
-            Log.v(tag, msg);
-        }
-        // 是否将日志写入文件
-        if (isWrite) {
-            write(tag, msg);
-        }
+        AppLog.v(tag, msg);
     }
 
     /**
@@ -143,12 +112,7 @@ public class LogUtils {
      * @throws
      */
     public static void d(String tag, String msg) {
-        if (isDeBug) {
-            Log.d(tag, msg);
-        }
-        if (isWrite) {
-            write(tag, msg);
-        }
+        AppLog.d(tag, msg);
     }
 
     /**
@@ -160,12 +124,7 @@ public class LogUtils {
      * @throws
      */
     public static void i(String tag, String msg) {
-        if (isDeBug) {
-            Log.i(tag, msg);
-        }
-        if (isWrite) {
-            write(tag, msg);
-        }
+        AppLog.i(tag, msg);
     }
 
     /**
@@ -177,12 +136,7 @@ public class LogUtils {
      * @throws
      */
     public static void w(String tag, String msg) {
-        if (isDeBug) {
-            Log.w(tag, msg);
-        }
-        if (isWrite) {
-            write(tag, msg);
-        }
+        AppLog.w(tag, msg);
     }
 
     /**
@@ -193,16 +147,11 @@ public class LogUtils {
      * @return void 返回类型
      */
     public static void e(String tag, String msg) {
-        if (isDeBug) {
-            Log.e(tag, msg);
-        }
-        if (isWrite) {
-            write(tag, msg);
-        }
+        AppLog.e(tag, msg);
     }
 
     /**
-     * 用于把日志内容写入制定的文件
+     * 用于把日志内容写入日志文件（异步）
      *
      * @param @param tag 标识
      * @param @param msg 要输出的内容
@@ -210,19 +159,7 @@ public class LogUtils {
      * @throws
      */
     public static void write(String tag, String msg) {
-        String path = FileUtils.createMkdirsAndFiles(DIRPATH, LOGNAME);
-        if (path == null) {
-            return;
-        }
-        if (TextUtils.isEmpty(path)) {
-            return;
-        }
-        String log = DateFormat.format(INFORMAT, System.currentTimeMillis())
-                + tag
-                + "========>>"
-                + msg
-                + "\n=================================分割线=================================";
-        FileUtils.write2File(path, log, true);
+        AppLog.i(tag, msg);
     }
 
     /**
@@ -0,0 +1,166 @@
+package com.android.baselibrary.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
+import retrofit2.converter.scalars.ScalarsConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link RequestCoalescer} 合并相同请求，用 MockWebServer 统计实际的请求次数
+ */
+public class RequestCoalescerTest {
+
+    interface Api {
+        @GET("item")
+        Observable<String> item(@Query("id") String id);
+    }
+
+    private MockWebServer server;
+    private Api api;
+    private RequestCoalescer coalescer;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() throws Exception {
+        release = new CountDownLatch(1);
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                // 请求挂起，直到测试放行，保证其他订阅者在请求进行中加入
+                release.await(5, TimeUnit.SECONDS);
+                return new MockResponse().setBody("item:" + request.getRequestUrl().queryParameter("id"));
+            }
+        });
+        server.start();
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient())
+                .addConverterFactory(ScalarsConverterFactory.create())
+                .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
+                .build()
+                .create(Api.class);
+        coalescer = new RequestCoalescer();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        server.shutdown();
+    }
+
+    private Observable<String> request(String id) {
+        return coalescer.coalesce("item?" + id, api.item(id).subscribeOn(Schedulers.io()));
+    }
+
+    @Test
+    public void concurrentSameRequestsHitServerOnce() throws Exception {
+        List<TestSubscriber<String>> subscribers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TestSubscriber<String> subscriber = new TestSubscriber<>();
+            request("1").subscribe(subscriber);
+            subscribers.add(subscriber);
+        }
+        release.countDown();
+
+        for (TestSubscriber<String> subscriber : subscribers) {
+            subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            subscriber.assertValue("item:1");
+            subscriber.assertCompleted();
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals(2, coalescer.sharedCount());
+    }
+
+    @Test
+    public void differentParamsAreNotCoalesced() throws Exception {
+        release.countDown();
+        TestSubscriber<String> first = new TestSubscriber<>();
+        TestSubscriber<String> second = new TestSubscriber<>();
+        request("1").subscribe(first);
+        request("2").subscribe(second);
+
+        first.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        second.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        first.assertValue("item:1");
+        second.assertValue("item:2");
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void finishedRequestIsNotReused() throws Exception {
+        release.countDown();
+        assertEquals("item:1", request("1").toBlocking().single());
+        assertEquals("item:1", request("1").toBlocking().single());
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, coalescer.sharedCount());
+    }
+
+    @Test
+    public void cancelledRequestIsNotReused() throws Exception {
+        Subscription subscription = request("1").subscribe(new TestSubscriber<String>());
+        assertTrue(server.takeRequest(5, TimeUnit.SECONDS) != null);
+        subscription.unsubscribe();
+        release.countDown();
+
+        assertEquals("item:1", request("1").toBlocking().single());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void lateJoinerGetsEmittedValue() throws Exception {
+        final CountDownLatch emitted = new CountDownLatch(1);
+        final CountDownLatch complete = new CountDownLatch(1);
+        // 结果已经发出、还没结束时加入的订阅者也要拿到结果
+        Observable<String> source = Observable.create(new Observable.OnSubscribe<String>() {
+            @Override
+            public void call(Subscriber<? super String> subscriber) {
+                subscriber.onNext("value");
+                emitted.countDown();
+                try {
+                    complete.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+                subscriber.onCompleted();
+            }
+        }).subscribeOn(Schedulers.io());
+
+        TestSubscriber<String> first = new TestSubscriber<>();
+        coalescer.coalesce("key", source).subscribe(first);
+        assertTrue(emitted.await(5, TimeUnit.SECONDS));
+        TestSubscriber<String> late = new TestSubscriber<>();
+        coalescer.coalesce("key", source).subscribe(late);
+        complete.countDown();
+
+        first.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        late.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        first.assertValue("value");
+        late.assertValue("value");
+        late.assertCompleted();
+        assertEquals(1, coalescer.sharedCount());
+    }
+}
@@ -0,0 +1,213 @@
+package com.android.baselibrary.service;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Observable;
+import rx.functions.Func0;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ResponseCache} 的缓存策略
+ */
+public class ResponseCacheTest {
+
+    static class Item {
+        String name;
+
+        Item(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private ResponseCache cache;
+    private AtomicInteger networkCount;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("response");
+        cache = new ResponseCache(directory, 1024 * 1024);
+        networkCount = new AtomicInteger();
+    }
+
+    private Observable<Item> network(final String name) {
+        return Observable.defer(new Func0<Observable<Item>>() {
+            @Override
+            public Observable<Item> call() {
+                networkCount.incrementAndGet();
+                return Observable.just(new Item(name));
+            }
+        });
+    }
+
+    private Observable<Item> failingNetwork() {
+        return Observable.defer(new Func0<Observable<Item>>() {
+            @Override
+            public Observable<Item> call() {
+                networkCount.incrementAndGet();
+                return Observable.error(new IOException("offline"));
+            }
+        });
+    }
+
+    private List<String> names(ResponseCache.Policy policy, Observable<Item> network) {
+        return names(policy, "key", network);
+    }
+
+    private List<String> names(ResponseCache.Policy policy, String key, Observable<Item> network) {
+        List<String> names = new ArrayList<>();
+        for (Item item : cache.wrap(policy, key, Item.class, network).toList().toBlocking().single()) {
+            names.add(item.name);
+        }
+        return names;
+    }
+
+    @Test
+    public void freshEntrySkipsNetwork() {
+        ResponseCache.Policy policy = new ResponseCache.Policy(DAY, DAY, true);
+        assertEquals(Collections.singletonList("a"), names(policy, network("a")));
+
+        assertEquals(Collections.singletonList("a"), names(policy, network("b")));
+        assertEquals(1, networkCount.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void revalidateWithSameBodyEmitsOnce() {
+        // ttl 为负数，写入后立刻过期
+        ResponseCache.Policy policy = new ResponseCache.Policy(-1, DAY, true);
+        names(policy, network("a"));
+
+        assertEquals(Collections.singletonList("a"), names(policy, network("a")));
+        assertEquals(2, networkCount.get());
+        assertEquals(1, cache.staleHitCount());
+    }
+
+    @Test
+    public void revalidateWithChangedBodyEmitsTwice() {
+        ResponseCache.Policy policy = new ResponseCache.Policy(-1, DAY, true);
+        names(policy, network("a"));
+
+        assertEquals(Arrays.asList("a", "b"), names(policy, network("b")));
+        assertEquals(Collections.singletonList("b"), names(policy, failingNetwork()));
+    }
+
+    @Test
+    public void staleEntryIsFallbackWithoutRevalidate() {
+        ResponseCache.Policy policy = new ResponseCache.Policy(-1, DAY, false);
+        names(policy, network("a"));
+
+        assertEquals(Collections.singletonList("b"), names(policy, network("b")));
+        assertEquals(Collections.singletonList("b"), names(policy, failingNetwork()));
+    }
+
+    @Test
+    public void concurrentPutsDoNotShareTempFile() throws InterruptedException {
+        final ResponseCache.Policy policy = new ResponseCache.Policy(DAY, DAY, true);
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            final String name = "item" + i;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        if (names(policy, network(name)).size() != 1) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Throwable e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(0, failures.get());
+        String[] files = directory.list();
+        assertEquals(1, files.length);
+        assertTrue(!files[0].endsWith(".tmp"));
+        assertEquals(new File(directory, files[0]).length(), cache.size());
+        assertTrue(names(policy, failingNetwork()).get(0).startsWith("item"));
+    }
+
+    @Test
+    public void onlyLeftoverTempFilesAreDeleted() throws IOException {
+        File leftover = new File(directory, "old.tmp");
+        File writing = new File(directory, "new.tmp");
+        assertTrue(leftover.createNewFile());
+        assertTrue(leftover.setLastModified(System.currentTimeMillis() - DAY));
+        assertTrue(writing.createNewFile());
+
+        assertEquals(0, cache.size());
+
+        assertTrue(!leftover.exists());
+        assertTrue(writing.exists());
+    }
+
+    @Test
+    public void clearRemovesEntries() {
+        ResponseCache.Policy policy = new ResponseCache.Policy(DAY, DAY, true);
+        names(policy, network("a"));
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, directory.list().length);
+        assertEquals(Collections.singletonList("b"), names(policy, network("b")));
+    }
+
+    @Test
+    public void invalidateForcesNetworkForEndpoint() {
+        ResponseCache.Policy policy = new ResponseCache.Policy(DAY, DAY, true);
+        String page1 = ResponseCache.key("getFindVideo", Collections.singletonMap("pageNum", "1"), "token");
+        String page2 = ResponseCache.key("getFindVideo", Collections.singletonMap("pageNum", "2"), "token");
+        String other = ResponseCache.key("indexInfo", null, "token");
+        names(policy, page1, network("a"));
+        names(policy, page2, network("a"));
+        names(policy, other, network("a"));
+
+        cache.invalidate("getFindVideo");
+
+        assertEquals(1, directory.list().length);
+        assertEquals(new File(directory, other).length(), cache.size());
+        assertEquals(Collections.singletonList("b"), names(policy, page1, network("b")));
+        assertEquals(Collections.singletonList("b"), names(policy, page2, network("b")));
+        assertEquals(Collections.singletonList("a"), names(policy, other, network("b")));
+        assertEquals(5, networkCount.get());
+    }
+
+    @Test
+    public void keyDependsOnToken() {
+        assertTrue(!ResponseCache.key("indexInfo", null, "token1").equals(ResponseCache.key("indexInfo", null, "token2")));
+        assertEquals(ResponseCache.key("indexInfo", Collections.singletonMap("page", "1"), "token1"),
+                ResponseCache.key("indexInfo", Collections.singletonMap("page", "1"), "token1"));
+    }
+}
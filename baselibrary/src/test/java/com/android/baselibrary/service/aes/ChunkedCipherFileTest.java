@@ -0,0 +1,191 @@
+package com.android.baselibrary.service.aes;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link ChunkedCipherOutputStream} 写入、{@link ChunkedCipherFile} 随机读取和完整性校验
+ */
+public class ChunkedCipherFileTest {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] masterKey = new byte[32];
+
+    private static byte[] plain(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private File encrypt(byte[] data) throws IOException {
+        File file = folder.newFile();
+        ChunkedCipherOutputStream out = new ChunkedCipherOutputStream(new FileOutputStream(file), masterKey, BLOCK_SIZE);
+        try {
+            // 按不规则的长度写入，跨越块边界
+            int offset = 0;
+            int step = 1;
+            while (offset < data.length) {
+                int n = Math.min(step, data.length - offset);
+                out.write(data, offset, n);
+                offset += n;
+                step = step * 3 + 1;
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static byte[] readAll(ChunkedCipherFile file) throws IOException {
+        byte[] result = new byte[(int) file.length()];
+        int total = 0;
+        while (total < result.length) {
+            int n = file.read(total, result, total, Math.min(777, result.length - total));
+            assertTrue(n > 0);
+            total += n;
+        }
+        assertEquals(-1, file.read(total, new byte[1], 0, 1));
+        return result;
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(length);
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        for (int length : new int[]{0, 1, BLOCK_SIZE - 1, BLOCK_SIZE, BLOCK_SIZE + 1, BLOCK_SIZE * 5 + 123}) {
+            byte[] data = plain(length);
+            File encrypted = encrypt(data);
+            assertTrue(ChunkedCipherFile.isEncrypted(encrypted));
+
+            ChunkedCipherFile file = new ChunkedCipherFile(encrypted, masterKey);
+            try {
+                assertEquals(length, file.length());
+                assertArrayEquals("length " + length, data, readAll(file));
+            } finally {
+                file.close();
+            }
+        }
+    }
+
+    @Test
+    public void randomReads() throws IOException {
+        byte[] data = plain(BLOCK_SIZE * 7 + 100);
+        ChunkedCipherFile file = new ChunkedCipherFile(encrypt(data), masterKey);
+        try {
+            Random random = new Random(1);
+            for (int i = 0; i < 200; i++) {
+                int position = random.nextInt(data.length);
+                int len = random.nextInt(BLOCK_SIZE * 3);
+                byte[] buffer = new byte[len];
+                int n = file.read(position, buffer, 0, len);
+                int expected = Math.min(len, data.length - position);
+                assertEquals(expected, n);
+                assertArrayEquals(Arrays.copyOfRange(data, position, position + expected),
+                        Arrays.copyOf(buffer, expected));
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void plainFileIsNotEncrypted() throws IOException {
+        File file = folder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(plain(4096));
+        out.close();
+
+        assertFalse(ChunkedCipherFile.isEncrypted(file));
+        assertFalse(ChunkedCipherFile.isEncrypted(new File(folder.getRoot(), "missing")));
+    }
+
+    @Test
+    public void truncationAtBlockBoundaryFailsAuthentication() throws IOException {
+        byte[] data = plain(BLOCK_SIZE * 3 + 10);
+        File encrypted = encrypt(data);
+        // 去掉最后一块后，倒数第二块被当成最后一块，AAD 不一致
+        truncate(encrypted, ChunkedCipherFile.HEADER_LENGTH + 3L * (BLOCK_SIZE + ChunkedCipherFile.TAG_LENGTH));
+
+        ChunkedCipherFile file = new ChunkedCipherFile(encrypted, masterKey);
+        try {
+            assertEquals(BLOCK_SIZE * 3, file.length());
+            file.read(0, new byte[BLOCK_SIZE], 0, BLOCK_SIZE);
+            try {
+                file.read(BLOCK_SIZE * 2, new byte[BLOCK_SIZE], 0, BLOCK_SIZE);
+                fail();
+            } catch (IOException expected) {
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void truncationInsideBlockFailsAuthentication() throws IOException {
+        File encrypted = encrypt(plain(BLOCK_SIZE * 2 + 10));
+        truncate(encrypted, encrypted.length() - 5);
+
+        ChunkedCipherFile file = new ChunkedCipherFile(encrypted, masterKey);
+        try {
+            file.read(BLOCK_SIZE * 2, new byte[10], 0, 10);
+            fail();
+        } catch (IOException expected) {
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void truncatedTagIsRejectedOnOpen() throws IOException {
+        File encrypted = encrypt(plain(BLOCK_SIZE * 2));
+        // 只剩第二块的一部分 tag，不足以构成一个块
+        truncate(encrypted, ChunkedCipherFile.HEADER_LENGTH + BLOCK_SIZE + ChunkedCipherFile.TAG_LENGTH + 3);
+
+        try {
+            new ChunkedCipherFile(encrypted, masterKey).close();
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void wrongKeyFailsAuthentication() throws IOException {
+        File encrypted = encrypt(plain(100));
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+
+        ChunkedCipherFile file = new ChunkedCipherFile(encrypted, otherKey);
+        try {
+            file.read(0, new byte[100], 0, 100);
+            fail();
+        } catch (IOException expected) {
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.android.baselibrary.service.aes;
+
+import com.android.baselibrary.service.AES256;
+import com.android.baselibrary.service.AESHelper;
+import com.android.baselibrary.service.Base64;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.SecureRandomSpi;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link CipherPool} 的复用规则，以及改用它之后 AESUtils / AESHelper / AES256 加解密结果不变
+ */
+public class CipherPoolTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    //AES256 / AESHelper 按平台默认编码转字符串（Android 上是 UTF-8），这里只用 ASCII
+    private static final String TEXT = "0f607264fc6318a92b9e13c65db7cd3c " + new String(new char[100]).replace('\0', 'x');
+    private static final String KEY_16 = "0123456789abcdef";
+    private static final String IV_16 = "1234567890123456";
+
+    private static final String SEEDED_RANDOM = "SeededRandom";
+
+    @BeforeClass
+    public static void setUpClass() {
+        //AESUtils 用的 PKCS7Padding 在 Android 上系统自带，桌面 JVM 上要靠 BouncyCastle
+        CipherPool.installBouncyCastle();
+        //AES256 / AESHelper.decrypt 用 new SecureRandom(seed) 从密码生成密钥，和 Android 旧版的 SHA1PRNG 一样要求同一个 seed 得到同一个密钥，
+        //桌面 JVM 默认的 NativePRNG 会混入系统熵，这里换成只取决于 seed 的实现
+        Security.insertProviderAt(new SeededRandomProvider(), 1);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        Security.removeProvider(SEEDED_RANDOM);
+    }
+
+    @Test
+    public void sameThreadReusesInstance() throws GeneralSecurityException {
+        SecretKeySpec key = new SecretKeySpec(KEY_16.getBytes(UTF_8), "AES");
+        Cipher first = CipherPool.cipher("AES/CBC/PKCS5Padding", Cipher.ENCRYPT_MODE, key, new IvParameterSpec(IV_16.getBytes(UTF_8)));
+        Cipher second = CipherPool.cipher("AES/CBC/PKCS5Padding", Cipher.DECRYPT_MODE, key, new IvParameterSpec(IV_16.getBytes(UTF_8)));
+        assertSame(first, second);
+        assertNotSame(first, CipherPool.cipher("AES", Cipher.ENCRYPT_MODE, key, null));
+
+        Mac mac = CipherPool.mac("HmacSHA256", key);
+        assertSame(mac, CipherPool.mac("HmacSHA256", key));
+    }
+
+    @Test
+    public void otherThreadGetsOwnInstance() throws Exception {
+        final SecretKeySpec key = new SecretKeySpec(KEY_16.getBytes(UTF_8), "AES");
+        Cipher mine = CipherPool.cipher("AES", Cipher.ENCRYPT_MODE, key, null);
+        final AtomicReference<Cipher> theirs = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    theirs.set(CipherPool.cipher("AES", Cipher.ENCRYPT_MODE, key, null));
+                } catch (GeneralSecurityException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNotSame(mine, theirs.get());
+    }
+
+    @Test
+    public void cipherWorksAfterFailedCall() throws GeneralSecurityException {
+        SecretKeySpec key = new SecretKeySpec(KEY_16.getBytes(UTF_8), "AES");
+        byte[] encrypted = CipherPool.cipher("AES", Cipher.ENCRYPT_MODE, key, null).doFinal(TEXT.getBytes(UTF_8));
+
+        byte[] broken = Arrays.copyOf(encrypted, encrypted.length - 1);
+        try {
+            CipherPool.cipher("AES", Cipher.DECRYPT_MODE, key, null).doFinal(broken);
+            fail("Expected a padding error");
+        } catch (GeneralSecurityException expected) {
+        }
+
+        byte[] decrypted = CipherPool.cipher("AES", Cipher.DECRYPT_MODE, key, null).doFinal(encrypted);
+        assertEquals(TEXT, new String(decrypted, UTF_8));
+    }
+
+    @Test
+    public void macUsesLatestKey() throws GeneralSecurityException {
+        byte[] data = TEXT.getBytes(UTF_8);
+        for (String password : new String[]{"first", "second", "first"}) {
+            SecretKeySpec key = new SecretKeySpec(password.getBytes(UTF_8), "HmacSHA256");
+            Mac fresh = Mac.getInstance("HmacSHA256");
+            fresh.init(key);
+            assertArrayEquals(password, fresh.doFinal(data), CipherPool.mac("HmacSHA256", key).doFinal(data));
+        }
+    }
+
+    @Test
+    public void aesUtilsRoundTrip() throws Exception {
+        String encrypted = AESUtils.encrypt(TEXT, KEY_16, IV_16);
+        assertEquals(TEXT, AESUtils.getInstance(KEY_16).decrypt(encrypted, KEY_16));
+        //同一个线程再来一次，用的是缓存的 Cipher
+        assertEquals(encrypted, AESUtils.encrypt(TEXT, KEY_16, IV_16));
+
+        //和每次新建 Cipher 的结果一致
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS7Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY_16.getBytes(), "AES"), new IvParameterSpec(IV_16.getBytes()));
+        assertEquals(Base64.encodeToString(cipher.doFinal(TEXT.getBytes(UTF_8))), encrypted);
+    }
+
+    @Test
+    public void aesUtilsRejectsBadCiphertext() throws Exception {
+        String encrypted = AESUtils.encrypt(TEXT, KEY_16, IV_16);
+        String broken = AESUtils.encrypt(TEXT + "!", KEY_16, IV_16).substring(0, encrypted.length() - 4) + "AAAA";
+        assertEquals(null, AESUtils.getInstance(KEY_16).decrypt(broken, KEY_16));
+        assertEquals(TEXT, AESUtils.getInstance(KEY_16).decrypt(encrypted, KEY_16));
+    }
+
+    @Test
+    public void aesHelperDecodesPlainAes() throws Exception {
+        //AESEncode 的输出用的是 android.util.Base64，这里用 JCE 直接加密，只检查 AESDncode
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY_16.getBytes(), "AES"));
+        String encrypted = Base64.encodeToString(cipher.doFinal(TEXT.getBytes()));
+        assertEquals(TEXT, AESHelper.AESDncode(KEY_16, encrypted));
+        assertEquals(TEXT, AESHelper.AESDncode(KEY_16, encrypted));
+    }
+
+    @Test
+    public void aes256RoundTrip() {
+        byte[] encrypted = AES256.encrypt(TEXT, "McPeARaUsOiAKwquKr5odl1ZQOg5X6zrn");
+        assertEquals(TEXT, new AES256().decrypt(encrypted, "McPeARaUsOiAKwquKr5odl1ZQOg5X6zrn"));
+        assertEquals(TEXT, AES256.decrypt(new String(encrypted, UTF_8)));
+        assertEquals(TEXT, AESHelper.decrypt(encrypted, "McPeARaUsOiAKwquKr5odl1ZQOg5X6zrn"));
+        assertArrayEquals(encrypted, AES256.encrypt(TEXT, "McPeARaUsOiAKwquKr5odl1ZQOg5X6zrn"));
+    }
+
+    @Test
+    public void aes256WrongPasswordFails() {
+        byte[] encrypted = AES256.encrypt(TEXT, "right");
+        String decrypted = new AES256().decrypt(encrypted, "wrong");
+        if (TEXT.equals(decrypted)) {
+            fail("Decrypted with the wrong password");
+        }
+        assertEquals(TEXT, new AES256().decrypt(encrypted, "right"));
+    }
+
+    private static final class SeededRandomProvider extends Provider {
+        SeededRandomProvider() {
+            super(SEEDED_RANDOM, 1.0, "SecureRandom that only depends on its seed");
+            put("SecureRandom.SHA1PRNG", SeededRandomSpi.class.getName());
+        }
+    }
+
+    /**
+     * 输出为 SHA-256(seed || counter) 依次拼接
+     */
+    public static final class SeededRandomSpi extends SecureRandomSpi {
+
+        private byte[] seed = new byte[0];
+        private long counter;
+
+        @Override
+        protected void engineSetSeed(byte[] more) {
+            byte[] merged = Arrays.copyOf(seed, seed.length + more.length);
+            System.arraycopy(more, 0, merged, seed.length, more.length);
+            seed = merged;
+        }
+
+        @Override
+        protected void engineNextBytes(byte[] bytes) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                int offset = 0;
+                while (offset < bytes.length) {
+                    digest.update(seed);
+                    for (int i = 0; i < 8; i++) {
+                        digest.update((byte) (counter >>> (i * 8)));
+                    }
+                    counter++;
+                    byte[] block = digest.digest();
+                    int len = Math.min(block.length, bytes.length - offset);
+                    System.arraycopy(block, 0, bytes, offset, len);
+                    offset += len;
+                }
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        protected byte[] engineGenerateSeed(int numBytes) {
+            byte[] bytes = new byte[numBytes];
+            engineNextBytes(bytes);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.android.baselibrary.service.bean;
+
+import com.android.baselibrary.service.bean.channel.ChannelDataBean;
+import com.android.baselibrary.service.bean.channel.ChannelTagBean;
+import com.android.baselibrary.service.bean.channel.ChannelTagDataBean;
+import com.android.baselibrary.service.bean.channel.TagClassBean;
+import com.android.baselibrary.service.bean.find.FindBean;
+import com.android.baselibrary.service.bean.home.DetailListBean;
+import com.android.baselibrary.service.bean.home.HomeBannerBean;
+import com.android.baselibrary.service.bean.home.HomeClassBean;
+import com.android.baselibrary.service.bean.home.HomeClassCollectBean;
+import com.android.baselibrary.service.bean.home.HomeDataBean;
+import com.android.baselibrary.service.bean.home.HomeListBean;
+import com.android.baselibrary.service.bean.home.HomeStarBean;
+import com.android.baselibrary.service.bean.home.StarDataBean;
+import com.android.baselibrary.service.bean.mine.ExtensionBean;
+import com.android.baselibrary.service.bean.mine.HistoryBean;
+import com.android.baselibrary.service.bean.mine.MyHistoryBean;
+import com.android.baselibrary.service.bean.mine.MyPromoteBean;
+import com.android.baselibrary.service.bean.mine.NotificationBean;
+import com.android.baselibrary.service.bean.mine.PayBean;
+import com.android.baselibrary.service.bean.mine.PayRecharegeBean;
+import com.android.baselibrary.service.bean.mine.VipBean;
+import com.android.baselibrary.service.bean.mine.WithDrawBean;
+import com.android.baselibrary.service.bean.search.SearchBean;
+import com.android.baselibrary.service.bean.user.LoginBean;
+import com.android.baselibrary.service.bean.user.ProtocolBean;
+import com.android.baselibrary.service.bean.user.UserBean;
+import com.android.baselibrary.service.bean.video.VideoCommentBean;
+import com.android.baselibrary.service.bean.video.VideoDetailBean;
+import com.android.baselibrary.service.bean.video.VideoInComeBean;
+import com.android.baselibrary.service.bean.video.VideoLikeBean;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 生成的 TypeAdapter 和 Gson 反射解析同一份 json 的结果要一致
+ * <p>
+ * 按 bean 的字段类型构造 json（每个字段都有值、全部为 null、类型不匹配的写法、多余的 key），
+ * 分别用注册了 {@link BeanTypeAdapterFactory} 的 Gson 和纯反射的 Gson 解析，再用反射序列化比较。
+ */
+public class BeanTypeAdapterFactoryTest {
+
+    private static final Class<?>[] BEANS = {
+            BaseBean.class, UpdateBean.class,
+            ChannelDataBean.class, ChannelTagBean.class, ChannelTagDataBean.class, TagClassBean.class,
+            FindBean.class,
+            DetailListBean.class, HomeBannerBean.class, HomeClassBean.class, HomeClassCollectBean.class,
+            HomeDataBean.class, HomeListBean.class, HomeStarBean.class, StarDataBean.class,
+            ExtensionBean.class, HistoryBean.class, MyHistoryBean.class, MyPromoteBean.class, NotificationBean.class,
+            PayBean.class, PayRecharegeBean.class, VipBean.class, WithDrawBean.class,
+            SearchBean.class,
+            LoginBean.class, ProtocolBean.class, UserBean.class,
+            VideoCommentBean.class, VideoDetailBean.class, VideoInComeBean.class, VideoLikeBean.class,
+    };
+
+    private static final int MAX_DEPTH = 4;
+
+    private final Gson generated = new GsonBuilder().registerTypeAdapterFactory(new BeanTypeAdapterFactory()).create();
+    private final Gson reflective = new Gson();
+
+    private enum Mode {
+        VALUES, NULLS, LOOSE
+    }
+
+    @Test
+    public void generatedAdaptersAreUsed() {
+        for (Class<?> bean : BEANS) {
+            if (bean == MyPromoteBean.class) {
+                continue;
+            }
+            String name = generated.getAdapter(bean).getClass().getName();
+            assertTrue(bean.getName() + " -> " + name, name.endsWith("TypeAdapter") && !name.startsWith("com.google.gson"));
+        }
+    }
+
+    @Test
+    public void matchesReflectionWithValues() {
+        compareAll(Mode.VALUES);
+    }
+
+    @Test
+    public void matchesReflectionWithNulls() {
+        compareAll(Mode.NULLS);
+    }
+
+    @Test
+    public void matchesReflectionWithLooseTypes() {
+        compareAll(Mode.LOOSE);
+    }
+
+    private void compareAll(Mode mode) {
+        for (Class<?> bean : BEANS) {
+            JsonObject json = sample(bean, mode, 0, new int[1]);
+            json.addProperty("unknownKey", "ignored");
+            json.add("unknownObject", new JsonParser().parse("{\"a\":[1,{\"b\":null}]}"));
+            String text = json.toString();
+
+            Object expected = reflective.fromJson(text, bean);
+            Object actual = generated.fromJson(text, bean);
+            assertEquals(bean.getSimpleName() + " " + mode + " " + text,
+                    reflective.toJsonTree(expected), reflective.toJsonTree(actual));
+        }
+    }
+
+    private static JsonObject sample(Class<?> type, Mode mode, int depth, int[] counter) {
+        JsonObject object = new JsonObject();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+                        || object.has(field.getName())) {
+                    continue;
+                }
+                object.add(field.getName(), value(field.getGenericType(), mode, depth, counter));
+            }
+        }
+        return object;
+    }
+
+    private static JsonElement value(Type type, Mode mode, int depth, int[] counter) {
+        int n = ++counter[0];
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == List.class) {
+            if (mode == Mode.NULLS || depth >= MAX_DEPTH) {
+                return JsonNull.INSTANCE;
+            }
+            JsonArray array = new JsonArray();
+            Type element = ((ParameterizedType) type).getActualTypeArguments()[0];
+            array.add(value(element, mode, depth + 1, counter));
+            array.add(value(element, mode, depth + 1, counter));
+            return array;
+        }
+        if (!(type instanceof Class)) {
+            return JsonNull.INSTANCE;
+        }
+        Class<?> c = (Class<?>) type;
+        if (mode == Mode.NULLS && c != Object.class) {
+            return JsonNull.INSTANCE;
+        }
+        if (c == String.class) {
+            // 字符串字段兼容数字和布尔值
+            if (mode == Mode.LOOSE) {
+                return n % 2 == 0 ? new JsonPrimitive(n) : new JsonPrimitive(true);
+            }
+            return new JsonPrimitive("s" + n);
+        }
+        if (c == int.class || c == Integer.class || c == long.class || c == Long.class
+                || c == short.class || c == Short.class || c == byte.class || c == Byte.class) {
+            // 数字字段兼容字符串形式的数字
+            return mode == Mode.LOOSE ? new JsonPrimitive(String.valueOf(n)) : new JsonPrimitive(n);
+        }
+        if (c == double.class || c == Double.class || c == float.class || c == Float.class) {
+            return mode == Mode.LOOSE ? new JsonPrimitive(n + ".5") : new JsonPrimitive(n + 0.5);
+        }
+        if (c == boolean.class || c == Boolean.class) {
+            return mode == Mode.LOOSE ? new JsonPrimitive("true") : new JsonPrimitive(n % 2 == 0);
+        }
+        if (c.isPrimitive() || c.isEnum() || c.isArray() || c == Object.class || c.getName().startsWith("java.")) {
+            return JsonNull.INSTANCE;
+        }
+        if (depth >= MAX_DEPTH) {
+            return JsonNull.INSTANCE;
+        }
+        return sample(c, mode, depth + 1, counter);
+    }
+}
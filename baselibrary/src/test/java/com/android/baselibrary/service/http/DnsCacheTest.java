@@ -0,0 +1,94 @@
+package com.android.baselibrary.service.http;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.Dns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link DnsCache} 的缓存与失败兜底
+ */
+public class DnsCacheTest {
+
+    private static class FakeDns implements Dns {
+        int lookups;
+        boolean fail;
+
+        @Override
+        public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+            lookups++;
+            if (fail) {
+                throw new UnknownHostException(hostname);
+            }
+            return Collections.singletonList(InetAddress.getByAddress(hostname, new byte[]{10, 0, 0, (byte) lookups}));
+        }
+    }
+
+    @Test
+    public void freshEntryIsServedFromCache() throws UnknownHostException {
+        FakeDns dns = new FakeDns();
+        DnsCache cache = new DnsCache(dns);
+
+        List<InetAddress> first = cache.lookup("api.example.com");
+        List<InetAddress> second = cache.lookup("api.example.com");
+
+        assertSame(first, second);
+        assertEquals(1, dns.lookups);
+    }
+
+    @Test
+    public void hostsAreCachedSeparately() throws UnknownHostException {
+        FakeDns dns = new FakeDns();
+        DnsCache cache = new DnsCache(dns);
+
+        cache.lookup("a.example.com");
+        cache.lookup("b.example.com");
+        cache.lookup("a.example.com");
+
+        assertEquals(2, dns.lookups);
+    }
+
+    @Test
+    public void resolveFailureKeepsOldAddresses() throws UnknownHostException {
+        FakeDns dns = new FakeDns();
+        DnsCache cache = new DnsCache(dns);
+        List<InetAddress> warmed = cache.resolve("api.example.com");
+
+        dns.fail = true;
+
+        assertSame(warmed, cache.resolve("api.example.com"));
+        assertSame(warmed, cache.lookup("api.example.com"));
+    }
+
+    @Test
+    public void unknownHostWithoutCacheThrows() {
+        FakeDns dns = new FakeDns();
+        dns.fail = true;
+        DnsCache cache = new DnsCache(dns);
+        try {
+            cache.lookup("missing.example.com");
+            fail();
+        } catch (UnknownHostException expected) {
+        }
+    }
+
+    @Test
+    public void clearForgetsEntries() throws UnknownHostException {
+        FakeDns dns = new FakeDns();
+        DnsCache cache = new DnsCache(dns);
+        cache.lookup("api.example.com");
+
+        cache.clear();
+        cache.lookup("api.example.com");
+
+        assertEquals(2, dns.lookups);
+    }
+}
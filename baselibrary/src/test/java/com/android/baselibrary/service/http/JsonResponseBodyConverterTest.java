@@ -0,0 +1,91 @@
+package com.android.baselibrary.service.http;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link JsonResponseBodyConverter} 按流解析响应体
+ */
+public class JsonResponseBodyConverterTest {
+
+    static class Item {
+        String name;
+        int count;
+        List<String> tags;
+    }
+
+    private final Gson gson = new Gson();
+
+    private JsonResponseBodyConverter<Item> converter() {
+        TypeAdapter<Item> adapter = gson.getAdapter(TypeToken.get(Item.class));
+        return new JsonResponseBodyConverter<>(gson, adapter);
+    }
+
+    @Test
+    public void parsesUtf8BodyByDefault() throws IOException {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"),
+                "{\"name\":\"首页\",\"count\":3,\"tags\":[\"a\",\"b\"]}");
+
+        Item item = converter().convert(body);
+
+        assertEquals("首页", item.name);
+        assertEquals(3, item.count);
+        assertEquals(2, item.tags.size());
+    }
+
+    @Test
+    public void usesCharsetFromContentType() throws IOException {
+        String json = "{\"name\":\"频道\",\"count\":1}";
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json; charset=GBK"),
+                json.getBytes(Charset.forName("GBK")));
+
+        assertEquals("频道", converter().convert(body).name);
+    }
+
+    @Test
+    public void rejectsTrailingContent() throws IOException {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"),
+                "{\"name\":\"a\"}{\"name\":\"b\"}");
+        try {
+            converter().convert(body);
+            fail();
+        } catch (JsonIOException | IOException expected) {
+        }
+    }
+
+    @Test
+    public void closesBodyAfterParsing() throws IOException {
+        final boolean[] closed = new boolean[1];
+        Buffer json = new Buffer().writeUtf8("{\"count\":7}");
+        BufferedSource source = Okio.buffer(new ForwardingSource(json) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        });
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), json.size(), source);
+
+        assertEquals(7, converter().convert(body).count);
+        assertTrue(closed[0]);
+    }
+}
@@ -0,0 +1,84 @@
+package com.android.baselibrary.service.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MetricsEventListener} 按接口记录各阶段耗时
+ */
+public class MetricsEventListenerTest {
+
+    private MockWebServer server;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient.Builder().eventListenerFactory(MetricsEventListener.FACTORY).build();
+        NetMetrics.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private void execute(Request request) throws IOException {
+        server.enqueue(new MockResponse().setBody("{\"count\":1}"));
+        Response response = client.newCall(request).execute();
+        try {
+            response.body().string();
+        } finally {
+            response.close();
+        }
+    }
+
+    @Test
+    public void recordsPhasesUnderEndpoint() throws IOException {
+        execute(new Request.Builder().url(server.url("/openapi/test")).build());
+
+        NetMetrics metrics = NetMetrics.getInstance();
+        assertEquals(1, metrics.count("openapi/test", NetMetrics.PHASE_TTFB));
+        assertEquals(1, metrics.count("openapi/test", NetMetrics.PHASE_BODY));
+        assertEquals(1, metrics.count("openapi/test", NetMetrics.PHASE_TOTAL));
+        assertEquals(11, metrics.max("openapi/test", NetMetrics.PHASE_SIZE));
+    }
+
+    @Test
+    public void untrackedRequestsAreSkipped() throws IOException {
+        execute(new Request.Builder().url(server.url("/")).head().tag(MetricsEventListener.UNTRACKED).build());
+
+        assertTrue(NetMetrics.getInstance().endpoints().isEmpty());
+    }
+
+    @Test
+    public void listenerIsReusedAfterCallEnds() throws IOException {
+        execute(new Request.Builder().url(server.url("/openapi/a")).build());
+        int pooled = MetricsEventListener.pooledCount();
+        assertTrue(pooled > 0);
+
+        Call call = client.newCall(new Request.Builder().url(server.url("/openapi/b")).build());
+        assertEquals(pooled - 1, MetricsEventListener.pooledCount());
+        server.enqueue(new MockResponse().setBody("{}"));
+        call.execute().close();
+
+        assertEquals(pooled, MetricsEventListener.pooledCount());
+        assertEquals(1, NetMetrics.getInstance().count("openapi/b", NetMetrics.PHASE_TOTAL));
+        assertFalse(NetMetrics.getInstance().endpoints().contains(""));
+    }
+}
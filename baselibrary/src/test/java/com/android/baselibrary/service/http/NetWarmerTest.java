@@ -0,0 +1,66 @@
+package com.android.baselibrary.service.http;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link NetWarmer} 记下的域名：按最近出现排序，超出上限时丢掉最久没出现的
+ */
+public class NetWarmerTest {
+
+    private static List<String> urls(String... hosts) {
+        List<String> urls = new ArrayList<>();
+        for (String host : hosts) {
+            urls.add(host == null ? null : "http://" + host + "/a.jpg");
+        }
+        return urls;
+    }
+
+    @Test
+    public void mostRecentFirst() {
+        LinkedHashMap<String, Boolean> lru = NetWarmer.newHostLru();
+        NetWarmer.touchHosts(lru, urls("a.com", "b.com", "c.com"));
+        NetWarmer.touchHosts(lru, urls("a.com"));
+
+        assertEquals(Arrays.asList("a.com", "c.com", "b.com"), NetWarmer.recentHosts(lru));
+    }
+
+    @Test
+    public void evictsLeastRecentBeyondLimit() {
+        LinkedHashMap<String, Boolean> lru = NetWarmer.newHostLru();
+        for (int i = 0; i < NetWarmer.MAX_HOSTS; i++) {
+            NetWarmer.touchHosts(lru, urls("h" + i + ".com"));
+        }
+        // h0 再次出现，最久没出现的变成 h1
+        NetWarmer.touchHosts(lru, urls("h0.com", "new.com"));
+
+        List<String> hosts = NetWarmer.recentHosts(lru);
+        assertEquals(NetWarmer.MAX_HOSTS, hosts.size());
+        assertEquals("new.com", hosts.get(0));
+        assertEquals("h0.com", hosts.get(1));
+        assertEquals("h2.com", hosts.get(hosts.size() - 1));
+    }
+
+    @Test
+    public void restoreKeepsSavedOrder() {
+        LinkedHashMap<String, Boolean> lru = NetWarmer.newHostLru();
+        NetWarmer.restoreHosts(lru, Arrays.asList("x.com", "y.com", "z.com"));
+        assertEquals(Arrays.asList("x.com", "y.com", "z.com"), NetWarmer.recentHosts(lru));
+
+        NetWarmer.touchHosts(lru, urls("z.com"));
+        assertEquals(Arrays.asList("z.com", "x.com", "y.com"), NetWarmer.recentHosts(lru));
+    }
+
+    @Test
+    public void invalidUrlsAreIgnored() {
+        LinkedHashMap<String, Boolean> lru = NetWarmer.newHostLru();
+        NetWarmer.touchHosts(lru, Arrays.asList(null, "", "not a url", "http://ok.com/x"));
+        assertEquals(Arrays.asList("ok.com"), NetWarmer.recentHosts(lru));
+    }
+}
@@ -0,0 +1,119 @@
+package com.android.baselibrary.service.jncryptor;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Ciphertext compatibility and HMAC checks of {@link AES256JNCryptor} on
+ * top of the pooled Cipher / Mac instances.
+ */
+public class AES256JNCryptorTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final char[] PASSWORD = "secret".toCharArray();
+  private static final byte[] ENCRYPTION_SALT = { 1, 2, 3, 4, 5, 6, 7, 8 };
+  private static final byte[] HMAC_SALT = { 8, 7, 6, 5, 4, 3, 2, 1 };
+  private static final byte[] IV = new byte[16];
+
+  static {
+    for (int i = 0; i < IV.length; i++) {
+      IV[i] = (byte) (i * 17);
+    }
+  }
+
+  /**
+   * Plaintexts and the ciphertext the implementation before CipherPool
+   * produced for them (1000 iterations and the salts / IV above).
+   */
+  private static final String[][] BASELINE = {
+      { "",
+          "03010102030405060708080706050403020100112233445566778899aabbccddeeff"
+              + "3b7d94e0c43c7e56ef83c3c6dbf9b8b2"
+              + "fc02185395f3c14766821875011a6602790722aa081afff895ea00576ef74ddf" },
+      { "Hello, World!",
+          "03010102030405060708080706050403020100112233445566778899aabbccddeeff"
+              + "7c6f05e259dee42e42d7b30a12100f15"
+              + "135becb7ac3d003609bf9efe2e5283e1e53795082db16951a25625eebd37a7f9" },
+      { "0123456789abcdef0123456789abcdef-more than two blocks",
+          "03010102030405060708080706050403020100112233445566778899aabbccddeeff"
+              + "c9286e3e7094e99dd7d0fd46e6f274356c71f5735a21b9f639a0d44048ee5c76"
+              + "6c7801fb70d516e447e56a972f7c4028"
+              + "58c4c22e3413f85c3ee764510a65352e7ad03cd103dc1f4040cac993b720fdb2"
+              + "a0e775906f2085f4d122351868a93e24" },
+  };
+
+  private static byte[] hex(String s) {
+    byte[] data = new byte[s.length() / 2];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2), 16);
+    }
+    return data;
+  }
+
+  @Test
+  public void ciphertextMatchesBaseline() throws CryptorException {
+    AES256JNCryptor cryptor = new AES256JNCryptor(1000);
+    // twice, so the second round runs on the instances cached by the first
+    for (int round = 0; round < 2; round++) {
+      for (String[] vector : BASELINE) {
+        byte[] ciphertext = cryptor.encryptData(vector[0].getBytes(UTF_8),
+            PASSWORD, ENCRYPTION_SALT, HMAC_SALT, IV);
+        assertArrayEquals(vector[0], hex(vector[1]), ciphertext);
+      }
+    }
+  }
+
+  @Test
+  public void baselineCiphertextDecrypts() throws CryptorException {
+    AES256JNCryptor cryptor = new AES256JNCryptor(1000);
+    for (String[] vector : BASELINE) {
+      byte[] plaintext = cryptor.decryptData(hex(vector[1]), PASSWORD);
+      assertEquals(vector[0], new String(plaintext, UTF_8));
+    }
+  }
+
+  @Test
+  public void roundTripWithRandomSaltsAndIv() throws CryptorException {
+    AES256JNCryptor cryptor = new AES256JNCryptor(1000);
+    byte[] plaintext = new byte[1000];
+    for (int i = 0; i < plaintext.length; i++) {
+      plaintext[i] = (byte) i;
+    }
+    byte[] ciphertext = cryptor.encryptData(plaintext, PASSWORD);
+    assertArrayEquals(plaintext, cryptor.decryptData(ciphertext, PASSWORD));
+  }
+
+  @Test
+  public void tamperedHmacIsRejected() throws CryptorException {
+    assertRejected(hex(BASELINE[1][1]), -1);
+  }
+
+  @Test
+  public void tamperedCiphertextIsRejected() throws CryptorException {
+    // first byte after version, options, salts and IV
+    assertRejected(hex(BASELINE[1][1]), 34);
+  }
+
+  private static void assertRejected(byte[] ciphertext, int index)
+      throws CryptorException {
+    AES256JNCryptor cryptor = new AES256JNCryptor(1000);
+    if (index < 0) {
+      index += ciphertext.length;
+    }
+    ciphertext[index] ^= 1;
+    try {
+      cryptor.decryptData(ciphertext, PASSWORD);
+      fail("Expected InvalidHMACException");
+    } catch (InvalidHMACException expected) {
+    }
+    // a rejected message must not break the pooled instances
+    ciphertext[index] ^= 1;
+    assertEquals("Hello, World!",
+        new String(cryptor.decryptData(ciphertext, PASSWORD), UTF_8));
+  }
+}
@@ -0,0 +1,127 @@
+package com.android.baselibrary.service.jncryptor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.SecretKey;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Lookup, eviction and opt-in behaviour of {@link DerivedKeyCache}.
+ */
+public class DerivedKeyCacheTest {
+
+  private static final byte[] SALT = { 1, 2, 3, 4, 5, 6, 7, 8 };
+
+  @After
+  public void tearDown() {
+    AES256JNCryptor.setKeyCacheEnabled(false);
+  }
+
+  private static DerivedKeyCache.LookupKey lookupKey(String password)
+      throws GeneralSecurityException {
+    return DerivedKeyCache.lookupKey(password.toCharArray(), SALT, 1000);
+  }
+
+  @Test
+  public void missThenHit() throws GeneralSecurityException {
+    DerivedKeyCache cache = new DerivedKeyCache();
+    byte[] key = { 9, 9, 9 };
+
+    assertNull(cache.get(lookupKey("secret")));
+    cache.put(lookupKey("secret"), key);
+    assertArrayEquals(key, cache.get(lookupKey("secret")));
+
+    assertEquals(1, cache.missCount());
+    assertEquals(1, cache.hitCount());
+  }
+
+  @Test
+  public void lookupDependsOnPasswordSaltAndIterations()
+      throws GeneralSecurityException {
+    DerivedKeyCache cache = new DerivedKeyCache();
+    cache.put(lookupKey("secret"), new byte[] { 1 });
+
+    assertNull(cache.get(lookupKey("other")));
+    assertNull(cache.get(DerivedKeyCache.lookupKey("secret".toCharArray(),
+        new byte[] { 8, 7, 6, 5, 4, 3, 2, 1 }, 1000)));
+    assertNull(cache.get(DerivedKeyCache.lookupKey("secret".toCharArray(),
+        SALT, 1001)));
+    assertEquals(3, cache.missCount());
+  }
+
+  @Test
+  public void returnedKeysAreCopies() throws GeneralSecurityException {
+    DerivedKeyCache cache = new DerivedKeyCache();
+    byte[] key = { 1, 2, 3 };
+    cache.put(lookupKey("secret"), key);
+    key[0] = 0;
+    cache.get(lookupKey("secret"))[1] = 0;
+
+    assertArrayEquals(new byte[] { 1, 2, 3 }, cache.get(lookupKey("secret")));
+  }
+
+  @Test
+  public void leastRecentlyUsedEntryIsEvicted()
+      throws GeneralSecurityException {
+    DerivedKeyCache cache = new DerivedKeyCache();
+    for (int i = 0; i < DerivedKeyCache.MAX_ENTRIES; i++) {
+      cache.put(lookupKey("password" + i), new byte[] { (byte) i });
+    }
+    // Touch the oldest entry so the second one becomes the eldest
+    assertNotNull(cache.get(lookupKey("password0")));
+
+    cache.put(lookupKey("extra"), new byte[] { 1 });
+
+    assertEquals(DerivedKeyCache.MAX_ENTRIES, cache.size());
+    assertNotNull(cache.get(lookupKey("password0")));
+    assertNull(cache.get(lookupKey("password1")));
+    assertNotNull(cache.get(lookupKey("extra")));
+  }
+
+  @Test
+  public void clearRemovesEntries() throws GeneralSecurityException {
+    DerivedKeyCache cache = new DerivedKeyCache();
+    cache.put(lookupKey("secret"), new byte[] { 1 });
+
+    cache.clear();
+
+    assertEquals(0, cache.size());
+    assertNull(cache.get(lookupKey("secret")));
+  }
+
+  @Test
+  public void cryptorOnlyCachesWhenEnabled() throws CryptorException {
+    AES256JNCryptor cryptor = new AES256JNCryptor(1000);
+    char[] password = "secret".toCharArray();
+    assertFalse(AES256JNCryptor.isKeyCacheEnabled());
+
+    int hits = AES256JNCryptor.keyCacheHitCount();
+    int misses = AES256JNCryptor.keyCacheMissCount();
+    SecretKey uncached = cryptor.keyForPassword(password, SALT);
+    cryptor.keyForPassword(password, SALT);
+    assertEquals(hits, AES256JNCryptor.keyCacheHitCount());
+    assertEquals(misses, AES256JNCryptor.keyCacheMissCount());
+
+    AES256JNCryptor.setKeyCacheEnabled(true);
+    SecretKey first = cryptor.keyForPassword(password, SALT);
+    SecretKey second = cryptor.keyForPassword(password, SALT);
+    assertEquals(misses + 1, AES256JNCryptor.keyCacheMissCount());
+    assertEquals(hits + 1, AES256JNCryptor.keyCacheHitCount());
+    assertArrayEquals(uncached.getEncoded(), first.getEncoded());
+    assertArrayEquals(uncached.getEncoded(), second.getEncoded());
+
+    // Disabling clears the cache, so re-enabling starts with a miss
+    AES256JNCryptor.setKeyCacheEnabled(false);
+    AES256JNCryptor.setKeyCacheEnabled(true);
+    cryptor.keyForPassword(password, SALT);
+    assertEquals(misses + 2, AES256JNCryptor.keyCacheMissCount());
+  }
+}
@@ -0,0 +1,232 @@
+package com.android.baselibrary.service.upload;
+
+import com.android.baselibrary.service.NetApi;
+import com.android.baselibrary.service.NetService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ImageUploader} 通过修改头像接口的 multipart 表单上传到本地的 MockWebServer
+ */
+public class ImageUploaderTest {
+
+    private static final Pattern FILE_NAME = Pattern.compile("filename=\"([^\"]+)\"");
+    private static final int IMAGE_SIZE = 20 * 1024;
+
+    private MockWebServer server;
+    private NetApi api;
+    private ScheduledExecutorService mainThread;
+    private ImageUploader.CallbackThread callbackThread;
+
+    private final Map<String, String> bodies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    private final Map<String, Integer> failuresBeforeSuccess = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int running = inFlight.incrementAndGet();
+                try {
+                    synchronized (maxInFlight) {
+                        maxInFlight.set(Math.max(maxInFlight.get(), running));
+                    }
+                    Thread.sleep(100);
+                    String body = request.getBody().readUtf8();
+                    Matcher matcher = FILE_NAME.matcher(body);
+                    if (!matcher.find()) {
+                        return new MockResponse().setResponseCode(400);
+                    }
+                    String name = matcher.group(1);
+                    bodies.put(name, body);
+                    attempts.putIfAbsent(name, new AtomicInteger());
+                    int attempt = attempts.get(name).incrementAndGet();
+                    Integer failures = failuresBeforeSuccess.get(name);
+                    if (failures != null && attempt <= failures) {
+                        return new MockResponse().setResponseCode(500);
+                    }
+                    return new MockResponse().setBody(
+                            "{\"httpCode\":200,\"retCode\":\"1\",\"url\":\"http://cdn/" + name + "\"}");
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        server.start();
+        mainThread = Executors.newSingleThreadScheduledExecutor();
+        callbackThread = new ImageUploader.CallbackThread() {
+            @Override
+            public void post(Runnable runnable, long delayMillis) {
+                mainThread.schedule(runnable, delayMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void removeAll() {
+            }
+        };
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient())
+                .callbackExecutor(mainThread)
+                .build()
+                .create(NetApi.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mainThread.shutdownNow();
+        server.shutdown();
+    }
+
+    private static byte[] image(String path) {
+        byte[] data = new byte[IMAGE_SIZE];
+        Arrays.fill(data, (byte) new File(path).getName().charAt(0));
+        return data;
+    }
+
+    private ImageUploader uploader(int maxInFlight, int maxRetries) {
+        return new ImageUploader(new ImageUploader.RequestFactory() {
+            @Override
+            public Call<ResponseBody> create(RequestBody image, String fileName) {
+                return api.saveMemberPic(NetService.memberPicForm(image, fileName));
+            }
+        }, maxInFlight, maxRetries, callbackThread) {
+            @Override
+            CompressedImageBody createBody(String path) {
+                return new CompressedImageBody(path, image(path));
+            }
+        };
+    }
+
+    private static class RecordingListener implements ImageUploader.Listener {
+        final CountDownLatch finished = new CountDownLatch(1);
+        final Map<Integer, long[]> lastProgress = new ConcurrentHashMap<>();
+        final List<Integer> failed = Collections.synchronizedList(new ArrayList<Integer>());
+        volatile List<String> urls;
+
+        @Override
+        public void onProgress(int index, long written, long total) {
+            lastProgress.put(index, new long[]{written, total});
+        }
+
+        @Override
+        public void onSuccess(int index, String url) {
+        }
+
+        @Override
+        public void onFailed(int index) {
+            failed.add(index);
+        }
+
+        @Override
+        public void onFinished(List<String> urls) {
+            this.urls = new ArrayList<>(urls);
+            finished.countDown();
+        }
+    }
+
+    private void start(final ImageUploader uploader, final List<String> paths, final RecordingListener listener) {
+        mainThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                uploader.upload(paths, listener);
+            }
+        });
+    }
+
+    @Test
+    public void uploadsMultipartWithJpegName() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        start(uploader(2, 0), Arrays.asList("/sdcard/a.png", "/sdcard/b.jpeg", "/sdcard/c"), listener);
+
+        assertTrue(listener.finished.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("http://cdn/a.jpg", "http://cdn/b.jpg", "http://cdn/c.jpg"), listener.urls);
+        assertEquals(3, server.getRequestCount());
+        assertTrue(maxInFlight.get() <= 2);
+
+        String body = bodies.get("a.jpg");
+        assertTrue(body.contains("name=\"picFile\"; filename=\"a.jpg\""));
+        assertTrue(body.contains("Content-Type: image/jpeg"));
+        assertTrue(body.contains(new String(image("a"), "ISO-8859-1")));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(IMAGE_SIZE, listener.lastProgress.get(i)[0]);
+            assertEquals(IMAGE_SIZE, listener.lastProgress.get(i)[1]);
+        }
+    }
+
+    @Test
+    public void serverErrorIsRetried() throws Exception {
+        failuresBeforeSuccess.put("b.jpg", 1);
+        RecordingListener listener = new RecordingListener();
+        start(uploader(3, 1), Arrays.asList("a.jpg", "b.jpg"), listener);
+
+        assertTrue(listener.finished.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("http://cdn/a.jpg", "http://cdn/b.jpg"), listener.urls);
+        assertEquals(2, attempts.get("b.jpg").get());
+        assertTrue(listener.failed.isEmpty());
+    }
+
+    @Test
+    public void failsAfterMaxRetries() throws Exception {
+        failuresBeforeSuccess.put("b.jpg", 10);
+        RecordingListener listener = new RecordingListener();
+        start(uploader(3, 1), Arrays.asList("a.jpg", "b.jpg"), listener);
+
+        assertTrue(listener.finished.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("http://cdn/a.jpg", null), listener.urls);
+        assertEquals(Collections.singletonList(1), listener.failed);
+        assertEquals(2, attempts.get("b.jpg").get());
+    }
+
+    @Test
+    public void cancelStopsCallbacks() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        final ImageUploader uploader = uploader(1, 0);
+        start(uploader, Arrays.asList("a.jpg", "b.jpg"), listener);
+        assertTrue(server.takeRequest(5, TimeUnit.SECONDS) != null);
+        mainThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                uploader.cancel();
+            }
+        });
+
+        assertFalse(listener.finished.await(1, TimeUnit.SECONDS));
+        assertFalse(bodies.containsKey("b.jpg"));
+    }
+}
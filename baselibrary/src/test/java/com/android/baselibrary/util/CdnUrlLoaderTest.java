@@ -0,0 +1,95 @@
+package com.android.baselibrary.util;
+
+import com.android.baselibrary.service.UrlConstants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link CdnUrlLoader} 生成的缩放图地址：同一档尺寸同一个地址，和网络无关
+ */
+public class CdnUrlLoaderTest {
+
+    private static final String URL = "https://img.example.com/cover/1.jpg";
+
+    @Before
+    public void setUp() {
+        CdnUrlLoader.setHosts("img.example.com", "cdn.example.net");
+    }
+
+    @After
+    public void tearDown() {
+        CdnUrlLoader.setHosts(UrlConstants.IMAGE_CDN_HOSTS);
+    }
+
+    @Test
+    public void acceptsOnlyPlainHttpImages() {
+        assertTrue(CdnUrlLoader.accepts(URL));
+        assertTrue(CdnUrlLoader.accepts("http://img.example.com/a.png"));
+        assertTrue(CdnUrlLoader.accepts("https://a.cdn.example.net:8443/a.png"));
+        assertFalse(CdnUrlLoader.accepts(null));
+        assertFalse(CdnUrlLoader.accepts("/sdcard/a.jpg"));
+        assertFalse(CdnUrlLoader.accepts("file:///sdcard/a.jpg"));
+        assertFalse(CdnUrlLoader.accepts("https://img.example.com/a.GIF"));
+        assertFalse(CdnUrlLoader.accepts(URL + "@240w_240h_75Q"));
+        assertFalse(CdnUrlLoader.accepts(URL + "?x=1"));
+    }
+
+    @Test
+    public void foreignHostIsLoadedAsIs() {
+        String ad = "https://ads.other.com/banner/1.jpg";
+        assertFalse(CdnUrlLoader.accepts(ad));
+        assertFalse(CdnUrlLoader.accepts("https://notimg.example.com.evil.com/1.jpg"));
+        assertFalse(CdnUrlLoader.accepts("https://badimg.example.com/1.jpg"));
+        assertEquals(ad, CdnUrlLoader.variant(ad, 300, 300));
+
+        CdnUrlLoader.setHosts();
+        assertFalse(CdnUrlLoader.accepts(URL));
+        assertEquals(URL, CdnUrlLoader.variant(URL, 300, 300));
+    }
+
+    @Test
+    public void sizesRoundUpToBuckets() {
+        assertEquals(120, CdnUrlLoader.bucket(1));
+        assertEquals(120, CdnUrlLoader.bucket(120));
+        assertEquals(240, CdnUrlLoader.bucket(121));
+        assertEquals(1080, CdnUrlLoader.bucket(1000));
+        assertEquals(1500, CdnUrlLoader.bucket(1500));
+        assertEquals(1500, CdnUrlLoader.bucket(4000));
+    }
+
+    @Test
+    public void variantFormat() {
+        assertEquals(URL + "@480w_360h_80Q", CdnUrlLoader.variant(URL, 470, 300));
+        assertEquals(URL + "@120w_120h_75Q", CdnUrlLoader.variant(URL, 100, 100));
+        assertEquals(URL + "@1080w_1500h_85Q", CdnUrlLoader.variant(URL, 1080, 1920));
+    }
+
+    @Test
+    public void sameBucketSharesUrl() {
+        assertEquals(CdnUrlLoader.variant(URL, 481, 241), CdnUrlLoader.variant(URL, 720, 360));
+    }
+
+    @Test
+    public void qualityIsFixedPerBucket() {
+        int previous = 0;
+        for (int bucket : CdnUrlLoader.SIZE_BUCKETS) {
+            int quality = CdnUrlLoader.quality(bucket);
+            assertTrue(quality >= previous);
+            assertEquals(quality, CdnUrlLoader.quality(bucket));
+            previous = quality;
+        }
+    }
+
+    @Test
+    public void unknownSizeOrUnsupportedUrlIsUnchanged() {
+        assertEquals(URL, CdnUrlLoader.variant(URL, 0, 300));
+        assertEquals(URL, CdnUrlLoader.variant(URL, 300, -1));
+        assertEquals("/sdcard/a.jpg", CdnUrlLoader.variant("/sdcard/a.jpg", 300, 300));
+    }
+}
@@ -0,0 +1,17 @@
+package com.android.gsonadapter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记需要在编译期生成 Gson TypeAdapter 的 bean
+ * <p>
+ * 注解类的所有成员类（例如 HomeDataBean.Data）会一并生成。
+ * 生成的 TypeAdapter 通过 getter / setter 读写字段，没有无参构造或缺少 getter / setter 的类会被跳过，继续走 Gson 反射。
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GsonAdapter {
+}
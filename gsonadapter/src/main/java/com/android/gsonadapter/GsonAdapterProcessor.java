@@ -0,0 +1,539 @@
+package com.android.gsonadapter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * 为 {@link GsonAdapter} 标记的 bean 生成流式 TypeAdapter，并生成一个 TypeAdapterFactory 统一注册
+ * <p>
+ * 生成的代码与 Gson 反射的行为保持一致：字段名即 json key、未知 key 跳过、基本类型遇到 null 保持默认值、
+ * 字符串字段兼容数字和布尔值；其他类型（List、嵌套 bean 等）交给 gson.getAdapter，嵌套 bean 会再回到生成的 adapter。
+ * <p>
+ * Factory 生成在所有被注解类的公共包下，类名为 {@value #FACTORY_NAME}。
+ */
+public class GsonAdapterProcessor extends AbstractProcessor {
+
+    static final String FACTORY_NAME = "BeanTypeAdapterFactory";
+
+    private static final String ADAPTER_SUFFIX = "TypeAdapter";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(GsonAdapter.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (annotations.isEmpty() || roundEnv.processingOver()) {
+            return false;
+        }
+        Set<TypeElement> beans = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(GsonAdapter.class)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                collect((TypeElement) element, beans);
+            }
+        }
+        factoryPackage = commonPackage(beans);
+        List<TypeElement> generated = new ArrayList<>();
+        for (TypeElement bean : beans) {
+            List<Property> properties = analyze(bean);
+            if (properties == null) {
+                continue;
+            }
+            try {
+                writeAdapter(bean, properties);
+                generated.add(bean);
+            } catch (IOException e) {
+                error(bean, "写入 TypeAdapter 失败: " + e.getMessage());
+            }
+        }
+        if (!generated.isEmpty()) {
+            try {
+                writeFactory(generated);
+            } catch (IOException e) {
+                error(null, "写入 " + FACTORY_NAME + " 失败: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void collect(TypeElement type, Set<TypeElement> out) {
+        out.add(type);
+        for (TypeElement member : ElementFilter.typesIn(type.getEnclosedElements())) {
+            if (member.getKind() == ElementKind.CLASS) {
+                collect(member, out);
+            }
+        }
+    }
+
+    /**
+     * 一个需要读写的字段
+     */
+    private static class Property {
+        String name;
+        TypeMirror type;
+        /**
+         * 读：setter 名，为 null 时直接写字段
+         */
+        String setter;
+        /**
+         * 写：getter 名，为 null 时直接读字段
+         */
+        String getter;
+        Kind kind;
+    }
+
+    private enum Kind {
+        INT("Integer", "readInteger", "(long) %s", "value.%s(v)"),
+        LONG("Long", "readLong", "%s", "value.%s(v)"),
+        FLOAT("Float", "readFloat", "(Number) Float.valueOf(%s)", "value.%s(v)"),
+        DOUBLE("Double", "readDouble", "%s", "value.%s(v)"),
+        BOOLEAN("Boolean", "readBoolean", "%s", "value.%s(v)"),
+        BOXED_INT("Integer", "readInteger", "(Number) %s", null),
+        BOXED_LONG("Long", "readLong", "(Number) %s", null),
+        BOXED_FLOAT("Float", "readFloat", "(Number) %s", null),
+        BOXED_DOUBLE("Double", "readDouble", "(Number) %s", null),
+        BOXED_BOOLEAN("Boolean", "readBoolean", "%s", null),
+        STRING("String", "readString", "%s", null),
+        DELEGATE(null, null, null, null);
+
+        final String boxed;
+        final String reader;
+        final String writeExpression;
+        /**
+         * 不为 null 表示基本类型，遇到 json null 时不赋值
+         */
+        final String primitiveAssign;
+
+        Kind(String boxed, String reader, String writeExpression, String primitiveAssign) {
+            this.boxed = boxed;
+            this.reader = reader;
+            this.writeExpression = writeExpression;
+            this.primitiveAssign = primitiveAssign;
+        }
+    }
+
+    /**
+     * @return 无法生成时返回 null，该类继续走反射
+     */
+    private List<Property> analyze(TypeElement bean) {
+        if (!isInstantiable(bean)) {
+            note(bean, "没有可访问的无参构造，使用反射解析");
+            return null;
+        }
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(bean));
+        List<Property> properties = new ArrayList<>();
+        Set<String> names = new LinkedHashSet<>();
+        TypeElement current = bean;
+        while (current != null && !"java.lang.Object".equals(current.getQualifiedName().toString())) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                String name = field.getSimpleName().toString();
+                if (!names.add(name)) {
+                    note(bean, "字段 " + name + " 重复声明，使用反射解析");
+                    return null;
+                }
+                Property property = new Property();
+                property.name = name;
+                property.type = field.asType();
+                property.kind = kindOf(field.asType());
+                if (property.kind == Kind.DELEGATE && field.asType().getKind().isPrimitive()) {
+                    note(bean, "字段 " + name + " 类型不支持，使用反射解析");
+                    return null;
+                }
+                boolean direct = modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.FINAL);
+                property.setter = direct ? null : findSetter(methods, field);
+                property.getter = direct ? null : findGetter(methods, field);
+                if (!direct && (property.setter == null || property.getter == null)) {
+                    note(bean, "字段 " + name + " 缺少 getter / setter，使用反射解析");
+                    return null;
+                }
+                properties.add(property);
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return properties;
+    }
+
+    private boolean isInstantiable(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getModifiers().contains(Modifier.PUBLIC)) {
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+            if (!isInstantiable((TypeElement) type.getEnclosingElement())) {
+                return false;
+            }
+        } else if (type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER) {
+            return false;
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String findSetter(List<ExecutableElement> methods, VariableElement field) {
+        String name = "set" + capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : methods) {
+            if (isAccessible(method) && method.getSimpleName().contentEquals(name)
+                    && method.getParameters().size() == 1
+                    && processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), field.asType())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private String findGetter(List<ExecutableElement> methods, VariableElement field) {
+        String capitalized = capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            boolean nameMatches = name.equals("get" + capitalized)
+                    || (field.asType().getKind() == TypeKind.BOOLEAN && name.equals("is" + capitalized));
+            if (isAccessible(method) && nameMatches && method.getParameters().isEmpty()
+                    && processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAccessible(ExecutableElement method) {
+        return method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private Kind kindOf(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return Kind.INT;
+            case LONG:
+                return Kind.LONG;
+            case FLOAT:
+                return Kind.FLOAT;
+            case DOUBLE:
+                return Kind.DOUBLE;
+            case BOOLEAN:
+                return Kind.BOOLEAN;
+            case DECLARED:
+                String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+                switch (name) {
+                    case "java.lang.String":
+                        return Kind.STRING;
+                    case "java.lang.Integer":
+                        return Kind.BOXED_INT;
+                    case "java.lang.Long":
+                        return Kind.BOXED_LONG;
+                    case "java.lang.Float":
+                        return Kind.BOXED_FLOAT;
+                    case "java.lang.Double":
+                        return Kind.BOXED_DOUBLE;
+                    case "java.lang.Boolean":
+                        return Kind.BOXED_BOOLEAN;
+                    default:
+                        return Kind.DELEGATE;
+                }
+            default:
+                return Kind.DELEGATE;
+        }
+    }
+
+    private void writeAdapter(TypeElement bean, List<Property> properties) throws IOException {
+        String packageName = packageOf(bean);
+        String adapterName = adapterName(bean);
+        String beanName = bean.getQualifiedName().toString();
+        boolean inner = bean.getNestingKind() == NestingKind.MEMBER && !bean.getModifiers().contains(Modifier.STATIC);
+
+        StringBuilder out = new StringBuilder();
+        out.append("// 由 GsonAdapterProcessor 生成，不要手动修改\n");
+        out.append("package ").append(packageName).append(";\n\n");
+        out.append("import com.google.gson.Gson;\n");
+        out.append("import com.google.gson.TypeAdapter;\n");
+        out.append("import com.google.gson.reflect.TypeToken;\n");
+        out.append("import com.google.gson.stream.JsonReader;\n");
+        out.append("import com.google.gson.stream.JsonToken;\n");
+        out.append("import com.google.gson.stream.JsonWriter;\n\n");
+        out.append("import java.io.IOException;\n\n");
+        out.append("public final class ").append(adapterName).append(" extends TypeAdapter<").append(beanName).append("> {\n\n");
+        out.append("    private final Gson gson;\n");
+        if (inner) {
+            TypeElement enclosing = (TypeElement) bean.getEnclosingElement();
+            out.append("    /**\n     * 非静态内部类需要外部类实例，所有对象共用一个\n     */\n");
+            out.append("    private final ").append(enclosing.getQualifiedName()).append(" outer = ")
+                    .append(newInstance(enclosing)).append(";\n");
+        }
+        for (Property property : properties) {
+            if (property.kind == Kind.DELEGATE) {
+                out.append("    private TypeAdapter<").append(boxedName(property.type)).append("> ")
+                        .append(property.name).append("Adapter;\n");
+            }
+        }
+        out.append("\n    public ").append(adapterName).append("(Gson gson) {\n");
+        out.append("        this.gson = gson;\n");
+        out.append("    }\n");
+
+        // write
+        out.append("\n    @Override\n");
+        out.append("    public void write(JsonWriter out, ").append(beanName).append(" value) throws IOException {\n");
+        out.append("        if (value == null) {\n            out.nullValue();\n            return;\n        }\n");
+        out.append("        out.beginObject();\n");
+        for (Property property : properties) {
+            String get = property.getter != null ? "value." + property.getter + "()" : "value." + property.name;
+            out.append("        out.name(\"").append(property.name).append("\");\n");
+            if (property.kind == Kind.DELEGATE) {
+                out.append("        ").append(property.name).append("Adapter().write(out, ").append(get).append(");\n");
+            } else {
+                out.append("        out.value(").append(String.format(property.kind.writeExpression, get)).append(");\n");
+            }
+        }
+        out.append("        out.endObject();\n");
+        out.append("    }\n");
+
+        // read
+        out.append("\n    @Override\n");
+        out.append("    public ").append(beanName).append(" read(JsonReader in) throws IOException {\n");
+        out.append("        if (in.peek() == JsonToken.NULL) {\n            in.nextNull();\n            return null;\n        }\n");
+        out.append("        ").append(beanName).append(" value = ")
+                .append(inner ? "outer.new " + bean.getSimpleName() + "()" : "new " + beanName + "()").append(";\n");
+        out.append("        in.beginObject();\n");
+        out.append("        while (in.hasNext()) {\n");
+        out.append("            switch (in.nextName()) {\n");
+        for (Property property : properties) {
+            out.append("                case \"").append(property.name).append("\": {\n");
+            String read;
+            if (property.kind == Kind.DELEGATE) {
+                read = property.name + "Adapter().read(in)";
+            } else {
+                read = factoryName() + "." + property.kind.reader + "(in)";
+            }
+            if (property.kind.primitiveAssign != null) {
+                out.append("                    ").append(property.kind.boxed).append(" v = ").append(read).append(";\n");
+                out.append("                    if (v != null) {\n");
+                out.append("                        ").append(assign(property, "v")).append(";\n");
+                out.append("                    }\n");
+            } else {
+                out.append("                    ").append(assign(property, read)).append(";\n");
+            }
+            out.append("                    break;\n");
+            out.append("                }\n");
+        }
+        out.append("                default:\n");
+        out.append("                    in.skipValue();\n");
+        out.append("                    break;\n");
+        out.append("            }\n");
+        out.append("        }\n");
+        out.append("        in.endObject();\n");
+        out.append("        return value;\n");
+        out.append("    }\n");
+
+        // lazy delegates
+        for (Property property : properties) {
+            if (property.kind != Kind.DELEGATE) {
+                continue;
+            }
+            String type = boxedName(property.type);
+            out.append("\n    private TypeAdapter<").append(type).append("> ").append(property.name).append("Adapter() {\n");
+            out.append("        TypeAdapter<").append(type).append("> adapter = ").append(property.name).append("Adapter;\n");
+            out.append("        if (adapter == null) {\n");
+            out.append("            adapter = gson.getAdapter(").append(typeToken(property.type)).append(");\n");
+            out.append("            ").append(property.name).append("Adapter = adapter;\n");
+            out.append("        }\n");
+            out.append("        return adapter;\n");
+            out.append("    }\n");
+        }
+        out.append("}\n");
+
+        Writer writer = processingEnv.getFiler()
+                .createSourceFile(packageName + "." + adapterName, bean).openWriter();
+        try {
+            writer.write(out.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 所有被注解类所在包的公共前缀
+     */
+    private String factoryPackage = "";
+
+    private String commonPackage(Set<TypeElement> beans) {
+        String common = null;
+        for (TypeElement bean : beans) {
+            String pkg = packageOf(bean);
+            if (common == null) {
+                common = pkg;
+                continue;
+            }
+            while (!common.isEmpty() && !(pkg.equals(common) || pkg.startsWith(common + "."))) {
+                int dot = common.lastIndexOf('.');
+                common = dot < 0 ? "" : common.substring(0, dot);
+            }
+        }
+        return common == null ? "" : common;
+    }
+
+    private String factoryName() {
+        return factoryPackage.isEmpty() ? FACTORY_NAME : factoryPackage + "." + FACTORY_NAME;
+    }
+
+    private void writeFactory(List<TypeElement> beans) throws IOException {
+        StringBuilder out = new StringBuilder();
+        out.append("// 由 GsonAdapterProcessor 生成，不要手动修改\n");
+        if (!factoryPackage.isEmpty()) {
+            out.append("package ").append(factoryPackage).append(";\n\n");
+        }
+        out.append("import com.google.gson.Gson;\n");
+        out.append("import com.google.gson.JsonSyntaxException;\n");
+        out.append("import com.google.gson.TypeAdapter;\n");
+        out.append("import com.google.gson.TypeAdapterFactory;\n");
+        out.append("import com.google.gson.reflect.TypeToken;\n");
+        out.append("import com.google.gson.stream.JsonReader;\n");
+        out.append("import com.google.gson.stream.JsonToken;\n\n");
+        out.append("import java.io.IOException;\n\n");
+        out.append("/**\n * 注册所有生成的 TypeAdapter，只匹配精确类型，子类仍走反射\n */\n");
+        out.append("public final class ").append(FACTORY_NAME).append(" implements TypeAdapterFactory {\n\n");
+        out.append("    @SuppressWarnings(\"unchecked\")\n");
+        out.append("    @Override\n");
+        out.append("    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {\n");
+        out.append("        Class<? super T> raw = type.getRawType();\n");
+        for (TypeElement bean : beans) {
+            out.append("        if (raw == ").append(bean.getQualifiedName()).append(".class) {\n");
+            out.append("            return (TypeAdapter<T>) new ").append(packageOf(bean)).append('.')
+                    .append(adapterName(bean)).append("(gson);\n");
+            out.append("        }\n");
+        }
+        out.append("        return null;\n");
+        out.append("    }\n");
+        appendReader(out, "Integer", "in.nextInt()");
+        appendReader(out, "Long", "in.nextLong()");
+        appendReader(out, "Double", "in.nextDouble()");
+        appendReader(out, "Float", "(float) in.nextDouble()");
+        out.append("\n    public static Boolean readBoolean(JsonReader in) throws IOException {\n");
+        out.append("        JsonToken token = in.peek();\n");
+        out.append("        if (token == JsonToken.NULL) {\n            in.nextNull();\n            return null;\n        }\n");
+        out.append("        if (token == JsonToken.STRING) {\n            return Boolean.parseBoolean(in.nextString());\n        }\n");
+        out.append("        return in.nextBoolean();\n");
+        out.append("    }\n");
+        out.append("\n    public static String readString(JsonReader in) throws IOException {\n");
+        out.append("        JsonToken token = in.peek();\n");
+        out.append("        if (token == JsonToken.NULL) {\n            in.nextNull();\n            return null;\n        }\n");
+        out.append("        if (token == JsonToken.BOOLEAN) {\n            return Boolean.toString(in.nextBoolean());\n        }\n");
+        out.append("        return in.nextString();\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        Writer writer = processingEnv.getFiler()
+                .createSourceFile(factoryName(), beans.toArray(new Element[beans.size()])).openWriter();
+        try {
+            writer.write(out.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void appendReader(StringBuilder out, String type, String expression) {
+        out.append("\n    public static ").append(type).append(" read").append(type)
+                .append("(JsonReader in) throws IOException {\n");
+        out.append("        if (in.peek() == JsonToken.NULL) {\n            in.nextNull();\n            return null;\n        }\n");
+        out.append("        try {\n");
+        out.append("            return ").append(expression).append(";\n");
+        out.append("        } catch (NumberFormatException e) {\n");
+        out.append("            throw new JsonSyntaxException(e);\n");
+        out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    private static String assign(Property property, String value) {
+        if (property.setter != null) {
+            return "value." + property.setter + "(" + value + ")";
+        }
+        return "value." + property.name + " = " + value;
+    }
+
+    private String newInstance(TypeElement type) {
+        if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+            return "(" + newInstance((TypeElement) type.getEnclosingElement()) + ").new " + type.getSimpleName() + "()";
+        }
+        return "new " + type.getQualifiedName() + "()";
+    }
+
+    private String typeToken(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return "new TypeToken<" + type + ">() {}";
+        }
+        return "TypeToken.get(" + processingEnv.getTypeUtils().erasure(type) + ".class)";
+    }
+
+    private String boxedName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private String packageOf(Element element) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(element);
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+
+    /**
+     * HomeDataBean.Data -> HomeDataBean_DataTypeAdapter
+     */
+    private static String adapterName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing.getKind() == ElementKind.CLASS) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(ADAPTER_SUFFIX).toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                element + ": " + message, element);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
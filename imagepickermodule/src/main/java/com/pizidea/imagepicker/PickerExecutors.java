@@ -0,0 +1,82 @@
+/*
+ *
+ *  * Copyright (C) 2015 Eason.Lai (easonline7@gmail.com)
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *
+ */
+
+package com.pizidea.imagepicker;
+
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <b>Background threads of the picker</b><br/>
+ * The picker does not create threads of its own: the host app hands in its shared pools with
+ * {@link #setDiskExecutor(Executor)} (MediaStore queries) and {@link #setDecodeExecutor(Executor)} (thumbnails),
+ * before the picker is opened. Without them both run on one small fallback pool, so the lib still works alone.
+ */
+public class PickerExecutors {
+
+    private static final int FALLBACK_THREAD_COUNT = 2;
+
+    private static Executor sDiskExecutor;
+    private static Executor sDecodeExecutor;
+    private static Executor sFallbackExecutor;
+
+    private PickerExecutors() {
+    }
+
+    public static synchronized void setDiskExecutor(Executor executor) {
+        sDiskExecutor = executor;
+    }
+
+    public static synchronized void setDecodeExecutor(Executor executor) {
+        sDecodeExecutor = executor;
+    }
+
+    public static synchronized Executor disk() {
+        return sDiskExecutor != null ? sDiskExecutor : fallback();
+    }
+
+    public static synchronized Executor decode() {
+        return sDecodeExecutor != null ? sDecodeExecutor : fallback();
+    }
+
+    private static Executor fallback() {
+        if (sFallbackExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(FALLBACK_THREAD_COUNT, FALLBACK_THREAD_COUNT,
+                    1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "PickerExecutors");
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            sFallbackExecutor = executor;
+        }
+        return sFallbackExecutor;
+    }
+}
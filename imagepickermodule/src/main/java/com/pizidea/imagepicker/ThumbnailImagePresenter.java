@@ -0,0 +1,332 @@
+/*
+ *
+ *  * Copyright (C) 2015 Eason.Lai (easonline7@gmail.com)
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *
+ */
+
+package com.pizidea.imagepicker;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.media.ThumbnailUtils;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <b>ImagePresenter for the picker grid</b><br/>
+ * Shows local images as small square thumbnails instead of decoding the original files:
+ * the EXIF embedded thumbnail is used when it is big enough for the cell, otherwise the file is decoded with
+ * inSampleSize bounded by the cell size. Thumbnails are cropped to size x size in RGB_565 and kept in an
+ * LruCache of about three screens. The newest request is decoded first, and a cell's pending decode is
+ * cancelled when it is bound to another image or scrolled away ({@link #cancel(ImageView)}).<br/>
+ * Decoding runs on {@link PickerExecutors#decode()}, at most {@value #THREAD_COUNT} at a time. The cache is
+ * trimmed on onTrimMemory and should be {@link #clear() cleared} when the picker is closed.<br/>
+ * Call it on the main thread.
+ */
+public class ThumbnailImagePresenter implements ImagePresenter {
+
+    private static final int THREAD_COUNT = 2;
+    private static final int CACHE_SCREENS = 3;
+
+    private static ThumbnailImagePresenter instance;
+
+    public static synchronized ThumbnailImagePresenter getInstance(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailImagePresenter(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final LruCache<String, Bitmap> mCache;
+    // waiting tasks, newest first: the cells just bound are the ones on screen
+    private final ArrayDeque<LoadTask> mQueue = new ArrayDeque<>();
+    // drain runnables submitted to the decode executor, guarded by mQueue
+    private int mRunning;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    // the pending task of each ImageView, only touched on the main thread
+    private final Map<ImageView, LoadTask> mTasks = new HashMap<>();
+
+    private ThumbnailImagePresenter(Context context) {
+        DisplayMetrics dm = context.getResources().getDisplayMetrics();
+        long screenBytes = (long) dm.widthPixels * dm.heightPixels * 2;//RGB_565, cells cover the screen
+        int cacheBytes = (int) Math.min(screenBytes * CACHE_SCREENS, Runtime.getRuntime().maxMemory() / 8);
+        mCache = new LruCache<String, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+
+        context.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                mCache.evictAll();
+            }
+        });
+    }
+
+    @Override
+    public void onPresentImage(ImageView imageView, String imageUri, int size) {
+        if (size <= 0) {
+            size = imageView.getResources().getDisplayMetrics().widthPixels / 3;//same as the grid
+        }
+        String key = imageUri + "@" + size;
+        LoadTask pending = mTasks.get(imageView);
+        if (pending != null && pending.key.equals(key)) {
+            return;//already loading this one
+        }
+        cancel(imageView);
+
+        Bitmap bitmap = mCache.get(key);
+        if (bitmap != null) {
+            imageView.setImageBitmap(bitmap);
+            return;
+        }
+
+        imageView.setImageResource(R.drawable.default_img);
+        LoadTask task = new LoadTask(imageView, imageUri, size, key);
+        mTasks.put(imageView, task);
+        schedule(task);
+    }
+
+    /**
+     * cancel the pending decode of an ImageView, e.g. when its cell is scrolled away
+     */
+    public void cancel(ImageView imageView) {
+        LoadTask task = mTasks.remove(imageView);
+        if (task != null) {
+            task.cancelled = true;
+            synchronized (mQueue) {
+                mQueue.remove(task);
+            }
+        }
+    }
+
+    /**
+     * drop all pending decodes and the cached thumbnails, call it when the picker is closed
+     */
+    public void clear() {
+        for (LoadTask task : mTasks.values()) {
+            task.cancelled = true;
+        }
+        mTasks.clear();
+        synchronized (mQueue) {
+            mQueue.clear();
+        }
+        mCache.evictAll();
+    }
+
+    /**
+     * ComponentCallbacks2.onTrimMemory: empty the cache once the UI is hidden, halve it when memory runs low
+     */
+    void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            mCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mCache.trimToSize(mCache.maxSize() / 2);
+        }
+    }
+
+    private void schedule(LoadTask task) {
+        synchronized (mQueue) {
+            mQueue.addFirst(task);
+            if (mRunning >= THREAD_COUNT) {
+                return;
+            }
+            mRunning++;
+        }
+        try {
+            PickerExecutors.decode().execute(mDrain);
+        } catch (RejectedExecutionException e) {
+            //the shared pool is full, the task stays queued for the next drain
+            synchronized (mQueue) {
+                mRunning--;
+            }
+        }
+    }
+
+    private final Runnable mDrain = new Runnable() {
+        @Override
+        public void run() {
+            boolean idle = false;
+            try {
+                while (true) {
+                    LoadTask task;
+                    synchronized (mQueue) {
+                        task = mQueue.pollFirst();
+                        if (task == null) {
+                            //under the same lock as schedule(), so a task added now starts a new drain
+                            mRunning--;
+                            idle = true;
+                            return;
+                        }
+                    }
+                    task.run();
+                }
+            } finally {
+                if (!idle) {
+                    synchronized (mQueue) {
+                        mRunning--;
+                    }
+                }
+            }
+        }
+    };
+
+    /**
+     * decode a size x size thumbnail, background thread
+     */
+    static Bitmap decodeThumbnail(String path, int size) {
+        int degree = 0;
+        byte[] exifThumbnail = null;
+        try {
+            ExifInterface exif = new ExifInterface(path);
+            switch (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    degree = 90;
+                    break;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    degree = 180;
+                    break;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    degree = 270;
+                    break;
+            }
+            if (exif.hasThumbnail()) {
+                exifThumbnail = exif.getThumbnail();
+            }
+        } catch (IOException e) {
+            //no EXIF, decode the file
+        }
+
+        Bitmap bitmap = null;
+        if (exifThumbnail != null) {
+            bitmap = decodeSampled(exifThumbnail, null, size);
+        }
+        if (bitmap == null) {
+            bitmap = decodeSampled(null, path, size);
+        }
+        if (bitmap == null) {
+            return null;
+        }
+
+        if (degree != 0) {
+            Matrix matrix = new Matrix();
+            matrix.postRotate(degree);
+            Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+            if (rotated != bitmap) {
+                bitmap.recycle();
+                bitmap = rotated;
+            }
+        }
+        return ThumbnailUtils.extractThumbnail(bitmap, size, size, ThumbnailUtils.OPTIONS_RECYCLE_INPUT);
+    }
+
+    /**
+     * decode data (or the file at path if data is null) with the largest inSampleSize that keeps the short side
+     * at least size; for EXIF data returns null if it is smaller than half of size, too blurry for the cell
+     */
+    private static Bitmap decodeSampled(byte[] data, String path, int size) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decode(data, path, options);
+        int shortSide = Math.min(options.outWidth, options.outHeight);
+        if (shortSide <= 0 || (data != null && shortSide < size / 2)) {
+            return null;
+        }
+
+        int sampleSize = 1;
+        while (shortSide / (sampleSize * 2) >= size) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        try {
+            return decode(data, path, options);
+        } catch (OutOfMemoryError e) {
+            return null;
+        }
+    }
+
+    private static Bitmap decode(byte[] data, String path, BitmapFactory.Options options) {
+        return data != null ? BitmapFactory.decodeByteArray(data, 0, data.length, options)
+                : BitmapFactory.decodeFile(path, options);
+    }
+
+    private class LoadTask implements Runnable {
+        final ImageView imageView;
+        final String path;
+        final int size;
+        final String key;
+        volatile boolean cancelled;
+
+        LoadTask(ImageView imageView, String path, int size, String key) {
+            this.imageView = imageView;
+            this.path = path;
+            this.size = size;
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            final Bitmap bitmap = decodeThumbnail(path, size);
+            if (bitmap != null && !cancelled) {//not after clear()
+                mCache.put(key, bitmap);
+            }
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (cancelled || mTasks.get(imageView) != LoadTask.this) {
+                        return;
+                    }
+                    mTasks.remove(imageView);
+                    if (bitmap != null) {
+                        imageView.setImageBitmap(bitmap);
+                    } else {
+                        imageView.setImageResource(R.drawable.default_img);
+                    }
+                }
+            });
+        }
+    }
+
+}
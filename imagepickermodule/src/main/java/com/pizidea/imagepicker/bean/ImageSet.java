@@ -30,6 +30,8 @@ public class ImageSet implements Serializable {
     public String path;
     public ImageItem cover;
     public List<ImageItem> imageItems;
+    // number of images in the set; may be known before imageItems is fully loaded
+    public int count;
 
     @Override
     public boolean equals(Object o) {
@@ -26,4 +26,9 @@ package com.pizidea.imagepicker.data;
  */
 public interface DataSource {
     void provideMediaItems(OnImagesLoadedListener loadedListener);
+
+    /**
+     * stop loading, the listener is not called any more; call it when the owner is destroyed
+     */
+    void cancel();
 }
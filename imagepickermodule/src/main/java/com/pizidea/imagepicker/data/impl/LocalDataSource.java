@@ -18,137 +18,288 @@
 
 package com.pizidea.imagepicker.data.impl;
 
+import android.content.ContentResolver;
 import android.content.Context;
 import android.database.Cursor;
-import android.os.Bundle;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.MediaStore;
-import android.support.v4.app.FragmentActivity;
-import android.support.v4.app.LoaderManager;
-import android.support.v4.content.CursorLoader;
-import android.support.v4.content.Loader;
+import android.util.Log;
 
 import com.pizidea.imagepicker.AndroidImagePicker;
+import com.pizidea.imagepicker.PickerExecutors;
 import com.pizidea.imagepicker.R;
 import com.pizidea.imagepicker.data.OnImagesLoadedListener;
 import com.pizidea.imagepicker.bean.ImageItem;
 import com.pizidea.imagepicker.bean.ImageSet;
 import com.pizidea.imagepicker.data.DataSource;
 
-import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * <b>DataSource of Android local Database</b><br/>
+ * The MediaStore cursor is read on {@link PickerExecutors#disk()}. "All images" is delivered as soon as the first page
+ * is read and the rest follows in chunks, so the listener may be called several times with the same, growing
+ * list; images are grouped into folders with a HashMap keyed by directory, in one pass. A folder is only
+ * listed once its first image is read, so it never opens empty while loading.<br/>
+ * The owner must call {@link #cancel()} when it is destroyed, nothing is delivered after that.
  * Created by Eason.Lai on 2015/11/1 10:42
  * contact：easonline7@gmail.com
  */
-public class LocalDataSource implements DataSource, LoaderManager.LoaderCallbacks<Cursor>{
+public class LocalDataSource implements DataSource {
 
-    private final String[] IMAGE_PROJECTION = {
+    private static final String TAG = LocalDataSource.class.getSimpleName();
+
+    private static final String[] IMAGE_PROJECTION = {
             MediaStore.Images.Media.DATA,
             MediaStore.Images.Media.DISPLAY_NAME,
             MediaStore.Images.Media.DATE_ADDED,
             MediaStore.Images.Media._ID };
 
-    // different loader define
-    public static final int LOADER_ALL = 0;
-    public static final int LOADER_CATEGORY = 1;
+    private static final String COLUMN_COUNT = "image_count";
+
+    // first delivery, about a few screens of the grid
+    private static final int FIRST_PAGE_SIZE = 120;
+    // following deliveries
+    private static final int PAGE_SIZE = 2000;
 
     OnImagesLoadedListener imagesLoadedListener;
     Context mContext;
-    // ImageSet data
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // ImageSet data, item 0 is "all images"; only touched on the main thread
     private ArrayList<ImageSet> mImageSetList = new ArrayList<>();
+    // folders by lower-cased directory path (ImageSet.equals ignores case)
+    private final HashMap<String, ImageSet> mImageSetMap = new HashMap<>();
+    private ImageSet mImageSetAll;
+
+    private FutureTask<Void> mLoadTask;
+    private volatile boolean mCancelled;
 
     @Override
     public void provideMediaItems(OnImagesLoadedListener loadedListener) {
         this.imagesLoadedListener = loadedListener;
-        if(mContext instanceof FragmentActivity){
-            ((FragmentActivity)mContext).getSupportLoaderManager().initLoader(LOADER_ALL,null,this);
-        }else{
-            throw new RuntimeException("your activity must be instance of FragmentActivity");
+        mLoadTask = new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+                loadImages();
+            }
+        }, null);
+        try {
+            PickerExecutors.disk().execute(mLoadTask);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "image query rejected", e);
         }
     }
 
+    /**
+     * main thread: stop reading the cursor and drop the pages not delivered yet
+     */
+    @Override
+    public void cancel() {
+        mCancelled = true;
+        if (mLoadTask != null) {
+            mLoadTask.cancel(true);
+            mLoadTask = null;
+        }
+        mMainHandler.removeCallbacksAndMessages(null);
+        imagesLoadedListener = null;
+    }
+
     public LocalDataSource(Context ctx){
         this.mContext = ctx;
     }
 
-    @Override
-    public Loader<Cursor> onCreateLoader(int id, Bundle args) {
-        if(id == LOADER_ALL) {//scan all
-            CursorLoader cursorLoader = new CursorLoader(mContext,
-                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI, IMAGE_PROJECTION,
-                    null, null, IMAGE_PROJECTION[2] + " DESC");
-            return cursorLoader;
-        }else if(id == LOADER_CATEGORY){//scan one dir
-            CursorLoader cursorLoader = new CursorLoader(mContext,
-                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI, IMAGE_PROJECTION,
-                    IMAGE_PROJECTION[0]+" like '%"+args.getString("path")+"%'", null, IMAGE_PROJECTION[2] + " DESC");
-            return cursorLoader;
+    /**
+     * background thread
+     */
+    private void loadImages() {
+        ContentResolver resolver = mContext.getContentResolver();
+        List<ImageSet> folders = queryFolders(resolver);
+        if (mCancelled) {
+            return;
         }
 
-        return null;
-    }
+        Cursor data = resolver.query(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, IMAGE_PROJECTION,
+                null, null, IMAGE_PROJECTION[2] + " DESC");
+        if (data == null) {
+            return;
+        }
+        try {
+            int pathIndex = data.getColumnIndexOrThrow(IMAGE_PROJECTION[0]);
+            int nameIndex = data.getColumnIndexOrThrow(IMAGE_PROJECTION[1]);
+            int timeIndex = data.getColumnIndexOrThrow(IMAGE_PROJECTION[2]);
 
-    @Override
-    public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
-        mImageSetList.clear();
-        if(data != null){
-            List<ImageItem> allImages = new ArrayList<>();
-            int count = data.getCount();
-            if(count <= 0 ){
-                return;
+            List<ImageItem> page = new ArrayList<>(FIRST_PAGE_SIZE);
+            int pageSize = FIRST_PAGE_SIZE;
+            while (data.moveToNext()) {
+                String imagePath = data.getString(pathIndex);
+                if (imagePath == null) {
+                    continue;
+                }
+                page.add(new ImageItem(imagePath, data.getString(nameIndex), data.getLong(timeIndex)));
+                if (page.size() >= pageSize) {
+                    if (mCancelled) {
+                        return;
+                    }
+                    publish(folders, page, false);
+                    folders = null;
+                    page = new ArrayList<>(PAGE_SIZE);
+                    pageSize = PAGE_SIZE;
+                }
+            }
+            if (!mCancelled) {
+                publish(folders, page, true);
             }
+        } finally {
+            data.close();
+        }
+    }
 
-            data.moveToFirst();
-            do{
-                String imagePath = data.getString(data.getColumnIndexOrThrow(IMAGE_PROJECTION[0]));
-                String imageName = data.getString(data.getColumnIndexOrThrow(IMAGE_PROJECTION[1]));
-                long imageAddedTime = data.getLong(data.getColumnIndexOrThrow(IMAGE_PROJECTION[2]));
-
-                ImageItem item = new ImageItem(imagePath,imageName,imageAddedTime);
-                allImages.add(item);
-
-                File imageFile = new File(imagePath);
-                File imageParentFile = imageFile.getParentFile();
-
-                ImageSet imageSet = new ImageSet();
-                imageSet.name = imageParentFile.getName();
-                imageSet.path = imageParentFile.getAbsolutePath();
-                imageSet.cover = item;
-
-                if(!mImageSetList.contains(imageSet)){
-                    List<ImageItem> imageList = new ArrayList<>();
-                    imageList.add(item);
-                    imageSet.imageItems = imageList;
-                    mImageSetList.add(imageSet);
-                } else {
-                    mImageSetList.get(mImageSetList.indexOf(imageSet)).imageItems.add(item);
+    /**
+     * One row per folder with its image count and newest image, using the "GROUP BY" selection that
+     * MediaProvider accepts before Android Q. Returns null when it is not available, then folders are
+     * built from the image rows only and counts appear as images are read.
+     */
+    private List<ImageSet> queryFolders(ContentResolver resolver) {
+        if (Build.VERSION.SDK_INT >= 29) {
+            return null;
+        }
+        String[] projection = {
+                MediaStore.Images.Media.DATA,
+                MediaStore.Images.Media.DISPLAY_NAME,
+                "MAX(" + MediaStore.Images.Media.DATE_ADDED + ") AS " + MediaStore.Images.Media.DATE_ADDED,
+                "COUNT(*) AS " + COLUMN_COUNT };
+        Cursor cursor;
+        try {
+            cursor = resolver.query(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, projection,
+                    "1=1) GROUP BY (" + MediaStore.Images.Media.BUCKET_ID, null,
+                    MediaStore.Images.Media.DATE_ADDED + " DESC");
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            List<ImageSet> folders = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                String coverPath = cursor.getString(0);
+                if (coverPath == null) {
+                    continue;
                 }
+                ImageItem cover = new ImageItem(coverPath, cursor.getString(1), cursor.getLong(2));
+                ImageSet imageSet = newImageSet(directoryOf(coverPath), cover);
+                imageSet.count = cursor.getInt(3);
+                folders.add(imageSet);
+            }
+            return folders;
+        } catch (RuntimeException e) {
+            return null;
+        } finally {
+            cursor.close();
+        }
+    }
 
-            }while(data.moveToNext());
+    private void publish(final List<ImageSet> folders, final List<ImageItem> page, final boolean finished) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!mCancelled) {
+                    appendPage(folders, page, finished);
+                }
+            }
+        });
+    }
 
-            ImageSet imageSetAll = new ImageSet();
-            imageSetAll.name= mContext.getResources().getString(R.string.all_images);
-            imageSetAll.cover = allImages.get(0);
-            imageSetAll.imageItems = allImages;
-            imageSetAll.path = "/";
+    /**
+     * main thread
+     */
+    private void appendPage(List<ImageSet> folders, List<ImageItem> page, boolean finished) {
+        if (folders != null) {
+            int total = 0;
+            //only the counts and covers are known yet, the folders are listed when their images are read
+            for (ImageSet imageSet : folders) {
+                String key = imageSet.path.toLowerCase(Locale.US);
+                if (!mImageSetMap.containsKey(key)) {
+                    mImageSetMap.put(key, imageSet);
+                    total += imageSet.count;
+                }
+            }
+            if (mImageSetAll != null) {
+                mImageSetAll.count = total;
+            } else if (!page.isEmpty()) {
+                addImageSetAll(page.get(0)).count = total;
+            }
+        }
 
-            if(mImageSetList.contains(imageSetAll)){
-                mImageSetList.remove(imageSetAll);//the first item is "all images"
+        for (ImageItem item : page) {
+            if (mImageSetAll == null) {
+                addImageSetAll(item);
             }
-            mImageSetList.add(0,imageSetAll);
+            mImageSetAll.imageItems.add(item);
 
-            imagesLoadedListener.onImagesLoaded(mImageSetList);//notify the data changed
+            String directory = directoryOf(item.path);
+            String key = directory.toLowerCase(Locale.US);
+            ImageSet imageSet = mImageSetMap.get(key);
+            if (imageSet == null) {
+                imageSet = newImageSet(directory, item);
+                mImageSetMap.put(key, imageSet);
+            }
+            if (imageSet.imageItems.isEmpty()) {
+                //rows come newest first, so folders are listed in the same order as the grouped query
+                mImageSetList.add(imageSet);
+            }
+            imageSet.imageItems.add(item);
+        }
 
-            AndroidImagePicker.getInstance().setImageSets(mImageSetList);
+        if (mImageSetAll == null) {
+            return;//no image at all
+        }
 
+        if (finished) {
+            //counts from the grouped query may be stale, folders without images were never listed
+            for (ImageSet imageSet : mImageSetList) {
+                imageSet.count = imageSet.imageItems.size();
+            }
         }
 
+        imagesLoadedListener.onImagesLoaded(mImageSetList);//notify the data changed
+
+        AndroidImagePicker.getInstance().setImageSets(mImageSetList);
     }
 
-    @Override public void onLoaderReset(Loader<Cursor> loader) { }
+    private ImageSet addImageSetAll(ImageItem cover) {
+        mImageSetAll = new ImageSet();
+        mImageSetAll.name = mContext.getResources().getString(R.string.all_images);
+        mImageSetAll.cover = cover;
+        mImageSetAll.imageItems = new ArrayList<>();
+        mImageSetAll.path = "/";
+        mImageSetList.add(0, mImageSetAll);//the first item is "all images"
+        return mImageSetAll;
+    }
 
+    private static ImageSet newImageSet(String directory, ImageItem cover) {
+        ImageSet imageSet = new ImageSet();
+        imageSet.name = directory.substring(directory.lastIndexOf('/') + 1);
+        imageSet.path = directory;
+        imageSet.cover = cover;
+        imageSet.imageItems = new ArrayList<>();
+        return imageSet;
+    }
+
+    /**
+     * same as new File(path).getParentFile().getAbsolutePath() for the absolute paths in MediaStore
+     */
+    private static String directoryOf(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash > 0 ? path.substring(0, slash) : "/";
+    }
 
 }
@@ -32,6 +32,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowManager;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.AdapterView.OnItemClickListener;
 import android.widget.BaseAdapter;
@@ -45,8 +46,8 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.pizidea.imagepicker.AndroidImagePicker;
-import com.pizidea.imagepicker.GlideImagePresenter;
 import com.pizidea.imagepicker.ImagePresenter;
+import com.pizidea.imagepicker.ThumbnailImagePresenter;
 import com.pizidea.imagepicker.R;
 import com.pizidea.imagepicker.Util;
 import com.pizidea.imagepicker.bean.ImageItem;
@@ -82,6 +83,7 @@ public class ImagesGridFragment extends Fragment implements OnImagesLoadedListen
 
     ImagePresenter mImagePresenter;
     AndroidImagePicker androidImagePicker;
+    private DataSource mDataSource;//loads in the background until this fragment is destroyed
 
     private OnItemClickListener mOnItemClickListener;//Grid Item click Listener
 
@@ -152,10 +154,21 @@ public class ImagesGridFragment extends Fragment implements OnImagesLoadedListen
             }
         }));//stop loading if fling or scrolling if using UIL*/
 
-        mImagePresenter = new GlideImagePresenter();
+        mImagePresenter = ThumbnailImagePresenter.getInstance(mContext);//small cached thumbnails, not the original files
+        mGridView.setRecyclerListener(new AbsListView.RecyclerListener() {
+            @Override
+            public void onMovedToScrapHeap(View view) {
+                if (view.getTag() instanceof ImageGridAdapter.ViewHolder) {//cell scrolled away, drop its pending decode
+                    ThumbnailImagePresenter.getInstance(mContext).cancel(((ImageGridAdapter.ViewHolder) view.getTag()).ivPic);
+                }
+            }
+        });
 
-        DataSource dataSource = new LocalDataSource(mContext);
-        dataSource.provideMediaItems(this);//select all images from local database
+        if (mDataSource != null) {
+            mDataSource.cancel();//view recreated, the old one delivers to the old views
+        }
+        mDataSource = new LocalDataSource(mContext);
+        mDataSource.provideMediaItems(this);//select all images from local database
 
         final int width = getResources().getDisplayMetrics().widthPixels;
         final int height = getResources().getDisplayMetrics().heightPixels;
@@ -376,6 +389,13 @@ public class ImagesGridFragment extends Fragment implements OnImagesLoadedListen
     @Override
     public void onImagesLoaded(List<ImageSet> imageSetList) {
 
+        if (mAdapter != null && mImageSetList == imageSetList) {
+            //more images loaded, the lists only grow: refresh in place and keep the scroll position
+            mAdapter.notifyDataSetChanged();
+            mImageSetAdapter.notifyDataSetChanged();
+            return;
+        }
+
         mImageSetList = imageSetList;
 
         btnDir.setText(imageSetList.get(0).name);
@@ -537,7 +557,7 @@ public class ImagesGridFragment extends Fragment implements OnImagesLoadedListen
 
             void bindData(ImageSet data) {
                 name.setText(data.name);
-                size.setText(data.imageItems.size()+mContext.getResources().getString(R.string.piece));
+                size.setText(Math.max(data.count, data.imageItems.size())+mContext.getResources().getString(R.string.piece));
                 mImagePresenter.onPresentImage(cover, data.cover.path, imageGridSize);
             }
 
@@ -548,6 +568,13 @@ public class ImagesGridFragment extends Fragment implements OnImagesLoadedListen
 
     @Override
     public void onDestroy() {
+        if (mDataSource != null) {
+            mDataSource.cancel();
+            mDataSource = null;
+        }
+        if (!mContext.isChangingConfigurations()) {
+            ThumbnailImagePresenter.getInstance(mContext).clear();//picker closed, give the thumbnails back
+        }
         androidImagePicker.removeOnImageItemSelectedListener(this);
         androidImagePicker.removeOnImageCropCompleteListener(this);
         //androidImagePicker.clear();
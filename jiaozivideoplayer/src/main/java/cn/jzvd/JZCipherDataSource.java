@@ -0,0 +1,40 @@
+package cn.jzvd;
+
+import android.annotation.TargetApi;
+import android.media.MediaDataSource;
+import android.os.Build;
+
+import com.android.baselibrary.service.aes.ChunkedCipherFile;
+
+import java.io.IOException;
+
+/**
+ * 播放分块加密的本地缓存视频，MediaPlayer 读取哪里就只解密那一块，拖动进度不需要解密整个文件
+ */
+@TargetApi(Build.VERSION_CODES.M)
+public class JZCipherDataSource extends MediaDataSource {
+
+    private final ChunkedCipherFile file;
+
+    public JZCipherDataSource(ChunkedCipherFile file) {
+        this.file = file;
+    }
+
+    @Override
+    public int readAt(long position, byte[] buffer, int offset, int size) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        return file.read(position, buffer, offset, size);
+    }
+
+    @Override
+    public long getSize() {
+        return file.length();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
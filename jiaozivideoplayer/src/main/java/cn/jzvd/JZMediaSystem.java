@@ -2,8 +2,11 @@ package cn.jzvd;
 
 import android.media.AudioManager;
 import android.media.MediaPlayer;
+import android.os.Build;
 import android.view.Surface;
 
+import com.android.baselibrary.service.aes.OfflineVideoCipher;
+
 import java.lang.reflect.Method;
 import java.util.Map;
 
@@ -34,10 +37,17 @@ public class JZMediaSystem extends JZMediaInterface implements MediaPlayer.OnPre
             mediaPlayer.setOnErrorListener(JZMediaSystem.this);
             mediaPlayer.setOnInfoListener(JZMediaSystem.this);
             mediaPlayer.setOnVideoSizeChangedListener(JZMediaSystem.this);
+            String url = jzDataSource.getCurrentUrl().toString();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && OfflineVideoCipher.isEncrypted(url)) {
+                //加密的离线缓存，边播边解密
+                mediaPlayer.setDataSource(new JZCipherDataSource(OfflineVideoCipher.open(url)));
+                mediaPlayer.prepareAsync();
+                return;
+            }
             Class<MediaPlayer> clazz = MediaPlayer.class;
             Method method = clazz.getDeclaredMethod("setDataSource", String.class, Map.class);
 //            if (dataSourceObjects.length > 2) {
-            method.invoke(mediaPlayer, jzDataSource.getCurrentUrl().toString(), jzDataSource.headerMap);
+            method.invoke(mediaPlayer, url, jzDataSource.headerMap);
 //            } else {
 //                method.invoke(mediaPlayer, currentDataSource.toString(), null);
 //            }
@@ -28,10 +28,11 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.android.baselibrary.service.bean.home.HomeBannerBean;
+import com.android.baselibrary.thread.AppExecutors;
 
 import java.lang.reflect.Constructor;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Nathen on 16/7/30.
@@ -96,7 +97,7 @@ public abstract class Jzvd extends FrameLayout implements View.OnClickListener,
         }
     };
     protected static JZUserAction JZ_USER_EVENT;
-    protected Timer UPDATE_PROGRESS_TIMER;
+    protected ScheduledFuture<?> UPDATE_PROGRESS_TIMER;
     public int currentState = -1;
     public int currentScreen = -1;
     public long seekToInAdvance = 0;
@@ -915,18 +916,16 @@ public abstract class Jzvd extends FrameLayout implements View.OnClickListener,
     public void startProgressTimer() {
         Log.i(TAG, "startProgressTimer: " + " [" + this.hashCode() + "] ");
         cancelProgressTimer();
-        UPDATE_PROGRESS_TIMER = new Timer();
         mProgressTimerTask = new ProgressTimerTask();
-        UPDATE_PROGRESS_TIMER.schedule(mProgressTimerTask, 0, 300);
+        UPDATE_PROGRESS_TIMER = AppExecutors.timer().scheduleAtFixedRate(mProgressTimerTask, 0, 300, TimeUnit.MILLISECONDS);
     }
 
     public void cancelProgressTimer() {
         if (UPDATE_PROGRESS_TIMER != null) {
-            UPDATE_PROGRESS_TIMER.cancel();
-        }
-        if (mProgressTimerTask != null) {
-            mProgressTimerTask.cancel();
+            UPDATE_PROGRESS_TIMER.cancel(false);
+            UPDATE_PROGRESS_TIMER = null;
         }
+        mProgressTimerTask = null;
     }
 
     public void onProgress(int progress, long position, long duration) {
@@ -1208,7 +1207,7 @@ public abstract class Jzvd extends FrameLayout implements View.OnClickListener,
         }
     }
 
-    public class ProgressTimerTask extends TimerTask {
+    public class ProgressTimerTask implements Runnable {
         @Override
         public void run() {
             if (currentState == CURRENT_STATE_PLAYING || currentState == CURRENT_STATE_PAUSE) {
@@ -28,12 +28,13 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.android.baselibrary.service.bean.home.HomeBannerBean;
+import com.android.baselibrary.thread.AppExecutors;
 import com.android.baselibrary.util.GlideUtils;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Nathen
@@ -41,7 +42,7 @@ import java.util.TimerTask;
  */
 public class JzvdStd extends Jzvd {
 
-    protected static Timer DISMISS_CONTROL_VIEW_TIMER;
+    protected static ScheduledFuture<?> DISMISS_CONTROL_VIEW_TIMER;
 
     public RelativeLayout backButton;
     public ProgressBar loadingProgressBar;
@@ -883,18 +884,16 @@ public class JzvdStd extends Jzvd {
 
     public void startDismissControlViewTimer() {
         cancelDismissControlViewTimer();
-        DISMISS_CONTROL_VIEW_TIMER = new Timer();
         mDismissControlViewTimerTask = new DismissControlViewTimerTask();
-        DISMISS_CONTROL_VIEW_TIMER.schedule(mDismissControlViewTimerTask, 2500);
+        DISMISS_CONTROL_VIEW_TIMER = AppExecutors.timer().schedule(mDismissControlViewTimerTask, 2500, TimeUnit.MILLISECONDS);
     }
 
     public void cancelDismissControlViewTimer() {
         if (DISMISS_CONTROL_VIEW_TIMER != null) {
-            DISMISS_CONTROL_VIEW_TIMER.cancel();
-        }
-        if (mDismissControlViewTimerTask != null) {
-            mDismissControlViewTimerTask.cancel();
+            DISMISS_CONTROL_VIEW_TIMER.cancel(false);
+            DISMISS_CONTROL_VIEW_TIMER = null;
         }
+        mDismissControlViewTimerTask = null;
 
     }
 
@@ -935,7 +934,7 @@ public class JzvdStd extends Jzvd {
         }
     }
 
-    public class DismissControlViewTimerTask extends TimerTask {
+    public class DismissControlViewTimerTask implements Runnable {
 
         @Override
         public void run() {
@@ -16,6 +16,7 @@
 
 package com.downloader;
 
+import com.downloader.core.ExecutorSupplier;
 import com.downloader.httpclient.DefaultHttpClient;
 import com.downloader.httpclient.HttpClient;
 
@@ -30,6 +31,7 @@ public class PRDownloaderConfig {
     private String userAgent;
     private HttpClient httpClient;
     private boolean databaseEnabled;
+    private ExecutorSupplier executorSupplier;
 
     private PRDownloaderConfig(Builder builder) {
         this.readTimeout = builder.readTimeout;
@@ -37,6 +39,7 @@ public class PRDownloaderConfig {
         this.userAgent = builder.userAgent;
         this.httpClient = builder.httpClient;
         this.databaseEnabled = builder.databaseEnabled;
+        this.executorSupplier = builder.executorSupplier;
     }
 
     public int getReadTimeout() {
@@ -79,6 +82,14 @@ public class PRDownloaderConfig {
         this.databaseEnabled = databaseEnabled;
     }
 
+    public ExecutorSupplier getExecutorSupplier() {
+        return executorSupplier;
+    }
+
+    public void setExecutorSupplier(ExecutorSupplier executorSupplier) {
+        this.executorSupplier = executorSupplier;
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
@@ -90,6 +101,7 @@ public class PRDownloaderConfig {
         String userAgent = Constants.DEFAULT_USER_AGENT;
         HttpClient httpClient = new DefaultHttpClient();
         boolean databaseEnabled = false;
+        ExecutorSupplier executorSupplier;
 
         public Builder setReadTimeout(int readTimeout) {
             this.readTimeout = readTimeout;
@@ -116,6 +128,14 @@ public class PRDownloaderConfig {
             return this;
         }
 
+        /**
+         * Uses the given executors instead of the default thread pools, must be set before the first download.
+         */
+        public Builder setExecutorSupplier(ExecutorSupplier executorSupplier) {
+            this.executorSupplier = executorSupplier;
+            return this;
+        }
+
         public PRDownloaderConfig build() {
             return new PRDownloaderConfig(this);
         }
@@ -16,6 +16,8 @@
 
 package com.downloader.core;
 
+import com.downloader.internal.ComponentHolder;
+
 /**
  * Created by amitshekhar on 13/11/17.
  */
@@ -26,7 +28,8 @@ public class Core {
     private final ExecutorSupplier executorSupplier;
 
     private Core() {
-        this.executorSupplier = new DefaultExecutorSupplier();
+        ExecutorSupplier supplier = ComponentHolder.getInstance().getExecutorSupplier();
+        this.executorSupplier = supplier != null ? supplier : new DefaultExecutorSupplier();
     }
 
     public static Core getInstance() {
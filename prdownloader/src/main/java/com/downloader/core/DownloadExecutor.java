@@ -30,7 +30,7 @@ import java.util.concurrent.TimeUnit;
 
 public class DownloadExecutor extends ThreadPoolExecutor {
 
-    DownloadExecutor(int maxNumThreads, ThreadFactory threadFactory) {
+    public DownloadExecutor(int maxNumThreads, ThreadFactory threadFactory) {
         super(maxNumThreads, maxNumThreads, 0, TimeUnit.MILLISECONDS,
                 new PriorityBlockingQueue<Runnable>(), threadFactory);
     }
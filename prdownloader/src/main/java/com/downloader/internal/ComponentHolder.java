@@ -21,6 +21,7 @@ import android.content.Context;
 import com.downloader.Constants;
 import com.downloader.PRDownloader;
 import com.downloader.PRDownloaderConfig;
+import com.downloader.core.ExecutorSupplier;
 import com.downloader.database.AppDbHelper;
 import com.downloader.database.DbHelper;
 import com.downloader.database.NoOpsDbHelper;
@@ -39,6 +40,7 @@ public class ComponentHolder {
     private String userAgent;
     private HttpClient httpClient;
     private DbHelper dbHelper;
+    private ExecutorSupplier executorSupplier;
 
     public static ComponentHolder getInstance() {
         return INSTANCE;
@@ -49,6 +51,7 @@ public class ComponentHolder {
         this.connectTimeout = config.getConnectTimeout();
         this.userAgent = config.getUserAgent();
         this.httpClient = config.getHttpClient();
+        this.executorSupplier = config.getExecutorSupplier();
         this.dbHelper = config.isDatabaseEnabled() ? new AppDbHelper(context) : new NoOpsDbHelper();
         if (config.isDatabaseEnabled()) {
             PRDownloader.cleanUp(30);
@@ -99,6 +102,10 @@ public class ComponentHolder {
         return dbHelper;
     }
 
+    public ExecutorSupplier getExecutorSupplier() {
+        return executorSupplier;
+    }
+
     public HttpClient getHttpClient() {
         if (httpClient == null) {
             synchronized (ComponentHolder.class) {